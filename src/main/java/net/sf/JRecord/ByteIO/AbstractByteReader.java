@@ -32,14 +32,17 @@
  */
 package net.sf.JRecord.ByteIO;
 
+import java.io.BufferedInputStream;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 
 import org.apache.hadoop.conf.Configuration;
-import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 
+import net.sf.JRecord.Common.IReaderListener;
+import net.sf.JRecord.hadoop.HadoopFiles;
+
 
 /**
  * This abstract class is the base class for all <b>Byte~Reader</b>
@@ -54,6 +57,12 @@ public abstract class AbstractByteReader implements IByteReader {
 	public static final int BUFFER_SIZE = 16384;
 
     private long bytesRead = 0;
+    private IReaderListener listener = null;
+    private int readAhead = 0;
+
+    private byte[] cursorBuffer = null;
+    private int cursorOffset = 0;
+    private int cursorLength = 0;
 
 	/**
 	 * create Binary Line Reader
@@ -71,14 +80,69 @@ public abstract class AbstractByteReader implements IByteReader {
     @Override
 
     public void open(Path fileName, Configuration conf) throws IOException {
-    	FileSystem fs = fileName.getFileSystem(conf);
-        open(fs.open(fileName));
+        open(HadoopFiles.openInput(fileName, conf));
     }
 
 
 
 
 
+	/**
+	 * Get a buffered version of the input stream. Local files and HDFS streams that
+	 * support ByteBuffer reads are read into large (direct) ByteBuffers
+	 * (see {@link ByteBufferInputStream}); other streams use a BufferedInputStream.
+	 *
+	 * @param in stream to be read
+	 * @return buffered stream
+	 */
+	protected static InputStream getBufferedStream(InputStream in) {
+		if (in instanceof BufferedInputStream || in instanceof ByteBufferInputStream
+		||  in instanceof ReadAheadInputStream) {
+			return in;
+		}
+
+		InputStream ret = ByteBufferInputStream.newStream(in);
+		if (ret == null) {
+			ret = new BufferedInputStream(in, BUFFER_SIZE);
+		}
+		return ret;
+	}
+
+
+	/**
+	 * Get the stream to be read; when read-ahead is on (see {@link #setReadAhead(int)})
+	 * the stream is read on a background thread.
+	 *
+	 * @param in stream to be read
+	 * @return stream to be read
+	 */
+	protected final InputStream getReadAheadStream(InputStream in) {
+		if (readAhead > 0 && ! (in instanceof ReadAheadInputStream)) {
+			return new ReadAheadInputStream(in, readAhead);
+		}
+		return in;
+	}
+
+	/**
+	 * @return number of megabytes read ahead of the current record (0 = no read ahead)
+	 */
+	public final int getReadAhead() {
+		return readAhead;
+	}
+
+	/**
+	 * Read the file ahead of the current record on a background thread
+	 * (see {@link ReadAheadInputStream}) so IO and record decoding overlap.
+	 * It must be set before the file is opened.
+	 *
+	 * @param megabytes number of megabytes to read ahead
+	 * (0 = no read ahead; the minimum is 2 i.e. double buffering)
+	 */
+	public final void setReadAhead(int megabytes) {
+		this.readAhead = megabytes;
+	}
+
+
 	/**
 	 * Read a complete buffers worth of data into buf from a input stream.
 	 *
@@ -107,14 +171,30 @@ public abstract class AbstractByteReader implements IByteReader {
 
 
 	protected final int readBuffer(InputStream in, final byte[] buf, int inTotal)
+	throws IOException {
+		return readBuffer(in, buf, inTotal, buf.length);
+	}
+
+	/**
+	 * Read bytes into buf (from position inTotal up to position end) from a input stream.
+	 *
+	 * @param in stream to be read.
+	 * @param buf buffer to be loaded with data
+	 * @param inTotal position in the buffer to start loading data
+	 * @param end position in the buffer to stop loading data
+	 *
+	 * @return the position in the buffer following the last byte read
+	 * @throws IOException IO Exception
+	 */
+	protected final int readBuffer(InputStream in, final byte[] buf, int inTotal, int end)
 	throws IOException {
 
 		int total = inTotal;
-		int num = in.read(buf, total, buf.length - total);
+		int num = in.read(buf, total, end - total);
 
-		while (num >= 0 && total + num < buf.length) {
+		while (num >= 0 && total + num < end) {
 			total += num;
-			num = in.read(buf, total, buf.length - total);
+			num = in.read(buf, total, end - total);
 		}
 
 		if (num > 0) {
@@ -151,7 +231,148 @@ public abstract class AbstractByteReader implements IByteReader {
 		return bytesRead;
 	}
 
+	/**
+	 * Get the position (relative to the start of the stream) of the next record
+	 * to be read. Readers that read ahead of the current record must override this method.
+	 *
+	 * @return position of the next record
+	 */
+	public long getNextRecordPosition() {
+		return getBytesRead();
+	}
+
+	/**
+	 * Advance to the next record without allocating a new byte array (where the
+	 * reader supports it). The record is then available via
+	 * {@link #buffer()}, {@link #offset()} and {@link #length()}.
+	 * The buffer belongs to the reader and its contents are only valid
+	 * until the next call to <b>next</b> / <b>read</b>.
+	 *
+	 * <p>Readers that can reuse their buffers should override this method;
+	 * the default implementation uses {@link #read()}.
+	 *
+	 * @return wether a record was read (false at end of file)
+	 * @throws IOException any IO error
+	 */
+	public boolean next() throws IOException {
+		byte[] rec = read();
+
+		if (rec == null) {
+			setCursor(null, 0, 0);
+			return false;
+		}
+		setCursor(rec, 0, rec.length);
+		return true;
+	}
+
+	/**
+	 * @return buffer holding the current record (see {@link #next()})
+	 */
+	public final byte[] buffer() {
+		return cursorBuffer;
+	}
+
+	/**
+	 * @return position of the current record in {@link #buffer()}
+	 */
+	public final int offset() {
+		return cursorOffset;
+	}
+
+	/**
+	 * @return length of the current record
+	 */
+	public final int length() {
+		return cursorLength;
+	}
+
+	/**
+	 * Read the next record into a user supplied buffer.
+	 *
+	 * @param buf buffer to hold the record
+	 * @param off position in buf to store the record
+	 *
+	 * @return length of the record or -1 at end of file. If the
+	 * record is longer than the space available, only the first
+	 * <b>buf.length - off</b> bytes are copied (but the full length is returned).
+	 * @throws IOException any IO error
+	 */
+	public int readInto(byte[] buf, int off) throws IOException {
+		if (! next()) {
+			return -1;
+		}
+
+		System.arraycopy(cursorBuffer, cursorOffset, buf, off,
+				Math.min(cursorLength, buf.length - off));
+		return cursorLength;
+	}
+
+	/**
+	 * Set the current record (for use by {@link #next()})
+	 *
+	 * @param buf buffer holding the record
+	 * @param off position of the record in the buffer
+	 * @param len length of the record
+	 */
+	protected final void setCursor(byte[] buf, int off, int len) {
+		cursorBuffer = buf;
+		cursorOffset = off;
+		cursorLength = len;
+	}
+
 	protected final void incBytesRead(long amount) {
 		bytesRead += amount;
 	}
+
+	/**
+	 * @return the listener that is notified of every record read (may be null)
+	 */
+	public final IReaderListener getListener() {
+		return listener;
+	}
+
+	/**
+	 * Set a listener that is notified of every record read
+	 * (e.g. net.sf.JRecord.Common.ReaderStatistics).
+	 *
+	 * @param listener listener to be notified (null to stop notifications)
+	 */
+	public final void setListener(IReaderListener listener) {
+		this.listener = listener;
+	}
+
+	/**
+	 * Notify the listener (if there is one) that a record has been read
+	 *
+	 * @param record record just read (may be null at end of file)
+	 * @return the record
+	 */
+	protected final byte[] countRecord(byte[] record) {
+		if (listener != null && record != null) {
+			listener.recordRead(IReaderListener.UNKNOWN_RECORD_TYPE, record.length);
+		}
+		return record;
+	}
+
+	/**
+	 * Notify the listener (if there is one) that a record has been read
+	 * (for use by {@link #next()} implementations)
+	 *
+	 * @param length length of the record just read
+	 */
+	protected final void countRecord(int length) {
+		if (listener != null) {
+			listener.recordRead(IReaderListener.UNKNOWN_RECORD_TYPE, length);
+		}
+	}
+
+	/**
+	 * Notify the listener (if there is one) of an invalid
+	 * Record Descriptor Word / record length at the current position
+	 */
+	protected final void countInvalidRecordDescriptor() {
+		if (listener != null) {
+			listener.invalidRecordDescriptor(getBytesRead());
+		}
+	}
 }
@@ -32,9 +32,16 @@
  */
 package net.sf.JRecord.ByteIO;
 
+import java.io.BufferedOutputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.List;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+
+import net.sf.JRecord.hadoop.HadoopFiles;
 
 
 /**
@@ -48,6 +55,10 @@ public abstract class AbstractByteWriter {
 
     public static final String NOT_OPEN_MESSAGE = "File has not been opened";
 
+    private static final int BUFFER_SIZE = 0x4000;
+
+    private int batchSize = 0;
+
 
     /**
      * Open file for input
@@ -61,6 +72,22 @@ public abstract class AbstractByteWriter {
     }
 
 
+    /**
+     * Open a Hadoop file for output. The file is compressed
+     * when its extension belongs to a Hadoop compression codec (.gz, .bz2 etc).
+     * The block size, replication and buffer size can be set in the Configuration
+     * (see net.sf.JRecord.hadoop.JRecordConfiguration).
+     *
+     * @param fileName filename to be opened
+     * @param conf Hadoop configuration
+     *
+     * @throws IOException any IOerror
+     */
+    public void open(Path fileName, Configuration conf) throws IOException {
+        open(HadoopFiles.createOutput(fileName, conf));
+    }
+
+
     /**
      * Open file for input
      *
@@ -82,6 +109,59 @@ public abstract class AbstractByteWriter {
     public abstract void write(byte[] bytes) throws IOException;
 
 
+    /**
+     * Write a batch of lines to the output file
+     *
+     * @param lines lines to write to the output file
+     *
+     * @throws IOException any IOerror
+     */
+    public void writeBatch(List<byte[]> lines) throws IOException {
+    	for (byte[] line : lines) {
+    		write(line);
+    	}
+    }
+
+
+    /**
+     * Set batch mode. In batch mode records (and their RDW / End-Of-Line bytes) are packed
+     * into one large buffer which is written with a single FileChannel / HDFS write
+     * when it is full (see {@link BatchOutputStream}).
+     * It must be set before the file is opened.
+     *
+     * @param bytes size of the batch buffer in bytes (0 = no batching)
+     */
+    public void setBatchSize(int bytes) {
+    	batchSize = Math.max(0, bytes);
+    }
+
+
+    /**
+     * @return size of the batch buffer (0 = no batching)
+     */
+    public final int getBatchSize() {
+    	return batchSize;
+    }
+
+
+    /**
+     * Get the stream the writers should write to; a {@link BatchOutputStream}
+     * in batch mode otherwise a BufferedOutputStream.
+     *
+     * @param outputStream stream supplied by the user
+     * @return buffered stream
+     */
+    protected final OutputStream getBufferedStream(OutputStream outputStream) {
+    	if (batchSize > 0) {
+    		return new BatchOutputStream(outputStream, batchSize);
+    	}
+    	if (outputStream instanceof BufferedOutputStream || outputStream instanceof BatchOutputStream) {
+    		return outputStream;
+    	}
+    	return new BufferedOutputStream(outputStream, BUFFER_SIZE);
+    }
+
+
     /**
      * Closes the file
      *
@@ -27,6 +27,7 @@ package net.sf.JRecord.ByteIO;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Arrays;
 
 import net.sf.JRecord.Common.Constants;
 import net.sf.JRecord.Common.Conversion;
@@ -34,7 +35,7 @@ import net.sf.JRecord.Common.Conversion;
 /**
  * Reads a standard Text file (like standard readLine of Class BufferedReader) except it will return an
  * Array of Bytes (instead of a String). This allows binary data to be in a line (i.e. using X'FF' as a field
- * Separator). It has a limit of 256kb on the line size.
+ * Separator). The buffer grows to hold very long lines.
  *
  * @author  Bruce Martin
  * @version 0.68
@@ -63,14 +64,15 @@ public abstract class BaseByteTextReader extends AbstractByteReader {
 	protected byte[] eol = null;
 
 
-	protected final byte[] buffer = new byte[MAX_LINE_SIZE];
+	protected byte[] buffer = new byte[MAX_LINE_SIZE];
 	protected int bytesInBuffer;
-	protected final int[] lineArray = new int[16];
+	protected int[] lineArray = new int[1024];
 	protected int noLines, lineNo;
 
 	private InputStream in = null;
 	private boolean eof, eofPending;
 	private long bytesRead = 0;
+	private int lineStart, lineLength;
 
 	protected boolean check4cr = false;
 	protected boolean check4lf = false;
@@ -87,7 +89,7 @@ public abstract class BaseByteTextReader extends AbstractByteReader {
 
 	@Override
 	public void open(InputStream inputStream) throws IOException {
-		in = inputStream;
+		in = getReadAheadStream(inputStream);
 		eof = false;
 		check4lf = false;
 		check4cr = false;
@@ -140,14 +142,51 @@ public abstract class BaseByteTextReader extends AbstractByteReader {
 
 	@Override
 	public final byte[] read() throws IOException {
+		if (! nextLine()) {
+			return null;
+		}
+
+		byte[] ret = new byte[lineLength];
+		System.arraycopy(buffer, lineStart, ret, 0, lineLength);
+
+		return countRecord(ret);
+	}
+
+
+	/**
+	 * Position on the next line; the line is left in the readers buffer
+	 * (no copy is made).
+	 *
+	 * @see net.sf.JRecord.ByteIO.AbstractByteReader#next()
+	 */
+	@Override
+	public final boolean next() throws IOException {
+		if (! nextLine()) {
+			setCursor(null, 0, 0);
+			return false;
+		}
+
+		setCursor(buffer, lineStart, lineLength);
+		countRecord(lineLength);
+		return true;
+	}
+
+
+	/**
+	 * Find the next line in the buffer, its position is stored in
+	 * lineStart / lineLength
+	 *
+	 * @return wether there was a line
+	 * @throws IOException any IO error
+	 */
+	private boolean nextLine() throws IOException {
 		if (in == null) {
 			throw new IOException("File has not been opened");
 		}
 		if (eof) {
-			return null;
+			return false;
 		}
 
-		byte[] ret = null;
 		int lno = getLineNo();
 
 //		if (eof && lno >= lineArray.length) {
@@ -162,25 +201,26 @@ public abstract class BaseByteTextReader extends AbstractByteReader {
 		}
 		if (eof) {
 			if (bytesInBuffer <= srcPos) {
-				return null;
+				return false;
 			}
-			ret = new byte[bytesInBuffer - srcPos];
+			lineLength = bytesInBuffer - srcPos;
 		} else {
 			int eolLength = eol.length;
-			if (check4lf && (buffer[lineArray[lno+1] - eolLength - 1] == byteLF)) {
+			if (check4lf && lineArray[lno+1] - eolLength - 1 >= srcPos
+					&& (buffer[lineArray[lno+1] - eolLength - 1] == byteLF)) {
 				eolLength += 1;
 			}
 			if (lno+1 < lineArray.length) {
-				ret = new byte[lineArray[lno+1] -  srcPos - eolLength];
+				lineLength = lineArray[lno+1] -  srcPos - eolLength;
 			} else {
-				ret = new byte[buffer.length - srcPos];
+				lineLength = buffer.length - srcPos;
 			}
 			bytesRead += eolLength;
 		}
-		System.arraycopy(buffer, srcPos, ret, 0, ret.length);
-		bytesRead += ret.length;
+		lineStart = srcPos;
+		bytesRead += lineLength;
 
-		return ret;
+		return true;
 	}
 
 
@@ -208,12 +248,18 @@ public abstract class BaseByteTextReader extends AbstractByteReader {
 				eof = true;
 			} else {
 				findLinesInBuffer(lineArray[lineNo]);
-				if (noLines == 1) {
+				while (noLines == 1 && ! eof) {
 					if (eofPending) {
 						eof = true;
 					} else {
-						int len = bytesInBuffer - lineArray[lineNo];
-						System.arraycopy(buffer, lineArray[lineNo], buffer, 0, len);
+						int start = lineArray[lineNo];
+						int len = bytesInBuffer - start;
+						if (start == 0) {
+								/* the line fills the whole buffer, so the buffer must grow */
+							buffer = Arrays.copyOf(buffer, buffer.length * 2);
+						} else {
+							System.arraycopy(buffer, start, buffer, 0, len);
+						}
 
 						bytesInBuffer = readBuffer(in, buffer, len);
 						eofPending = bytesInBuffer < buffer.length;
@@ -227,6 +273,24 @@ public abstract class BaseByteTextReader extends AbstractByteReader {
 		return lineNo;
 	}
 
+	/**
+	 * Find the next occurrence of a byte in the buffer
+	 *
+	 * @param b byte to search for
+	 * @param from position to start searching from
+	 * @param to position to stop searching at
+	 *
+	 * @return position of the byte or -1 if it is not found
+	 */
+	protected final int indexOf(byte b, int from, int to) {
+		for (int pos = from; pos < to; pos++) {
+			if (buffer[pos] == b) {
+				return pos;
+			}
+		}
+		return -1;
+	}
+
 	private void findLinesInBuffer(int start) {
 		lineArray[0] = start;
 		noLines = 1;
@@ -276,17 +340,23 @@ public abstract class BaseByteTextReader extends AbstractByteReader {
 		 */
 		@Override
 		public void findLinesInBuffer(int start) {
-			byte last = -128;
-			int idx = eol.length - 1;
+			int first = start;
+			byte eolByte = eol[eol.length - 1];
+
+			while (start < bytesInBuffer && start >= 0) {
+				int pos = indexOf(eolByte, start, bytesInBuffer);
 
-			while (noLines < lineArray.length && start < bytesInBuffer && start >= 0) {
-				if ((buffer[start] == eol[idx]) && (eol.length == 1 || last == eol[0])) {
-					lineArray[noLines] = start+1;
+				if (pos < 0) {
+					break;
+				}
+				if (eol.length == 1 || (pos > first && buffer[pos - 1] == eol[0])) {
+					if (noLines >= lineArray.length) {
+						lineArray = Arrays.copyOf(lineArray, lineArray.length * 2);
+					}
+					lineArray[noLines] = pos + 1;
 					noLines += 1;
 				}
-
-				last = buffer[start];
-				start += 1;
+				start = pos + 1;
 			}
 		}
 	}
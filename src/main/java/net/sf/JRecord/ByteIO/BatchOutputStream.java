@@ -0,0 +1,162 @@
+/*  -------------------------------------------------------------------------
+ *
+ *            Sub-Project: JRecord Common
+ *    
+ *    Sub-Project purpose: Common Low-Level Code shared between 
+ *                        the JRecord and Record Projects
+ *    
+ *                 Author: Bruce Martin
+ *    
+ *                License: LGPL 2.1 or latter
+ *                
+ *    Copyright (c) 2016, Bruce Martin, All Rights Reserved.
+ *   
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation; either
+ *    version 2.1 of the License, or (at your option) any later version.
+ *   
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU Lesser General Public License for more details.
+ *
+ * ------------------------------------------------------------------------ */
+      
+package net.sf.JRecord.ByteIO;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * Output stream used by the Byte-Writers in batch mode
+ * (see {@link AbstractByteWriter#setBatchSize(int)}).
+ * Records and their RDW / EOL bytes are packed into one large
+ * buffer that is reused; a full buffer is written with a single
+ * FileChannel write (local files) or a single stream write (HDFS etc).
+ * Unlike BufferedOutputStream it is not synchronized.
+ *
+ * @author Bruce Martin
+ *
+ */
+public class BatchOutputStream extends OutputStream {
+
+	private final OutputStream out;
+	private final FileChannel channel;
+	private final byte[] buffer;
+	private final ByteBuffer byteBuffer;
+	private int count = 0;
+
+	/**
+	 * Create a batch output stream
+	 *
+	 * @param out stream to write to
+	 * @param size size of the batch buffer
+	 */
+	public BatchOutputStream(OutputStream out, int size) {
+		this.out = out;
+		this.buffer = new byte[size];
+
+		if (out instanceof FileOutputStream) {
+			channel = ((FileOutputStream) out).getChannel();
+			byteBuffer = ByteBuffer.wrap(buffer);
+		} else {
+			channel = null;
+			byteBuffer = null;
+		}
+	}
+
+	@Override
+	public void write(int b) throws IOException {
+		if (count >= buffer.length) {
+			flushBuffer();
+		}
+		buffer[count++] = (byte) b;
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		if (len > buffer.length - count) {
+			flushBuffer();
+			if (len >= buffer.length) {
+				writeDirect(b, off, len);
+				return;
+			}
+		}
+		System.arraycopy(b, off, buffer, count, len);
+		count += len;
+	}
+
+	/**
+	 * Write a byte a number of times (i.e. padding)
+	 *
+	 * @param b byte to write
+	 * @param num number of times to write it
+	 *
+	 * @throws IOException any IO error
+	 */
+	public void fill(int b, int num) throws IOException {
+		int len;
+		while (num > 0) {
+			if (count >= buffer.length) {
+				flushBuffer();
+			}
+			len = Math.min(num, buffer.length - count);
+			Arrays.fill(buffer, count, count + len, (byte) b);
+			count += len;
+			num -= len;
+		}
+	}
+
+	@Override
+	public void flush() throws IOException {
+		flushBuffer();
+		out.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			flushBuffer();
+		} finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * @return number of bytes waiting to be written
+	 */
+	public final int getBufferedCount() {
+		return count;
+	}
+
+	private void flushBuffer() throws IOException {
+		if (count > 0) {
+			if (channel == null) {
+				out.write(buffer, 0, count);
+			} else {
+				byteBuffer.clear();
+				byteBuffer.limit(count);
+				while (byteBuffer.hasRemaining()) {
+					channel.write(byteBuffer);
+				}
+			}
+			count = 0;
+		}
+	}
+
+	private void writeDirect(byte[] b, int off, int len) throws IOException {
+		if (channel == null) {
+			out.write(b, off, len);
+		} else {
+			ByteBuffer bb = ByteBuffer.wrap(b, off, len);
+			while (bb.hasRemaining()) {
+				channel.write(bb);
+			}
+		}
+	}
+}
@@ -31,10 +31,8 @@
       
 package net.sf.JRecord.ByteIO;
 
-import java.io.BufferedOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
-import java.math.BigInteger;
 
 
 /**
@@ -103,10 +101,7 @@ public class BinaryByteWriter extends AbstractByteWriter {
      */
     public void open(OutputStream outputStream) throws IOException {
 
-    	outStream = outputStream;
-    	if (! (outputStream instanceof BufferedOutputStream)) {
-     		outStream = new BufferedOutputStream(outputStream, 0x4000);
-    	}
+    	outStream = getBufferedStream(outputStream);
     }
 
 
@@ -121,20 +116,17 @@ public class BinaryByteWriter extends AbstractByteWriter {
         byte[] rec = line;
 
         if (addLength) {
-            byte[] bytes = (BigInteger.valueOf(rec.length + rdwAdjust)).toByteArray();
-
-            rdw[1] = bytes[bytes.length - 1];
-            rdw[0] = 0;
-            if (bytes.length > 1) {
-                rdw[0] = bytes[bytes.length - 2];
-            }
-            outStream.write(rdw);
+            int len = rec.length + rdwAdjust;
+
+            rdw[0] = (byte) (len >> 8);
+            rdw[1] = (byte) len;
+            outStream.write(rdw, 0, 4);
         }
 
-        outStream.write(rec);
+        outStream.write(rec, 0, rec.length);
 
         if (eol != null) {
-        	outStream.write(eol);
+        	outStream.write(eol, 0, eol.length);
         }
     }
 
@@ -0,0 +1,247 @@
+/*  -------------------------------------------------------------------------
+ *
+ *            Sub-Project: JRecord Common
+ *    
+ *    Sub-Project purpose: Common Low-Level Code shared between 
+ *                        the JRecord and Record Projects
+ *    
+ *                 Author: Bruce Martin
+ *    
+ *                License: LGPL 2.1 or latter
+ *                
+ *    Copyright (c) 2016, Bruce Martin, All Rights Reserved.
+ *   
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation; either
+ *    version 2.1 of the License, or (at your option) any later version.
+ *   
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU Lesser General Public License for more details.
+ *
+ * ------------------------------------------------------------------------ */
+      
+package net.sf.JRecord.ByteIO;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.EnumSet;
+
+import org.apache.hadoop.fs.ByteBufferReadable;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.HasEnhancedByteBufferAccess;
+import org.apache.hadoop.fs.ReadOption;
+import org.apache.hadoop.io.ByteBufferPool;
+import org.apache.hadoop.io.ElasticByteBufferPool;
+
+/**
+ * Buffered input stream that reads the file into large (direct) ByteBuffers
+ * rather than through a BufferedInputStream. Records are copied once, straight
+ * from the ByteBuffer into the record array. It is used for:
+ * <ul compact>
+ *   <li>Local files (FileInputStream) - read through the FileChannel.
+ *   <li>HDFS files that support <i>enhanced byte-buffer reads</i> (HasEnhancedByteBufferAccess) -
+ *   with short-circuit local reads (of cached blocks) the data is not copied at all.
+ *   <li>HDFS files that implement ByteBufferReadable.
+ * </ul>
+ *
+ * @author Bruce Martin
+ *
+ */
+public abstract class ByteBufferInputStream extends InputStream {
+
+	public static final int DEFAULT_BUFFER_SIZE = 256 * 1024;
+	public static final int HADOOP_BUFFER_SIZE = 1024 * 1024;
+
+	private static final ByteBufferPool BUFFER_POOL = new ElasticByteBufferPool();
+	private static final EnumSet<ReadOption> READ_OPTIONS = EnumSet.noneOf(ReadOption.class);
+
+	private final InputStream in;
+	protected ByteBuffer buffer = null;
+	private boolean eof = false;
+
+
+	protected ByteBufferInputStream(InputStream in) {
+		super();
+		this.in = in;
+	}
+
+	/**
+	 * Create a ByteBuffer input stream if the stream supports ByteBuffer reads
+	 *
+	 * @param in stream to be read
+	 * @return ByteBuffer stream or null if the stream does not support ByteBuffer reads
+	 */
+	public static ByteBufferInputStream newStream(InputStream in) {
+		if (in instanceof FSDataInputStream) {
+			InputStream wrapped = ((FSDataInputStream) in).getWrappedStream();
+			if (wrapped instanceof HasEnhancedByteBufferAccess) {
+				return new EnhancedStream((FSDataInputStream) in, HADOOP_BUFFER_SIZE);
+			} else if (wrapped instanceof ByteBufferReadable) {
+				return new ChannelStream(in, new ByteBufferReadableChannel((FSDataInputStream) in), HADOOP_BUFFER_SIZE);
+			}
+		} else if (in != null && in.getClass() == FileInputStream.class) {
+			return new ChannelStream(in, ((FileInputStream) in).getChannel(), DEFAULT_BUFFER_SIZE);
+		}
+		return null;
+	}
+
+	/**
+	 * Get the next buffer of data
+	 * @return next buffer or null at the end of the file
+	 * @throws IOException any IO error
+	 */
+	protected abstract ByteBuffer nextBuffer() throws IOException;
+
+	private boolean fill() throws IOException {
+		while (! eof && (buffer == null || ! buffer.hasRemaining())) {
+			buffer = nextBuffer();
+			eof = buffer == null;
+		}
+		return ! eof;
+	}
+
+	@Override
+	public int read() throws IOException {
+		if (! fill()) {
+			return -1;
+		}
+		return buffer.get() & 0xFF;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		if (len == 0) {
+			return 0;
+		}
+		if (! fill()) {
+			return -1;
+		}
+
+		int num = Math.min(len, buffer.remaining());
+		buffer.get(b, off, num);
+		return num;
+	}
+
+	@Override
+	public long skip(long n) throws IOException {
+		long total = 0;
+
+		while (total < n && fill()) {
+			int num = (int) Math.min(n - total, buffer.remaining());
+			buffer.position(buffer.position() + num);
+			total += num;
+		}
+		return total;
+	}
+
+	@Override
+	public int available() throws IOException {
+		return buffer == null ? 0 : buffer.remaining();
+	}
+
+	@Override
+	public void close() throws IOException {
+		eof = true;
+		buffer = null;
+		in.close();
+	}
+
+
+	/**
+	 * Reads a ReadableByteChannel into a direct ByteBuffer
+	 */
+	private static class ChannelStream extends ByteBufferInputStream {
+		private final ReadableByteChannel channel;
+		private final ByteBuffer directBuffer;
+
+		public ChannelStream(InputStream in, ReadableByteChannel channel, int size) {
+			super(in);
+			this.channel = channel;
+			this.directBuffer = ByteBuffer.allocateDirect(size);
+		}
+
+		@Override
+		protected ByteBuffer nextBuffer() throws IOException {
+			directBuffer.clear();
+
+			int num = 0;
+			while (num == 0 && directBuffer.hasRemaining()) {
+				num = channel.read(directBuffer);
+			}
+			if (num < 0 && directBuffer.position() == 0) {
+				return null;
+			}
+			directBuffer.flip();
+			return directBuffer;
+		}
+	}
+
+	/**
+	 * Uses the Hadoop enhanced byte-buffer read which (for short circuit reads
+	 * of cached blocks) returns memory mapped buffers. Buffers are released
+	 * when they have been read.
+	 */
+	private static class EnhancedStream extends ByteBufferInputStream {
+		private final FSDataInputStream fsIn;
+		private final int maxLength;
+
+		public EnhancedStream(FSDataInputStream in, int maxLength) {
+			super(in);
+			this.fsIn = in;
+			this.maxLength = maxLength;
+		}
+
+		@Override
+		protected ByteBuffer nextBuffer() throws IOException {
+			release();
+			return fsIn.read(BUFFER_POOL, maxLength, READ_OPTIONS);
+		}
+
+		private void release() {
+			if (buffer != null) {
+				fsIn.releaseBuffer(buffer);
+				buffer = null;
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			release();
+			super.close();
+		}
+	}
+
+	/**
+	 * Presents a ByteBufferReadable stream as a ReadableByteChannel
+	 */
+	private static class ByteBufferReadableChannel implements ReadableByteChannel {
+		private final FSDataInputStream in;
+		private boolean open = true;
+
+		public ByteBufferReadableChannel(FSDataInputStream in) {
+			this.in = in;
+		}
+
+		@Override
+		public int read(ByteBuffer dst) throws IOException {
+			return in.read(dst);
+		}
+
+		@Override
+		public boolean isOpen() {
+			return open;
+		}
+
+		@Override
+		public void close() throws IOException {
+			open = false;
+			in.close();
+		}
+	}
+}
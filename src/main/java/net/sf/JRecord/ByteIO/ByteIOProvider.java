@@ -44,7 +44,6 @@ import java.io.UnsupportedEncodingException;
 
 import net.sf.JRecord.Common.Constants;
 import net.sf.JRecord.Common.IBasicFileSchema;
-import net.sf.JRecord.Common.RecordException;
 
 /**
  * LineIOprovider - This class returns a LineIO class appropriate for
@@ -99,14 +98,43 @@ public class ByteIOProvider {
      * @deprecated for use inside JRecord/RecordEditor, use {@link ByteIOProvider#getByteReader(IBasicFileSchema)}
      */
     public AbstractByteReader getByteReader(int fileStructure, int length) {
+        return getByteReader(fileStructure, length, false);
+    }
+
+    /**
+     * Gets a Record Reader Class that is appropriate for reading the
+     * supplied file-structure; optionally a memory mapped reader
+     * ({@link MappedFixedLengthByteReader}, {@link MappedVbByteReader}) for
+     * Fixed Length and VB files. Memory mapped readers are best for large local files;
+     * other files are read as a normal stream.
+     *
+     * @param fileStructure File Structure of the required reader
+     * @param length length (if a Fixed length Provider)
+     * @param memoryMapped wether to return a memory mapped reader (if one exists for the file structure)
+     *
+     * @return line reader
+     */
+    public AbstractByteReader getByteReader(int fileStructure, int length, boolean memoryMapped) {
 
        	switch(fileStructure) {
-       		case Constants.IO_FIXED_LENGTH:		return new FixedLengthByteReader(length);
+       		case Constants.IO_FIXED_LENGTH:
+       			if (memoryMapped) {
+       				return new MappedFixedLengthByteReader(length);
+       			}
+       			return new FixedLengthByteReader(length);
 			case Constants.IO_VBS: 				return new VbsByteReader(false, true);
-			case Constants.IO_VB: 				return new VbByteReader(false, true);
+			case Constants.IO_VB:
+				if (memoryMapped) {
+					return new MappedVbByteReader(true);
+				}
+				return new VbByteReader(false, true);
 			case Constants.IO_VB_DUMP:			return new VbDumpByteReader();
 			case Constants.IO_VB_FUJITSU:		return new FujitsuVbByteReader();
-			case Constants.IO_VB_GNU_COBOL:		return new VbByteReader(false, false);
+			case Constants.IO_VB_GNU_COBOL:
+				if (memoryMapped) {
+					return new MappedVbByteReader(false);
+				}
+				return new VbByteReader(false, false);
 			case Constants.IO_BIN_TEXT:			return new ByteTextReader();
 			case Constants.IO_MICROFOCUS:		return new MicroFocusByteReader();
 	    }
@@ -151,7 +179,7 @@ public class ByteIOProvider {
 
     	switch(fileStructure) {
 //    		case Constants.IO_FIXED_LENGTH:		return new BinaryByteWriter();
-    		case Constants.IO_VBS:				throw new RecordException("Writing VBS files is not supported; use IO_VB");
+    		case Constants.IO_VBS:				return new VbBlockedByteWriter(true, false);
     		case Constants.IO_VB: 				return new VbByteWriter();
     		case Constants.IO_VB_DUMP:			return new VbDumpByteWriter();
     		case Constants.IO_VB_FUJITSU:		return new FujitsuVbByteWriter();
@@ -171,7 +199,7 @@ public class ByteIOProvider {
     }
 
 
-    /**
+	/**
      * Get an instance of LineIOProvider
      * @return a LineIOProvider
      */
@@ -34,7 +34,7 @@ import java.util.List;
 /**
  * Reads a standard Text file (like standard readLine of Class BufferedReader) except it will return an
  * Array of Bytes (instead of a String). This allows binary data to be in a line (i.e. using X'FF' as a field
- * seperator). It has a limit of 256kb on the line size.
+ * seperator). The buffer grows to hold very long lines.
  *
  * @author  Bruce Martin
  * @version 0.68
@@ -32,9 +32,9 @@
       
 package net.sf.JRecord.ByteIO;
 
-import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Arrays;
 
 
 
@@ -49,10 +49,10 @@ import java.io.InputStream;
  */
 public class FixedLengthByteReader extends AbstractByteReader {
 
-    private InputStream inStream;
-	private BufferedInputStream stream = null;
+	private InputStream stream = null;
 
 	private int lineLength;
+	private byte[] cursorBytes = null;
 
 
 	/**
@@ -74,13 +74,7 @@ public class FixedLengthByteReader extends AbstractByteReader {
      */
     public void open(InputStream inputStream) {
 
-        inStream = inputStream;
-
-        if (inputStream instanceof BufferedInputStream) {
-        	stream = (BufferedInputStream) inputStream;
-        } else {
-        	stream = new BufferedInputStream(inputStream, BUFFER_SIZE);
-        }
+        stream = getBufferedStream(getReadAheadStream(inputStream));
     }
 
 
@@ -100,7 +94,37 @@ public class FixedLengthByteReader extends AbstractByteReader {
             ret = inBytes;
         }
 
-        return ret;
+        return countRecord(ret);
+    }
+
+
+    /**
+     * Read the next record into a buffer that is reused for every record
+     *
+     * @see AbstractByteReader#next()
+     */
+    @Override
+    public boolean next() throws IOException {
+        if (stream == null) {
+            throw new IOException(AbstractByteReader.NOT_OPEN_MESSAGE);
+        }
+
+        if (cursorBytes == null || cursorBytes.length != lineLength) {
+            cursorBytes = new byte[lineLength];
+        }
+
+        int len = readBuffer(stream, cursorBytes);
+        if (len <= 0) {
+            setCursor(null, 0, 0);
+            return false;
+        }
+
+        if (len < lineLength) {
+            Arrays.fill(cursorBytes, len, lineLength, (byte) 0);
+        }
+        setCursor(cursorBytes, 0, lineLength);
+        countRecord(lineLength);
+        return true;
     }
 
 
@@ -109,7 +133,9 @@ public class FixedLengthByteReader extends AbstractByteReader {
      */
     public void close() throws IOException {
 
-        inStream.close();
+        if (stream != null) {
+        	stream.close();
+        }
         stream = null;
     }
 
@@ -31,7 +31,6 @@
       
 package net.sf.JRecord.ByteIO;
 
-import java.io.BufferedOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 
@@ -84,10 +83,7 @@ public class FixedLengthByteWriter extends AbstractByteWriter {
      */
     public void open(OutputStream outputStream) throws IOException {
 
-    	outStream = outputStream;
-    	if (! (outputStream instanceof BufferedOutputStream)) {
-     		outStream = new BufferedOutputStream(outputStream, 0x4000);
-    	}
+    	outStream = getBufferedStream(outputStream);
     }
 
 
@@ -105,13 +101,17 @@ public class FixedLengthByteWriter extends AbstractByteWriter {
 			if (rec.length > recordLength) {
 				outStream.write(rec, 0, recordLength);
 			} else {
-				outStream.write(rec);
-				for (int i = recordLength - rec.length; i > 0; i--) {
-					outStream.write(fillByte);
+				outStream.write(rec, 0, rec.length);
+				if (outStream instanceof BatchOutputStream) {
+					((BatchOutputStream) outStream).fill(fillByte, recordLength - rec.length);
+				} else {
+					for (int i = recordLength - rec.length; i > 0; i--) {
+						outStream.write(fillByte);
+					}
 				}
 			}
 		} else {
-			outStream.write(rec);
+			outStream.write(rec, 0, rec.length);
 		}
     }
 
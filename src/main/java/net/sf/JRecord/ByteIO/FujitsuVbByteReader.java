@@ -33,7 +33,6 @@
  */
 package net.sf.JRecord.ByteIO;
 
-import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.math.BigInteger;
@@ -53,8 +52,7 @@ import java.math.BigInteger;
  */
 public class FujitsuVbByteReader extends AbstractByteReader {
 
-    private InputStream inStream;
-	private BufferedInputStream stream = null;
+	private InputStream stream = null;
 
 	private int lineNumber = 0;
 
@@ -84,13 +82,7 @@ public class FujitsuVbByteReader extends AbstractByteReader {
      */
     public void open(InputStream inputStream) {
 
-        inStream = inputStream;
-
-        if (inputStream instanceof BufferedInputStream) {
-        	stream = (BufferedInputStream) inputStream;
-        } else {
-        	stream = new BufferedInputStream(inputStream, BUFFER_SIZE);
-        }
+        stream = getBufferedStream(getReadAheadStream(inputStream));
     }
 
 
@@ -108,6 +100,7 @@ public class FujitsuVbByteReader extends AbstractByteReader {
         lineNumber += 1;
         if (readBuffer(stream, rdw) > 0) {
             if (rdw[2] != 0 || rdw[3] != 0) {
+            	countInvalidRecordDescriptor();
                 throw new IOException(
                           "Invalid Record Descriptor word at line "
                         + lineNumber
@@ -129,7 +122,7 @@ public class FujitsuVbByteReader extends AbstractByteReader {
 			}
         }
 
-        return ret;
+        return countRecord(ret);
     }
 
     /**
@@ -137,8 +130,9 @@ public class FujitsuVbByteReader extends AbstractByteReader {
      */
     public void close() throws IOException {
 
-        inStream.close();
-        stream.close();
+        if (stream != null) {
+        	stream.close();
+        }
         stream = null;
     }
 
@@ -0,0 +1,319 @@
+/*  -------------------------------------------------------------------------
+ *
+ *            Sub-Project: JRecord Common
+ *    
+ *    Sub-Project purpose: Common Low-Level Code shared between 
+ *                        the JRecord and Record Projects
+ *    
+ *                 Author: Bruce Martin
+ *    
+ *                License: LGPL 2.1 or latter
+ *                
+ *    Copyright (c) 2016, Bruce Martin, All Rights Reserved.
+ *   
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation; either
+ *    version 2.1 of the License, or (at your option) any later version.
+ *   
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU Lesser General Public License for more details.
+ *
+ * ------------------------------------------------------------------------ */
+      
+package net.sf.JRecord.ByteIO;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Arrays;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+
+import net.sf.JRecord.hadoop.HadoopFiles;
+
+/**
+ * Base class for Byte-Readers that read local files through a
+ * MappedByteBuffer. The file is mapped in windows (default 256mb)
+ * so files larger than 2gb can be read; records are served straight
+ * from the OS page cache without a system call per buffer fill.
+ *
+ * <p>Records can be retrieved:<ul compact>
+ *   <li>as a ByteBuffer slice of the mapped file (no copy) - {@link #nextSlice()}
+ *   <li>copied to a reused buffer - {@link #next()}
+ *   <li>copied to a new array - {@link #read()}
+ * </ul>
+ *
+ * <p>Streams that are not local files (e.g. HDFS) are read in to a heap ByteBuffer
+ * so the reader can be used for any stream.
+ *
+ * @author Bruce Martin
+ *
+ */
+public abstract class MappedByteReader extends AbstractByteReader {
+
+	public static final int DEFAULT_WINDOW_SIZE = 256 * 1024 * 1024;
+
+	private static final ByteBuffer EMPTY_BUFFER = ByteBuffer.allocate(0);
+
+	private final int windowSize;
+
+	private Closeable file = null;
+	private FileChannel channel = null;
+	private ReadableByteChannel streamChannel = null;
+	private long fileSize, windowStart;
+	private ByteBuffer window = null;
+
+	private byte[] cursorBytes = new byte[BUFFER_SIZE];
+
+
+	/**
+	 * Create a memory mapped reader
+	 *
+	 * @param windowSize size of the memory map window; records can not be
+	 * longer than the window size
+	 */
+	protected MappedByteReader(int windowSize) {
+		super();
+		this.windowSize = windowSize;
+	}
+
+
+	/**
+	 * @see net.sf.JRecord.ByteIO.IByteReader#open(java.lang.String)
+	 */
+	@Override
+	public void open(String fileName) throws IOException {
+		RandomAccessFile f = new RandomAccessFile(fileName, "r");
+
+		openChannel(f, f.getChannel());
+	}
+
+	/**
+	 * Local files are mapped, other files are read as a stream
+	 *
+	 * @see net.sf.JRecord.ByteIO.AbstractByteReader#open(org.apache.hadoop.fs.Path, org.apache.hadoop.conf.Configuration)
+	 */
+	@Override
+	public void open(Path fileName, Configuration conf) throws IOException {
+		File f = HadoopFiles.getLocalFile(fileName, conf);
+
+		if (f == null) {
+			super.open(fileName, conf);
+		} else {
+			open(f.getPath());
+		}
+	}
+
+	/**
+	 * A FileInputStream is mapped from its current position,
+	 * other streams are read in to a heap buffer.
+	 *
+	 * @see net.sf.JRecord.ByteIO.IByteReader#open(java.io.InputStream)
+	 */
+	@Override
+	public void open(InputStream inputStream) throws IOException {
+		if (inputStream.getClass() == FileInputStream.class) {
+			openChannel(inputStream, ((FileInputStream) inputStream).getChannel());
+		} else {
+			InputStream in = getReadAheadStream(inputStream);
+
+			file = in;
+			channel = null;
+			streamChannel = Channels.newChannel(in);
+			window = ByteBuffer.allocate(ByteBufferInputStream.DEFAULT_BUFFER_SIZE);
+			window.limit(0);
+		}
+	}
+
+	private void openChannel(Closeable f, FileChannel ch) throws IOException {
+		file = f;
+		channel = ch;
+		streamChannel = null;
+		fileSize = ch.size();
+		windowStart = ch.position();
+		window = EMPTY_BUFFER;
+	}
+
+
+	/**
+	 * Get the length of the next record, any record prefix (e.g. RDW) is skipped.
+	 * On return {@link #ensure(int)} has been called for the record.
+	 *
+	 * @return record length or -1 at end of file
+	 * @throws IOException any IO error
+	 */
+	protected abstract int nextRecordLength() throws IOException;
+
+
+	/**
+	 * @see net.sf.JRecord.ByteIO.AbstractByteReader#read()
+	 */
+	@Override
+	public byte[] read() throws IOException {
+		int len = nextRecordLength();
+
+		if (len < 0) {
+			return null;
+		}
+
+		byte[] ret = new byte[len];
+		get(ret, len);
+		return countRecord(ret);
+	}
+
+	/**
+	 * Read the next record into a buffer that is reused
+	 *
+	 * @see net.sf.JRecord.ByteIO.AbstractByteReader#next()
+	 */
+	@Override
+	public boolean next() throws IOException {
+		int len = nextRecordLength();
+
+		if (len < 0) {
+			setCursor(null, 0, 0);
+			return false;
+		}
+
+		if (cursorBytes.length < len) {
+			cursorBytes = new byte[Math.max(len, cursorBytes.length * 2)];
+		}
+		int avail = get(cursorBytes, len);
+		if (avail < len) {
+			Arrays.fill(cursorBytes, avail, len, (byte) 0);
+		}
+		setCursor(cursorBytes, 0, len);
+		countRecord(len);
+		return true;
+	}
+
+	/**
+	 * Get the next record as a (read only) slice of the mapped file; no data is copied.
+	 * The slice is only valid until the next record is read (or the reader is closed).
+	 * A short last record (in a fixed length file) is returned as is.
+	 *
+	 * @return the next record or null at end of file
+	 * @throws IOException any IO error
+	 */
+	public final ByteBuffer nextSlice() throws IOException {
+		int len = nextRecordLength();
+
+		if (len < 0) {
+			return null;
+		}
+
+		int avail = Math.min(len, window.remaining());
+		ByteBuffer ret = window.slice();
+		ret.limit(avail);
+		skip(avail);
+		countRecord(len);
+
+		return ret.asReadOnlyBuffer();
+	}
+
+	private int get(byte[] rec, int len) {
+		int avail = Math.min(len, window.remaining());
+
+		window.get(rec, 0, avail);
+		incBytesRead(avail);
+		return avail;
+	}
+
+
+	/**
+	 * Make sure <b>len</b> bytes are available in the current window
+	 * (remapping / reading more data as required)
+	 *
+	 * @param len number of bytes required
+	 * @return wether <b>len</b> bytes are available; if not, all the
+	 * remaining bytes in the file are available
+	 * @throws IOException any IO error
+	 */
+	protected final boolean ensure(int len) throws IOException {
+		if (window == null) {
+			throw new IOException(AbstractByteReader.NOT_OPEN_MESSAGE);
+		}
+		if (window.remaining() >= len) {
+			return true;
+		}
+
+		if (channel != null) {
+			long pos = windowStart + window.position();
+			long size = Math.min(windowSize, fileSize - pos);
+
+			if (len > windowSize) {
+				throw new IOException("Record length " + len + " is greater than the memory map window " + windowSize);
+			}
+			if (size > window.remaining()) {
+				window = channel.map(FileChannel.MapMode.READ_ONLY, pos, size);
+				windowStart = pos;
+			}
+		} else if (streamChannel != null) {
+			if (window.capacity() < len) {
+				ByteBuffer b = ByteBuffer.allocate(Math.max(len, window.capacity() * 2));
+				b.put(window);
+				window = b;
+			} else {
+				window.compact();
+			}
+
+			int num = 0;
+			while (window.position() < len && num >= 0) {
+				num = streamChannel.read(window);
+			}
+			window.flip();
+		}
+
+		return window.remaining() >= len;
+	}
+
+	/**
+	 * @return the current window (positioned at the next byte to be read)
+	 */
+	protected final ByteBuffer window() {
+		return window;
+	}
+
+	/**
+	 * Skip bytes in the current window
+	 *
+	 * @param len number of bytes to skip
+	 */
+	protected final void skip(int len) {
+		window.position(window.position() + len);
+		incBytesRead(len);
+	}
+
+
+	/**
+	 * @see net.sf.JRecord.ByteIO.AbstractByteReader#close()
+	 */
+	@Override
+	public void close() throws IOException {
+		if (file != null) {
+			file.close();
+		}
+		file = null;
+		channel = null;
+		streamChannel = null;
+		window = null;
+	}
+
+	/**
+	 * @return the memory map window size
+	 */
+	public final int getWindowSize() {
+		return windowSize;
+	}
+}
@@ -0,0 +1,87 @@
+/*  -------------------------------------------------------------------------
+ *
+ *            Sub-Project: JRecord Common
+ *    
+ *    Sub-Project purpose: Common Low-Level Code shared between 
+ *                        the JRecord and Record Projects
+ *    
+ *                 Author: Bruce Martin
+ *    
+ *                License: LGPL 2.1 or latter
+ *                
+ *    Copyright (c) 2016, Bruce Martin, All Rights Reserved.
+ *   
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation; either
+ *    version 2.1 of the License, or (at your option) any later version.
+ *   
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU Lesser General Public License for more details.
+ *
+ * ------------------------------------------------------------------------ */
+      
+package net.sf.JRecord.ByteIO;
+
+import java.io.IOException;
+
+
+/**
+ * Memory mapped version of {@link FixedLengthByteReader}; reads Fixed Record Length
+ * (i.e. every record has the same length) local files through a MappedByteBuffer.
+ *
+ * @author Bruce Martin
+ *
+ */
+public class MappedFixedLengthByteReader extends MappedByteReader {
+
+	private int lineLength;
+
+
+	/**
+	 * Memory mapped reading of Fixed Length files
+	 *
+	 * @param recordLength length of the record
+	 */
+	public MappedFixedLengthByteReader(int recordLength) {
+		this(recordLength, DEFAULT_WINDOW_SIZE);
+	}
+
+	/**
+	 * Memory mapped reading of Fixed Length files
+	 *
+	 * @param recordLength length of the record
+	 * @param windowSize size of the memory map window
+	 */
+	public MappedFixedLengthByteReader(int recordLength, int windowSize) {
+		super(windowSize);
+
+		lineLength = recordLength;
+	}
+
+
+	/**
+	 * @see net.sf.JRecord.ByteIO.MappedByteReader#nextRecordLength()
+	 */
+	@Override
+	protected int nextRecordLength() throws IOException {
+		ensure(lineLength);
+
+		if (! window().hasRemaining()) {
+			return -1;
+		}
+		return lineLength;
+	}
+
+    /**
+     * Set the Line Length of the file.
+     *
+     * @param newLineLength The lineLength to set.
+     */
+	@Override
+	public void setLineLength(int newLineLength) {
+		this.lineLength = newLineLength;
+	}
+}
@@ -0,0 +1,118 @@
+/*  -------------------------------------------------------------------------
+ *
+ *            Sub-Project: JRecord Common
+ *    
+ *    Sub-Project purpose: Common Low-Level Code shared between 
+ *                        the JRecord and Record Projects
+ *    
+ *                 Author: Bruce Martin
+ *    
+ *                License: LGPL 2.1 or latter
+ *                
+ *    Copyright (c) 2016, Bruce Martin, All Rights Reserved.
+ *   
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation; either
+ *    version 2.1 of the License, or (at your option) any later version.
+ *   
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU Lesser General Public License for more details.
+ *
+ * ------------------------------------------------------------------------ */
+      
+package net.sf.JRecord.ByteIO;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+
+/**
+ * Memory mapped version of {@link VbByteReader}; reads Mainframe Variable Record
+ * Length local files (each record is preceded by a 4 byte Record-Descriptor-Word)
+ * through a MappedByteBuffer.
+ *
+ * @author Bruce Martin
+ *
+ */
+public class MappedVbByteReader extends MappedByteReader {
+
+	private final byte[] rdw = new byte[4];
+	private final int rdwAdjust;
+	private int lineNumber = 0;
+
+
+	/**
+	 * Memory mapped reading of VB files (where the RDW length includes the RDW)
+	 */
+	public MappedVbByteReader() {
+		this(true);
+	}
+
+	/**
+	 * Memory mapped reading of VB files
+	 *
+	 * @param lengthIncludesRDW wether the RDW length includes the RDW
+	 * (false for GNU-Cobol VB files)
+	 */
+	public MappedVbByteReader(boolean lengthIncludesRDW) {
+		this(lengthIncludesRDW, DEFAULT_WINDOW_SIZE);
+	}
+
+	/**
+	 * Memory mapped reading of VB files
+	 *
+	 * @param lengthIncludesRDW wether the RDW length includes the RDW
+	 * @param windowSize size of the memory map window
+	 */
+	public MappedVbByteReader(boolean lengthIncludesRDW, int windowSize) {
+		super(windowSize);
+
+		rdwAdjust = lengthIncludesRDW ? 4 : 0;
+	}
+
+
+	/**
+	 * @see net.sf.JRecord.ByteIO.MappedByteReader#nextRecordLength()
+	 */
+	@Override
+	protected int nextRecordLength() throws IOException {
+		boolean ok = ensure(4);
+		ByteBuffer window = window();
+
+		if (! window.hasRemaining()) {
+			return -1;
+		}
+
+		lineNumber += 1;
+		if (! ok) {
+			countInvalidRecordDescriptor();
+			throw new IOException("Invalid Record Descriptor word at line " + lineNumber
+					+ ", only " + window.remaining() + " bytes left in the file");
+		}
+
+		int pos = window.position();
+		for (int i = 0; i < 4; i++) {
+			rdw[i] = window.get(pos + i);
+		}
+		int lineLength = VbByteReader.getRdwLength(rdw, 0, rdwAdjust);
+
+		if (! VbByteReader.isValidRdw(rdw, 0)) {
+			countInvalidRecordDescriptor();
+			throw new IOException(
+                    "Invalid Record Descriptor word at line "
+                  + lineNumber + " " + lineLength + "\t" + rdw[2] + " " + rdw[3]
+                );
+		}
+		if (lineLength < 0) {
+			countInvalidRecordDescriptor();
+			throw new IOException("Invalid Line Length: " + lineLength + " For line " + lineNumber);
+		}
+
+		skip(4);
+		ensure(lineLength);
+		return lineLength;
+	}
+}
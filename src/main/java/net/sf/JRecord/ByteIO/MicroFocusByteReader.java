@@ -25,32 +25,43 @@
       
 package net.sf.JRecord.ByteIO;
 
-import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.math.BigInteger;
 
 public class MicroFocusByteReader extends AbstractByteReader {
 
+	/** Largest length held in the 28 bits of a 4 byte record length */
+	private static final int MAX_LENGTH_4_BYTES = 0x0FFFFFFF;
 	
 	private MicroFocusFileHeader headerRecord;
-	private BufferedInputStream instream;
+	private InputStream instream;
 	private boolean eof = true;
 
 	private byte[] relativeAttr = new byte[2];
-	byte[] len1;
+	private byte[] padding = new byte[4];
+	private byte[] len1;
+	private int maxRecordLength;
+	private MicroFocusDecompressor decompressor = null;
+	private MicroFocusDecompressor userDecompressor = null;
 
 	@Override
 	public void open(InputStream inputStream) throws IOException {
-		instream = new BufferedInputStream(inputStream, 8192);
+		instream = getBufferedStream(getReadAheadStream(inputStream));
 		
 		byte[] headerRec = new byte[128];
 		int ii = readBuffer(instream, headerRec);
 //		if ( ! (eof = (instream.read(headerRec) <= 0))) {
 		if ( ! (eof = (ii <= 0))) {
 			headerRecord = new MicroFocusFileHeader(headerRec);
-			if (headerRecord.getCompression() > 0 ) {
-				throw new IOException("Compression is not supported");
+			decompressor = userDecompressor;
+			if (headerRecord.getCompression() == MicroFocusFileHeader.COMPRESSION_NONE) {
+				decompressor = null;
+			} else if (decompressor == null) {
+				if (headerRecord.getCompression() != MicroFocusFileHeader.COMPRESSION_CBLDC001) {
+					throw new IOException("Compression routine " + (headerRecord.getCompression() & 0xFF)
+							+ " is not supported, use setDecompressor to supply one");
+				}
+				decompressor = new MicroFocusDecompressor();
 //			} else if (headerRecord.isValidFile()) {
 //				throw new IOException("Microfocus File is corrupt (flag in header record)");
 			}
@@ -60,6 +71,17 @@ public class MicroFocusByteReader extends AbstractByteReader {
 			} else {
 				len1 = new byte[4];
 			}
+			
+			maxRecordLength = headerRecord.getMaxLength();
+			if (maxRecordLength <= 0) {
+				maxRecordLength = MAX_LENGTH_4_BYTES;
+			} else if (decompressor != null) {
+				/* a compressed record can be slightly longer than the expanded record */
+				maxRecordLength += maxRecordLength / 64 + 8;
+			}
+			if (padding.length < headerRecord.getMaxLength()) {
+				padding = new byte[Math.max(4, headerRecord.getMaxLength())];
+			}
 		}
 	}
 
@@ -67,7 +89,7 @@ public class MicroFocusByteReader extends AbstractByteReader {
 	public byte[] read() throws IOException {
 		
 		byte[] rec;
-		int tmp, attr, len, remainder;
+		int attr, len, remainder;
 		boolean readnext = true;
 		
 		do {
@@ -75,17 +97,19 @@ public class MicroFocusByteReader extends AbstractByteReader {
 				eof = true;
 				return null;
 			}
-			tmp = len1[0];
-			attr = (tmp & 240) >> 4;
+			attr = (len1[0] & 0xF0) >> 4;
 			
 			//System.out.print("Initial: " + tmp + " Attr: " + attr);
-			len1[0] = (byte) (tmp & 15);
-			
-			
-			len = new BigInteger(len1).intValue();
+			if (len1.length == 2) {
+				len = ((len1[0] & 0x0F) << 8) + (len1[1] & 0xFF);
+			} else {
+				len = ((len1[0] & 0x0F) << 24) + ((len1[1] & 0xFF) << 16)
+					+ ((len1[2] & 0xFF) << 8) + (len1[3] & 0xFF);
+			}
 			
 			readnext = ! (attr == 4 || attr == 5 || attr == 7 || attr == 8);
-			if (len > 1000000) {
+			if (len > maxRecordLength) {
+				countInvalidRecordDescriptor();
 				throw new IOException("Record Length to Big: " + len);
 			}
 			rec = new byte[len];
@@ -97,14 +121,14 @@ public class MicroFocusByteReader extends AbstractByteReader {
 			case  MicroFocusFileHeader.FORMAT_SEQUENTIAL:
 				remainder = len % 4;
 				if (remainder != 0) {
-					readBuffer(instream, new byte[4 - remainder]);
+					readBuffer(instream, padding, 0, 4 - remainder);
 				}
 				break;
 //			case  MicroFocusFileHeader.FORMAT_INDEXED:
 //				break;
 			case  MicroFocusFileHeader.FORMAT_RELATIVE:
 				if (len < headerRecord.getMaxLength()) {
-					readBuffer(instream, new byte[headerRecord.getMaxLength() - len]);
+					readBuffer(instream, padding, 0, headerRecord.getMaxLength() - len);
 				}
 				readBuffer(instream, relativeAttr);
 				readnext |= (relativeAttr[0] == 13 && relativeAttr[1] == 10);
@@ -113,9 +137,23 @@ public class MicroFocusByteReader extends AbstractByteReader {
 		
 		} while (readnext);
 		
-		return rec;
+		if (decompressor != null) {
+			rec = decompressor.decompress(rec, 0, rec.length, headerRecord.getMaxLength());
+		}
+		
+		return countRecord(rec);
 	}
 
+	/**
+	 * Set the routine used to expand the records of compressed files
+	 * (needed for files written with a user compression routine).
+	 * It must be set before the file is opened.
+	 *
+	 * @param decompressor routine to expand the records
+	 */
+	public void setDecompressor(MicroFocusDecompressor decompressor) {
+		this.userDecompressor = decompressor;
+	}
 	@Override
 	public void close() throws IOException {
 		instream.close();
@@ -0,0 +1,110 @@
+/*  -------------------------------------------------------------------------
+ *
+ *            Sub-Project: JRecord Common
+ *    
+ *    Sub-Project purpose: Common Low-Level Code shared between 
+ *                        the JRecord and Record Projects
+ *    
+ *                 Author: Bruce Martin
+ *    
+ *                License: LGPL 2.1 or latter
+ *                
+ *    Copyright (c) 2016, Bruce Martin, All Rights Reserved.
+ *   
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation; either
+ *    version 2.1 of the License, or (at your option) any later version.
+ *   
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU Lesser General Public License for more details.
+ *
+ * ------------------------------------------------------------------------ */
+      
+package net.sf.JRecord.ByteIO;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Expands records in Micro Focus files written with data compression
+ * (compression routine CBLDC001, header compression byte = 1).
+ * Each compressed record is a series of runs, each run starts with a control byte:
+ * <ul compact>
+ *   <li><b>x'01' - x'7F'</b> that number of bytes follow unchanged
+ *   <li><b>x'80' - x'BF'</b> (control - x'80') spaces
+ *   <li><b>x'C0' - x'DF'</b> (control - x'C0') nulls (hex zero)
+ *   <li><b>x'E0' - x'FF'</b> the next byte repeated (control - x'E0') times
+ * </ul>
+ * Files using a user compression routine can be read by extending this class
+ * and passing it to {@link MicroFocusByteReader#setDecompressor(MicroFocusDecompressor)}.
+ *
+ * @author Bruce Martin
+ *
+ */
+public class MicroFocusDecompressor {
+
+	private static final byte SPACE = ' ';
+
+	private byte[] buffer = new byte[256];
+
+	/**
+	 * Expand a compressed record
+	 *
+	 * @param rec buffer holding the compressed record
+	 * @param start start of the record in the buffer
+	 * @param len length of the compressed record
+	 * @param maxLength maximum (expanded) record length
+	 *
+	 * @return expanded record
+	 * @throws IOException if the compressed record is invalid
+	 */
+	public byte[] decompress(byte[] rec, int start, int len, int maxLength) throws IOException {
+		int end = start + len;
+		int pos = start;
+		int out = 0;
+		int control, count;
+
+		while (pos < end) {
+			control = rec[pos++] & 0xFF;
+			if (control < 0x80) {
+				count = control;
+				if (pos + count > end) {
+					throw new IOException("Invalid compressed record, literal run of " + count + " past the record end");
+				}
+				ensure(out + count, maxLength);
+				System.arraycopy(rec, pos, buffer, out, count);
+				pos += count;
+			} else if (control < 0xC0) {
+				count = control - 0x80;
+				ensure(out + count, maxLength);
+				Arrays.fill(buffer, out, out + count, SPACE);
+			} else if (control < 0xE0) {
+				count = control - 0xC0;
+				ensure(out + count, maxLength);
+				Arrays.fill(buffer, out, out + count, (byte) 0);
+			} else {
+				count = control - 0xE0;
+				if (pos >= end) {
+					throw new IOException("Invalid compressed record, repeated character missing");
+				}
+				ensure(out + count, maxLength);
+				Arrays.fill(buffer, out, out + count, rec[pos++]);
+			}
+			out += count;
+		}
+
+		return Arrays.copyOf(buffer, out);
+	}
+
+	private void ensure(int size, int maxLength) throws IOException {
+		if (maxLength > 0 && size > maxLength) {
+			throw new IOException("Expanded record length " + size + " is greater than the maximum " + maxLength);
+		}
+		if (size > buffer.length) {
+			buffer = Arrays.copyOf(buffer, Math.max(size, buffer.length * 2));
+		}
+	}
+}
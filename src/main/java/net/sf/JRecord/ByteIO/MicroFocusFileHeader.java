@@ -25,8 +25,6 @@
       
 package net.sf.JRecord.ByteIO;
 
-import java.math.BigInteger;
-
 import net.sf.JRecord.Common.Conversion;
 
 public final class MicroFocusFileHeader {
@@ -39,6 +37,10 @@ public final class MicroFocusFileHeader {
 	public static final byte RECORD_FIXED_LENGTH = 0; 
 	public static final byte RECORD_VARIABLE_LENGTH = 1; 
 
+	public static final byte COMPRESSION_NONE = 0; 
+	/** Micro Focus CBLDC001 run length compression */
+	public static final byte COMPRESSION_CBLDC001 = 1; 
+
 	public static final byte[] DATE_TIME = {48, 48, 48, 49, 48, 49, 48, 48, 48, 48, 48, 48, 48, 48};
 	
 	private final byte[] headerRec;
@@ -99,10 +101,8 @@ public final class MicroFocusFileHeader {
 	}
 	
 	private int getLength(int start) {
-		byte[] len = new byte[4];
-		
-		System.arraycopy(headerRec, start, len, 0, 4);
-		return new BigInteger(len).intValue();
+		return ((headerRec[start] & 0xFF) << 24) + ((headerRec[start + 1] & 0xFF) << 16)
+			 + ((headerRec[start + 2] & 0xFF) << 8) + (headerRec[start + 3] & 0xFF);
 	}
 
 	public byte[] getHeaderRec() {
@@ -0,0 +1,408 @@
+/*  -------------------------------------------------------------------------
+ *
+ *            Sub-Project: JRecord Common
+ *    
+ *    Sub-Project purpose: Common Low-Level Code shared between 
+ *                        the JRecord and Record Projects
+ *    
+ *                 Author: Bruce Martin
+ *    
+ *                License: LGPL 2.1 or latter
+ *                
+ *    Copyright (c) 2016, Bruce Martin, All Rights Reserved.
+ *   
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation; either
+ *    version 2.1 of the License, or (at your option) any later version.
+ *   
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU Lesser General Public License for more details.
+ *
+ * ------------------------------------------------------------------------ */
+      
+package net.sf.JRecord.ByteIO;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.util.Arrays;
+import java.util.Comparator;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.Path;
+
+import net.sf.JRecord.Common.RecordException;
+
+/**
+ * Key index for Micro Focus Indexed files. It holds the primary key and
+ * byte position of every record in the data file (sorted on the key),
+ * so a record can be read by key without scanning the whole file.
+ *
+ * <p>The layout of the Micro Focus <b>.idx</b> file (a B-tree) is not published,
+ * so the index is built by reading the data file once and is stored alongside it
+ * (in the same way as {@link RecordIndex}).
+ *
+ * <pre>
+ * <b>Usage:</b>
+ *
+ *      MicroFocusKeyIndex.createIndex(dataFileName, keyStart, keyLength);
+ *      ....
+ *      MicroFocusKeyIndex index = MicroFocusKeyIndex.read(MicroFocusKeyIndex.getIndexFileName(dataFileName));
+ *      byte[] record = index.readRecord(dataFileName, key);
+ * </pre>
+ *
+ * <p>The index is stored as: {Magic JRKX}{version}{key-start}{key-length}
+ * {header-length}{header}{entry-count} then for each record {key}{position}.
+ *
+ * @author Bruce Martin
+ *
+ */
+public class MicroFocusKeyIndex {
+
+	public static final String INDEX_EXTENSION = ".jrkey";
+
+	private static final byte[] MAGIC = {'J', 'R', 'K', 'X'};
+	private static final byte VERSION = 1;
+
+	private final int keyStart, keyLength;
+	private final byte[] header;
+	private final byte[] keys;
+	private final long[] positions;
+	private final int entryCount;
+
+
+	private MicroFocusKeyIndex(int keyStart, int keyLength, byte[] header,
+			byte[] keys, long[] positions, int entryCount) {
+		super();
+		this.keyStart = keyStart;
+		this.keyLength = keyLength;
+		this.header = header;
+		this.keys = keys;
+		this.positions = positions;
+		this.entryCount = entryCount;
+	}
+
+	/**
+	 * Build the key index by reading a Micro Focus file once
+	 *
+	 * @param in Micro Focus file to be indexed
+	 * @param keyStart start of the key in the record (starting at 0)
+	 * @param keyLength length of the key
+	 *
+	 * @return the new index
+	 * @throws IOException any IO error
+	 */
+	public static MicroFocusKeyIndex build(InputStream in, int keyStart, int keyLength) throws IOException {
+		MicroFocusByteReader reader = new MicroFocusByteReader();
+		byte[] keyBuf = new byte[keyLength * 256];
+		long[] pos = new long[256];
+		byte[] header;
+		byte[] rec;
+		int count = 0;
+
+		if (keyStart < 0 || keyLength <= 0) {
+			throw new RecordException("Invalid key position: {0} length: {1}",
+					new Object[] {Integer.toString(keyStart), Integer.toString(keyLength)});
+		}
+
+		reader.open(in);
+		try {
+			if (reader.getHeaderRecord() == null) {
+				throw new IOException("Empty Micro Focus file");
+			}
+			header = reader.getHeaderRecord().getHeaderRec();
+
+			while (true) {
+				long p = reader.getNextRecordPosition();
+				if ((rec = reader.read()) == null) {
+					break;
+				}
+				if (rec.length < keyStart + keyLength) {
+					throw new IOException("Record " + count + " is shorter than the key");
+				}
+				if (count >= pos.length) {
+					pos = Arrays.copyOf(pos, pos.length * 2);
+					keyBuf = Arrays.copyOf(keyBuf, pos.length * keyLength);
+				}
+				System.arraycopy(rec, keyStart, keyBuf, count * keyLength, keyLength);
+				pos[count++] = p;
+			}
+		} finally {
+			reader.close();
+		}
+
+		return sort(keyStart, keyLength, header, keyBuf, pos, count);
+	}
+
+	private static MicroFocusKeyIndex sort(final int keyStart, final int keyLength, byte[] header,
+			final byte[] keyBuf, long[] pos, int count) {
+		Integer[] order = new Integer[count];
+		byte[] keys = new byte[count * keyLength];
+		long[] positions = new long[count];
+
+		for (int i = 0; i < count; i++) {
+			order[i] = i;
+		}
+		Arrays.sort(order, new Comparator<Integer>() {
+			@Override public int compare(Integer o1, Integer o2) {
+				int c = compareKeys(keyBuf, o1 * keyLength, keyBuf, o2 * keyLength, keyLength);
+				return c == 0 ? o1.compareTo(o2) : c;
+			}
+		});
+
+		for (int i = 0; i < count; i++) {
+			System.arraycopy(keyBuf, order[i] * keyLength, keys, i * keyLength, keyLength);
+			positions[i] = pos[order[i]];
+		}
+		return new MicroFocusKeyIndex(keyStart, keyLength, header, keys, positions, count);
+	}
+
+	/**
+	 * Create the key index for a local file and write it alongside the file
+	 * (i.e. to the file name + {@link #INDEX_EXTENSION}).
+	 *
+	 * @param fileName file to be indexed
+	 * @param keyStart start of the key in the record (starting at 0)
+	 * @param keyLength length of the key
+	 *
+	 * @return the new index
+	 * @throws IOException any IO error
+	 */
+	public static MicroFocusKeyIndex createIndex(String fileName, int keyStart, int keyLength) throws IOException {
+		MicroFocusKeyIndex index = build(new FileInputStream(fileName), keyStart, keyLength);
+
+		index.write(getIndexFileName(fileName));
+		return index;
+	}
+
+	public static String getIndexFileName(String fileName) {
+		return fileName + INDEX_EXTENSION;
+	}
+
+	public static Path getIndexPath(Path fileName) {
+		return new Path(fileName.toString() + INDEX_EXTENSION);
+	}
+
+	/**
+	 * Read a key index
+	 *
+	 * @param in stream holding the index
+	 * @return the index
+	 * @throws IOException any IO error
+	 */
+	public static MicroFocusKeyIndex read(InputStream in) throws IOException {
+		DataInputStream din = new DataInputStream(new BufferedInputStream(in));
+
+		try {
+			byte[] magic = new byte[MAGIC.length];
+			din.readFully(magic);
+			if (! Arrays.equals(MAGIC, magic)) {
+				throw new IOException("Not a JRecord key index");
+			}
+			byte version = din.readByte();
+			if (version != VERSION) {
+				throw new IOException("Unsupported key index version: " + version);
+			}
+
+			int keyStart = din.readInt();
+			int keyLength = din.readInt();
+			byte[] header = new byte[din.readInt()];
+			din.readFully(header);
+
+			int entryCount = din.readInt();
+			byte[] keys = new byte[entryCount * keyLength];
+			long[] positions = new long[entryCount];
+			for (int i = 0; i < entryCount; i++) {
+				din.readFully(keys, i * keyLength, keyLength);
+				positions[i] = din.readLong();
+			}
+			return new MicroFocusKeyIndex(keyStart, keyLength, header, keys, positions, entryCount);
+		} finally {
+			din.close();
+		}
+	}
+
+	public static MicroFocusKeyIndex read(String fileName) throws IOException {
+		return read(new FileInputStream(fileName));
+	}
+
+	public static MicroFocusKeyIndex read(Path fileName, Configuration conf) throws IOException {
+		return read(fileName.getFileSystem(conf).open(fileName));
+	}
+
+	/**
+	 * Write the key index
+	 *
+	 * @param out stream to write the index to
+	 * @throws IOException any IO error
+	 */
+	public void write(OutputStream out) throws IOException {
+		DataOutputStream dout = new DataOutputStream(new BufferedOutputStream(out));
+
+		dout.write(MAGIC);
+		dout.writeByte(VERSION);
+		dout.writeInt(keyStart);
+		dout.writeInt(keyLength);
+		dout.writeInt(header.length);
+		dout.write(header);
+		dout.writeInt(entryCount);
+		for (int i = 0; i < entryCount; i++) {
+			dout.write(keys, i * keyLength, keyLength);
+			dout.writeLong(positions[i]);
+		}
+		dout.close();
+	}
+
+	public void write(String fileName) throws IOException {
+		write(new FileOutputStream(fileName));
+	}
+
+	public void write(Path fileName, Configuration conf) throws IOException {
+		write(fileName.getFileSystem(conf).create(fileName, true));
+	}
+
+	/**
+	 * Find the index entry for a key (binary search).
+	 *
+	 * @param key key to look for (shorter keys are treated as a key prefix)
+	 * @return index entry of the first record with the key
+	 *  or -1 if no record has the key
+	 */
+	public int findEntry(byte[] key) {
+		int len = Math.min(key.length, keyLength);
+		int low = 0;
+		int high = entryCount - 1;
+		int found = -1;
+
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			int c = compareKeys(keys, mid * keyLength, key, 0, len);
+
+			if (c < 0) {
+				low = mid + 1;
+			} else {
+				if (c == 0) {
+					found = mid;
+				}
+				high = mid - 1;
+			}
+		}
+		return found;
+	}
+
+	/**
+	 * Get the position of the record with a key
+	 *
+	 * @param key key to look for
+	 * @return position in the file or -1 if no record has the key
+	 */
+	public long getPosition(byte[] key) {
+		int entry = findEntry(key);
+
+		return entry < 0 ? -1 : positions[entry];
+	}
+
+	/**
+	 * Read the record with a key from a local file
+	 *
+	 * @param fileName Micro Focus data file
+	 * @param key key to look for
+	 * @return the record or null if no record has the key
+	 * @throws IOException any IO error
+	 */
+	public byte[] readRecord(String fileName, byte[] key) throws IOException {
+		int entry = findEntry(key);
+
+		if (entry < 0) {
+			return null;
+		}
+		AbstractByteReader reader = newReader(fileName, entry);
+		try {
+			return reader.read();
+		} finally {
+			reader.close();
+		}
+	}
+
+	/**
+	 * Create a reader positioned at an index entry in a local file
+	 * (the records after it can be read in physical order).
+	 *
+	 * @param fileName Micro Focus data file
+	 * @param entry index entry
+	 * @return reader positioned at the record
+	 * @throws IOException any IO error
+	 */
+	public AbstractByteReader newReader(String fileName, int entry) throws IOException {
+		FileInputStream in = new FileInputStream(fileName);
+
+		in.getChannel().position(positions[entry]);
+		return newReader(in);
+	}
+
+	/**
+	 * Create a reader positioned at an index entry in a Hadoop file
+	 *
+	 * @param fileName Micro Focus data file
+	 * @param conf Hadoop configuration
+	 * @param entry index entry
+	 * @return reader positioned at the record
+	 * @throws IOException any IO error
+	 */
+	public AbstractByteReader newReader(Path fileName, Configuration conf, int entry) throws IOException {
+		FSDataInputStream in = fileName.getFileSystem(conf).open(fileName);
+
+		in.seek(positions[entry]);
+		return newReader(in);
+	}
+
+	private AbstractByteReader newReader(InputStream dataAtPosition) throws IOException {
+		MicroFocusByteReader reader = new MicroFocusByteReader();
+
+		reader.open(new SequenceInputStream(new ByteArrayInputStream(header), dataAtPosition));
+		return reader;
+	}
+
+	private static int compareKeys(byte[] b1, int s1, byte[] b2, int s2, int len) {
+		int c;
+		for (int i = 0; i < len; i++) {
+			c = (b1[s1 + i] & 0xFF) - (b2[s2 + i] & 0xFF);
+			if (c != 0) {
+				return c;
+			}
+		}
+		return 0;
+	}
+
+	public final int getKeyStart() {
+		return keyStart;
+	}
+
+	public final int getKeyLength() {
+		return keyLength;
+	}
+
+	public final int getEntryCount() {
+		return entryCount;
+	}
+
+	public final byte[] getKey(int entry) {
+		return Arrays.copyOfRange(keys, entry * keyLength, (entry + 1) * keyLength);
+	}
+
+	public final long getPosition(int entry) {
+		return positions[entry];
+	}
+}
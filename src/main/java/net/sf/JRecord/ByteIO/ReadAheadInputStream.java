@@ -0,0 +1,272 @@
+/*  -------------------------------------------------------------------------
+ *
+ *            Sub-Project: JRecord Common
+ *    
+ *    Sub-Project purpose: Common Low-Level Code shared between 
+ *                        the JRecord and Record Projects
+ *    
+ *                 Author: Bruce Martin
+ *    
+ *                License: LGPL 2.1 or latter
+ *                
+ *    Copyright (c) 2016, Bruce Martin, All Rights Reserved.
+ *   
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation; either
+ *    version 2.1 of the License, or (at your option) any later version.
+ *   
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU Lesser General Public License for more details.
+ *
+ * ------------------------------------------------------------------------ */
+      
+package net.sf.JRecord.ByteIO;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Input stream that reads ahead of the consumer on a background thread.
+ * The background thread fills a ring of large blocks (default 1mb each)
+ * while the consumer parses the previous block; so IO wait (e.g. HDFS latency)
+ * and record decoding overlap.
+ *
+ * <p>An error in the background thread (IOException, RuntimeException or Error)
+ * is rethrown on the next read;
+ * close stops the background thread and closes the underlying stream.
+ *
+ * @author Bruce Martin
+ *
+ */
+public class ReadAheadInputStream extends InputStream {
+
+	public static final int BLOCK_SIZE = 1024 * 1024;
+
+	private static final Block EOF_BLOCK = new Block(0);
+
+	private final InputStream in;
+	private final BlockingQueue<Block> free, filled;
+	private final Thread thread;
+	private volatile boolean closed = false;
+
+	private Block current = null;
+	private int pos = 0;
+	private boolean eof = false;
+	private Throwable error = null;
+
+
+	/**
+	 * Create a read ahead stream
+	 *
+	 * @param in stream to be read
+	 * @param megabytes number of megabytes to read ahead (minimum of 2)
+	 */
+	public ReadAheadInputStream(InputStream in, int megabytes) {
+		this(in, BLOCK_SIZE, Math.max(2, megabytes));
+	}
+
+	/**
+	 * Create a read ahead stream
+	 *
+	 * @param in stream to be read
+	 * @param blockSize size of each block
+	 * @param blockCount number of blocks (2 = double buffering)
+	 */
+	public ReadAheadInputStream(InputStream in, int blockSize, int blockCount) {
+		super();
+
+		this.in = in;
+		free = new ArrayBlockingQueue<Block>(blockCount);
+		filled = new ArrayBlockingQueue<Block>(blockCount + 1);
+
+		for (int i = 0; i < blockCount; i++) {
+			free.add(new Block(blockSize));
+		}
+
+		thread = new Thread(new Runnable() {
+			@Override public void run() {
+				fillBlocks();
+			}
+		}, "JRecord-ReadAhead");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+
+	/**
+	 * Background thread - fill free blocks from the underlying stream
+	 */
+	private void fillBlocks() {
+		Block terminal = EOF_BLOCK;
+
+		try {
+			int num = 0;
+			while (num >= 0 && ! closed) {
+				Block b = free.take();
+
+				b.length = 0;
+				while (b.length < b.data.length
+						&& (num = in.read(b.data, b.length, b.data.length - b.length)) >= 0) {
+					b.length += num;
+				}
+
+				if (b.length > 0) {
+					filled.put(b);
+				}
+			}
+		} catch (InterruptedException e) {
+			return;
+		} catch (Throwable e) {
+			terminal = new Block(e);
+		}
+
+		if (! closed) {
+			filled.offer(terminal);
+		}
+	}
+
+
+	private boolean fill() throws IOException {
+		if (current != null && pos < current.length) {
+			return true;
+		}
+		if (error != null) {
+			throw readAheadFailed();
+		}
+		if (eof) {
+			return false;
+		}
+		if (closed) {
+			throw new IOException(AbstractByteReader.NOT_OPEN_MESSAGE);
+		}
+
+		if (current != null) {
+			free.add(current);
+			current = null;
+		}
+
+		Block b;
+		try {
+			b = filled.take();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted waiting for read ahead");
+		}
+
+		if (b.error != null) {
+			error = b.error;
+			throw readAheadFailed();
+		}
+		if (b == EOF_BLOCK) {
+			eof = true;
+			return false;
+		}
+
+		current = b;
+		pos = 0;
+		return true;
+	}
+
+	/**
+	 * Rethrow the error from the background thread; RuntimeExceptions and Errors
+	 * are thrown as is, other exceptions are wrapped in an IOException
+	 *
+	 * @return the IOException to be thrown
+	 */
+	private IOException readAheadFailed() {
+		if (error instanceof RuntimeException) {
+			throw (RuntimeException) error;
+		}
+		if (error instanceof Error) {
+			throw (Error) error;
+		}
+		return new IOException("Read ahead failed: " + error.getMessage(), error);
+	}
+
+	@Override
+	public int read() throws IOException {
+		if (! fill()) {
+			return -1;
+		}
+		return current.data[pos++] & 0xFF;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		if (len == 0) {
+			return 0;
+		}
+		if (! fill()) {
+			return -1;
+		}
+
+		int num = Math.min(len, current.length - pos);
+		System.arraycopy(current.data, pos, b, off, num);
+		pos += num;
+		return num;
+	}
+
+	@Override
+	public long skip(long n) throws IOException {
+		long total = 0;
+
+		while (total < n && fill()) {
+			int num = (int) Math.min(n - total, current.length - pos);
+			pos += num;
+			total += num;
+		}
+		return total;
+	}
+
+	@Override
+	public int available() throws IOException {
+		return current == null ? 0 : current.length - pos;
+	}
+
+	/**
+	 * Stop the background thread and close the underlying stream
+	 *
+	 * @see java.io.InputStream#close()
+	 */
+	@Override
+	public void close() throws IOException {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		current = null;
+		thread.interrupt();
+		try {
+			in.close();
+		} finally {
+			try {
+				thread.join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+
+	private static class Block {
+		final byte[] data;
+		final Throwable error;
+		int length = 0;
+
+		Block(int size) {
+			data = new byte[size];
+			error = null;
+		}
+
+		Block(Throwable e) {
+			data = null;
+			error = e;
+		}
+	}
+}
@@ -0,0 +1,436 @@
+/*  -------------------------------------------------------------------------
+ *
+ *            Sub-Project: JRecord Common
+ *    
+ *    Sub-Project purpose: Common Low-Level Code shared between 
+ *                        the JRecord and Record Projects
+ *    
+ *                 Author: Bruce Martin
+ *    
+ *                License: LGPL 2.1 or latter
+ *                
+ *    Copyright (c) 2016, Bruce Martin, All Rights Reserved.
+ *   
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation; either
+ *    version 2.1 of the License, or (at your option) any later version.
+ *   
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU Lesser General Public License for more details.
+ *
+ * ------------------------------------------------------------------------ */
+      
+package net.sf.JRecord.ByteIO;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.util.Arrays;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+
+import net.sf.JRecord.Common.Constants;
+import net.sf.JRecord.Common.RecordException;
+
+/**
+ * A <i>sidecar</i> index for Variable Length files (Mainframe VB, GNU-Cobol VB,
+ * Fujitsu VB, VBS and Micro Focus variable files). The index holds the byte position
+ * of every K'th record, so a reader can go straight to any record
+ * (instead of walking the RDW chain from the start of the file)
+ * and files can be split exactly on record boundaries.
+ *
+ * <pre>
+ * <b>Usage:</b>
+ *
+ *      RecordIndex.createIndex(dataFileName, Constants.IO_VB, 1000);
+ *      ....
+ *      RecordIndex index = RecordIndex.read(RecordIndex.getIndexFileName(dataFileName));
+ *      AbstractByteReader reader = index.newReader(dataFileName, 1250000);
+ * </pre>
+ *
+ * <p>The index is stored as: {Magic JRIX}{version}{file-structure}{interval}{record-count}{file-length}
+ * {header-length}{header}{entry-count} then the difference between successive positions
+ * (as a variable length number).
+ *
+ * @author Bruce Martin
+ *
+ */
+public class RecordIndex {
+
+	public static final String INDEX_EXTENSION = ".jridx";
+	public static final int DEFAULT_INTERVAL = 1000;
+
+	private static final byte[] MAGIC = {'J', 'R', 'I', 'X'};
+	private static final byte VERSION = 1;
+	private static final byte[] NO_HEADER = {};
+
+	private final int fileStructure, interval;
+	private final byte[] header;
+	private final long recordCount, fileLength;
+	private final long[] offsets;
+	private final int entryCount;
+
+
+	private RecordIndex(int fileStructure, int interval, byte[] header,
+			long recordCount, long fileLength, long[] offsets, int entryCount) {
+		super();
+		this.fileStructure = fileStructure;
+		this.interval = interval;
+		this.header = header;
+		this.recordCount = recordCount;
+		this.fileLength = fileLength;
+		this.offsets = offsets;
+		this.entryCount = entryCount;
+	}
+
+	/**
+	 * Build an index by reading a file once
+	 *
+	 * @param in file to be indexed
+	 * @param fileStructure file structure (Constants.IO_VB etc)
+	 * @param interval index every interval'th record
+	 *
+	 * @return the new index
+	 * @throws IOException any IO error
+	 */
+	public static RecordIndex build(InputStream in, int fileStructure, int interval) throws IOException {
+		AbstractByteReader reader = getByteReader(fileStructure);
+		long[] offsets = new long[256];
+		int count = 0;
+		long recordNumber = 0;
+		long pos;
+		byte[] header = NO_HEADER;
+
+		if (interval <= 0) {
+			throw new RecordException("Invalid index interval: {0}", Integer.toString(interval));
+		}
+
+		reader.open(in);
+		try {
+			if (reader instanceof MicroFocusByteReader
+			&& ((MicroFocusByteReader) reader).getHeaderRecord() != null) {
+				header = ((MicroFocusByteReader) reader).getHeaderRecord().getHeaderRec();
+			}
+
+			while (true) {
+				pos = reader.getNextRecordPosition();
+				if (reader.read() == null) {
+					break;
+				}
+				if (recordNumber % interval == 0) {
+					if (count >= offsets.length) {
+						offsets = Arrays.copyOf(offsets, offsets.length * 2);
+					}
+					offsets[count++] = pos;
+				}
+				recordNumber += 1;
+			}
+		} finally {
+			reader.close();
+		}
+
+		return new RecordIndex(fileStructure, interval, header, recordNumber, reader.getBytesRead(), offsets, count);
+	}
+
+	/**
+	 * Create the index for a local file and write it alongside the file
+	 * (i.e. to the file name + {@link #INDEX_EXTENSION}).
+	 *
+	 * @param fileName file to be indexed
+	 * @param fileStructure file structure (Constants.IO_VB etc)
+	 * @param interval index every interval'th record
+	 *
+	 * @return the new index
+	 * @throws IOException any IO error
+	 */
+	public static RecordIndex createIndex(String fileName, int fileStructure, int interval) throws IOException {
+		RecordIndex index = build(new FileInputStream(fileName), fileStructure, interval);
+
+		index.write(getIndexFileName(fileName));
+		return index;
+	}
+
+	/**
+	 * Create the index for a Hadoop file and write it alongside the file
+	 * (i.e. to the file name + {@link #INDEX_EXTENSION}).
+	 *
+	 * @param fileName file to be indexed
+	 * @param conf Hadoop configuration
+	 * @param fileStructure file structure (Constants.IO_VB etc)
+	 * @param interval index every interval'th record
+	 *
+	 * @return the new index
+	 * @throws IOException any IO error
+	 */
+	public static RecordIndex createIndex(Path fileName, Configuration conf, int fileStructure, int interval)
+	throws IOException {
+		FileSystem fs = fileName.getFileSystem(conf);
+		RecordIndex index = build(fs.open(fileName), fileStructure, interval);
+
+		index.write(getIndexPath(fileName), conf);
+		return index;
+	}
+
+	public static String getIndexFileName(String fileName) {
+		return fileName + INDEX_EXTENSION;
+	}
+
+	public static Path getIndexPath(Path fileName) {
+		return new Path(fileName.toString() + INDEX_EXTENSION);
+	}
+
+	/**
+	 * Read an index
+	 *
+	 * @param in stream holding the index
+	 * @return the index
+	 * @throws IOException any IO error
+	 */
+	public static RecordIndex read(InputStream in) throws IOException {
+		DataInputStream din = new DataInputStream(new BufferedInputStream(in));
+
+		try {
+			byte[] magic = new byte[MAGIC.length];
+			din.readFully(magic);
+			if (! Arrays.equals(MAGIC, magic)) {
+				throw new IOException("Not a JRecord record index");
+			}
+			byte version = din.readByte();
+			if (version != VERSION) {
+				throw new IOException("Unsupported record index version: " + version);
+			}
+
+			int fileStructure = din.readInt();
+			int interval = din.readInt();
+			long recordCount = din.readLong();
+			long fileLength = din.readLong();
+			byte[] header = new byte[din.readInt()];
+			din.readFully(header);
+
+			int entryCount = din.readInt();
+			long[] offsets = new long[entryCount];
+			long pos = 0;
+			for (int i = 0; i < entryCount; i++) {
+				pos += readVLong(din);
+				offsets[i] = pos;
+			}
+			return new RecordIndex(fileStructure, interval, header, recordCount, fileLength, offsets, entryCount);
+		} finally {
+			din.close();
+		}
+	}
+
+	public static RecordIndex read(String fileName) throws IOException {
+		return read(new FileInputStream(fileName));
+	}
+
+	public static RecordIndex read(Path fileName, Configuration conf) throws IOException {
+		return read(fileName.getFileSystem(conf).open(fileName));
+	}
+
+	/**
+	 * Write the index
+	 *
+	 * @param out stream to write the index to
+	 * @throws IOException any IO error
+	 */
+	public void write(OutputStream out) throws IOException {
+		DataOutputStream dout = new DataOutputStream(new BufferedOutputStream(out));
+		long last = 0;
+
+		dout.write(MAGIC);
+		dout.writeByte(VERSION);
+		dout.writeInt(fileStructure);
+		dout.writeInt(interval);
+		dout.writeLong(recordCount);
+		dout.writeLong(fileLength);
+		dout.writeInt(header.length);
+		dout.write(header);
+		dout.writeInt(entryCount);
+		for (int i = 0; i < entryCount; i++) {
+			writeVLong(dout, offsets[i] - last);
+			last = offsets[i];
+		}
+		dout.close();
+	}
+
+	public void write(String fileName) throws IOException {
+		write(new FileOutputStream(fileName));
+	}
+
+	public void write(Path fileName, Configuration conf) throws IOException {
+		write(fileName.getFileSystem(conf).create(fileName, true));
+	}
+
+	/**
+	 * Get the index entry at or before a record
+	 *
+	 * @param recordNumber record number (starting at 0)
+	 * @return index entry
+	 */
+	public int findEntry(long recordNumber) {
+		if (recordNumber < 0 || recordNumber >= recordCount) {
+			throw new RecordException("Record number {0} is outside the file", Long.toString(recordNumber));
+		}
+		return (int) Math.min(entryCount - 1, recordNumber / interval);
+	}
+
+	/**
+	 * Get the record number of the indexed record at a position
+	 *
+	 * @param offset position in the file
+	 * @return record number or -1 if no indexed record starts at the position
+	 */
+	public long getRecordNumberAt(long offset) {
+		int idx = Arrays.binarySearch(offsets, 0, entryCount, offset);
+
+		if (idx < 0) {
+			return -1;
+		}
+		return getRecordNumber(idx);
+	}
+
+	/**
+	 * Create a reader positioned at a record in a local file
+	 *
+	 * @param fileName file to be read
+	 * @param recordNumber record number (starting at 0)
+	 * @return reader positioned at the record
+	 * @throws IOException any IO error
+	 */
+	public AbstractByteReader newReader(String fileName, long recordNumber) throws IOException {
+		int entry = findEntry(recordNumber);
+		FileInputStream in = new FileInputStream(fileName);
+
+		in.getChannel().position(offsets[entry]);
+		return newReader(in, entry, recordNumber);
+	}
+
+	/**
+	 * Create a reader positioned at a record in a Hadoop file
+	 *
+	 * @param fileName file to be read
+	 * @param conf Hadoop configuration
+	 * @param recordNumber record number (starting at 0)
+	 * @return reader positioned at the record
+	 * @throws IOException any IO error
+	 */
+	public AbstractByteReader newReader(Path fileName, Configuration conf, long recordNumber) throws IOException {
+		int entry = findEntry(recordNumber);
+		FSDataInputStream in = fileName.getFileSystem(conf).open(fileName);
+
+		in.seek(offsets[entry]);
+		return newReader(in, entry, recordNumber);
+	}
+
+	private AbstractByteReader newReader(InputStream in, int entry, long recordNumber) throws IOException {
+		AbstractByteReader reader = newReader(in);
+
+		for (long i = getRecordNumber(entry); i < recordNumber; i++) {
+			reader.read();
+		}
+		return reader;
+	}
+
+	/**
+	 * Create a reader for a stream that is positioned at an indexed record.
+	 *
+	 * @param dataAtOffset stream positioned at one of the offsets in the index
+	 * @return reader to read the records from the stream
+	 * @throws IOException any IO error
+	 */
+	public AbstractByteReader newReader(InputStream dataAtOffset) throws IOException {
+		AbstractByteReader reader = getByteReader(fileStructure);
+		InputStream in = dataAtOffset;
+
+		if (header.length > 0) {
+			in = new SequenceInputStream(new ByteArrayInputStream(header), dataAtOffset);
+		}
+		reader.open(in);
+		return reader;
+	}
+
+	@SuppressWarnings("deprecation")
+	private static AbstractByteReader getByteReader(int fileStructure) {
+		switch (fileStructure) {
+		case Constants.IO_VB:
+		case Constants.IO_VB_GNU_COBOL:
+		case Constants.IO_VB_FUJITSU:
+		case Constants.IO_VBS:
+		case Constants.IO_MICROFOCUS:
+			return ByteIOProvider.getInstance().getByteReader(fileStructure);
+		}
+		throw new RecordException("Record Index is not supported for File Structure: {0}", Integer.toString(fileStructure));
+	}
+
+	private static void writeVLong(DataOutputStream out, long value) throws IOException {
+		while ((value & ~0x7FL) != 0) {
+			out.writeByte((int) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		out.writeByte((int) value);
+	}
+
+	private static long readVLong(DataInputStream in) throws IOException {
+		long value = 0;
+		int shift = 0;
+		int b;
+
+		do {
+			b = in.readByte();
+			value |= ((long) (b & 0x7F)) << shift;
+			shift += 7;
+		} while ((b & 0x80) != 0);
+
+		return value;
+	}
+
+	public final int getFileStructure() {
+		return fileStructure;
+	}
+
+	public final int getInterval() {
+		return interval;
+	}
+
+	/**
+	 * @return length of the file header (Micro Focus files) that the readers expect before the first record.
+	 */
+	public final int getHeaderLength() {
+		return header.length;
+	}
+
+	public final long getRecordCount() {
+		return recordCount;
+	}
+
+	public final long getFileLength() {
+		return fileLength;
+	}
+
+	public final int getEntryCount() {
+		return entryCount;
+	}
+
+	public final long getOffset(int entry) {
+		return offsets[entry];
+	}
+
+	public final long getRecordNumber(int entry) {
+		return ((long) entry) * interval;
+	}
+}
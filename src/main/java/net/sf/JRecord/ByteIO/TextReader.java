@@ -50,15 +50,15 @@ public class TextReader extends AbstractByteReader {
 
 	@Override
 	public void open(InputStream inputStream) throws IOException {
-       inStream = inputStream;
+       inStream = getReadAheadStream(inputStream);
 
 		if (font == null || "".equals(font)) {
-		    stdReader = new InputStreamReader(inputStream);
+		    stdReader = new InputStreamReader(inStream);
 		} else {
 		    try {
-		        stdReader = new InputStreamReader(inputStream, font);
+		        stdReader = new InputStreamReader(inStream, font);
 		    } catch (Exception e) {
- 		        stdReader = new InputStreamReader(inputStream);
+ 		        stdReader = new InputStreamReader(inStream);
 		    }
 		}
 		reader = new BufferedReader(stdReader);
@@ -67,7 +67,7 @@ public class TextReader extends AbstractByteReader {
 
 	@Override
 	public byte[] read() throws IOException {
-		return Conversion.getBytes(reader.readLine(), font);
+		return countRecord(Conversion.getBytes(reader.readLine(), font));
 	}
 
 	@Override
@@ -0,0 +1,165 @@
+/*  -------------------------------------------------------------------------
+ *
+ *            Sub-Project: JRecord Common
+ *    
+ *    Sub-Project purpose: Common Low-Level Code shared between 
+ *                        the JRecord and Record Projects
+ *    
+ *                 Author: Bruce Martin
+ *    
+ *                License: LGPL 2.1 or latter
+ *                
+ *    Copyright (c) 2016, Bruce Martin, All Rights Reserved.
+ *   
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation; either
+ *    version 2.1 of the License, or (at your option) any later version.
+ *   
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU Lesser General Public License for more details.
+ *
+ * ------------------------------------------------------------------------ */
+      
+package net.sf.JRecord.ByteIO;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Reads Mainframe Variable-Blocked files one whole block at a time; i.e. the
+ * 4 byte Block-Descriptor-Word followed by the complete block (in one read call).
+ * The Record-Descriptor-Words and records are then sliced out of the block
+ * without any further reads. It is used by the VB (dump) and VBS byte readers.
+ *
+ * @author Bruce Martin
+ *
+ */
+public class VbBlockBuffer {
+
+	private final AbstractByteReader reader;
+	private final byte[] bdw = new byte[4];
+
+	private byte[] block = new byte[AbstractByteReader.BUFFER_SIZE];
+	private int pos = 0, end = 0;
+
+
+	/**
+	 * Create a block buffer
+	 *
+	 * @param reader Byte-Reader the blocks are read for (it maintains the bytes read)
+	 */
+	public VbBlockBuffer(AbstractByteReader reader) {
+		super();
+		this.reader = reader;
+	}
+
+
+	/**
+	 * Make sure there is data available in the current block, reading the next
+	 * block if the current block has been fully processed
+	 *
+	 * @param in stream to be read
+	 * @return wether there is data available (false at end of file)
+	 * @throws IOException any IO error
+	 */
+	public final boolean ensureData(InputStream in) throws IOException {
+		while (pos >= end) {
+			if (reader.readBuffer(in, bdw) < bdw.length) {
+				return false;
+			}
+
+			int len = VbByteReader.getBdwLength(bdw, 0) - 4;
+			if (! VbByteReader.isValidBdw(bdw, 0)) {
+				reader.countInvalidRecordDescriptor();
+				throw new IOException("Invalid Block Descriptor word, Block length: " + (len + 4)
+						+ "\tBDW=" + bdw[0] + ", " + bdw[1] + ", " + bdw[2] + ", " + bdw[3]);
+			}
+			if (block.length < len) {
+				block = new byte[Math.max(len, block.length * 2)];
+			}
+
+			pos = 0;
+			end = reader.readBuffer(in, block, 0, len);
+		}
+		return true;
+	}
+
+	/**
+	 * Read more bytes from the stream on to the end of the current block. This is
+	 * used where a record extends past the end of the block (some VB dumps do not
+	 * include the BDW in the block length).
+	 *
+	 * @param in stream to be read
+	 * @param len number of bytes to add to the block
+	 * @return number of bytes remaining in the block
+	 * @throws IOException any IO error
+	 */
+	public final int extend(InputStream in, int len) throws IOException {
+		int required = end + len;
+
+		if (block.length < required) {
+			block = Arrays.copyOf(block, Math.max(required, block.length * 2));
+		}
+		end = reader.readBuffer(in, block, end, required);
+
+		return end - pos;
+	}
+
+	/**
+	 * Make sure there are at least len bytes available in the current block,
+	 * extending the block if need be. If the file ends first (a truncated
+	 * record), the missing bytes are set to hex zero, the same as a short read
+	 * of a record from the stream.
+	 *
+	 * @param in stream to be read
+	 * @param len number of bytes required
+	 * @throws IOException any IO error
+	 */
+	public final void ensureAvailable(InputStream in, int len) throws IOException {
+		if (end - pos < len && extend(in, len - (end - pos)) < len) {
+			Arrays.fill(block, end, pos + len, (byte) 0);
+			end = pos + len;
+		}
+	}
+
+	/**
+	 * @return the buffer holding the current block
+	 */
+	public final byte[] getBlock() {
+		return block;
+	}
+
+	/**
+	 * @return current position in the block
+	 */
+	public final int getPosition() {
+		return pos;
+	}
+
+	/**
+	 * @return number of bytes remaining in the current block
+	 */
+	public final int remaining() {
+		return end - pos;
+	}
+
+	/**
+	 * Skip (consume) bytes in the current block
+	 *
+	 * @param len number of bytes to skip
+	 */
+	public final void skip(int len) {
+		pos += len;
+	}
+
+	/**
+	 * @return wether the current block has been fully read
+	 */
+	public final boolean isAtBlockBoundary() {
+		return pos >= end;
+	}
+}
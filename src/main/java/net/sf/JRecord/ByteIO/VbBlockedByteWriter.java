@@ -0,0 +1,234 @@
+/*  -------------------------------------------------------------------------
+ *
+ *            Sub-Project: JRecord Common
+ *    
+ *    Sub-Project purpose: Common Low-Level Code shared between 
+ *                        the JRecord and Record Projects
+ *    
+ *                 Author: Bruce Martin
+ *    
+ *                License: LGPL 2.1 or latter
+ *                
+ *    Copyright (c) 2016, Bruce Martin, All Rights Reserved.
+ *   
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation; either
+ *    version 2.1 of the License, or (at your option) any later version.
+ *   
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU Lesser General Public License for more details.
+ *
+ * ------------------------------------------------------------------------ */
+      
+package net.sf.JRecord.ByteIO;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import net.sf.JRecord.Common.RecordException;
+
+/**
+ * Writes Mainframe VB / VBS files packed into blocks of a target size
+ * (e.g. half-track blocking of 27998 bytes) so the file does not need to be
+ * reblocked when it is sent back to the mainframe.
+ * A block is stored as
+ * {Block-Descriptor-Word}{RDW}{Record}{RDW}{Record}....
+ *
+ * <ul>
+ *   <li>{Block-Descriptor-Word} 2 byte block length (including the BDW) followed by 2 bytes hex zero.
+ *   It is optional (files transferred with the RDW option do not have BDW's).
+ *   <li>{RDW} (record-descriptor-word) 2 byte length (including the RDW), 1 byte segment indicator and 1 byte hex zero.
+ * </ul>
+ *
+ * <p>For <b>VB</b> files each block holds whole records; a new block is started when the next record
+ * does not fit. A record that is longer than the block size is written in a block of its own
+ * (up to the maximum block size of 32760 bytes). For <b>VBS</b> (spanned) files every block is filled: a record that does not fit is split into
+ * segments (segment indicator 1 - first segment, 3 - middle segment, 2 - last segment)
+ * which continue in the following blocks.
+ *
+ * @author Bruce Martin
+ *
+ */
+public class VbBlockedByteWriter extends AbstractByteWriter {
+
+	public static final int HALF_TRACK_BLOCK_SIZE = 27998;
+	public static final int MAX_BLOCK_SIZE = 32760;
+
+	private static final int DESCRIPTOR_LENGTH = 4;
+	private static final byte SEGMENT_COMPLETE = 0;
+	private static final byte SEGMENT_FIRST = 1;
+	private static final byte SEGMENT_LAST = 2;
+	private static final byte SEGMENT_MIDDLE = 3;
+
+	private OutputStream outStream = null;
+	private final byte[] block;
+	private final boolean spanned;
+	private final int blockStart;
+	private int used;
+
+	/**
+	 * Create a VB / VBS writer using half-track blocks (27998 bytes)
+	 *
+	 * @param spanned wether records are spanned across blocks (VBS)
+	 * @param includeBdw wether to write Block-Descriptor-Words
+	 */
+	public VbBlockedByteWriter(boolean spanned, boolean includeBdw) {
+		this(HALF_TRACK_BLOCK_SIZE, spanned, includeBdw);
+	}
+
+	/**
+	 * Create a VB / VBS writer
+	 *
+	 * @param blockSize block size (including the Block-Descriptor-Word)
+	 * @param spanned wether records are spanned across blocks (VBS)
+	 * @param includeBdw wether to write Block-Descriptor-Words
+	 */
+	public VbBlockedByteWriter(int blockSize, boolean spanned, boolean includeBdw) {
+		super();
+
+		blockStart = includeBdw ? DESCRIPTOR_LENGTH : 0;
+		if (blockSize < blockStart + DESCRIPTOR_LENGTH + 1 || blockSize > MAX_BLOCK_SIZE) {
+			throw new RecordException("Invalid Block Size: {0}", Integer.toString(blockSize));
+		}
+		this.block = new byte[blockSize];
+		this.spanned = spanned;
+		this.used = blockStart;
+	}
+
+	/**
+	 * @see AbstractByteWriter#open(java.io.OutputStream)
+	 */
+	@Override
+	public void open(OutputStream outputStream) throws IOException {
+		outStream = getBufferedStream(outputStream);
+		used = blockStart;
+	}
+
+	/**
+	 * @see AbstractByteWriter#write(byte[])
+	 */
+	@Override
+	public void write(byte[] rec) throws IOException {
+
+		if (outStream == null) {
+			throw new IOException(AbstractByteWriter.NOT_OPEN_MESSAGE);
+		}
+
+		if (rec.length + DESCRIPTOR_LENGTH <= block.length - used) {
+			addSegment(rec, 0, rec.length, SEGMENT_COMPLETE);
+		} else if (! spanned) {
+			writeBlock();
+			if (rec.length + DESCRIPTOR_LENGTH > block.length - blockStart) {
+				writeLargeRecord(rec);
+			} else {
+				addSegment(rec, 0, rec.length, SEGMENT_COMPLETE);
+			}
+		} else {
+			writeSpanned(rec);
+		}
+	}
+
+	/**
+	 * Split a record into segments filling the current block and
+	 * continuing in the next block(s)
+	 *
+	 * @param rec record to write
+	 * @throws IOException any IO error
+	 */
+	private void writeSpanned(byte[] rec) throws IOException {
+		int pos = 0;
+		int len;
+		byte segment;
+
+		if (block.length - used <= DESCRIPTOR_LENGTH) {
+			writeBlock();
+		}
+
+		while (true) {
+			len = Math.min(rec.length - pos, block.length - used - DESCRIPTOR_LENGTH);
+			if (pos + len == rec.length) {
+				segment = pos == 0 ? SEGMENT_COMPLETE : SEGMENT_LAST;
+			} else {
+				segment = pos == 0 ? SEGMENT_FIRST : SEGMENT_MIDDLE;
+			}
+			addSegment(rec, pos, len, segment);
+			pos += len;
+			if (pos >= rec.length) {
+				break;
+			}
+			writeBlock();
+		}
+	}
+
+	/**
+	 * Write a (VB) record that is longer than the block size in a block of its own
+	 *
+	 * @param rec record to write
+	 * @throws IOException any IO error or the record is longer than the maximum block size
+	 */
+	private void writeLargeRecord(byte[] rec) throws IOException {
+		int length = blockStart + DESCRIPTOR_LENGTH + rec.length;
+		byte[] descriptors = new byte[blockStart + DESCRIPTOR_LENGTH];
+
+		if (length > MAX_BLOCK_SIZE) {
+			throw new IOException("Record length " + rec.length + " is too long, the maximum is "
+					+ (MAX_BLOCK_SIZE - blockStart - DESCRIPTOR_LENGTH));
+		}
+		if (blockStart > 0) {
+			setDescriptor(descriptors, 0, length, (byte) 0);
+		}
+		setDescriptor(descriptors, blockStart, rec.length + DESCRIPTOR_LENGTH, SEGMENT_COMPLETE);
+		outStream.write(descriptors);
+		outStream.write(rec);
+	}
+
+	private void addSegment(byte[] rec, int pos, int len, byte segment) {
+		int segmentLength = len + DESCRIPTOR_LENGTH;
+
+		setDescriptor(block, used, segmentLength, segment);
+		System.arraycopy(rec, pos, block, used + DESCRIPTOR_LENGTH, len);
+		used += segmentLength;
+	}
+
+	private static void setDescriptor(byte[] buf, int pos, int length, byte segment) {
+		buf[pos]     = (byte) (length >> 8);
+		buf[pos + 1] = (byte) length;
+		buf[pos + 2] = segment;
+		buf[pos + 3] = 0;
+	}
+
+	/**
+	 * writes a block to the output file
+	 *
+	 * @throws IOException any IO error
+	 */
+	private void writeBlock() throws IOException {
+		if (used > blockStart) {
+			if (blockStart > 0) {
+				setDescriptor(block, 0, used, (byte) 0);
+			}
+			outStream.write(block, 0, used);
+			used = blockStart;
+		}
+	}
+
+	/**
+	 * @return the block size
+	 */
+	public final int getBlockSize() {
+		return block.length;
+	}
+
+	/**
+	 * @see AbstractByteWriter#close()
+	 */
+	@Override
+	public void close() throws IOException {
+		writeBlock();
+		outStream.close();
+		outStream = null;
+	}
+}
@@ -32,9 +32,9 @@
       
 package net.sf.JRecord.ByteIO;
 
-import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Arrays;
 
 
 
@@ -56,8 +56,12 @@ public class VbByteReader extends AbstractByteReader {
 
 	private static final int LAST_7_BITS_SET = 127;
 
-    private InputStream inStream;
-	private BufferedInputStream stream = null;
+	/** largest block length (including the BDW) of a standard Block-Descriptor-Word */
+	public static final int MAX_BLOCK_LENGTH = 32760;
+	/** largest block length accepted for an extended (first bit set) Block-Descriptor-Word */
+	public static final int MAX_EXTENDED_BLOCK_LENGTH = 16 * 1024 * 1024;
+
+	private InputStream stream = null;
 
 	private int lineNumber = 0;
 	private int rdwAdjust = 0;
@@ -69,16 +73,14 @@ public class VbByteReader extends AbstractByteReader {
 	 * 2 bytes (hex zero)
 	 */
 	private byte[] rdw = new byte[4];
+	private byte[] cursorBytes = new byte[BUFFER_SIZE];
 //	private byte[] rdwLength = new byte[2];
 
 
 	private boolean containsBlockLength = false;
-	private byte[] bdw = new byte[4];
 //	private byte[] bdwLength = new byte[2];
 
-
-	private int blockLength = -1;
-	private int bytesReadFromBlock = 0;
+	private VbBlockBuffer blocks = null;
 
 
 
@@ -118,15 +120,11 @@ public class VbByteReader extends AbstractByteReader {
      */
     public void open(InputStream inputStream) {
 
-        inStream = inputStream;
+        stream = getBufferedStream(getReadAheadStream(inputStream));
 
-        if (inputStream instanceof BufferedInputStream) {
-        	stream = (BufferedInputStream) inputStream;
-        } else {
-        	stream = new BufferedInputStream(inputStream, BUFFER_SIZE);
+        if (containsBlockLength) {
+        	blocks = new VbBlockBuffer(this);
         }
-
-        checkForBlockLength();
     }
 
 
@@ -135,72 +133,209 @@ public class VbByteReader extends AbstractByteReader {
      */
     public byte[] read()  throws IOException {
         byte[] ret = null;
+        int lineLength = readRdw();
+
+        if (lineLength >= 0) {
+            byte[] inBytes = new byte[lineLength];
+
+            if (containsBlockLength) {
+            	System.arraycopy(blocks.getBlock(), blocks.getPosition(), inBytes, 0, lineLength);
+            	blocks.skip(lineLength);
+            	ret = inBytes;
+            } else if (readBuffer(stream, inBytes) >= 0) {
+                ret = inBytes;
+			}
+        }
+
+        return countRecord(ret);
+    }
+
+
+    /**
+     * Read the next record into a buffer that is reused
+     * (and only grown when a longer record is found). For files with
+     * Block-Descriptor-Words, the record is left in the block buffer (no copy).
+     *
+     * @see AbstractByteReader#next()
+     */
+    @Override
+    public boolean next() throws IOException {
+        int lineLength = readRdw();
+
+        if (lineLength < 0) {
+            setCursor(null, 0, 0);
+            return false;
+        }
+
+        if (containsBlockLength) {
+        	setCursor(blocks.getBlock(), blocks.getPosition(), lineLength);
+        	blocks.skip(lineLength);
+        } else {
+	        if (cursorBytes.length < lineLength) {
+	        	cursorBytes = new byte[Math.max(lineLength, cursorBytes.length * 2)];
+	        }
+	        Arrays.fill(cursorBytes, readBuffer(stream, cursorBytes, 0, lineLength), lineLength, (byte) 0);
+	        setCursor(cursorBytes, 0, lineLength);
+        }
+
+        countRecord(lineLength);
+        return true;
+    }
 
+
+    /**
+     * Read and check the next RDW (Record-Descriptor-Word). For files with
+     * Block-Descriptor-Words, whole blocks are read and the RDW / record
+     * are taken from the block.
+     *
+     * @return length of the next record or -1 at end of file
+     * @throws IOException any IO error or an invalid RDW
+     */
+    private int readRdw() throws IOException {
         if (stream == null) {
             throw new IOException(AbstractByteReader.NOT_OPEN_MESSAGE);
         }
 
-        checkForBlockLength();
+        byte[] buf = rdw;
+        int pos = 0;
+
+        if (containsBlockLength) {
+        	if (! blocks.ensureData(stream)) {
+        		return -1;
+        	}
+        	lineNumber += 1;
+        	if (blocks.remaining() < 4 && blocks.extend(stream, 4 - blocks.remaining()) < 4) {
+        		countInvalidRecordDescriptor();
+        		throw new IOException("Invalid Record Descriptor word at line "
+        				+ lineNumber + ", only " + blocks.remaining() + " bytes left in the file");
+        	}
+        	buf = blocks.getBlock();
+        	pos = blocks.getPosition();
+        } else {
+        	lineNumber += 1;
+        	if (readBuffer(stream, rdw) <= 0) {
+        		return -1;
+        	}
+        }
 
-        lineNumber += 1;
-        if (readBuffer(stream, rdw) > 0) {
 //            rdwLength[0] = rdw[0];
 //            rdwLength[1] = rdw[1];
 //
 //        	int lineLength = (new BigInteger(rdwLength)).intValue() - rdwAdjust;
-        	int lineLength = ((rdw[0] & 0xFF) << 8) + (rdw[1] & 0xFF) - rdwAdjust;
-            if (rdw[2] != 0  || rdw[3] != 0) {
-//              if ((rdw[2] != 0 &&  rdw[2] != 1 && rdw[2] != 2) || rdw[3] != 0) {
-                throw new IOException(
-                          "Invalid Record Descriptor word at line "
-                        + lineNumber + " " + lineLength + "\t" + rdw[2] + " " + rdw[3]
-                      );
-            }
-
-        	if (lineLength < 0) {
-        		throw new IOException("Invalid Line Length: " + lineLength + " For line " + lineNumber); 
-        	}
-            byte[] inBytes = new byte[lineLength];
+        int lineLength = getRdwLength(buf, pos, rdwAdjust);
+        if (! isValidRdw(buf, pos)) {
+//          if ((rdw[2] != 0 &&  rdw[2] != 1 && rdw[2] != 2) || rdw[3] != 0) {
+        	countInvalidRecordDescriptor();
+        	throw new IOException(
+        			"Invalid Record Descriptor word at line "
+        		  + lineNumber + " " + lineLength + "\t" + buf[pos + 2] + " " + buf[pos + 3]
+        		);
+        }
 
-            if (readBuffer(stream, inBytes) >= 0) {
-                ret = inBytes;
+        if (lineLength < 0) {
+        	countInvalidRecordDescriptor();
+        	throw new IOException("Invalid Line Length: " + lineLength + " For line " + lineNumber); 
+        }
 
-                if (containsBlockLength) {
-                	bytesReadFromBlock += lineLength + 4;
-                }
-			}
+        if (containsBlockLength) {
+        	blocks.ensureAvailable(stream, lineLength + 4);
+        	blocks.skip(4);
         }
+        return lineLength;
+    }
+
+    /**
+     * Bytes read, for files with Block-Descriptor-Words the unprocessed
+     * part of the current block is excluded
+     *
+     * @see net.sf.JRecord.ByteIO.AbstractByteReader#getBytesRead()
+     */
+    @Override
+    public long getBytesRead() {
+    	if (blocks == null) {
+    		return super.getBytesRead();
+    	}
+    	return super.getBytesRead() - blocks.remaining();
+    }
+
+    /**
+     * Wether the next read will start a new block. Files without
+     * Block-Descriptor-Words are always at a block boundary.
+     *
+     * @return wether the current block has been fully read
+     */
+    public final boolean isAtBlockBoundary() {
+    	return blocks == null || blocks.isAtBlockBoundary();
+    }
 
-        return ret;
+    /**
+     * Check the RDW (Record-Descriptor-Word) hex zero bytes
+     *
+     * @param buf buffer holding the RDW
+     * @param pos position of the RDW in the buffer
+     *
+     * @return wether it is a valid RDW
+     */
+    public static boolean isValidRdw(byte[] buf, int pos) {
+    	return buf[pos + 2] == 0 && buf[pos + 3] == 0;
     }
 
+    /**
+     * Get the record length held in a RDW (Record-Descriptor-Word)
+     *
+     * @param buf buffer holding the RDW
+     * @param pos position of the RDW in the buffer
+     * @param rdwAdjust amount to subtract from the RDW length
+     * (4 when the length includes the RDW)
+     *
+     * @return length of the record data
+     */
+    public static int getRdwLength(byte[] buf, int pos, int rdwAdjust) {
+    	return ((buf[pos] & 0xFF) << 8) + (buf[pos + 1] & 0xFF) - rdwAdjust;
+    }
 
     /**
-     * reads the blocklength if necessary
+     * Get the block length held in a BDW (Block-Descriptor-Word). The BDW is either
+     * <ul compact>
+     *   <li>first bit 0, next 15 bits are the block length, last 2 bytes hex zero
+     *   <li>first bit 1 followed by 31 bit length
+     * </ul>
+     *
+     * @param buf buffer holding the BDW
+     * @param pos position of the BDW in the buffer
+     *
+     * @return block length (including the BDW)
      */
-    private void checkForBlockLength() {
-
-        if (containsBlockLength && bytesReadFromBlock >= blockLength) {
-        	try {
-    			bytesReadFromBlock = 4;
-        		if ((readBuffer(stream, bdw) > 0)) {
-        			if (bdw[0] >= 0) {
-//        	            bdwLength[0] = bdw[0];
-//        	            bdwLength[1] = bdw[1];
+    public static int getBdwLength(byte[] buf, int pos) {
+		if (buf[pos] >= 0) {
+//            bdwLength[0] = bdw[0];
+//            bdwLength[1] = bdw[1];
 //
-//        	        	blockLength = (new BigInteger(bdwLength)).intValue();
-        	        	blockLength = ((bdw[0] & 0xFF) << 8) + (bdw[1] & 0xFF);
-        			} else {
-        				bdw[0] &= LAST_7_BITS_SET;
-        				blockLength = ((bdw[0] & 0xFF) << 24) + ((bdw[1] & 0xFF) << 16) 
-								+ ((bdw[2] & 0xFF) << 8) + ((bdw[3] & 0xFF));
- //       	        	blockLength = (new BigInteger(bdw)).intValue();
-        			}
-        		}
-        	} catch (Exception e) {
-				e.printStackTrace();
-			}
-        }
+//        	blockLength = (new BigInteger(bdwLength)).intValue();
+        	return ((buf[pos] & 0xFF) << 8) + (buf[pos + 1] & 0xFF);
+		}
+		return ((buf[pos] & LAST_7_BITS_SET) << 24) + ((buf[pos + 1] & 0xFF) << 16)
+				+ ((buf[pos + 2] & 0xFF) << 8) + ((buf[pos + 3] & 0xFF));
+//	    blockLength = (new BigInteger(bdw)).intValue();
+    }
+
+    /**
+     * Check a BDW (Block-Descriptor-Word) before the block is read. A standard BDW
+     * must have a length of 4 to 32760 and hex zero in the last 2 bytes;
+     * an extended BDW a length of 4 to MAX_EXTENDED_BLOCK_LENGTH.
+     *
+     * @param buf buffer holding the BDW
+     * @param pos position of the BDW in the buffer
+     *
+     * @return wether it is a valid BDW
+     */
+    public static boolean isValidBdw(byte[] buf, int pos) {
+    	int blockLength = getBdwLength(buf, pos);
+
+    	if (buf[pos] >= 0) {
+    		return blockLength >= 4 && blockLength <= MAX_BLOCK_LENGTH && isValidRdw(buf, pos);
+    	}
+    	return blockLength >= 4 && blockLength <= MAX_EXTENDED_BLOCK_LENGTH;
     }
 
     /**
@@ -208,7 +343,9 @@ public class VbByteReader extends AbstractByteReader {
      */
     public void close() throws IOException {
 
-        inStream.close();
+        if (stream != null) {
+        	stream.close();
+        }
         stream = null;
     }
 
@@ -31,10 +31,6 @@
       
 package net.sf.JRecord.ByteIO;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
-import java.io.OutputStream;
-import java.math.BigInteger;
 
 
 
@@ -60,6 +56,8 @@ import java.math.BigInteger;
  * no sense on Windows / Unix and these files can never be moved back to
  * the Mainframe.
  * 
+ * <p>Blocks are filled up to the block size (see {@link VbBlockedByteWriter}).
+ * 
  * i.e. The file consists of
  * 
  *   [Block Descriptor - 4 bytes containing the 2 byte block Length]
@@ -76,16 +74,7 @@ import java.math.BigInteger;
  * @author Bruce Martin
  *
  */
-public class VbDumpByteWriter extends AbstractByteWriter {
-
-	private static final int DEFAULT_BUFFER_SIZE = 27998;
-
-    private OutputStream outStream = null;
-	private ByteArrayOutputStream byteStream = new ByteArrayOutputStream();
-
-	private int blockSize;
-
-    private byte[] rdw = new byte[4];
+public class VbDumpByteWriter extends VbBlockedByteWriter {
 
 
     /**
@@ -93,7 +82,7 @@ public class VbDumpByteWriter extends AbstractByteWriter {
      * Block-Descriptor-Word).
      */
     public VbDumpByteWriter() {
-        this(DEFAULT_BUFFER_SIZE);
+        this(HALF_TRACK_BLOCK_SIZE);
     }
 
 
@@ -104,86 +93,6 @@ public class VbDumpByteWriter extends AbstractByteWriter {
      * @param pBlockSize block size of the file
      */
     public VbDumpByteWriter(final int pBlockSize) {
-        super();
-
-        blockSize = pBlockSize;
-        rdw[2]    = 0;
-        rdw[3]    = 0;
-    }
-
-
-    /**
-     * @see AbstractByteWriter#open(java.io.OutputStream)
-     */
-    public void open(OutputStream outputStream) throws IOException {
-
-        outStream = outputStream;
-        byteStream.reset();
-    }
-
-
-    /**
-     * @see AbstractByteWriter#write(byte[])
-     */
-    public void write(byte[] rec) throws IOException {
-
-        if (outStream == null) {
-            throw new IOException(AbstractByteWriter.NOT_OPEN_MESSAGE);
-        }
-        //byte[] rec = line.getData();
-
-        if (byteStream.size() + rec.length + 4 >= blockSize) {
-            writeBlock();
-        }
-
-        updateRDW(rec.length + 4, rdw);
-        byteStream.write(rdw);
-
-
-        byteStream.write(rec);
-    }
-
-
-    /**
-     * writes a block to the output file
-     *
-     * @throws IOException any IO error
-     */
-    private void writeBlock() throws IOException {
-
-    	updateRDW(byteStream.size() + 4, rdw);
-    	outStream.write(rdw);
-    	byteStream.writeTo(outStream);
-    	byteStream.reset();
-    }
-
-    /**
-     * Update a RDW (record descriptor record) / BDW (Block descriptor
-     * Word)
-     *
-     * @param length length to update
-     * @param word word to be updated
-     */
-    private void updateRDW(int length, byte[] word) {
-    	byte[] bytes = (BigInteger.valueOf(length)).toByteArray();
-
-        word[1] = bytes[bytes.length - 1];
-        word[0] = 0;
-        if (bytes.length > 1) {
-            word[0] = bytes[bytes.length - 2];
-        }
-    }
-
-    /**
-     * @see net.sf.JRecord.IO.AbstractLineWriter#close()
-     */
-    public void close() throws IOException {
-
-        if (byteStream.size() > 0) {
-            writeBlock();
-        }
-
-        outStream.close();
-        outStream = null;
+        super(pBlockSize, false, true);
     }
 }
@@ -32,10 +32,10 @@
       
 package net.sf.JRecord.ByteIO;
 
-import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
 
 
 
@@ -55,10 +55,7 @@ import java.util.ArrayList;
  */
 public class VbsByteReader extends AbstractByteReader {
 
-//	private static final int LAST_7_BITS_SET = 127;
-
-    private InputStream inStream;
-	private BufferedInputStream stream = null;
+	private InputStream stream = null;
 
 	private int lineNumber = 0;
 	private int rdwAdjust = 0;
@@ -67,30 +64,32 @@ public class VbsByteReader extends AbstractByteReader {
 	/**
 	 * record descriptor word, it consists of
 	 * 2 bytes length
-	 * 2 bytes (hex zero)
+	 * 1 byte segment indicator (0 - complete record, 1 - first segment, 2 - last segment, 3 - middle segment)
+	 * 1 byte (hex zero)
 	 */
 	private byte[] rdw = new byte[4];
-//	private byte[] rdwLength = new byte[2];
-
-
-//	private boolean containsBlockLength = false;
-//	private byte[] bdw = new byte[4];
-//	private byte[] bdwLength = new byte[2];
 
+	private boolean containsBlockLength = false;
+	private VbBlockBuffer blocks = null;
 
-//	private int blockLength = -1;
-//	private int bytesReadFromBlock = 0;
-	
 	private byte[] nextRecord = null;
-	
-	private ArrayList<byte[]> subLines = new ArrayList<byte[]>(5);
 
+	/** spanned records are reassembled in this (growable) buffer */
+	private byte[] assembly = new byte[BUFFER_SIZE];
 
 
+
+	/**
+	 * Read Mainframe VBS (Variable Blocked Spanned) files
+	 *
+	 * @param includesBlockLength wether the file contains Block-Descriptor-Words;
+	 * if it does, each block is read in one call and the segments are taken from the block
+	 * @param lengthIncludesRDW wether the RDW length includes the RDW
+	 */
 	public VbsByteReader(final boolean includesBlockLength, boolean lengthIncludesRDW) {
 	    super();
 
-//	    containsBlockLength = includesBlockLength;
+	    containsBlockLength = includesBlockLength;
 	    if (lengthIncludesRDW) {
 	    	rdwAdjust = 4;
 	    }
@@ -101,15 +100,11 @@ public class VbsByteReader extends AbstractByteReader {
      */
     public void open(InputStream inputStream) {
 
-        inStream = inputStream;
+        stream = getBufferedStream(getReadAheadStream(inputStream));
 
-        if (inputStream instanceof BufferedInputStream) {
-        	stream = (BufferedInputStream) inputStream;
-        } else {
-        	stream = new BufferedInputStream(inputStream, BUFFER_SIZE);
+        if (containsBlockLength) {
+        	blocks = new VbBlockBuffer(this);
         }
-
- //       checkForBlockLength();
     }
 
 
@@ -118,37 +113,68 @@ public class VbsByteReader extends AbstractByteReader {
      */
     public byte[] read()  throws IOException {
         byte[] ret = nextRecord;
-        
+
         if (ret != null) {
         	nextRecord = null;
-        	return ret;
+        	return countRecord(ret);
         }
 
         if (stream == null) {
             throw new IOException(AbstractByteReader.NOT_OPEN_MESSAGE);
         }
 
-//        checkForBlockLength();
-
         lineNumber += 1;
-        ret = readLinePart();
-        if (rdw[2] != 0 && ret != null) {
-        	byte[] t = ret;
-        	subLines.clear();
-        	do {
-        		subLines.add(t);
-        		t = readLinePart();
-        		if (rdw[2] == 0) {
-        			nextRecord = t;
-        			return join(subLines);
-        		}
-        		
-        	} while (rdw[2] != 2);
-        	subLines.add(t);
-        	ret = join(subLines);
+        int len = readSegmentHeader();
+        if (len < 0) {
+        	return null;
+        }
+        if (rdw[2] == 0) {
+        	ret = new byte[len];
+        	readSegmentData(ret, 0, len);
+        	return countRecord(ret);
         }
 
-        return ret;
+        int total = 0;
+        do {
+        	total = readSegmentData(total, len);
+        	len = readSegmentHeader();
+        	if (len < 0) {
+        		return countRecord(Arrays.copyOf(assembly, total));
+        	}
+        	if (rdw[2] == 0) {
+        		nextRecord = new byte[len];
+        		readSegmentData(nextRecord, 0, len);
+        		return countRecord(Arrays.copyOf(assembly, total));
+        	}
+        } while (rdw[2] != 2);
+
+        total = readSegmentData(total, len);
+        return countRecord(Arrays.copyOf(assembly, total));
+    }
+
+    /* (non-Javadoc)
+     * @see net.sf.JRecord.ByteIO.AbstractByteReader#getNextRecordPosition()
+     */
+    @Override
+    public long getNextRecordPosition() {
+    	if (nextRecord == null) {
+    		return getBytesRead();
+    	}
+    	return getBytesRead() - nextRecord.length - 4;
+    }
+
+    /**
+     * Bytes read, for files with Block-Descriptor-Words the unprocessed
+     * part of the current block is excluded
+     *
+     * @see net.sf.JRecord.ByteIO.AbstractByteReader#getBytesRead()
+     */
+    @Override
+    public long getBytesRead() {
+    	if (blocks == null) {
+    		return super.getBytesRead();
+    	}
+    	return super.getBytesRead() - blocks.remaining();
     }
 
     /**
@@ -178,73 +204,108 @@ public class VbsByteReader extends AbstractByteReader {
    }
     
 	/**
-	 * @param ret
-	 * @return
-	 * @throws IOException
+	 * Read one segment (part of a line)
+	 *
+	 * @return the segment or null at end of file
+	 * @throws IOException any IO error
 	 */
 	public byte[] readLinePart() throws IOException {
 		byte[] ret = null;
-		if (readBuffer(stream, rdw) > 0) {
-        	int lineLength = ((rdw[0] & 0xFF) << 8) + (rdw[1] & 0xFF) - rdwAdjust;
-            if (rdw[2] < 0 || rdw[2] > 3  || rdw[3] != 0) {
-//              if ((rdw[2] != 0 &&  rdw[2] != 1 && rdw[2] != 2) || rdw[3] != 0) {
-                throw new IOException(
-                          "Invalid Record Descriptor word at line "
-                        + lineNumber + " " + lineLength + "\tRDW=" + rdw[2] + ", " + rdw[3]
-                      );
-            }
-
-        	if (lineLength < 0) {
-        		throw new IOException("Invalid Line Length: " + lineLength + " For line " + lineNumber); 
-        	}
-            byte[] inBytes = new byte[lineLength];
+		int len = readSegmentHeader();
 
-            if (readBuffer(stream, inBytes) >= 0) {
-                ret = inBytes;
+		if (len >= 0) {
+			ret = new byte[len];
+			readSegmentData(ret, 0, len);
+		}
+		return ret;
+	}
 
-//                if (containsBlockLength) {
-//                	bytesReadFromBlock += lineLength + 4;
-//                }
+	/**
+	 * Read and check the RDW of the next segment
+	 *
+	 * @return length of the segment or -1 at end of file
+	 * @throws IOException any IO error or invalid RDW
+	 */
+	private int readSegmentHeader() throws IOException {
+		if (containsBlockLength) {
+			if (! blocks.ensureData(stream)) {
+				return -1;
+			}
+			if (blocks.remaining() < 4 && blocks.extend(stream, 4 - blocks.remaining()) < 4) {
+				countInvalidRecordDescriptor();
+				throw new IOException("Invalid Record Descriptor word at line "
+						+ lineNumber + ", only " + blocks.remaining() + " bytes left in the file");
 			}
+			System.arraycopy(blocks.getBlock(), blocks.getPosition(), rdw, 0, 4);
+			blocks.skip(4);
+		} else if (readBuffer(stream, rdw) <= 0) {
+			return -1;
+		}
+
+    	int lineLength = ((rdw[0] & 0xFF) << 8) + (rdw[1] & 0xFF) - rdwAdjust;
+        if (rdw[2] < 0 || rdw[2] > 3  || rdw[3] != 0) {
+//          if ((rdw[2] != 0 &&  rdw[2] != 1 && rdw[2] != 2) || rdw[3] != 0) {
+        	countInvalidRecordDescriptor();
+            throw new IOException(
+                      "Invalid Record Descriptor word at line "
+                    + lineNumber + " " + lineLength + "\tRDW=" + rdw[2] + ", " + rdw[3]
+                  );
         }
-		return ret;
+
+    	if (lineLength < 0) {
+    		countInvalidRecordDescriptor();
+    		throw new IOException("Invalid Line Length: " + lineLength + " For line " + lineNumber); 
+    	}
+
+    	if (containsBlockLength) {
+    		blocks.ensureAvailable(stream, lineLength);
+    	}
+		return lineLength;
 	}
 
+	/**
+	 * Read segment data in to a buffer; if the file is truncated, the missing
+	 * bytes are set to hex zero
+	 *
+	 * @param buf buffer to hold the data
+	 * @param pos position in the buffer
+	 * @param len length of the segment
+	 * @throws IOException any IO error
+	 */
+	private void readSegmentData(byte[] buf, int pos, int len) throws IOException {
+		if (containsBlockLength) {
+			System.arraycopy(blocks.getBlock(), blocks.getPosition(), buf, pos, len);
+			blocks.skip(len);
+		} else {
+			Arrays.fill(buf, readBuffer(stream, buf, pos, pos + len), pos + len, (byte) 0);
+		}
+	}
+
+	/**
+	 * Add segment data to the spanned record buffer (growing it as needed)
+	 *
+	 * @param pos position in the buffer
+	 * @param len length of the segment
+	 * @return new length of the spanned record
+	 * @throws IOException any IO error
+	 */
+	private int readSegmentData(int pos, int len) throws IOException {
+		if (assembly.length < pos + len) {
+			assembly = Arrays.copyOf(assembly, Math.max(pos + len, assembly.length * 2));
+		}
+		readSegmentData(assembly, pos, len);
+		return pos + len;
+	}
 
-//    /**
-//     * reads the blocklength if necessary
-//     */
-//    private void checkForBlockLength() {
-//
-//        if (containsBlockLength && bytesReadFromBlock >= blockLength) {
-//        	try {
-//    			bytesReadFromBlock = 4;
-//        		if ((readBuffer(stream, bdw) > 0)) {
-//        			if (bdw[0] >= 0) {
-////        	            bdwLength[0] = bdw[0];
-////        	            bdwLength[1] = bdw[1];
-////
-////        	        	blockLength = (new BigInteger(bdwLength)).intValue();
-//        	        	blockLength = ((bdw[0] & 0xFF) << 8) + (bdw[1] & 0xFF);
-//        			} else {
-//        				bdw[0] &= LAST_7_BITS_SET;
-//        				blockLength = ((bdw[0] & 0xFF) << 24) + ((bdw[1] & 0xFF) << 16) 
-//								+ ((bdw[2] & 0xFF) << 8) + ((bdw[3] & 0xFF));
-// //       	        	blockLength = (new BigInteger(bdw)).intValue();
-//        			}
-//        		}
-//        	} catch (Exception e) {
-//				e.printStackTrace();
-//			}
-//        }
-//    }
 
     /**
      * @see AbstractByteReader#close()
      */
     public void close() throws IOException {
 
-        inStream.close();
+        if (stream != null) {
+        	stream.close();
+        }
         stream = null;
     }
 
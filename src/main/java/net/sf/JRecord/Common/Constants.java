@@ -103,8 +103,10 @@ public interface Constants {
      * It was written based on information in the Manual and has had
      * very limited testing against real VBS files.
      * <p>I <b>strongly</b> suggest you <b>copy</b> the file from <b>VBS</b> to <b>VB</b>/<b>FB</b> on the mainframe
-     * and use <b>IO_VB</b> / <b>IO_FIXED_LENGTH</b> instead of the IO_VBS option. Also you can only 
-     * read VBS files, there is now Write option. 
+     * and use <b>IO_VB</b> / <b>IO_FIXED_LENGTH</b> instead of the IO_VBS option.
+     * <p>IO_VBS files are written (by VbBlockedByteWriter) as spanned record segments,
+     * each with its own RDW, <b>without</b> Block-Descriptor-Words; i.e. the same format
+     * the IO_VBS reader expects. Use VbBlockedByteWriter directly to write files with BDW's.
      */
     public static final int IO_VBS  = 12;
 
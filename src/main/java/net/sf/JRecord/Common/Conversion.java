@@ -41,6 +41,8 @@ import java.text.NumberFormat;
 import java.util.Arrays;
 import java.util.Locale;
 
+import net.sf.cb2xml.util.PackedDecimal;
+
 
 
 
@@ -113,9 +115,12 @@ public final class Conversion {
 	 * @return equivalent byte array
 	 */
 	public static byte[] getBytes(String str, String fontname) {
+		SingleByteCharset tbl;
 
 	    if (str == null) {
 	        return null;
+	    } else if ((tbl = SingleByteCharset.getInstance(fontname)) != null) {
+	    	return tbl.getBytes(str);
 	    } else if (fontname != null && fontname.length() > 0) {
 	        try {
 	            return str.getBytes(fontname);
@@ -138,6 +143,30 @@ public final class Conversion {
 	public static String getString(final byte[] record,
 	        				 final int start, final int fin,
 	        				 final String fontName) {
+		return getString(record, start, fin, fontName, false);
+	}
+
+	/**
+	 * Get a String Field, single byte character-sets are converted
+	 * via a translation table (see SingleByteCharset)
+	 *
+	 * @param record record to be updated
+	 * @param start Field start
+	 * @param fin Field end
+	 * @param fontName font name being used
+	 * @param trimRight wether to remove trailing spaces
+	 *
+	 * @return Field Value
+	 */
+	public static String getString(final byte[] record,
+	        				 final int start, final int fin,
+	        				 final String fontName,
+	        				 final boolean trimRight) {
+		SingleByteCharset tbl = SingleByteCharset.getInstance(fontName);
+		if (tbl != null) {
+			return tbl.getString(record, start, fin, trimRight);
+		}
+
 		String s = "";
 
 		if (fin - start <= 0) {
@@ -152,6 +181,13 @@ public final class Conversion {
 		    }
 		}
 
+		if (trimRight && s.endsWith(" ")) {
+			int idx = s.length() - 1;
+			while (idx >= 0 && s.charAt(idx) == ' ') {
+				idx -= 1;
+			}
+			s = s.substring(0, idx + 1);
+		}
 		return s;
 	}
 
@@ -163,6 +199,11 @@ public final class Conversion {
 	 */
 	public final static String toString(final byte[] record,
 			 final String fontName) {
+		SingleByteCharset tbl = SingleByteCharset.getInstance(fontName);
+		if (tbl != null && record != null) {
+			return tbl.getString(record, 0, record.length, false);
+		}
+
 		String s = "";
 
 		try {
@@ -334,6 +375,9 @@ public final class Conversion {
 	 */
 	public static BigInteger getLittleEndianBigInt(final byte[] record, final int start, final int fin) {
 		int len = fin - start;
+		if (len > 0 && len <= 8) {
+			return BigInteger.valueOf(getLittleEndianLong(record, start, len, false));
+		}
 		byte[] bytes = new byte[len];
 
 		for (int i = 0; i < len; i++) {
@@ -353,7 +397,10 @@ public final class Conversion {
 	 * @return Integer Field
 	 */
 	public static String getBinaryInt(final byte[] record, final int start, final int fin) {
-			return (getLittleEndianBigInt(record, start, fin)).toString();
+		if (fin - start > 0 && fin - start <= 8) {
+			return Long.toString(getLittleEndianLong(record, start, fin - start, false));
+		}
+		return (getLittleEndianBigInt(record, start, fin)).toString();
 
 //		long l = 0;
 //		int len = fin - start;
@@ -389,7 +436,10 @@ public final class Conversion {
 
 
 	/**
-	 * Converts a Mainframe Packed Decimal (Comp-3) field to String
+	 * Converts a Mainframe Packed Decimal (Comp-3) field to String.
+	 * Valid packed decimals are decoded by {@link PackedDecimal}, invalid fields
+	 * are converted via the hex value as before (a non sign last nybble is treated
+	 * as a digit).
 	 *
 	 * @param record Full record from which the value is to be extracted
 	 * @param start Start of field
@@ -400,6 +450,15 @@ public final class Conversion {
 	public static String getMainframePackedDecimal(final byte[] record,
 	        									   final int start,
 	        									   final int len) {
+		long value = PackedDecimal.getLong(record, start, len);
+		if (value != PackedDecimal.NOT_A_LONG) {
+			return Long.toString(value);
+		}
+		BigInteger bigValue = PackedDecimal.getBigInteger(record, start, len);
+		if (bigValue != null) {
+			return bigValue.toString();
+		}
+
 	    String hex  = getDecimal(record, start, start + len);
 	        //Long.toHexString(toBigInt(start, len).longValue());
 	    String ret  = "";
@@ -438,6 +497,9 @@ public final class Conversion {
 	 * @return Field as a big Integer
 	 */
 	public static BigInteger getBigInt(final byte[] record, final int start, final int len) {
+		if (len > 0 && len <= 8) {
+			return BigInteger.valueOf(getBigEndianLong(record, start, len, false));
+		}
 		byte[] bytes = new byte[len];
 
 		System.arraycopy(record, start, bytes, 0, len);
@@ -458,6 +520,9 @@ public final class Conversion {
 	 * @return Field as a big Integer
 	 */
 	public static BigInteger getPositiveBigInt(final byte[] record, final int start, final int len) {
+		if (len > 0 && (len < 8 || (len == 8 && record[start] >= 0))) {
+			return BigInteger.valueOf(getBigEndianLong(record, start, len, true));
+		}
 		byte[] bytes = new byte[len + 1];
 		bytes[0] = 0;
 
@@ -468,6 +533,79 @@ public final class Conversion {
 
 
 
+	/**
+	 * Extract a Positive Binary Integer (Intel Format) as a BigInteger
+	 *
+	 * @param record Full record from which the value is to be extracted
+	 * @param start Field start
+	 * @param fin Field End
+	 *
+	 * @return Field as a big Integer
+	 */
+	public static BigInteger getPositiveLittleEndianBigInt(final byte[] record, final int start, final int fin) {
+		int len = fin - start;
+		if (len <= 0) {
+			return BigInteger.ZERO;
+		} else if (len < 8 || (len == 8 && record[fin - 1] >= 0)) {
+			return BigInteger.valueOf(getLittleEndianLong(record, start, len, true));
+		}
+		byte[] bytes = new byte[len + 1];
+
+		for (int i = 0; i < len; i++) {
+			bytes[i + 1] = record[start + len - i - 1];
+		}
+
+		return new BigInteger(bytes);
+	}
+
+
+	/**
+	 * Get a Big-Endian (Mainframe format) binary integer of 1 to 8 bytes
+	 * as a long (without creating a BigInteger).
+	 * <p>For a positive (unsigned) 8 byte field, the value will only fit in a long if
+	 * the first bit is not set.
+	 *
+	 * @param record Full record from which the value is to be extracted
+	 * @param start Field start
+	 * @param len Field length (1 to 8)
+	 * @param isPositive wether the field is stored as an unsigned integer
+	 *
+	 * @return Field as a long
+	 */
+	public static long getBigEndianLong(final byte[] record, final int start, final int len, boolean isPositive) {
+		long value = isPositive ? record[start] & 0xFF : record[start];
+
+		for (int i = start + 1; i < start + len; i++) {
+			value = (value << 8) | (record[i] & 0xFF);
+		}
+		return value;
+	}
+
+
+	/**
+	 * Get a Little-Endian (Intel format) binary integer of 1 to 8 bytes
+	 * as a long (without creating a BigInteger).
+	 * <p>For a positive (unsigned) 8 byte field, the value will only fit in a long if
+	 * the last bit is not set.
+	 *
+	 * @param record Full record from which the value is to be extracted
+	 * @param start Field start
+	 * @param len Field length (1 to 8)
+	 * @param isPositive wether the field is stored as an unsigned integer
+	 *
+	 * @return Field as a long
+	 */
+	public static long getLittleEndianLong(final byte[] record, final int start, final int len, boolean isPositive) {
+		int last = start + len - 1;
+		long value = isPositive ? record[last] & 0xFF : record[last];
+
+		for (int i = last - 1; i >= start; i--) {
+			value = (value << 8) | (record[i] & 0xFF);
+		}
+		return value;
+	}
+
+
 	/**
 	 * Convert the requested field to a Long
 	 *
@@ -579,6 +717,10 @@ public final class Conversion {
 	}
 
 	public static void setBigInt(final byte[] record, int pos, int len, BigInteger val, boolean isPositive) {
+		if (len <= 8 && val.bitLength() < 64 && isBinaryValueValid(val.longValue(), len, isPositive)) {
+			setBigEndianLong(record, pos, len, val.longValue());
+			return;
+		}
 		byte[] bytes = val.toByteArray();
 		int i;
 		byte sb = BYTE_NO_BIT_SET;
@@ -610,6 +752,10 @@ public final class Conversion {
 
 
 	public static void setBigIntLE(final byte[] record, int pos, int len, BigInteger val, boolean isPositive) {
+		if (len <= 8 && val.bitLength() < 64 && isBinaryValueValid(val.longValue(), len, isPositive)) {
+			setLittleEndianLong(record, pos, len, val.longValue());
+			return;
+		}
 		byte[] bytes = val.toByteArray();
 		int i;
 
@@ -639,6 +785,62 @@ public final class Conversion {
 	}
 
 
+	/**
+	 * Check if a long will fit in a binary field of 1 to 8 bytes.
+	 * Signed values must be in the signed range of the field; when <i>isPositive</i>
+	 * (unsigned storage) is set, values up to 2<sup>len*8</sup>-1 are also allowed.
+	 *
+	 * @param val value to check
+	 * @param len field length
+	 * @param isPositive wether the field can be stored as an unsigned integer
+	 *
+	 * @return wether the value fits in the field
+	 */
+	public static boolean isBinaryValueValid(long val, int len, boolean isPositive) {
+		if (len <= 0) {
+			return false;
+		} else if (len >= 8) {
+			return true;
+		}
+
+		long limit = 1L << (len * 8 - 1);
+		return (val >= -limit && val < limit)
+			|| (isPositive && val >= 0 && val < limit * 2);
+	}
+
+	/**
+	 * Store the low order bytes of a long in a field (Big Endian / Mainframe format).
+	 * No size checking is done, see {@link Conversion#isBinaryValueValid(long, int, boolean)}
+	 *
+	 * @param record record to be updated
+	 * @param pos position of the field (index in the array)
+	 * @param len field length (1 to 8)
+	 * @param val value to store
+	 */
+	public static void setBigEndianLong(final byte[] record, int pos, int len, long val) {
+		for (int i = pos + len - 1; i >= pos; i--) {
+			record[i] = (byte) val;
+			val >>= 8;
+		}
+	}
+
+	/**
+	 * Store the low order bytes of a long in a field (Little Endian / Intel format).
+	 * No size checking is done, see {@link Conversion#isBinaryValueValid(long, int, boolean)}
+	 *
+	 * @param record record to be updated
+	 * @param pos position of the field (index in the array)
+	 * @param len field length (1 to 8)
+	 * @param val value to store
+	 */
+	public static void setLittleEndianLong(final byte[] record, int pos, int len, long val) {
+		for (int i = pos; i < pos + len; i++) {
+			record[i] = (byte) val;
+			val >>= 8;
+		}
+	}
+
+
 	/**
 	 * Load a long into the Record (Little Endian format -> low to high
 	 * byte).
@@ -967,6 +1169,18 @@ public final class Conversion {
     	return getHold(fontName).isMultiByte;
     }
 
+    /**
+     * Wether the digits, signs and letters are stored as their
+     * Ascii values in the character-set (i.e. it can be processed
+     * at the byte level as Ascii)
+     *
+     * @param fontName character-set name
+     * @return wether the character-set is Ascii based
+     */
+    public static boolean isAsciiBased(String fontName) {
+    	return getHold(fontName).isAsciiBased;
+    }
+
  
     private static HoldEbcidicFlag getHold(String charset) {
     	HoldEbcidicFlag hold = holdEbcidicFlag;
@@ -1019,8 +1233,12 @@ public final class Conversion {
      *
      */
 	public static final class HoldEbcidicFlag {
+		private static final String ASCII_TEST_CHARS
+				= " +-.0123456789@{}ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz";
+		private static final byte[] ASCII_TEST_BYTES = ASCII_TEST_CHARS.getBytes(Charset.forName("US-ASCII"));
+
 		public final String charset;
-		public final boolean isSingleByteEbcidic, isMultiByte, isEbcdic;
+		public final boolean isSingleByteEbcidic, isMultiByte, isEbcdic, isAsciiBased;
 		
 		public HoldEbcidicFlag(String charset) {
 			super();
@@ -1039,6 +1257,7 @@ public final class Conversion {
 			
 			
 			this.isSingleByteEbcidic = isEbcdic && ! isMultiByte;
+			this.isAsciiBased = Arrays.equals(ASCII_TEST_BYTES, getBytes(ASCII_TEST_CHARS, charset));
 		}
 		
 	    private static boolean isMultiByteI(String fontName) {
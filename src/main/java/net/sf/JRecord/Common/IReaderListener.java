@@ -0,0 +1,61 @@
+/*  -------------------------------------------------------------------------
+ *
+ *            Sub-Project: JRecord Common
+ *    
+ *    Sub-Project purpose: Common Low-Level Code shared between 
+ *                        the JRecord and Record Projects
+ *    
+ *                 Author: Bruce Martin
+ *    
+ *                License: LGPL 2.1 or latter
+ *                
+ *    Copyright (c) 2016, Bruce Martin, All Rights Reserved.
+ *   
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation; either
+ *    version 2.1 of the License, or (at your option) any later version.
+ *   
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU Lesser General Public License for more details.
+ *
+ * ------------------------------------------------------------------------ */
+      
+      
+package net.sf.JRecord.Common;
+
+/**
+ * Receives notification of the records read by a Line or Byte reader
+ * (see <b>AbstractLineReader.setListener</b> and <b>AbstractByteReader.setListener</b>).
+ * The methods are called on the reading thread for every record,
+ * so implementations should be cheap (e.g. incrementing counters).
+ *
+ * @author Bruce Martin
+ *
+ */
+public interface IReaderListener {
+
+	/**
+	 * Record type (index) used when the reader does not know the record type
+	 * (i.e. Byte readers).
+	 */
+	public static final int UNKNOWN_RECORD_TYPE = -1;
+
+	/**
+	 * A record has been read
+	 *
+	 * @param recordIdx record type (index of the record in the layout); a negative value
+	 * (e.g. UNKNOWN_RECORD_TYPE) means the record type is not known
+	 * @param length length of the record in bytes
+	 */
+	public abstract void recordRead(int recordIdx, int length);
+
+	/**
+	 * An invalid Record Descriptor Word (or record length) was found
+	 *
+	 * @param position position in the file
+	 */
+	public abstract void invalidRecordDescriptor(long position);
+}
@@ -0,0 +1,184 @@
+/*  -------------------------------------------------------------------------
+ *
+ *            Sub-Project: JRecord Common
+ *    
+ *    Sub-Project purpose: Common Low-Level Code shared between 
+ *                        the JRecord and Record Projects
+ *    
+ *                 Author: Bruce Martin
+ *    
+ *                License: LGPL 2.1 or latter
+ *                
+ *    Copyright (c) 2016, Bruce Martin, All Rights Reserved.
+ *   
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation; either
+ *    version 2.1 of the License, or (at your option) any later version.
+ *   
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU Lesser General Public License for more details.
+ *
+ * ------------------------------------------------------------------------ */
+      
+      
+package net.sf.JRecord.Common;
+
+import java.util.Arrays;
+
+/**
+ * Collects simple statistics (number of records of each type, bytes, invalid
+ * Record Descriptor Words, records per second) for a Line or Byte reader.
+ *
+ * <pre>
+ * <b>Usage:</b>
+ *
+ *      ReaderStatistics stats = new ReaderStatistics();
+ *      reader.setListener(stats);
+ *
+ *      while ((l = reader.read()) != null) { ... }
+ *
+ *      System.out.println(stats);
+ * </pre>
+ *
+ * @author Bruce Martin
+ *
+ */
+public class ReaderStatistics implements IReaderListener {
+
+	private long records = 0;
+	private long bytes = 0;
+	private long invalidRecordDescriptors = 0;
+	private long[] recordTypeCounts = new long[8];
+	private long firstRecordTime = -1, lastRecordTime = -1;
+
+	/* (non-Javadoc)
+	 * @see net.sf.JRecord.Common.IReaderListener#recordRead(int, int)
+	 */
+	@Override
+	public void recordRead(int recordIdx, int length) {
+		long time = System.nanoTime();
+		int idx = Math.max(UNKNOWN_RECORD_TYPE, recordIdx) + 1;
+
+		if (firstRecordTime < 0) {
+			firstRecordTime = time;
+		}
+		lastRecordTime = time;
+
+		records += 1;
+		bytes += length;
+
+		if (idx >= recordTypeCounts.length) {
+			recordTypeCounts = Arrays.copyOf(recordTypeCounts, Math.max(idx + 1, recordTypeCounts.length * 2));
+		}
+		recordTypeCounts[idx] += 1;
+	}
+
+	/* (non-Javadoc)
+	 * @see net.sf.JRecord.Common.IReaderListener#invalidRecordDescriptor(long)
+	 */
+	@Override
+	public void invalidRecordDescriptor(long position) {
+		invalidRecordDescriptors += 1;
+	}
+
+	/**
+	 * @return total number of records read
+	 */
+	public final long getRecordCount() {
+		return records;
+	}
+
+	/**
+	 * Get the number of records of a specific type
+	 * @param recordIdx record index (or UNKNOWN_RECORD_TYPE for records that
+	 * did not match any record in the layout)
+	 * @return number of records of the requested type
+	 */
+	public final long getRecordCount(int recordIdx) {
+		int idx = recordIdx + 1;
+		if (idx < 0 || idx >= recordTypeCounts.length) {
+			return 0;
+		}
+		return recordTypeCounts[idx];
+	}
+
+	/**
+	 * @return number of record types (highest record index + 1)
+	 */
+	public final int getRecordTypeCount() {
+		int ret = recordTypeCounts.length;
+		while (ret > 1 && recordTypeCounts[ret - 1] == 0) {
+			ret -= 1;
+		}
+		return ret - 1;
+	}
+
+	/**
+	 * @return total number of bytes in the records read
+	 */
+	public final long getBytes() {
+		return bytes;
+	}
+
+	/**
+	 * @return number of invalid Record Descriptor Words found
+	 */
+	public final long getInvalidRecordDescriptorCount() {
+		return invalidRecordDescriptors;
+	}
+
+	/**
+	 * @return time (milliseconds) between the first and last records
+	 */
+	public final long getElapsedMillis() {
+		if (firstRecordTime < 0) {
+			return 0;
+		}
+		return (lastRecordTime - firstRecordTime) / 1000000;
+	}
+
+	/**
+	 * @return records read per second
+	 */
+	public final double getRecordsPerSecond() {
+		return perSecond(records);
+	}
+
+	/**
+	 * @return bytes read per second
+	 */
+	public final double getBytesPerSecond() {
+		return perSecond(bytes);
+	}
+
+	private double perSecond(long amount) {
+		long nanos = lastRecordTime - firstRecordTime;
+		if (firstRecordTime < 0 || nanos <= 0) {
+			return 0;
+		}
+		return amount * 1000000000.0 / nanos;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		StringBuilder b = new StringBuilder();
+		b.append("Records: ").append(records)
+		 .append(", Bytes: ").append(bytes)
+		 .append(", Invalid RDW: ").append(invalidRecordDescriptors)
+		 .append(", Records/sec: ").append(Math.round(getRecordsPerSecond()));
+
+		for (int i = -1; i < getRecordTypeCount(); i++) {
+			long count = getRecordCount(i);
+			if (count > 0) {
+				b.append(", Type ").append(i).append(": ").append(count);
+			}
+		}
+		return b.toString();
+	}
+}
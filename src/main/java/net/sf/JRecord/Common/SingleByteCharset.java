@@ -0,0 +1,260 @@
+/*  -------------------------------------------------------------------------
+ *
+ *            Sub-Project: JRecord Common
+ *    
+ *    Sub-Project purpose: Common Low-Level Code shared between 
+ *                        the JRecord and Record Projects
+ *    
+ *                 Author: Bruce Martin
+ *    
+ *                License: LGPL 2.1 or latter
+ *                
+ *    Copyright (c) 2016, Bruce Martin, All Rights Reserved.
+ *   
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation; either
+ *    version 2.1 of the License, or (at your option) any later version.
+ *   
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU Lesser General Public License for more details.
+ *
+ * ------------------------------------------------------------------------ */
+      
+      
+package net.sf.JRecord.Common;
+
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Translation tables for a single byte character-set (cp037, cp273, cp1047,
+ * ISO-8859-1 etc). The tables are built (lazily) the first time a character-set is
+ * used and are then cached, so converting a field is a simple table lookup
+ * rather than a character-set lookup plus a decoder / encoder for each field.
+ *
+ * <pre>
+ * <b>Usage:</b>
+ *
+ *      SingleByteCharset tbl = SingleByteCharset.getInstance("cp037");
+ *      if (tbl != null) {
+ *          String s = tbl.getString(record, start, end, true);
+ *      }
+ * </pre>
+ *
+ * <p>The tables give the same results as <i>new String(bytes, charset)</i> and
+ * <i>String.getBytes(charset)</i>; Strings holding characters that are not in the
+ * tables are converted with the standard java conversion.
+ *
+ * @author Bruce Martin
+ *
+ */
+public final class SingleByteCharset {
+
+	private static final SingleByteCharset NOT_SINGLE_BYTE = new SingleByteCharset();
+	private static final ConcurrentHashMap<String, SingleByteCharset> CHARSETS
+			= new ConcurrentHashMap<String, SingleByteCharset>();
+	private static final ThreadLocal<char[]> BUFFER = new ThreadLocal<char[]>() {
+		@Override protected char[] initialValue() {
+			return new char[256];
+		}
+	};
+
+	private static volatile SingleByteCharset lastUsed = NOT_SINGLE_BYTE;
+
+	private final String name;
+	private final Charset charset;
+	private final char[] byteToChar;
+	private final byte[] charToByte;
+	/** characters > 255 (sorted) and the matching bytes */
+	private final char[] highChars;
+	private final byte[] highBytes;
+
+	private SingleByteCharset() {
+		name = null;
+		charset = null;
+		byteToChar = null;
+		charToByte = null;
+		highChars = null;
+		highBytes = null;
+	}
+
+	private SingleByteCharset(String name, Charset charset, char[] byteToChar) {
+		this.name = name;
+		this.charset = charset;
+		this.byteToChar = byteToChar;
+		this.charToByte = new byte[256];
+
+		char[] chars = new char[256];
+		byte[] bytes = new byte[256];
+		int count = 0;
+		for (int i = 0; i < 256; i++) {
+			charToByte[i] = String.valueOf((char) i).getBytes(charset)[0];
+			char ch = byteToChar[i];
+			if (ch > 255 && Arrays.binarySearch(chars, 0, count, ch) < 0) {
+				int idx = count++;
+				while (idx > 0 && chars[idx - 1] > ch) {
+					chars[idx] = chars[idx - 1];
+					bytes[idx] = bytes[idx - 1];
+					idx -= 1;
+				}
+				chars[idx] = ch;
+				bytes[idx] = String.valueOf(ch).getBytes(charset)[0];
+			}
+		}
+		highChars = Arrays.copyOf(chars, count);
+		highBytes = Arrays.copyOf(bytes, count);
+	}
+
+	/**
+	 * Get the translation tables for a character-set
+	 *
+	 * @param charsetName character-set name (null / "" for the default character-set)
+	 *
+	 * @return the translation tables or null if the character-set
+	 * is not a (supported) single byte character-set
+	 */
+	public static SingleByteCharset getInstance(String charsetName) {
+		String key = charsetName == null ? "" : charsetName;
+		SingleByteCharset ret = lastUsed;
+
+		if (! key.equals(ret.name)) {
+			ret = CHARSETS.get(key);
+			if (ret == null) {
+				ret = build(key);
+				SingleByteCharset existing = CHARSETS.putIfAbsent(key, ret);
+				if (existing != null) {
+					ret = existing;
+				}
+			}
+			if (ret != NOT_SINGLE_BYTE) {
+				lastUsed = ret;
+			}
+		}
+
+		return ret == NOT_SINGLE_BYTE ? null : ret;
+	}
+
+	/**
+	 * Build the tables for a character-set
+	 */
+	private static SingleByteCharset build(String charsetName) {
+		Charset charset;
+
+		try {
+			if (charsetName.length() == 0) {
+				charset = Charset.defaultCharset();
+			} else if (Charset.isSupported(charsetName)) {
+				charset = Charset.forName(charsetName);
+			} else {
+				return NOT_SINGLE_BYTE;
+			}
+		} catch (RuntimeException e) {
+			return NOT_SINGLE_BYTE;
+		}
+
+		if (! charset.canEncode() || charset.newEncoder().maxBytesPerChar() > 1.0f) {
+			return NOT_SINGLE_BYTE;
+		}
+
+		byte[] allBytes = new byte[256];
+		for (int i = 0; i < 256; i++) {
+			allBytes[i] = (byte) i;
+		}
+
+		String s = new String(allBytes, charset);
+		if (s.length() != 256) {
+			return NOT_SINGLE_BYTE;
+		}
+		char[] byteToChar = s.toCharArray();
+		for (int i = 0; i < 256; i++) {
+			String ch = new String(allBytes, i, 1, charset);
+			if (ch.length() != 1 || ch.charAt(0) != byteToChar[i]) {
+				return NOT_SINGLE_BYTE;
+			}
+		}
+		return new SingleByteCharset(charsetName, charset, byteToChar);
+	}
+
+	/**
+	 * Convert part of a byte array to a String
+	 *
+	 * @param record bytes to be converted
+	 * @param start start of the field
+	 * @param fin end of the field (exclusive)
+	 * @param trimRight wether to remove trailing spaces
+	 *
+	 * @return the field as a String
+	 */
+	public String getString(byte[] record, int start, int fin, boolean trimRight) {
+		int len = fin - start;
+		if (len <= 0) {
+			return "";
+		}
+
+		char[] buf = BUFFER.get();
+		if (buf.length < len) {
+			buf = new char[Math.max(len, buf.length * 2)];
+			BUFFER.set(buf);
+		}
+
+		int end = len;
+		if (trimRight) {
+			end = 0;
+			for (int i = 0; i < len; i++) {
+				if ((buf[i] = byteToChar[record[start + i] & 0xFF]) != ' ') {
+					end = i + 1;
+				}
+			}
+		} else {
+			for (int i = 0; i < len; i++) {
+				buf[i] = byteToChar[record[start + i] & 0xFF];
+			}
+		}
+
+		return new String(buf, 0, end);
+	}
+
+	/**
+	 * Convert a String to bytes
+	 *
+	 * @param s String to be converted
+	 *
+	 * @return the bytes
+	 */
+	public byte[] getBytes(String s) {
+		int len = s.length();
+		byte[] ret = new byte[len];
+		char ch;
+		int idx;
+
+		for (int i = 0; i < len; i++) {
+			ch = s.charAt(i);
+			if (ch < 256) {
+				ret[i] = charToByte[ch];
+			} else if ((idx = Arrays.binarySearch(highChars, ch)) >= 0) {
+				ret[i] = highBytes[idx];
+			} else {
+				return s.getBytes(charset);
+			}
+		}
+		return ret;
+	}
+
+	/**
+	 * @return the byte to char translation table (256 entries)
+	 */
+	public char[] getByteToChar() {
+		return byteToChar.clone();
+	}
+
+	/**
+	 * @return the character-set
+	 */
+	public Charset getCharset() {
+		return charset;
+	}
+}
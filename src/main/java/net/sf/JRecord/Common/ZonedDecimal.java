@@ -0,0 +1,574 @@
+/*  -------------------------------------------------------------------------
+ *
+ *            Sub-Project: JRecord Common
+ *    
+ *    Sub-Project purpose: Common Low-Level Code shared between 
+ *                        the JRecord and Record Projects
+ *    
+ *                 Author: Bruce Martin
+ *    
+ *                License: LGPL 2.1 or latter
+ *                
+ *    Copyright (c) 2016, Bruce Martin, All Rights Reserved.
+ *   
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation; either
+ *    version 2.1 of the License, or (at your option) any later version.
+ *   
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU Lesser General Public License for more details.
+ *
+ * ------------------------------------------------------------------------ */
+      
+      
+package net.sf.JRecord.Common;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+/**
+ * Byte level Zoned Decimal (and Sign Separate numeric) encoding / decoding.
+ *
+ * <p>A zoned decimal field holds one digit per byte with the sign
+ * <i>over-punched</i> on the last digit. The supported dialects are
+ * <ul compact>
+ *   <li><b>EBCDIC</b> Mainframe zoned decimal, the digits are x'F0' .. x'F9' and the sign
+ *   is held in the zone (high nybble) of the last byte: x'C' positive, x'D' negative and
+ *   x'F' unsigned (x'A' / x'E' are also treated as positive and x'B' as negative).
+ *   <li><b>ASCII</b> Mainframe zoned decimal in an Ascii based character-set, the last digit is
+ *   <b>{</b>, <b>A</b> .. <b>I</b> for +0 .. +9 and <b>}</b>, <b>J</b> .. <b>R</b> for -0 .. -9.
+ *   <li><b>ASCII_FUJITSU</b> Fujitsu / GnuCobol / Micro Focus, the last digit is <b>@</b>,
+ *   <b>A</b> .. <b>I</b> (or just the digit) for +0 .. +9 and <b>P</b> .. <b>Y</b>
+ *   (<b>p</b> .. <b>y</b> for GnuCobol / Micro Focus) for -0 .. -9.
+ * </ul>
+ *
+ * <p>The digits and sign are checked and converted in one pass, no String or
+ * character-set conversion is involved. Fields that are not clean zoned decimals
+ * (e.g. spaces or hex zeros) are rejected (NOT_A_LONG / null is returned)
+ * so the caller can use the standard String conversion for them.
+ *
+ * @author Bruce Martin
+ *
+ */
+public final class ZonedDecimal {
+
+	/** Returned by the get methods when the field is invalid or the value will not fit in a long */
+	public static final long NOT_A_LONG = Long.MIN_VALUE;
+
+	/** Returned by getDialect when the character-set is not supported */
+	public static final int UNSUPPORTED = -1;
+	public static final int EBCDIC = 0;
+	public static final int ASCII = 1;
+	public static final int ASCII_FUJITSU = 2;
+
+	private static final int[] DIGIT_ZONE    = {0xF0, 0x30, 0x30};
+	private static final int[] PLUS_SIGN     = {0x4E, '+', '+'};
+	private static final int[] MINUS_SIGN    = {0x60, '-', '-'};
+	private static final int[] DECIMAL_POINT = {0x4B, '.', '.'};
+
+	private static final int NEGATIVE = 10;
+	private static final int LONG_CHUNK_DIGITS = 18;
+	private static final long[] POWERS_OF_TEN = new long[LONG_CHUNK_DIGITS + 1];
+	private static final BigInteger BIG_CHUNK;
+
+	static {
+		long p = 1;
+		for (int i = 0; i < POWERS_OF_TEN.length; i++) {
+			POWERS_OF_TEN[i] = p;
+			p = p * 10;
+		}
+		BIG_CHUNK = BigInteger.valueOf(POWERS_OF_TEN[LONG_CHUNK_DIGITS]);
+	}
+
+	private ZonedDecimal() {
+	}
+
+	/**
+	 * Get the zoned decimal dialect to use for a character-set
+	 *
+	 * @param charset character-set (font) of the field
+	 * @param fujitsu wether the field is a Fujitsu / GnuCobol style zoned decimal
+	 *
+	 * @return zoned decimal dialect or UNSUPPORTED if the byte level
+	 * conversion can not be used for the character-set
+	 */
+	public static int getDialect(String charset, boolean fujitsu) {
+		if (Conversion.isSingleByteEbcidic(charset)) {
+			return fujitsu ? UNSUPPORTED : EBCDIC;
+		} else if (Conversion.isAsciiBased(charset)) {
+			return fujitsu ? ASCII_FUJITSU : ASCII;
+		}
+		return UNSUPPORTED;
+	}
+
+	/**
+	 * Decode a zoned decimal field into a long.
+	 *
+	 * @param record record holding the field
+	 * @param start start of the field (index in the array)
+	 * @param len field length
+	 * @param dialect zoned decimal dialect (EBCDIC, ASCII or ASCII_FUJITSU)
+	 *
+	 * @return the field value or NOT_A_LONG if the field is not a valid zoned decimal
+	 * or the value will not fit in a long (use getBigInteger for these fields).
+	 */
+	public static long getLong(byte[] record, int start, int len, int dialect) {
+		if (! isValidArea(record, start, len, dialect)) {
+			return NOT_A_LONG;
+		}
+
+		int zone = DIGIT_ZONE[dialect];
+		int end = start + len - 1;
+		int i = start;
+		int d;
+		long value = 0;
+
+		// a long holds at most 19 digits, any digits before that must be zero
+		for (; i < end - LONG_CHUNK_DIGITS; i++) {
+			if ((record[i] & 0xFF) != zone) {
+				return NOT_A_LONG;
+			}
+		}
+
+		for (; i < end; i++) {
+			d = (record[i] & 0xFF) - zone;
+			if (d < 0 || d > 9) {
+				return NOT_A_LONG;
+			}
+			value = value * 10 + d;
+		}
+
+		int last = getLastDigit(record[end] & 0xFF, dialect);
+		d = last % NEGATIVE;
+		if (last < 0 || value > (Long.MAX_VALUE - d) / 10) {
+			return NOT_A_LONG;
+		}
+		value = value * 10 + d;
+
+		if (last >= NEGATIVE) {
+			return -value;
+		}
+		return value;
+	}
+
+	/**
+	 * Decode a zoned decimal field of any size into a BigInteger
+	 *
+	 * @param record record holding the field
+	 * @param start start of the field (index in the array)
+	 * @param len field length
+	 * @param dialect zoned decimal dialect (EBCDIC, ASCII or ASCII_FUJITSU)
+	 *
+	 * @return the field value or null if the field is not a valid zoned decimal
+	 */
+	public static BigInteger getBigInteger(byte[] record, int start, int len, int dialect) {
+		if (! isValidArea(record, start, len, dialect)) {
+			return null;
+		}
+
+		int end = start + len - 1;
+		int last = getLastDigit(record[end] & 0xFF, dialect);
+		if (last < 0) {
+			return null;
+		}
+
+		BigInteger value = getDigits(record, start, end, DIGIT_ZONE[dialect], -1);
+		if (value == null) {
+			return null;
+		}
+		value = value.multiply(BigInteger.TEN).add(BigInteger.valueOf(last % NEGATIVE));
+
+		if (last >= NEGATIVE) {
+			return value.negate();
+		}
+		return value;
+	}
+
+	/**
+	 * Decode a zoned decimal field into a BigDecimal
+	 *
+	 * @param record record holding the field
+	 * @param start start of the field (index in the array)
+	 * @param len field length
+	 * @param dialect zoned decimal dialect (EBCDIC, ASCII or ASCII_FUJITSU)
+	 * @param scale number of (assumed) decimal places
+	 *
+	 * @return the field value or null if the field is not a valid zoned decimal
+	 */
+	public static BigDecimal getBigDecimal(byte[] record, int start, int len, int dialect, int scale) {
+		long value = getLong(record, start, len, dialect);
+
+		if (value != NOT_A_LONG) {
+			return BigDecimal.valueOf(value, scale);
+		}
+
+		BigInteger bigValue = getBigInteger(record, start, len, dialect);
+		if (bigValue == null) {
+			return null;
+		}
+		return new BigDecimal(bigValue, scale);
+	}
+
+	/**
+	 * Store a long in a zoned decimal field
+	 *
+	 * @param record record to be updated
+	 * @param start start of the field (index in the array)
+	 * @param len field length
+	 * @param value value to be stored
+	 * @param dialect zoned decimal dialect (EBCDIC, ASCII or ASCII_FUJITSU)
+	 * @param signPositive wether positive values hold a positive sign; if false the
+	 * last digit of positive values is unsigned (x'F' zone / plain digit)
+	 *
+	 * @return wether the value was stored. False is returned (and the record is
+	 * not changed) when the value is to big for the field
+	 */
+	public static boolean setLong(byte[] record, int start, int len, long value, int dialect, boolean signPositive) {
+		// work with a negative value so Long.MIN_VALUE can be handled
+		long v = value < 0 ? value : -value;
+
+		if (len <= 0 || dialect < 0 || dialect >= DIGIT_ZONE.length
+		|| (len < POWERS_OF_TEN.length && v <= -POWERS_OF_TEN[len])) {
+			return false;
+		}
+
+		int end = start + len - 1;
+		record[end] = toLastByte((int) -(v % 10), value < 0, dialect, signPositive);
+		writeDigits(record, start, end, v / 10, DIGIT_ZONE[dialect]);
+		return true;
+	}
+
+	/**
+	 * Decode a Sign Separate numeric field (leading or trailing <b>+</b> / <b>-</b> sign)
+	 * into an unscaled long. Any actual decimal point in the field is ignored
+	 * (see getSignSeparateScale).
+	 *
+	 * @param record record holding the field
+	 * @param start start of the field (index in the array)
+	 * @param len field length
+	 * @param dialect EBCDIC or ASCII
+	 * @param leadingSign wether the sign is at the start of the field
+	 *
+	 * @return the unscaled field value or NOT_A_LONG if the field is invalid
+	 * or the value will not fit in a long
+	 */
+	public static long getSignSeparateLong(byte[] record, int start, int len, int dialect, boolean leadingSign) {
+		if (! isValidArea(record, start, len, dialect)) {
+			return NOT_A_LONG;
+		}
+
+		int first = start;
+		int end = start + len;
+		boolean negative = false;
+		int sign = record[leadingSign ? first : end - 1] & 0xFF;
+
+		if (sign == PLUS_SIGN[dialect] || sign == MINUS_SIGN[dialect]) {
+			negative = sign == MINUS_SIGN[dialect];
+			if (leadingSign) {
+				first += 1;
+			} else {
+				end -= 1;
+			}
+		}
+
+		int zone = DIGIT_ZONE[dialect];
+		int point = DECIMAL_POINT[dialect];
+		int pointIdx = -1;
+		int digits = 0;
+		int b, d;
+		long value = 0;
+
+		for (int i = first; i < end; i++) {
+			b = record[i] & 0xFF;
+			d = b - zone;
+			if (d >= 0 && d <= 9) {
+				if (value > 0 || d > 0) {
+					if (++digits > LONG_CHUNK_DIGITS) {
+						return NOT_A_LONG;
+					}
+					value = value * 10 + d;
+				}
+			} else if (b == point && pointIdx < 0 && i > first && i < end - 1) {
+				pointIdx = i;
+			} else {
+				return NOT_A_LONG;
+			}
+		}
+
+		if (first >= end) {
+			return NOT_A_LONG;
+		}
+		return negative ? -value : value;
+	}
+
+	/**
+	 * Get the number of digits after the actual decimal point in a
+	 * Sign Separate numeric field
+	 *
+	 * @param record record holding the field
+	 * @param start start of the field (index in the array)
+	 * @param len field length
+	 * @param dialect EBCDIC or ASCII
+	 * @param leadingSign wether the sign is at the start of the field
+	 *
+	 * @return number of digits after the decimal point (0 if there is no decimal point)
+	 */
+	public static int getSignSeparateScale(byte[] record, int start, int len, int dialect, boolean leadingSign) {
+		int end = Math.min(start + len, record.length);
+		int point = DECIMAL_POINT[dialect];
+
+		if (! leadingSign) {
+			int sign = record[end - 1] & 0xFF;
+			if (sign == PLUS_SIGN[dialect] || sign == MINUS_SIGN[dialect]) {
+				end -= 1;
+			}
+		}
+		for (int i = end - 1; i >= start; i--) {
+			if ((record[i] & 0xFF) == point) {
+				return end - i - 1;
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * Decode a Sign Separate numeric field into a BigDecimal. If the field
+	 * holds an actual decimal point, it determines the scale of the result
+	 *
+	 * @param record record holding the field
+	 * @param start start of the field (index in the array)
+	 * @param len field length
+	 * @param dialect EBCDIC or ASCII
+	 * @param leadingSign wether the sign is at the start of the field
+	 * @param scale number of (assumed) decimal places, used when there is no decimal point
+	 *
+	 * @return the field value or null if the field is invalid
+	 */
+	public static BigDecimal getSignSeparateBigDecimal(byte[] record, int start, int len,
+			int dialect, boolean leadingSign, int scale) {
+		if (! isValidArea(record, start, len, dialect)) {
+			return null;
+		}
+
+		int actualScale = getSignSeparateScale(record, start, len, dialect, leadingSign);
+		if (actualScale > 0) {
+			scale = actualScale;
+		}
+
+		long value = getSignSeparateLong(record, start, len, dialect, leadingSign);
+		if (value != NOT_A_LONG) {
+			return BigDecimal.valueOf(value, scale);
+		}
+
+		int first = start;
+		int end = start + len;
+		int sign = record[leadingSign ? first : end - 1] & 0xFF;
+		boolean negative = sign == MINUS_SIGN[dialect];
+
+		if (negative || sign == PLUS_SIGN[dialect]) {
+			if (leadingSign) {
+				first += 1;
+			} else {
+				end -= 1;
+			}
+		}
+		if (first >= end || ! isValidPoint(record, first, end, DECIMAL_POINT[dialect])) {
+			return null;
+		}
+		BigInteger bigValue = getDigits(record, first, end, DIGIT_ZONE[dialect], DECIMAL_POINT[dialect]);
+		if (bigValue == null) {
+			return null;
+		}
+		if (negative) {
+			bigValue = bigValue.negate();
+		}
+		return new BigDecimal(bigValue, scale);
+	}
+
+	/**
+	 * Store a long in a Sign Separate numeric field (no actual decimal point).
+	 * The digits are zero padded, positive values that need all of the field
+	 * are stored without a sign.
+	 *
+	 * @param record record to be updated
+	 * @param start start of the field (index in the array)
+	 * @param len field length
+	 * @param value value to be stored
+	 * @param dialect EBCDIC or ASCII
+	 * @param leadingSign wether the sign is at the start of the field
+	 *
+	 * @return wether the value was stored. False is returned (and the record is
+	 * not changed) when the value is to big for the field
+	 */
+	public static boolean setSignSeparateLong(byte[] record, int start, int len, long value,
+			int dialect, boolean leadingSign) {
+		long v = value < 0 ? value : -value;
+		int digits = 1;
+
+		for (long t = v / 10; t != 0; t = t / 10) {
+			digits += 1;
+		}
+
+		if (len <= 0 || dialect < 0 || dialect >= DIGIT_ZONE.length
+		|| digits > len || (digits == len && value < 0)) {
+			return false;
+		}
+
+		int end = start + len;
+		if (digits < len) {
+			byte sign = (byte) (value < 0 ? MINUS_SIGN[dialect] : PLUS_SIGN[dialect]);
+			if (leadingSign) {
+				record[start++] = sign;
+			} else {
+				record[--end] = sign;
+			}
+		}
+		writeDigits(record, start, end, v, DIGIT_ZONE[dialect]);
+		return true;
+	}
+
+
+	private static boolean isValidArea(byte[] record, int start, int len, int dialect) {
+		return len > 0 && start >= 0 && start + len <= record.length
+			&& dialect >= 0 && dialect < DIGIT_ZONE.length;
+	}
+
+	/**
+	 * Check there is at most one decimal point and that it is not
+	 * the first or last character
+	 */
+	private static boolean isValidPoint(byte[] record, int first, int end, int point) {
+		int count = 0;
+		for (int i = first; i < end; i++) {
+			if ((record[i] & 0xFF) == point) {
+				count += 1;
+			}
+		}
+		return count == 0
+			|| (count == 1 && (record[first] & 0xFF) != point && (record[end - 1] & 0xFF) != point);
+	}
+
+	/**
+	 * Get the value of the last (sign) byte of a zoned decimal
+	 *
+	 * @param b last byte of the field
+	 * @param dialect zoned decimal dialect
+	 *
+	 * @return digit (0 .. 9) for positive values, digit + 10 for negative values
+	 * or -1 if the byte is invalid
+	 */
+	private static int getLastDigit(int b, int dialect) {
+		if (dialect == EBCDIC) {
+			int zone = b & 0xF0;
+			int d = b & 0x0F;
+			if (d > 9 || zone < 0xA0) {
+				return -1;
+			}
+			return zone == 0xD0 || zone == 0xB0 ? d + NEGATIVE : d;
+		}
+
+		if (b >= '0' && b <= '9') {
+			return b - '0';
+		}
+		if (b >= 'a' && b <= 'z') {
+			b = b - 'a' + 'A';
+		}
+
+		if (dialect == ASCII) {
+			if (b >= 'A' && b <= 'I') {
+				return b - 'A' + 1;
+			} else if (b >= 'J' && b <= 'R') {
+				return b - 'J' + 1 + NEGATIVE;
+			} else if (b == '{') {
+				return 0;
+			} else if (b == '}') {
+				return NEGATIVE;
+			}
+		} else if (b >= '@' && b <= 'I') {
+			return b - '@';
+		} else if (b >= 'P' && b <= 'Y') {
+			return b - 'P' + NEGATIVE;
+		}
+		return -1;
+	}
+
+	private static byte toLastByte(int digit, boolean negative, int dialect, boolean signPositive) {
+		switch (dialect) {
+		case EBCDIC:
+			if (negative) {
+				return (byte) (0xD0 | digit);
+			}
+			return (byte) ((signPositive ? 0xC0 : 0xF0) | digit);
+		case ASCII:
+			if (negative) {
+				return (byte) (digit == 0 ? '}' : 'J' + digit - 1);
+			} else if (signPositive) {
+				return (byte) (digit == 0 ? '{' : 'A' + digit - 1);
+			}
+			break;
+		default:
+			if (negative) {
+				return (byte) ('P' + digit);
+			} else if (signPositive) {
+				return (byte) ('@' + digit);
+			}
+		}
+		return (byte) ('0' + digit);
+	}
+
+	/**
+	 * Write the digits of a (negative) value right justified / zero padded
+	 *
+	 * @param record record to be updated
+	 * @param start start of the digits
+	 * @param end end of the digits (exclusive)
+	 * @param v value as a negative number
+	 * @param zone digit zone
+	 */
+	private static void writeDigits(byte[] record, int start, int end, long v, int zone) {
+		for (int i = end - 1; i >= start; i--) {
+			record[i] = (byte) (zone - (int) (v % 10));
+			v = v / 10;
+		}
+	}
+
+	/**
+	 * Convert a series of digits into a BigInteger
+	 *
+	 * @param record record holding the digits
+	 * @param start start of the digits
+	 * @param end end of the digits (exclusive)
+	 * @param zone digit zone
+	 * @param point decimal point byte (skipped) or -1 if there is no decimal point
+	 *
+	 * @return the value or null if there is a non digit
+	 */
+	private static BigInteger getDigits(byte[] record, int start, int end, int zone, int point) {
+		int b, d;
+		int chunkDigits = 0;
+		long chunk = 0;
+		BigInteger value = BigInteger.ZERO;
+
+		for (int i = start; i < end; i++) {
+			b = record[i] & 0xFF;
+			d = b - zone;
+			if (d >= 0 && d <= 9) {
+				chunk = chunk * 10 + d;
+				if (++chunkDigits == LONG_CHUNK_DIGITS) {
+					value = value.multiply(BIG_CHUNK).add(BigInteger.valueOf(chunk));
+					chunk = 0;
+					chunkDigits = 0;
+				}
+			} else if (b != point) {
+				return null;
+			}
+		}
+		if (chunkDigits > 0) {
+			value = value.multiply(BigInteger.valueOf(POWERS_OF_TEN[chunkDigits])).add(BigInteger.valueOf(chunk));
+		}
+		return value;
+	}
+}
@@ -34,6 +34,8 @@
 
 package net.sf.JRecord.Details;
 
+import java.math.BigDecimal;
+
 import net.sf.JRecord.Common.AbstractFieldValue;
 import net.sf.JRecord.Common.AbstractIndexedLine;
 import net.sf.JRecord.Common.IFieldDetail;
@@ -267,6 +269,45 @@ public interface AbstractLine extends AbstractIndexedLine {
      */
     public abstract void setField(IFieldDetail field, Object value);
 
+    /**
+     * Get a numeric field as a long (any decimal places are truncated).
+     * For Types that implement {@link net.sf.JRecord.Types.IPrimitiveType}
+     * the value is decoded directly from the record.
+     *
+     * @param field field to retrieve
+     *
+     * @return field value as a long
+     */
+    public abstract long getFieldLong(IFieldDetail field);
+
+    /**
+     * Get a numeric field as a double
+     *
+     * @param field field to retrieve
+     *
+     * @return field value as a double
+     */
+    public abstract double getFieldDouble(IFieldDetail field);
+
+    /**
+     * Get a numeric field as a BigDecimal
+     *
+     * @param field field to retrieve
+     *
+     * @return field value as a BigDecimal
+     */
+    public abstract BigDecimal getFieldBigDecimal(IFieldDetail field);
+
+    /**
+     * Set a numeric field to a long value. For Types that implement
+     * {@link net.sf.JRecord.Types.IPrimitiveType} the value is stored
+     * directly in the record.
+     *
+     * @param field field to update
+     * @param value new value
+     */
+    public abstract void setFieldLong(IFieldDetail field, long value);
+
     /**
      * Set the field with a Text value - ie update the field
      * without using any formatting
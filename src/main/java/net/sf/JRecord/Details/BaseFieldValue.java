@@ -73,7 +73,20 @@ public abstract class BaseFieldValue  {
 	 * @see IFieldValue#asBigDecimal()
 	 */
 	public final BigDecimal asBigDecimal() {
-		Object ret = getValue();
+		return getBigDecimalValue();
+	}
+
+	/**
+	 * Get the field value as a BigDecimal. Sub classes can override this
+	 * to avoid converting the field to a String.
+	 *
+	 * @return field value as a BigDecimal
+	 */
+	protected BigDecimal getBigDecimalValue() {
+		return toBigDecimal(getValue());
+	}
+
+	static BigDecimal toBigDecimal(Object ret) {
 
 		if (ret == null) {
 			return null;
@@ -103,7 +116,20 @@ public abstract class BaseFieldValue  {
 	 * @see IFieldValue#asDouble()
 	 */
 	public final double asDouble() {
-		Object ret = getValue();
+		return getDoubleValue();
+	}
+
+	/**
+	 * Get the field value as a double. Sub classes can override this
+	 * to avoid converting the field to a String.
+	 *
+	 * @return field value as a double
+	 */
+	protected double getDoubleValue() {
+		return toDouble(getValue());
+	}
+
+	static double toDouble(Object ret) {
 
 		if (ret == null) {
 			return 0;
@@ -134,7 +160,20 @@ public abstract class BaseFieldValue  {
 	 * @see IFieldValue#asLong()
 	 */
 	public final long asLong() {
-		Object ret = getValue();
+		return getLongValue();
+	}
+
+	/**
+	 * Get the field value as a long. Sub classes can override this
+	 * to avoid converting the field to a String.
+	 *
+	 * @return field value as a long
+	 */
+	protected long getLongValue() {
+		return toLong(getValue());
+	}
+
+	static long toLong(Object ret) {
 
 		if (ret == null) {
 			return 0;
@@ -233,6 +272,16 @@ public abstract class BaseFieldValue  {
 	 * @see IFieldValue#set(long)
 	 */
 	public final void set(long value) {
+		setLongValue(value);
+	}
+
+	/**
+	 * Set the field to a long value. Sub classes can override this
+	 * to avoid converting the value to a String.
+	 *
+	 * @param value new value
+	 */
+	protected void setLongValue(long value) {
 		set(Long.valueOf(value));
 	}
 
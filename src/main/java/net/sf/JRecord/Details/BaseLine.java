@@ -28,6 +28,8 @@
 
 package net.sf.JRecord.Details;
 
+import java.math.BigDecimal;
+
 import net.sf.JRecord.Common.FieldDetail;
 import net.sf.JRecord.Common.IFieldDetail;
 import net.sf.JRecord.External.Def.DependingOnDtls;
@@ -60,6 +62,39 @@ public abstract class BaseLine implements AbstractLine {
      */
     public abstract Object getField(int type, IFieldDetail field);
 
+    /**
+     * @see net.sf.JRecord.Details.AbstractLine#getFieldLong(net.sf.JRecord.Common.IFieldDetail)
+     */
+    @Override
+    public long getFieldLong(IFieldDetail field) {
+    	return BaseFieldValue.toLong(getField(field));
+    }
+
+    /**
+     * @see net.sf.JRecord.Details.AbstractLine#getFieldDouble(net.sf.JRecord.Common.IFieldDetail)
+     */
+    @Override
+    public double getFieldDouble(IFieldDetail field) {
+    	return BaseFieldValue.toDouble(getField(field));
+    }
+
+    /**
+     * @see net.sf.JRecord.Details.AbstractLine#getFieldBigDecimal(net.sf.JRecord.Common.IFieldDetail)
+     */
+    @Override
+    public BigDecimal getFieldBigDecimal(IFieldDetail field) {
+    	return BaseFieldValue.toBigDecimal(getField(field));
+    }
+
+    /**
+     * @see net.sf.JRecord.Details.AbstractLine#setFieldLong(net.sf.JRecord.Common.IFieldDetail, long)
+     */
+    @SuppressWarnings("deprecation")
+	@Override
+    public void setFieldLong(IFieldDetail field, long value) {
+    	setField(field, Long.valueOf(value));
+    }
+
 //	@Override
 	public IFieldValue getFieldValue(IFieldDetail field) {
 		return new FieldValue(this, field);
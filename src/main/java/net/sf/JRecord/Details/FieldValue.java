@@ -28,6 +28,8 @@
 
 package net.sf.JRecord.Details;
 
+import java.math.BigDecimal;
+
 import net.sf.JRecord.Common.IFieldDetail;
 import net.sf.JRecord.Types.Type;
 
@@ -98,6 +100,52 @@ public class FieldValue extends BaseFieldValue implements IFieldValue {
 		return theLine.getField(field);
 	}
 	
+	/**
+	 * Use the lines primitive accessors
+	 * @see net.sf.JRecord.Details.BaseFieldValue#getLongValue()
+	 */
+	@Override
+	protected long getLongValue() {
+		if (recordNum < 0 && field != null) {
+			return theLine.getFieldLong(field);
+		}
+		return super.getLongValue();
+	}
+
+	/**
+	 * @see net.sf.JRecord.Details.BaseFieldValue#getDoubleValue()
+	 */
+	@Override
+	protected double getDoubleValue() {
+		if (recordNum < 0 && field != null) {
+			return theLine.getFieldDouble(field);
+		}
+		return super.getDoubleValue();
+	}
+
+	/**
+	 * @see net.sf.JRecord.Details.BaseFieldValue#getBigDecimalValue()
+	 */
+	@Override
+	protected BigDecimal getBigDecimalValue() {
+		if (recordNum < 0 && field != null) {
+			return theLine.getFieldBigDecimal(field);
+		}
+		return super.getBigDecimalValue();
+	}
+
+	/**
+	 * @see net.sf.JRecord.Details.BaseFieldValue#setLongValue(long)
+	 */
+	@Override
+	protected void setLongValue(long value) {
+		if (recordNum < 0 && field != null) {
+			theLine.setFieldLong(field, value);
+		} else {
+			super.setLongValue(value);
+		}
+	}
+
 	public boolean isFieldInRecord() {
 		
 		IFieldDetail fld = field;
@@ -0,0 +1,646 @@
+/*  -------------------------------------------------------------------------
+ *
+ *                Project: JRecord
+ *    
+ *    Sub-Project purpose: Provide support for reading Cobol-Data files 
+ *                        using a Cobol Copybook in Java.
+ *                         Support for reading Fixed Width / Binary / Csv files
+ *                        using a Xml schema.
+ *                         General Fixed Width / Csv file processing in Java.
+ *    
+ *                 Author: Bruce Martin
+ *    
+ *                License: LGPL 2.1 or latter
+ *                
+ *    Copyright (c) 2016, Bruce Martin, All Rights Reserved.
+ *   
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation; either
+ *    version 2.1 of the License, or (at your option) any later version.
+ *   
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU Lesser General Public License for more details.
+ *
+ * ------------------------------------------------------------------------ */
+      
+package net.sf.JRecord.Details;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+import net.sf.JRecord.Common.Constants;
+import net.sf.JRecord.Common.Conversion;
+import net.sf.JRecord.Common.FieldDetail;
+import net.sf.JRecord.Common.RecordException;
+import net.sf.JRecord.External.Def.DependingOn;
+import net.sf.JRecord.External.Def.DependingOnDefinition;
+import net.sf.JRecord.External.Def.DependingOnDtls;
+import net.sf.JRecord.External.Def.IDependingOnIndexDtls;
+import net.sf.JRecord.ExternalRecordSelection.ExternalFieldSelection;
+import net.sf.JRecord.ExternalRecordSelection.ExternalGroupSelection;
+import net.sf.JRecord.ExternalRecordSelection.ExternalSelection;
+import net.sf.JRecord.Option.IRecordPositionOption;
+import net.sf.JRecord.Option.OptionType;
+import net.sf.JRecord.Option.Options;
+
+/**
+ * Writes a <b>LayoutDetail</b> (records, fields, occurs depending on definitions
+ * and record selections) in a compact, versioned binary format and reads it back
+ * again. Reading a serialized layout does not touch the Cobol parser
+ * (cb2xml / Xml DOM / Copybook loaders) so it is much cheaper than
+ * reloading the Copybook; it is intended for shipping a layout to
+ * Hadoop tasks (see <b>JRecordConfiguration.setLayout</b>).
+ *
+ * <pre>
+ * <b>Usage:</b>
+ *
+ *      byte[] data = LayoutSerializer.toBytes(layout);
+ *          ....
+ *      LayoutDetail layout = LayoutSerializer.fromBytes(data);
+ * </pre>
+ *
+ * <b>Notes:</b><ul>
+ *   <li>Strings are written once and referenced by number afterwards, so the many
+ *   repeated font / group names in a large Copybook cost very little.
+ *   <li>A <b>RecordDecider</b> can not be serialized, supply it
+ *   when reading the layout.
+ *   <li>Record selections are stored as their External definition (field, operator, value)
+ *   and converted back again when the layout is read.
+ *   <li>Any field types used must be registered in the TypeManager of the reading program.
+ * </ul>
+ *
+ * @author Bruce Martin
+ *
+ */
+public class LayoutSerializer {
+
+	public static final int MAGIC = 0x4A524C44;  // JRLD
+	public static final int VERSION = 1;
+
+	private static final int SEL_NONE = 0;
+	private static final int SEL_FIELD = 1;
+	private static final int SEL_GROUP = 2;
+
+	private static final int STR_NULL = 0;
+	private static final int STR_NEW = 1;
+	private static final int STR_REF = 2;
+
+	/**
+	 * Serialize a layout to an array of bytes
+	 * @param layout layout to be serialized
+	 * @return serialized layout
+	 */
+	public static byte[] toBytes(LayoutDetail layout) {
+		ByteArrayOutputStream os = new ByteArrayOutputStream(4096);
+
+		try {
+			write(layout, os);
+		} catch (IOException e) {
+			throw new RecordException("Error serializing layout: " + e);
+		}
+		return os.toByteArray();
+	}
+
+	/**
+	 * Rebuild a layout from bytes created by <b>toBytes</b>
+	 * @param data serialized layout
+	 * @return layout
+	 * @throws IOException any error in the data
+	 */
+	public static LayoutDetail fromBytes(byte[] data) throws IOException {
+		return read(new ByteArrayInputStream(data), null);
+	}
+
+	/**
+	 * Write a layout to a stream (the stream is not closed)
+	 * @param layout layout to be written
+	 * @param out output stream
+	 * @throws IOException any IO error
+	 */
+	public static void write(LayoutDetail layout, OutputStream out) throws IOException {
+		BufferedOutputStream bout = new BufferedOutputStream(out);
+		new Writer(new DataOutputStream(bout)).writeLayout(layout);
+		bout.flush();
+	}
+
+	/**
+	 * Read a layout from a stream
+	 * @param in input stream
+	 * @return layout
+	 * @throws IOException any IO error or invalid data
+	 */
+	public static LayoutDetail read(InputStream in) throws IOException {
+		return read(in, null);
+	}
+
+	/**
+	 * Read a layout from a stream
+	 * @param in input stream
+	 * @param decider Record Decider to be used in the layout (may be null)
+	 * @return layout
+	 * @throws IOException any IO error or invalid data
+	 */
+	public static LayoutDetail read(InputStream in, RecordDecider decider) throws IOException {
+		DataInputStream din = new DataInputStream(new BufferedInputStream(in));
+		int magic;
+		try {
+			magic = din.readInt();
+		} catch (EOFException e) {
+			throw new IOException("Empty layout");
+		}
+		if (magic != MAGIC) {
+			throw new IOException("Not a serialized JRecord layout");
+		}
+		int version = din.readUnsignedByte();
+		if (version < 1 || version > VERSION) {
+			throw new IOException("Unsupported layout version: " + version);
+		}
+		return new Reader(din).readLayout(decider);
+	}
+
+
+	/**
+	 * Writes the layout
+	 */
+	private static class Writer {
+		private final DataOutputStream out;
+		private final HashMap<String, Integer> strings = new HashMap<String, Integer>();
+		private final IdentityHashMap<DependingOn, Integer> dependingOnIds = new IdentityHashMap<DependingOn, Integer>();
+		private final IdentityHashMap<IDependingOnIndexDtls, Integer> dtlsIds = new IdentityHashMap<IDependingOnIndexDtls, Integer>();
+
+		private Writer(DataOutputStream out) {
+			this.out = out;
+		}
+
+		private void writeLayout(LayoutDetail layout) throws IOException {
+			byte[] recordSep = layout.getRecordSep();
+			String fontName = layout.getFontName();
+			int recordCount = layout.getRecordCount();
+
+			out.writeInt(MAGIC);
+			out.writeByte(VERSION);
+
+			writeString(layout.getLayoutName());
+			writeString(layout.getDescription());
+			writeInt(layout.getLayoutType());
+			if (recordSep == null) {
+				writeInt(-1);
+			} else {
+				writeInt(recordSep.length);
+				out.write(recordSep);
+			}
+			out.writeBoolean(recordSep != null
+					&& layout.getEolString() != null
+					&& layout.getEolString().equals(Conversion.toString(recordSep, fontName)));
+			writeString(fontName);
+			writeInt(layout.getFileStructure());
+			writeString(layout.getDelimiter());
+			out.writeBoolean(layout.getInitByte() != 0);
+			writeInt(layout.getMaximumRecordLength());
+
+			writeInt(recordCount);
+
+				/* Depending on definitions are written before any fields so
+				 * every field can refer to them */
+			for (int i = 0; i < recordCount; i++) {
+				DependingOnDefinition def = layout.getRecord(i).getDependingOn();
+				if (def == null || def.dependOnList == null) {
+					writeInt(-1);
+				} else {
+					writeInt(def.dependOnList.size());
+					for (DependingOn d : def.dependOnList) {
+						writeDependingOn(d);
+					}
+				}
+			}
+
+			for (int i = 0; i < recordCount; i++) {
+				writeRecord(layout.getRecord(i));
+			}
+			out.flush();
+		}
+
+		private void writeDependingOn(DependingOn d) throws IOException {
+			Integer id = dependingOnIds.get(d);
+			if (id != null) {
+				writeInt(id + 1);
+				return;
+			}
+
+			List<IDependingOnIndexDtls> indexDtls = d.getIndexDtls();
+			dependingOnIds.put(d, dependingOnIds.size());
+			writeInt(0);
+			writeString(d.getVariableName());
+			writeString(d.getVariableNameNoIndex());
+			writeInt(d.getPosition());
+			writeInt(d.getOccursLength());
+			writeInt(d.getOccursMax());
+
+			writeInt(indexDtls.size());
+			for (IDependingOnIndexDtls dtls : indexDtls) {
+				List<DependingOn> children = dtls.getChildren();
+				dtlsIds.put(dtls, dtlsIds.size());
+				writeInt(dtls.getIndex());
+				if (children == null) {
+					writeInt(0);
+				} else {
+					writeInt(children.size());
+					for (DependingOn c : children) {
+						writeDependingOn(c);
+					}
+				}
+			}
+		}
+
+		private void writeRecord(RecordDetail rec) throws IOException {
+			IRecordPositionOption rpOpt = rec.getRecordPositionOption();
+			int fieldCount = rec.getFieldCount();
+
+			writeString(rec.getRecordName());
+			writeString(rpOpt == null ? null : rpOpt.getName());
+			writeInt(rec.getRecordType());
+			writeString(rec.getDelimiterUneditted());
+			writeString(rec.getQuote());
+			writeString(rec.getFontName());
+			writeInt(rec.getRecordStyle());
+			out.writeBoolean(rec.isEmbeddedNewLine());
+			writeInt(rec.getParentRecordIndex());
+			writeInt(rec.getSourceIndex());
+
+			writeInt(fieldCount);
+			for (int i = 0; i < fieldCount; i++) {
+				writeField(rec.getField(i));
+			}
+
+			out.writeBoolean(rec.getRecordSelection().isDefaultRecord());
+			writeSelection(rec.getRecordSelection().getRecSel());
+		}
+
+		private void writeField(FieldDetail fld) throws IOException {
+			Object defaultValue = fld.getDefaultValue();
+			DependingOnDtls dtls = fld.getDependingOnDtls();
+
+			writeString(fld.getName());
+			writeString(fld.getLookupName());
+			writeString(fld.getDescription());
+			writeInt(fld.getType());
+			writeInt(fld.getDecimal());
+			writeString(fld.getFontName());
+			writeInt(fld.getFormat());
+			writeString(fld.getParamater());
+			writeInt(fld.getPos());
+			writeInt(fld.getLen());
+			writeString(fld.getGroupName());
+			writeString(defaultValue == null ? null : defaultValue.toString());
+			out.writeBoolean(fld.isOccursDependingOnValue());
+
+			if (dtls == null) {
+				writeInt(0);
+			} else {
+				Integer id = dtlsIds.get(dtls);
+				if (id == null) {
+					throw new RecordException(
+							"Occurs depending details for field " + fld.getName()
+							+ " are not part of the records depending on definition");
+				}
+				writeInt(id + 1);
+			}
+		}
+
+		@SuppressWarnings("unchecked")
+		private void writeSelection(ExternalSelection sel) throws IOException {
+			if (sel == null) {
+				writeInt(SEL_NONE);
+			} else if (sel instanceof ExternalFieldSelection) {
+				ExternalFieldSelection f = (ExternalFieldSelection) sel;
+				writeInt(SEL_FIELD);
+				writeString(f.getFieldName());
+				writeString(f.getRawFieldValue());
+				writeString(f.getOperator());
+				writeString(f.getBooleanOp());
+				out.writeBoolean(f.isCaseSensitive());
+			} else if (sel instanceof ExternalGroupSelection) {
+				ExternalGroupSelection<ExternalSelection> g = (ExternalGroupSelection<ExternalSelection>) sel;
+				writeInt(SEL_GROUP);
+				writeInt(g.getType());
+				writeInt(g.size());
+				for (int i = 0; i < g.size(); i++) {
+					writeSelection(g.get(i));
+				}
+			} else {
+				throw new RecordException("Record Selection can not be serialized: " + sel.getClass().getName());
+			}
+		}
+
+		private void writeString(String s) throws IOException {
+			if (s == null) {
+				writeInt(STR_NULL);
+			} else {
+				Integer id = strings.get(s);
+				if (id == null) {
+					byte[] b = s.getBytes("utf-8");
+					strings.put(s, strings.size());
+					writeInt(STR_NEW);
+					writeInt(b.length);
+					out.write(b);
+				} else {
+					writeInt(STR_REF + id);
+				}
+			}
+		}
+
+		/**
+		 * Write an integer as a zig-zag variable length integer
+		 * (small positive and negative values take 1 byte).
+		 */
+		private void writeInt(int value) throws IOException {
+			int v = (value << 1) ^ (value >> 31);
+			while ((v & ~0x7F) != 0) {
+				out.writeByte((v & 0x7F) | 0x80);
+				v >>>= 7;
+			}
+			out.writeByte(v);
+		}
+	}
+
+
+	/**
+	 * Reads the layout
+	 */
+	private static class Reader {
+		private final DataInputStream in;
+		private final ArrayList<String> strings = new ArrayList<String>();
+		private final ArrayList<DependingOn> dependingOns = new ArrayList<DependingOn>();
+		private final ArrayList<DependingOnDtls> dtlsList = new ArrayList<DependingOnDtls>();
+
+		private Reader(DataInputStream in) {
+			this.in = in;
+		}
+
+		private LayoutDetail readLayout(RecordDecider decider) throws IOException {
+			String layoutName = readString();
+			String description = readString();
+			int layoutType = readInt();
+			int sepLength = readInt();
+			byte[] recordSep = null;
+			if (sepLength >= 0) {
+				recordSep = new byte[sepLength];
+				in.readFully(recordSep);
+			}
+			boolean eolFromRecordSep = in.readBoolean();
+			String fontName = readString();
+			int fileStructure = readInt();
+			String delimiter = readString();
+			boolean initToSpaces = in.readBoolean();
+			int recordLength = readInt();
+
+			int recordCount = readInt();
+			checkCount(recordCount);
+			ArrayList<List<DependingOn>> recordDependingOn = new ArrayList<List<DependingOn>>(recordCount);
+
+			for (int i = 0; i < recordCount; i++) {
+				int num = readInt();
+				List<DependingOn> list = null;
+				if (num >= 0) {
+					checkCount(num);
+					list = new ArrayList<DependingOn>(num);
+					for (int j = 0; j < num; j++) {
+						list.add(readDependingOn(null));
+					}
+				}
+				recordDependingOn.add(list);
+			}
+
+			RecordDetail[] records = new RecordDetail[recordCount];
+			ExternalSelection[] selections = new ExternalSelection[recordCount];
+			for (int i = 0; i < recordCount; i++) {
+				records[i] = readRecord();
+				selections[i] = readSelection();
+
+				if (recordDependingOn.get(i) != null) {
+					records[i].setDependingOn(new DependingOnDefinition(recordDependingOn.get(i)));
+				}
+			}
+
+			LayoutDetail layout = new LayoutDetail(
+					layoutName, records, description, layoutType,
+					recordSep, eolFromRecordSep ? "" : Constants.DEFAULT_STRING,
+					fontName, decider, fileStructure,
+					null, initToSpaces, recordLength);
+
+			for (int i = 0; i < recordCount; i++) {
+				records[i].updateRecordSelection(selections[i], new LayoutGetFieldByName(layout, records[i]));
+			}
+			if (delimiter != null && ! delimiter.equals(layout.getDelimiter())) {
+				layout.setDelimiter(delimiter);
+			}
+
+			return layout;
+		}
+
+		private DependingOn readDependingOn(DependingOnDtls parent) throws IOException {
+			int ref = readInt();
+			if (ref > 0) {
+				if (ref > dependingOns.size()) {
+					throw new IOException("Invalid depending on reference: " + ref);
+				}
+				return dependingOns.get(ref - 1);
+			}
+
+			DependingOn d = new DependingOn(readString(), readString(), readInt(), readInt(), readInt());
+			dependingOns.add(d);
+
+			int num = readInt();
+			checkCount(num);
+			for (int i = 0; i < num; i++) {
+				DependingOnDtls dtls = new DependingOnDtls(d, readInt(), parent);
+				dtlsList.add(dtls);
+
+				int childCount = readInt();
+				checkCount(childCount);
+				for (int j = 0; j < childCount; j++) {
+					readDependingOn(dtls);
+				}
+			}
+			return d;
+		}
+
+		private RecordDetail readRecord() throws IOException {
+			String recordName = readString();
+			IRecordPositionOption rpOpt = getPositionOption(readString());
+			int recordType = readInt();
+			String delimiter = readString();
+			String quote = readString();
+			String fontName = readString();
+			int recordStyle = readInt();
+			boolean embeddedNewLine = in.readBoolean();
+			int parentIdx = readInt();
+			int sourceIdx = readInt();
+
+			int fieldCount = readInt();
+			checkCount(fieldCount);
+			FieldDetail[] fields = new FieldDetail[fieldCount];
+			for (int i = 0; i < fieldCount; i++) {
+				fields[i] = readField();
+			}
+
+			RecordDetail rec;
+			if (embeddedNewLine) {
+					/* Csv records with embedded new lines never have a position option */
+				rec = new RecordDetail(recordName, recordType, delimiter, quote,
+						fontName, fields, recordStyle, null, true);
+			} else {
+				rec = new RecordDetail(recordName, rpOpt, recordType, delimiter, quote,
+						fontName, fields, recordStyle);
+			}
+			rec.setParentRecordIndex(parentIdx);
+			rec.setSourceIndex(sourceIdx);
+			rec.getRecordSelection().setDefaultRecord(in.readBoolean());
+
+			return rec;
+		}
+
+		private FieldDetail readField() throws IOException {
+			String name = readString();
+			String lookupName = readString();
+			String description = readString();
+			int type = readInt();
+			int decimal = readInt();
+			String fontName = readString();
+			int format = readInt();
+			String param = readString();
+			int pos = readInt();
+			int len = readInt();
+			String groupName = readString();
+			String defaultValue = readString();
+			boolean odValue = in.readBoolean();
+			int dtlsId = readInt();
+
+			FieldDetail fld = new FieldDetail(name, description, type, decimal, fontName, format, param);
+			if (len == Constants.NULL_INTEGER) {
+				fld.setPosOnly(pos);
+			} else {
+				fld.setPosLen(pos, len);
+			}
+			fld.setLookupName(lookupName);
+			fld.setGroupName(groupName);
+			if (defaultValue != null) {
+				fld.setDefaultValue(defaultValue);
+			}
+			fld.setOccursDependingOnValue(odValue);
+			if (dtlsId > 0) {
+				if (dtlsId > dtlsList.size()) {
+					throw new IOException("Invalid depending on reference for field " + name);
+				}
+				fld.setDependingOnDtls(dtlsList.get(dtlsId - 1));
+			}
+
+			return fld;
+		}
+
+		private ExternalSelection readSelection() throws IOException {
+			switch (readInt()) {
+			case SEL_NONE:
+				return null;
+			case SEL_FIELD:
+				ExternalFieldSelection f = new ExternalFieldSelection(readString(), readString());
+				f.setOperator(readString());
+				f.setBooleanOp(readString());
+				f.setCaseSensitive(in.readBoolean());
+				return f;
+			case SEL_GROUP:
+				int type = readInt();
+				int num = readInt();
+				checkCount(num);
+				ExternalGroupSelection<ExternalSelection> g = new ExternalGroupSelection<ExternalSelection>(num);
+				g.setType(type);
+				for (int i = 0; i < num; i++) {
+					g.add(readSelection());
+				}
+				return g;
+			default:
+				throw new IOException("Invalid Record Selection in layout");
+			}
+		}
+
+		private String readString() throws IOException {
+			int code = readInt();
+			switch (code) {
+			case STR_NULL:
+				return null;
+			case STR_NEW:
+				int len = readInt();
+				checkCount(len);
+				byte[] b = new byte[len];
+				in.readFully(b);
+				String s = new String(b, "utf-8");
+				strings.add(s);
+				return s;
+			default:
+				if (code < STR_REF || code - STR_REF >= strings.size()) {
+					throw new IOException("Invalid string reference in layout: " + code);
+				}
+				return strings.get(code - STR_REF);
+			}
+		}
+
+		private int readInt() throws IOException {
+			int v = 0;
+			int shift = 0;
+			int b;
+			do {
+				if (shift > 28) {
+					throw new IOException("Invalid integer in layout");
+				}
+				b = in.readUnsignedByte();
+				v |= (b & 0x7F) << shift;
+				shift += 7;
+			} while ((b & 0x80) != 0);
+
+			return (v >>> 1) ^ -(v & 1);
+		}
+
+		private static void checkCount(int count) throws IOException {
+			if (count < 0) {
+				throw new IOException("Invalid count in layout: " + count);
+			}
+		}
+	}
+
+	/**
+	 * Get the record position option. The standard options are returned
+	 * so they can be compared by identity.
+	 * @param name option name
+	 * @return record position option
+	 */
+	private static IRecordPositionOption getPositionOption(String name) {
+		if (name == null) {
+			return null;
+		}
+
+		IRecordPositionOption[] standard = {
+				Options.RP_FIRST_RECORD_IN_FILE, Options.RP_MIDDLE_RECORDS, Options.RP_LAST_RECORD_IN_FILE,
+		};
+		for (IRecordPositionOption o : standard) {
+			if (o.getName().equals(name)) {
+				return o;
+			}
+		}
+		return new OptionType(name);
+	}
+}
@@ -39,6 +39,7 @@
 
 package net.sf.JRecord.Details;
 
+import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.util.Arrays;
 
@@ -47,6 +48,7 @@ import net.sf.JRecord.Common.Conversion;
 import net.sf.JRecord.Common.FieldDetail;
 import net.sf.JRecord.Common.IFieldDetail;
 import net.sf.JRecord.Common.RecordException;
+import net.sf.JRecord.Types.IPrimitiveType;
 import net.sf.JRecord.Types.Type;
 import net.sf.JRecord.Types.TypeChar;
 import net.sf.JRecord.Types.TypeManager;
@@ -81,6 +83,21 @@ public class Line extends BasicLine implements AbstractLine, IGetByteData {
 
 	static LineProvider defaultProvider = new DefaultLineProvider();
 
+	private static final long[] POWERS_OF_TEN = new long[19];
+	private static final double[] DOUBLE_POWERS_OF_TEN = new double[19];
+	private static final long MAX_EXACT_DOUBLE = 1L << 53;
+
+	static {
+		long p = 1;
+		for (int i = 0; i < POWERS_OF_TEN.length; i++) {
+			POWERS_OF_TEN[i] = p;
+			p = p * 10;
+		}
+		for (int i = 0; i < DOUBLE_POWERS_OF_TEN.length; i++) {
+			DOUBLE_POWERS_OF_TEN[i] = Double.parseDouble("1e" + i);
+		}
+	}
+
 	byte[] data;
 
 	int preferredLayoutAlt = Constants.NULL_INTEGER;
@@ -161,7 +178,29 @@ public class Line extends BasicLine implements AbstractLine, IGetByteData {
 	 */
 	@Override
 	public final void replace(final byte[] rec, final int start, final int len) {
+		replace(rec, start, len, false);
+	}
 
+
+	/**
+	 *   This method completely replaces a lines value. With <b>resize</b> true,
+	 * the line takes the length of the new record; the existing data array is reused
+	 * when the length is unchanged so a single Line can be reused to read
+	 * a whole file (see {@link net.sf.JRecord.IO.LineReaderWrapper#read(AbstractLine)}).
+	 *
+	 * @param rec buffer holding the record
+	 * @param start Start of the record
+	 * @param len length of the record
+	 * @param resize wether to change the length of the line to <b>len</b>
+	 */
+	public final void replace(final byte[] rec, final int start, final int len, final boolean resize) {
+
+		if (resize) {
+			if (len != data.length) {
+				data = new byte[len];
+			}
+			newRecord = false;
+		}
 		System.arraycopy(rec, start, data, 0,
 					java.lang.Math.min(len, data.length));
 		super.preferredLayoutAlt = Constants.NULL_INTEGER;
@@ -456,6 +495,120 @@ public class Line extends BasicLine implements AbstractLine, IGetByteData {
     }
 
 
+    /**
+     * Get a numeric field as a long. When the field Type implements
+     * IPrimitiveType the value is decoded straight from the record.
+     *
+     * @see net.sf.JRecord.Details.BaseLine#getFieldLong(net.sf.JRecord.Common.IFieldDetail)
+     */
+    @Override
+    public long getFieldLong(IFieldDetail field) {
+    	IPrimitiveType type = getPrimitiveType(field, true);
+
+    	if (type != null) {
+    		try {
+    			return type.getUnscaledValue(data, field.calculateActualPosition(this), field)
+    				 / POWERS_OF_TEN[field.getDecimal()];
+    		} catch (NumberFormatException e) {
+    			// use the standard conversion
+    		}
+    	}
+    	return super.getFieldLong(field);
+    }
+
+    /**
+     * @see net.sf.JRecord.Details.BaseLine#getFieldDouble(net.sf.JRecord.Common.IFieldDetail)
+     */
+    @Override
+    public double getFieldDouble(IFieldDetail field) {
+    	IPrimitiveType type = getPrimitiveType(field, true);
+
+    	if (type != null) {
+    		try {
+    			long value = type.getUnscaledValue(data, field.calculateActualPosition(this), field);
+    			int decimal = field.getDecimal();
+
+    			if (decimal == 0) {
+    				return value;
+    			} else if (value < MAX_EXACT_DOUBLE && value > - MAX_EXACT_DOUBLE) {
+    				// both values are exact so the result is correctly rounded (same as parseDouble)
+    				return value / DOUBLE_POWERS_OF_TEN[decimal];
+    			}
+    			return BigDecimal.valueOf(value, decimal).doubleValue();
+    		} catch (NumberFormatException e) {
+    			// use the standard conversion
+    		}
+    	}
+    	return super.getFieldDouble(field);
+    }
+
+    /**
+     * @see net.sf.JRecord.Details.BaseLine#getFieldBigDecimal(net.sf.JRecord.Common.IFieldDetail)
+     */
+    @Override
+    public BigDecimal getFieldBigDecimal(IFieldDetail field) {
+    	IPrimitiveType type = getPrimitiveType(field, true);
+
+    	if (type != null) {
+    		try {
+    			return BigDecimal.valueOf(
+    					type.getUnscaledValue(data, field.calculateActualPosition(this), field),
+    					field.getDecimal());
+    		} catch (NumberFormatException e) {
+    			// use the standard conversion
+    		}
+    	}
+    	return super.getFieldBigDecimal(field);
+    }
+
+    /**
+     * Set a numeric field to a long value. When the field Type implements
+     * IPrimitiveType the value is stored without creating a String.
+     *
+     * @see net.sf.JRecord.Details.BaseLine#setFieldLong(net.sf.JRecord.Common.IFieldDetail, long)
+     */
+    @Override
+    public void setFieldLong(IFieldDetail field, long value) {
+    	IPrimitiveType type = getPrimitiveType(field, false);
+
+    	if (type == null) {
+    		super.setFieldLong(field, value);
+    	} else {
+    		long scale = POWERS_OF_TEN[field.getDecimal()];
+    		if (value > Long.MAX_VALUE / scale || value < Long.MIN_VALUE / scale) {
+    			super.setFieldLong(field, value);
+    		} else {
+	            int pos = field.calculateActualPosition(this);
+	            ensureCapacity(field.calculateActualEnd(this));
+	            data = type.setUnscaledValue(data, pos, field, value * scale);
+
+	            super.checkForOdUpdate(field);
+    		}
+    	}
+    }
+
+    /**
+     * Get the field Type if the field can be accessed as an unscaled long
+     *
+     * @param field field to be accessed
+     * @param checkLength wether the record must hold the whole field
+     *
+     * @return the field Type or null if the standard conversion must be used
+     */
+    private IPrimitiveType getPrimitiveType(IFieldDetail field, boolean checkLength) {
+    	int decimal = field.getDecimal();
+    	if (field.isFixedFormat() && decimal >= 0 && decimal < POWERS_OF_TEN.length
+    	&& ((! checkLength) || (data != null && field.calculateActualEnd(this) <= data.length))) {
+    		Type type = TypeManager.getSystemTypeManager().getType(field.getType());
+
+    		if (type instanceof IPrimitiveType && ((IPrimitiveType) type).isPrimitiveSupported(field)) {
+    			return (IPrimitiveType) type;
+    		}
+    	}
+    	return null;
+    }
+
+
     /**
      * Update field without appling any formatting
      *
@@ -39,15 +39,18 @@ import java.io.IOException;
 import java.io.InputStream;
 
 import org.apache.hadoop.conf.Configuration;
-import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 
+import net.sf.JRecord.Common.IReaderListener;
 import net.sf.JRecord.Details.AbstractLine;
+import net.sf.JRecord.Details.CharLine;
 import net.sf.JRecord.Details.DefaultLineProvider;
 import net.sf.JRecord.Details.LayoutDetail;
+import net.sf.JRecord.Details.Line;
 import net.sf.JRecord.Details.LineProvider;
 import net.sf.JRecord.Details.SpecialRecordIds;
 import net.sf.JRecord.External.ExternalRecord;
+import net.sf.JRecord.hadoop.HadoopFiles;
 
 
 
@@ -85,6 +88,7 @@ public abstract class AbstractLineReader implements IReadLine {
 	private LineProvider lineProvider;
 	private LayoutDetail layout = null;
 	private IReadLine filter = null;
+	private IReaderListener listener = null;
 
 
 	/**
@@ -140,9 +144,7 @@ public abstract class AbstractLineReader implements IReadLine {
 	      * @throws IOException any IOerror
 	      */
 	     public void open(Path fileName, LayoutDetail pLayout, Configuration conf) throws IOException {
-	 		FileSystem fs = fileName.getFileSystem(conf);
-	 
-	         open(fs.open(fileName), pLayout);
+	         open(HadoopFiles.openInput(fileName, conf), pLayout);
 	 
 	         if (layout == null) {
 	             layout = pLayout;
@@ -207,10 +209,50 @@ public abstract class AbstractLineReader implements IReadLine {
      * @throws IOException io error
      */
     public final AbstractLine read() throws IOException {
+    	AbstractLine line;
     	if (filter == null) {
-    		return readImplementation();
+    		line = readImplementation();
+    	} else {
+    		line = filter.read();
+    	}
+
+    	return countLine(line);
+    }
+
+    /**
+     * Read one line from the input file reusing a supplied line (where the reader supports it).
+     * When the line is reused, its contents are replaced by the next record and the same
+     * line is returned; this avoids creating a new line for every record.
+     * Readers that can not reuse the line (or when Header / Trailer records are
+     * being processed) return a new line as per {@link #read()}.
+     *
+     * @param line line to be reused (created for this readers layout)
+     *
+     * @return line read in (null at end of file)
+     *
+     * @throws IOException io error
+     */
+    public final AbstractLine read(AbstractLine line) throws IOException {
+    	if (filter != null || line == null) {
+    		return read();
+    	}
+    	return countLine(readImplementation(line));
+    }
+
+    private AbstractLine countLine(AbstractLine line) {
+    	if (listener != null && line != null) {
+    		listener.recordRead(line.getPreferredLayoutIdx(), getRecordLength(line));
     	}
-    	return filter.read();
+    	return line;
+    }
+
+    private static int getRecordLength(AbstractLine line) {
+    	if (line instanceof Line) {
+    		return ((Line) line).getData().length;
+    	} else if (line instanceof CharLine) {
+    		return line.getFullLine().length();
+    	}
+    	return 0;
     }
 
     /**
@@ -222,6 +264,20 @@ public abstract class AbstractLineReader implements IReadLine {
      */
     public abstract AbstractLine readImplementation() throws IOException;
 
+    /**
+     * Read one line from the input file reusing the supplied line if possible.
+     * Readers that can reuse lines should override this method.
+     *
+     * @param line line to be reused
+     *
+     * @return line read in
+     *
+     * @throws IOException io error
+     */
+    protected AbstractLine readImplementation(AbstractLine line) throws IOException {
+    	return readImplementation();
+    }
+
     /**
      * Closes the file
      *
@@ -313,6 +369,23 @@ public abstract class AbstractLineReader implements IReadLine {
     }
 
 
+	/**
+	 * @return the listener that is notified of every line read (may be null)
+	 */
+	public final IReaderListener getListener() {
+		return listener;
+	}
+
+	/**
+	 * Set a listener that is notified of every line read along with its record type
+	 * (getPreferredLayoutIdx) e.g. net.sf.JRecord.Common.ReaderStatistics.
+	 *
+	 * @param listener listener to be notified (null to stop notifications)
+	 */
+	public void setListener(IReaderListener listener) {
+		this.listener = listener;
+	}
+
 	/**
 	 * @return the lineProvider
 	 */
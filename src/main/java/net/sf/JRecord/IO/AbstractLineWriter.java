@@ -37,9 +37,14 @@ package net.sf.JRecord.IO;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.List;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
 
 import net.sf.JRecord.Details.AbstractLine;
 import net.sf.JRecord.Details.LayoutDetail;
+import net.sf.JRecord.hadoop.HadoopFiles;
 
 
 /**
@@ -75,6 +80,22 @@ public abstract class AbstractLineWriter {
     }
 
 
+    /**
+     * Open a Hadoop file for output. The file is compressed
+     * when its extension belongs to a Hadoop compression codec (.gz, .bz2 etc).
+     * The block size, replication and buffer size can be set in the Configuration
+     * (see net.sf.JRecord.hadoop.JRecordConfiguration).
+     *
+     * @param fileName filename to be opened
+     * @param conf Hadoop configuration
+     *
+     * @throws IOException any IOerror
+     */
+    public void open(Path fileName, Configuration conf) throws IOException {
+        open(HadoopFiles.createOutput(fileName, conf));
+    }
+
+
     /**
      * Open file for input
      *
@@ -96,6 +117,20 @@ public abstract class AbstractLineWriter {
     public abstract void write(AbstractLine line) throws IOException;
 
 
+    /**
+     * Write a batch of lines to the output file
+     *
+     * @param lines lines to write to the output file
+     *
+     * @throws IOException any IOerror
+     */
+    public void writeBatch(List<? extends AbstractLine> lines) throws IOException {
+    	for (AbstractLine line : lines) {
+    		write(line);
+    	}
+    }
+
+
     /**
      * Closes the file
      *
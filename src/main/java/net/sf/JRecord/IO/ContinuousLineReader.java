@@ -39,7 +39,6 @@
 
 package net.sf.JRecord.IO;
 
-import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 
@@ -62,12 +61,18 @@ public class ContinuousLineReader extends AbstractLineReader {
 
 	private static final int BUFFER_SIZE = 16384;
 
- 	private BufferedInputStream stream = null;
+ 	private InputStream stream = null;
 	//private LayoutDetail recordLayout;
 
 	private int maxSize;
 
-	private byte[] buffer;
+	/**
+	 * Sliding window over the file; records are identified and sliced out
+	 * of the window so each byte is only read once.
+	 */
+	private byte[] window;
+	private int windowPos, windowEnd;
+	private boolean eof;
 
 	protected int[] lengths;
 	private AbstractLine tmpLine;
@@ -106,7 +111,7 @@ public class ContinuousLineReader extends AbstractLineReader {
 
         int i;
 
-        stream = new BufferedInputStream(inputStream, BUFFER_SIZE);
+        stream = inputStream;
         setLayout(layout);
 
 		lengths = new int[layout.getRecordCount()];
@@ -123,7 +128,10 @@ public class ContinuousLineReader extends AbstractLineReader {
 
 		//lineBuffer.clear();
 
-		buffer = new byte[maxSize];
+		window = new byte[Math.max(BUFFER_SIZE * 4, maxSize * 4)];
+		windowPos = 0;
+		windowEnd = 0;
+		eof = false;
     }
 
 
@@ -132,33 +140,55 @@ public class ContinuousLineReader extends AbstractLineReader {
      * @see net.sf.JRecord.IO.AbstractLineReader#read()
      */
     public AbstractLine readImplementation() throws IOException {
-        AbstractLine ret = null;
-        int recordSize, bytesRead;
+        int recordSize, bytesRead, available;
         byte[] rec;
 
         if (stream == null) {
             throw new IOException(AbstractLineReader.NOT_OPEN_MESSAGE);
         }
 
-        stream.mark(maxSize);
-        bytesRead = readBuffer(stream, buffer);
+        if (windowEnd - windowPos < maxSize && ! eof) {
+        	fillWindow();
+        }
 
-        if (bytesRead <= 0) {
+        available = windowEnd - windowPos;
+        if (available <= 0) {
             return null;
         }
-        if (bytesRead < buffer.length) {
+
+        bytesRead = Math.min(available, maxSize);
+        if (bytesRead < maxSize) {
             bytesRead += 1;
         }
-        tmpLine.replace(buffer, 0, bytesRead);
+        tmpLine.replace(window, windowPos, Math.min(bytesRead, available));
         recordSize = findLength(tmpLine, bytesRead);
-        stream.reset();
-        rec = new byte[recordSize];
 
-        readBuffer(stream, rec);
-        ret = getLine(rec);
+        rec = new byte[recordSize];
+        bytesRead = Math.min(recordSize, available);
+        System.arraycopy(window, windowPos, rec, 0, bytesRead);
+        windowPos += bytesRead;
 
+        return getLine(rec);
+    }
 
-        return ret;
+    /**
+     * Move the unread bytes to the start of the window and fill
+     * the rest of the window from the file
+     *
+     * @throws IOException any IO error
+     */
+    private void fillWindow() throws IOException {
+    	int len = windowEnd - windowPos;
+    	int num = 0;
+
+    	System.arraycopy(window, windowPos, window, 0, len);
+    	windowPos = 0;
+    	windowEnd = len;
+
+    	while (windowEnd < window.length && (num = stream.read(window, windowEnd, window.length - windowEnd)) >= 0) {
+    		windowEnd += num;
+    	}
+    	eof = num < 0;
     }
 
 
@@ -192,7 +222,7 @@ public class ContinuousLineReader extends AbstractLineReader {
     public void close() throws IOException {
 
         stream.close();
-        buffer = null;
+        window = null;
         stream = null;
     }
 
@@ -0,0 +1,318 @@
+/*  -------------------------------------------------------------------------
+ *
+ *                Project: JRecord
+ *    
+ *    Sub-Project purpose: Provide support for reading Cobol-Data files 
+ *                        using a Cobol Copybook in Java.
+ *                         Support for reading Fixed Width / Binary / Csv files
+ *                        using a Xml schema.
+ *                         General Fixed Width / Csv file processing in Java.
+ *    
+ *                 Author: Bruce Martin
+ *    
+ *                License: LGPL 2.1 or latter
+ *                
+ *    Copyright (c) 2016, Bruce Martin, All Rights Reserved.
+ *   
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation; either
+ *    version 2.1 of the License, or (at your option) any later version.
+ *   
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU Lesser General Public License for more details.
+ *
+ * ------------------------------------------------------------------------ */
+      
+package net.sf.JRecord.IO;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+
+import net.sf.JRecord.Common.RecordException;
+import net.sf.JRecord.Details.AbstractLine;
+import net.sf.JRecord.Details.DefaultLineProvider;
+import net.sf.JRecord.Details.LayoutDetail;
+import net.sf.JRecord.Details.LineProvider;
+
+/**
+ * Random access reading of Fixed Length files (local or Hadoop). Records are
+ * retrieved by record number using positional reads ({@link FileChannel} for
+ * local files, {@link FSDataInputStream#readFully(long, byte[], int, int)} for Hadoop files)
+ * so the file is never streamed from the start. The record length is
+ * the maximum record length of the layout.
+ *
+ * <pre>
+ * <b>Usage:</b>
+ *
+ *      FixedLengthRandomAccessReader r = FixedLengthRandomAccessReader.open(fileName, layout);
+ *      AbstractLine line = r.getRecord(1250000);
+ *      List&lt;AbstractLine&gt; lines = r.readRange(2000000, 2000100);
+ *      r.close();
+ * </pre>
+ *
+ * @author Bruce Martin
+ *
+ */
+public class FixedLengthRandomAccessReader implements Closeable {
+
+	private final IPositionalInput input;
+	private final LayoutDetail layout;
+	private final LineProvider lineProvider;
+	private final int recordLength;
+	private final long fileLength;
+
+
+	/**
+	 * Create a random access reader for a local file
+	 *
+	 * @param fileName file to be read
+	 * @param layout record layout
+	 *
+	 * @return random access reader
+	 * @throws IOException any IO error
+	 */
+	public static FixedLengthRandomAccessReader open(String fileName, LayoutDetail layout) throws IOException {
+		return open(fileName, layout, null);
+	}
+
+	/**
+	 * Create a random access reader for a local file
+	 *
+	 * @param fileName file to be read
+	 * @param layout record layout
+	 * @param provider line provider (null for the default provider)
+	 *
+	 * @return random access reader
+	 * @throws IOException any IO error
+	 */
+	public static FixedLengthRandomAccessReader open(String fileName, LayoutDetail layout, LineProvider provider)
+	throws IOException {
+		FileChannel channel = new RandomAccessFile(fileName, "r").getChannel();
+
+		return new FixedLengthRandomAccessReader(new ChannelInput(channel), channel.size(), layout, provider);
+	}
+
+	/**
+	 * Create a random access reader for a Hadoop file
+	 *
+	 * @param fileName file to be read
+	 * @param layout record layout
+	 * @param conf Hadoop configuration
+	 *
+	 * @return random access reader
+	 * @throws IOException any IO error
+	 */
+	public static FixedLengthRandomAccessReader open(Path fileName, LayoutDetail layout, Configuration conf)
+	throws IOException {
+		return open(fileName, layout, null, conf);
+	}
+
+	/**
+	 * Create a random access reader for a Hadoop file
+	 *
+	 * @param fileName file to be read
+	 * @param layout record layout
+	 * @param provider line provider (null for the default provider)
+	 * @param conf Hadoop configuration
+	 *
+	 * @return random access reader
+	 * @throws IOException any IO error
+	 */
+	public static FixedLengthRandomAccessReader open(
+			Path fileName, LayoutDetail layout, LineProvider provider, Configuration conf)
+	throws IOException {
+		FileSystem fs = fileName.getFileSystem(conf);
+		long len = fs.getFileStatus(fileName).getLen();
+
+		return new FixedLengthRandomAccessReader(new HadoopInput(fs.open(fileName)), len, layout, provider);
+	}
+
+	private FixedLengthRandomAccessReader(IPositionalInput input, long fileLength,
+			LayoutDetail layout, LineProvider provider) {
+		this.input = input;
+		this.fileLength = fileLength;
+		this.layout = layout;
+		this.lineProvider = provider == null ? new DefaultLineProvider() : provider;
+		this.recordLength = layout.getMaximumRecordLength();
+
+		if (recordLength <= 0) {
+			throw new RecordException("Invalid record length: {0}", Integer.toString(recordLength));
+		}
+	}
+
+	/**
+	 * Get a record by its record number.
+	 *
+	 * @param recordNumber record number (starting at 0)
+	 *
+	 * @return requested line or null if the record is beyond the end of the file
+	 * @throws IOException any IO error
+	 */
+	public AbstractLine getRecord(long recordNumber) throws IOException {
+		byte[] rec = getRawRecord(recordNumber);
+
+		if (rec == null) {
+			return null;
+		}
+		return getLine(rec);
+	}
+
+	/**
+	 * Get the bytes of a record
+	 *
+	 * @param recordNumber record number (starting at 0)
+	 *
+	 * @return record bytes or null if the record is beyond the end of the file
+	 * @throws IOException any IO error
+	 */
+	public byte[] getRawRecord(long recordNumber) throws IOException {
+		if (recordNumber < 0 || recordNumber >= getRecordCount()) {
+			return null;
+		}
+
+		long pos = recordNumber * recordLength;
+		byte[] rec = new byte[recordLength];
+
+		input.read(pos, rec, 0, (int) Math.min(recordLength, fileLength - pos));
+		return rec;
+	}
+
+	/**
+	 * Read a range of records with one positional read.
+	 *
+	 * @param from first record to read (starting at 0)
+	 * @param to record after the last record to read; records
+	 * beyond the end of the file are ignored
+	 *
+	 * @return lines read
+	 * @throws IOException any IO error
+	 */
+	public List<AbstractLine> readRange(long from, long to) throws IOException {
+		long end = Math.min(to, getRecordCount());
+
+		if (from < 0) {
+			throw new RecordException("Invalid record number: {0}", Long.toString(from));
+		}
+		if (end <= from) {
+			return new ArrayList<AbstractLine>(0);
+		}
+		if ((end - from) * recordLength > Integer.MAX_VALUE) {
+			throw new RecordException("Too many records requested: {0}", Long.toString(end - from));
+		}
+
+		int count = (int) (end - from);
+		long pos = from * recordLength;
+		byte[] buf = new byte[count * recordLength];
+		ArrayList<AbstractLine> lines = new ArrayList<AbstractLine>(count);
+
+		input.read(pos, buf, 0, (int) Math.min(buf.length, fileLength - pos));
+
+		for (int i = 0; i < count; i++) {
+			byte[] rec = new byte[recordLength];
+			System.arraycopy(buf, i * recordLength, rec, 0, recordLength);
+			lines.add(getLine(rec));
+		}
+		return lines;
+	}
+
+	@SuppressWarnings("deprecation")
+	private AbstractLine getLine(byte[] rec) {
+		AbstractLine ret = lineProvider.getLine(layout, rec);
+
+		ret.setLineProvider(lineProvider);
+		return ret;
+	}
+
+	/**
+	 * @return the number of records in the file (a short last record is counted)
+	 */
+	public final long getRecordCount() {
+		return (fileLength + recordLength - 1) / recordLength;
+	}
+
+	/**
+	 * @return the record length
+	 */
+	public final int getRecordLength() {
+		return recordLength;
+	}
+
+	/**
+	 * @return the record layout
+	 */
+	public final LayoutDetail getLayout() {
+		return layout;
+	}
+
+	@Override
+	public void close() throws IOException {
+		input.close();
+	}
+
+
+	/**
+	 * Source that supports reading at an absolute position
+	 */
+	private static interface IPositionalInput extends Closeable {
+		public void read(long position, byte[] buf, int offset, int len) throws IOException;
+	}
+
+	private static class ChannelInput implements IPositionalInput {
+		private final FileChannel channel;
+
+		public ChannelInput(FileChannel channel) {
+			this.channel = channel;
+		}
+
+		@Override
+		public void read(long position, byte[] buf, int offset, int len) throws IOException {
+			ByteBuffer bb = ByteBuffer.wrap(buf, offset, len);
+			long pos = position;
+
+			while (bb.hasRemaining()) {
+				int num = channel.read(bb, pos);
+				if (num < 0) {
+					throw new EOFException("Unexpected end of file at " + pos);
+				}
+				pos += num;
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			channel.close();
+		}
+	}
+
+	private static class HadoopInput implements IPositionalInput {
+		private final FSDataInputStream in;
+
+		public HadoopInput(FSDataInputStream in) {
+			this.in = in;
+		}
+
+		@Override
+		public void read(long position, byte[] buf, int offset, int len) throws IOException {
+			in.readFully(position, buf, offset, len);
+		}
+
+		@Override
+		public void close() throws IOException {
+			in.close();
+		}
+	}
+}
@@ -37,10 +37,12 @@ package net.sf.JRecord.IO;
 import java.io.IOException;
 import java.io.InputStream;
 
-//import net.sf.JRecord.ByteIO.AbstractByteReader;
+import net.sf.JRecord.ByteIO.AbstractByteReader;
 import net.sf.JRecord.ByteIO.IByteReader;
+import net.sf.JRecord.Common.IReaderListener;
 import net.sf.JRecord.Details.AbstractLine;
 import net.sf.JRecord.Details.LayoutDetail;
+import net.sf.JRecord.Details.Line;
 import net.sf.JRecord.Details.LineProvider;
 
 /**
@@ -101,6 +103,27 @@ public class LineReaderWrapper extends AbstractLineReader {
         return getLine(bytes);
     }
 
+    /**
+     * Read the next record into the supplied line using the Byte-Reader's
+     * cursor ({@link AbstractByteReader#next()}), so neither a new byte array
+     * or a new line is created for each record.
+     *
+     * @see net.sf.JRecord.IO.AbstractLineReader#readImplementation(net.sf.JRecord.Details.AbstractLine)
+     */
+    @Override
+    protected AbstractLine readImplementation(AbstractLine line) throws IOException {
+    	if (! (reader instanceof AbstractByteReader && line instanceof Line)) {
+    		return readImplementation();
+    	}
+
+    	AbstractByteReader r = (AbstractByteReader) reader;
+    	if (! r.next()) {
+    		return null;
+    	}
+    	((Line) line).replace(r.buffer(), r.offset(), r.length(), true);
+    	return line;
+    }
+
     protected byte[] rawRead() throws IOException {
     	return reader.read();
     }
@@ -111,6 +134,31 @@ public class LineReaderWrapper extends AbstractLineReader {
         reader.close();
     }
 
+	/**
+	 * Set the listener; invalid Record Descriptor Words found by the
+	 * Byte reader are also passed on to it.
+	 *
+	 * @see net.sf.JRecord.IO.AbstractLineReader#setListener(net.sf.JRecord.Common.IReaderListener)
+	 */
+	@Override
+	public void setListener(final IReaderListener listener) {
+		super.setListener(listener);
+
+		if (reader instanceof AbstractByteReader) {
+			IReaderListener rdwListener = null;
+			if (listener != null) {
+				rdwListener = new IReaderListener() {
+					@Override public void recordRead(int recordIdx, int length) { }
+
+					@Override public void invalidRecordDescriptor(long position) {
+						listener.invalidRecordDescriptor(position);
+					}
+				};
+			}
+			((AbstractByteReader) reader).setListener(rdwListener);
+		}
+	}
+
 	/**
 	 * @return the reader
 	 */
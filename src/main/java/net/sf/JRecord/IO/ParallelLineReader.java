@@ -0,0 +1,519 @@
+/*  -------------------------------------------------------------------------
+ *
+ *                Project: JRecord
+ *    
+ *    Sub-Project purpose: Provide support for reading Cobol-Data files 
+ *                        using a Cobol Copybook in Java.
+ *                         Support for reading Fixed Width / Binary / Csv files
+ *                        using a Xml schema.
+ *                         General Fixed Width / Csv file processing in Java.
+ *    
+ *                 Author: Bruce Martin
+ *    
+ *                License: LGPL 2.1 or latter
+ *                
+ *    Copyright (c) 2016, Bruce Martin, All Rights Reserved.
+ *   
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation; either
+ *    version 2.1 of the License, or (at your option) any later version.
+ *   
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU Lesser General Public License for more details.
+ *
+ * ------------------------------------------------------------------------ */
+      
+      
+package net.sf.JRecord.IO;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import net.sf.JRecord.ByteIO.RecordIndex;
+import net.sf.JRecord.Common.Constants;
+import net.sf.JRecord.Common.Conversion;
+import net.sf.JRecord.Details.AbstractLine;
+import net.sf.JRecord.Details.LayoutDetail;
+
+/**
+ * Reads a local file on several threads. The file is split into byte ranges
+ * that start on a record boundary:
+ * <ul compact>
+ *   <li><b>Fixed Length</b> files are split on a multiple of the record length.
+ *   <li><b>Text</b> files are split after the next End-Of-Line (\n in the file's charset).
+ *       Files in a multi-byte charset (other than UTF-8) are read on one thread.
+ *   <li><b>VB</b> files are split at the record positions held in their
+ *       {@link RecordIndex} (file name + .jridx). Without an index the file is read on one thread.
+ * </ul>
+ * Each range is decoded into Lines by a standard reader on a worker thread.
+ * The lines are returned either in file order (through a bounded queue for each range)
+ * or, for maximum throughput, in the order they are decoded.
+ * Other file structures (and streams) are read sequentially.
+ *
+ * <pre>
+ * <b>Usage:</b>
+ *
+ *      ParallelLineReader r = new ParallelLineReader(16, true);
+ *      r.open(fileName, layout);
+ *      while ((line = r.read()) != null) {
+ *          ....
+ *      }
+ *      r.close();
+ * </pre>
+ *
+ * @author Bruce Martin
+ *
+ */
+public class ParallelLineReader extends AbstractLineReader {
+
+	public static final long DEFAULT_MINIMUM_RANGE_SIZE = 4 * 1024 * 1024;
+
+	private static final int RANGES_PER_THREAD = 4;
+	private static final int BATCH_SIZE = 256;
+	private static final int QUEUE_SIZE = 32;
+	private static final List<AbstractLine> END_OF_RANGE = Collections.emptyList();
+	private static final AtomicInteger THREAD_NUMBER = new AtomicInteger();
+
+	private final int threads;
+	private final boolean ordered;
+	private long minimumRangeSize = DEFAULT_MINIMUM_RANGE_SIZE;
+
+	private ExecutorService executor = null;
+	private List<BlockingQueue<List<AbstractLine>>> queues;
+	private final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+	private int currentQueue, rangesOutstanding;
+	private List<AbstractLine> batch = null;
+	private int batchPos = 0;
+	private long[] boundaries;
+
+	private AbstractLineReader sequentialReader = null;
+
+
+	/**
+	 * Create a parallel reader using a thread per processor that returns
+	 * the lines in file order
+	 */
+	public ParallelLineReader() {
+		this(Runtime.getRuntime().availableProcessors(), true);
+	}
+
+	/**
+	 * Create a parallel reader
+	 *
+	 * @param threads number of threads
+	 * @param ordered wether the lines are returned in file order
+	 */
+	public ParallelLineReader(int threads, boolean ordered) {
+		super();
+		this.threads = Math.max(1, threads);
+		this.ordered = ordered;
+	}
+
+	/**
+	 * Open a local file and start reading it on the worker threads
+	 *
+	 * @see net.sf.JRecord.IO.AbstractLineReader#open(java.lang.String, net.sf.JRecord.Details.LayoutDetail)
+	 */
+	@Override
+	public void open(String fileName, LayoutDetail pLayout) throws IOException {
+		File file = new File(fileName);
+
+		setLayout(pLayout);
+		boundaries = getBoundaries(fileName, file.length(), pLayout);
+		start(fileName, pLayout);
+	}
+
+	/**
+	 * A stream can not be split, it is read sequentially
+	 *
+	 * @see net.sf.JRecord.IO.AbstractLineReader#open(java.io.InputStream, net.sf.JRecord.Details.LayoutDetail)
+	 */
+	@Override
+	public void open(InputStream inputStream, LayoutDetail pLayout) throws IOException {
+		setLayout(pLayout);
+		sequentialReader = LineIOProvider.getInstance().getLineReader(pLayout);
+		sequentialReader.open(inputStream, pLayout);
+	}
+
+	/**
+	 * Work out where the ranges start
+	 *
+	 * @return start of each range followed by the file length
+	 */
+	private long[] getBoundaries(String fileName, long fileLength, LayoutDetail pLayout) throws IOException {
+		int count = (int) Math.max(1, Math.min(threads * RANGES_PER_THREAD, fileLength / Math.max(1, minimumRangeSize)));
+		long[] ret = new long[count + 1];
+		int recordLength;
+
+		ret[count] = fileLength;
+		if (count == 1) {
+			return ret;
+		}
+
+		switch (pLayout.getFileStructure()) {
+		case Constants.IO_FIXED_LENGTH:
+		case Constants.IO_FIXED_LENGTH_CHAR:
+			recordLength = pLayout.getMaximumRecordLength();
+			if (recordLength <= 0
+			|| (pLayout.getFileStructure() == Constants.IO_FIXED_LENGTH_CHAR
+					&& ! Conversion.isSingleByte(pLayout.getFontName()))) {
+					/* char record lengths are only byte lengths for single byte fonts */
+				return new long[] {0, fileLength};
+			}
+			for (int i = 1; i < count; i++) {
+				ret[i] = (fileLength * i / count) / recordLength * recordLength;
+			}
+			break;
+		case Constants.IO_TEXT_LINE:
+		case Constants.IO_BIN_TEXT:
+			byte[] eol = Conversion.getBytes("\n", pLayout.getFontName());
+			if (eol.length != 1 || ! (Conversion.isSingleByte(pLayout.getFontName()) || isUtf8(pLayout.getFontName()))) {
+				return new long[] {0, fileLength};
+			}
+			RandomAccessFile raf = new RandomAccessFile(fileName, "r");
+			try {
+				for (int i = 1; i < count; i++) {
+					ret[i] = Math.max(ret[i - 1], findLineStart(raf, fileLength * i / count, eol[0]));
+				}
+			} finally {
+				raf.close();
+			}
+			break;
+		case Constants.IO_VB:
+		case Constants.IO_VB_GNU_COBOL:
+		case Constants.IO_VB_FUJITSU:
+			String indexName = RecordIndex.getIndexFileName(fileName);
+			if (! new File(indexName).exists()) {
+				return new long[] {0, fileLength};
+			}
+			RecordIndex index = RecordIndex.read(indexName);
+			if (index.getFileLength() != fileLength || index.getHeaderLength() > 0) {
+				return new long[] {0, fileLength};
+			}
+			for (int i = 1; i < count; i++) {
+				ret[i] = index.getOffset((int) ((long) index.getEntryCount() * i / count));
+			}
+			break;
+		default:
+			return new long[] {0, fileLength};
+		}
+		return removeEmptyRanges(ret);
+	}
+
+	/**
+	 * Drop ranges that start where the next range starts
+	 * (i.e. no record starts in them)
+	 */
+	private static long[] removeEmptyRanges(long[] boundaries) {
+		long[] ret = new long[boundaries.length];
+		int count = 1;
+
+		ret[0] = boundaries[0];
+		for (int i = 1; i < boundaries.length; i++) {
+			if (boundaries[i] > ret[count - 1]) {
+				ret[count++] = boundaries[i];
+			}
+		}
+		if (count < boundaries.length) {
+			long[] tmp = new long[count];
+			System.arraycopy(ret, 0, tmp, 0, count);
+			ret = tmp;
+		}
+		return ret;
+	}
+
+	/**
+	 * In UTF-8 a byte below 0x80 is always a character by itself
+	 * so a range can start after any \n byte
+	 */
+	private static boolean isUtf8(String font) {
+		Charset charset;
+		if (font == null || font.length() == 0) {
+			charset = Charset.defaultCharset();
+		} else if (Charset.isSupported(font)) {
+			charset = Charset.forName(font);
+		} else {
+			return false;
+		}
+		return "UTF-8".equals(charset.name());
+	}
+
+	/**
+	 * Find the start of the first line at or after a position
+	 */
+	private static long findLineStart(RandomAccessFile raf, long pos, byte eol) throws IOException {
+		byte[] buf = new byte[8192];
+		long p = pos - 1;
+		int num;
+
+		raf.seek(p);
+		while ((num = raf.read(buf)) > 0) {
+			for (int i = 0; i < num; i++) {
+				if (buf[i] == eol) {
+					return p + i + 1;
+				}
+			}
+			p += num;
+		}
+		return raf.length();
+	}
+
+	/**
+	 * Start reading the ranges on the worker threads
+	 */
+	private void start(final String fileName, final LayoutDetail pLayout) {
+		int count = boundaries.length - 1;
+		BlockingQueue<List<AbstractLine>> queue = null;
+
+		queues = new ArrayList<BlockingQueue<List<AbstractLine>>>(count);
+		error.set(null);
+		batch = null;
+		currentQueue = 0;
+		rangesOutstanding = count;
+		if (! ordered) {
+			queue = new ArrayBlockingQueue<List<AbstractLine>>(QUEUE_SIZE * threads);
+			queues.add(queue);
+		}
+		executor = Executors.newFixedThreadPool(Math.min(threads, count), new ThreadFactory() {
+			@Override public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, "JRecord-Parallel-" + THREAD_NUMBER.incrementAndGet());
+				t.setDaemon(true);
+				return t;
+			}
+		});
+
+		for (int i = 0; i < count; i++) {
+			if (ordered) {
+				queue = new ArrayBlockingQueue<List<AbstractLine>>(QUEUE_SIZE);
+				queues.add(queue);
+			}
+			executor.execute(new RangeReader(fileName, pLayout, boundaries[i], boundaries[i + 1], queue));
+		}
+		executor.shutdown();
+	}
+
+	/**
+	 * @see net.sf.JRecord.IO.AbstractLineReader#readImplementation()
+	 */
+	@Override
+	public AbstractLine readImplementation() throws IOException {
+		if (sequentialReader != null) {
+			return sequentialReader.read();
+		}
+		if (executor == null) {
+			throw new IOException(AbstractLineReader.NOT_OPEN_MESSAGE);
+		}
+
+		while (batch == null || batchPos >= batch.size()) {
+			batch = nextBatch();
+			batchPos = 0;
+			if (batch == null) {
+				return null;
+			}
+		}
+		return batch.get(batchPos++);
+	}
+
+	private List<AbstractLine> nextBatch() throws IOException {
+		List<AbstractLine> b;
+
+		while (rangesOutstanding > 0) {
+			b = take(queues.get(ordered ? currentQueue : 0));
+			if (b != END_OF_RANGE) {
+				return b;
+			}
+			checkError();
+			rangesOutstanding -= 1;
+			if (ordered) {
+				queues.set(currentQueue++, null);
+			}
+		}
+		return null;
+	}
+
+	private List<AbstractLine> take(BlockingQueue<List<AbstractLine>> queue) throws IOException {
+		try {
+			return queue.take();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while waiting for the worker threads");
+		}
+	}
+
+	private void checkError() throws IOException {
+		Throwable t = error.get();
+
+		if (t instanceof IOException) {
+			throw (IOException) t;
+		} else if (t != null) {
+			throw new IOException("Error reading the file: " + t, t);
+		}
+	}
+
+	/**
+	 * Set the smallest range a file is split into (the default is 4mb),
+	 * it must be set before the file is opened
+	 *
+	 * @param minimumRangeSize minimum range size in bytes
+	 */
+	public void setMinimumRangeSize(long minimumRangeSize) {
+		this.minimumRangeSize = minimumRangeSize;
+	}
+
+	/**
+	 * @return the number of ranges the file was split into
+	 */
+	public final int getRangeCount() {
+		return boundaries == null ? 1 : boundaries.length - 1;
+	}
+
+	/**
+	 * @see net.sf.JRecord.IO.AbstractLineReader#close()
+	 */
+	@Override
+	public void close() throws IOException {
+		if (sequentialReader != null) {
+			sequentialReader.close();
+			sequentialReader = null;
+		}
+		if (executor != null) {
+			executor.shutdownNow();
+			executor = null;
+		}
+		queues = null;
+		batch = null;
+	}
+
+	/**
+	 * Reads one range of the file and passes the lines to the queue in batches
+	 */
+	private class RangeReader implements Runnable {
+		private final String fileName;
+		private final LayoutDetail layout;
+		private final long start, end;
+		private final BlockingQueue<List<AbstractLine>> queue;
+
+		public RangeReader(String fileName, LayoutDetail layout, long start, long end,
+				BlockingQueue<List<AbstractLine>> queue) {
+			this.fileName = fileName;
+			this.layout = layout;
+			this.start = start;
+			this.end = end;
+			this.queue = queue;
+		}
+
+		@Override
+		public void run() {
+			AbstractLineReader reader = null;
+			List<AbstractLine> lines = new ArrayList<AbstractLine>(BATCH_SIZE);
+			AbstractLine line;
+
+			try {
+				FileInputStream in = new FileInputStream(fileName);
+
+				in.getChannel().position(start);
+				reader = LineIOProvider.getInstance().getLineReader(layout);
+				reader.open(new RangeInputStream(in, end - start), layout);
+
+				while (error.get() == null && (line = reader.read()) != null) {
+					lines.add(line);
+					if (lines.size() >= BATCH_SIZE) {
+						queue.put(lines);
+						lines = new ArrayList<AbstractLine>(BATCH_SIZE);
+					}
+				}
+				if (lines.size() > 0) {
+					queue.put(lines);
+				}
+			} catch (InterruptedException e) {
+				return;
+			} catch (Throwable e) {
+				error.compareAndSet(null, e);
+			} finally {
+				try {
+					if (reader != null) {
+						reader.close();
+					}
+				} catch (IOException e) {
+					error.compareAndSet(null, e);
+				}
+			}
+
+			try {
+				queue.put(END_OF_RANGE);
+			} catch (InterruptedException e) {
+			}
+		}
+	}
+
+	/**
+	 * Input stream that stops at the end of a range
+	 */
+	private static class RangeInputStream extends FilterInputStream {
+		private long remaining;
+
+		public RangeInputStream(InputStream in, long length) {
+			super(in);
+			this.remaining = length;
+		}
+
+		@Override
+		public int read() throws IOException {
+			if (remaining <= 0) {
+				return -1;
+			}
+			int b = super.read();
+			if (b >= 0) {
+				remaining -= 1;
+			}
+			return b;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			if (remaining <= 0) {
+				return -1;
+			}
+			int num = super.read(b, off, (int) Math.min(len, remaining));
+			if (num > 0) {
+				remaining -= num;
+			}
+			return num;
+		}
+
+		@Override
+		public long skip(long n) throws IOException {
+			long num = super.skip(Math.min(n, remaining));
+			remaining -= num;
+			return num;
+		}
+
+		@Override
+		public int available() throws IOException {
+			return (int) Math.min(super.available(), remaining);
+		}
+
+		@Override
+		public boolean markSupported() {
+			return false;
+		}
+	}
+}
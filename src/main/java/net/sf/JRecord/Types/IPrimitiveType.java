@@ -0,0 +1,78 @@
+/*  -------------------------------------------------------------------------
+ *
+ *            Sub-Project: JRecord Common
+ *    
+ *    Sub-Project purpose: Common Low-Level Code shared between 
+ *                        the JRecord and Record Projects
+ *    
+ *                 Author: Bruce Martin
+ *    
+ *                License: LGPL 2.1 or latter
+ *                
+ *    Copyright (c) 2016, Bruce Martin, All Rights Reserved.
+ *   
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation; either
+ *    version 2.1 of the License, or (at your option) any later version.
+ *   
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU Lesser General Public License for more details.
+ *
+ * ------------------------------------------------------------------------ */
+      
+package net.sf.JRecord.Types;
+
+import net.sf.JRecord.Common.IFieldDetail;
+
+/**
+ * Optional interface for numeric Types that can convert a field directly
+ * between the record bytes and a java long (without creating a String).
+ * The long is the <b>unscaled</b> value i.e. the field value with the
+ * implied decimal point removed (the scale is <i>field.getDecimal()</i>), so
+ * a <i>9(3)V99</i> field holding 123.45 is returned as 12345.
+ *
+ * <p>The Line / FieldValue primitive accessors (<i>getFieldLong</i>, <i>asLong</i>,
+ * <i>asDouble</i>, <i>set(long)</i> etc) use this interface when the field's
+ * Type implements it and fall back to the String conversion when it does not.
+ *
+ * @author Bruce Martin
+ *
+ */
+public interface IPrimitiveType {
+
+	/**
+	 * Wether the field can be accessed via the unscaled long methods
+	 *
+	 * @param field field definition
+	 * @return wether the unscaled long methods can be used for the field
+	 */
+	public boolean isPrimitiveSupported(IFieldDetail field);
+
+	/**
+	 * Get the unscaled field value
+	 *
+	 * @param record record holding the field
+	 * @param position position of the field in the record
+	 * @param field field definition
+	 *
+	 * @return unscaled field value
+	 * @throws NumberFormatException if the field does not hold a valid value or
+	 * the value will not fit in a long. The caller should use <i>getField</i> instead.
+	 */
+	public long getUnscaledValue(byte[] record, int position, IFieldDetail field);
+
+	/**
+	 * Set the field from an unscaled value
+	 *
+	 * @param record record to be updated
+	 * @param position position of the field in the record
+	 * @param field field definition
+	 * @param unscaledValue new value with the decimal point removed
+	 *
+	 * @return updated record
+	 */
+	public byte[] setUnscaledValue(byte[] record, int position, IFieldDetail field, long unscaledValue);
+}
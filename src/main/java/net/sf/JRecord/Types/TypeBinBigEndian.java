@@ -40,6 +40,8 @@
       
 package net.sf.JRecord.Types;
 
+import java.math.BigDecimal;
+
 import net.sf.JRecord.Common.Conversion;
 import net.sf.JRecord.Common.IFieldDetail;
 
@@ -50,7 +52,7 @@ import net.sf.JRecord.Common.IFieldDetail;
  *
  * @version 0.55
  */
-public class TypeBinBigEndian extends TypeNum {
+public class TypeBinBigEndian extends TypeNum implements IPrimitiveType {
 
 	private final boolean positiveStorage;
 
@@ -91,12 +93,18 @@ public class TypeBinBigEndian extends TypeNum {
 		int min = java.lang.Math.min(end, record.length);
 
         String s;
+        int len = min - pos;
         if (pos >= min) {
         	s = "0";
+        } else if (len < 8 || (len == 8 && ! (positiveStorage && record[pos] < 0))) {
+        	s = Long.toString(Conversion.getBigEndianLong(record, pos, len, positiveStorage));
+        	if (field.getDecimal() == 0) {
+        		return s;
+        	}
         } else if (positiveStorage) {
-        	s = Conversion.getPositiveBigInt(record, pos, min - pos).toString();
+        	s = Conversion.getPositiveBigInt(record, pos, len).toString();
         } else {
-        	s = Conversion.getBigInt(record, pos, min - pos).toString();
+        	s = Conversion.getBigInt(record, pos, len).toString();
         }
 
         s = addDecimalPoint(s, field.getDecimal());
@@ -111,8 +119,55 @@ public class TypeBinBigEndian extends TypeNum {
     public byte[] setField(byte[] record,
             			 final int position,
             			 final IFieldDetail field, Object value) {
-		
+
+    	if (isIntegerValue(field, value)) {
+    		return setUnscaledValue(record, position, field, toUnscaledLong(field, value));
+    	}
         Conversion.setBigInt(record, position - 1, field.getLen(), formatAsBigInt(field, value), positiveStorage);
         return record;
     }
+
+
+    /**
+     * Binary fields of 1 to 8 bytes can be accessed as a long
+     *
+     * @see net.sf.JRecord.Types.IPrimitiveType#isPrimitiveSupported(IFieldDetail)
+     */
+    @Override
+    public boolean isPrimitiveSupported(IFieldDetail field) {
+    	return field.getLen() > 0 && field.getLen() <= 8;
+    }
+
+    /**
+     * @see net.sf.JRecord.Types.IPrimitiveType#getUnscaledValue(byte[], int, IFieldDetail)
+     */
+    @Override
+    public long getUnscaledValue(byte[] record, int position, IFieldDetail field) {
+    	int pos = position - 1;
+    	int len = field.getLen();
+
+    	if (len <= 0 || len > 8 || pos + len > record.length) {
+    		throw new NumberFormatException("Field can not be retrieved as a long");
+    	}
+    	if (positiveStorage && len == 8 && record[pos] < 0) {
+    		throw new NumberFormatException("Value to big for a long");
+    	}
+
+    	return Conversion.getBigEndianLong(record, pos, len, positiveStorage);
+    }
+
+    /**
+     * @see net.sf.JRecord.Types.IPrimitiveType#setUnscaledValue(byte[], int, IFieldDetail, long)
+     */
+    @Override
+    public byte[] setUnscaledValue(byte[] record, int position, IFieldDetail field, long unscaledValue) {
+    	int len = field.getLen();
+
+    	if (! isBinaryValueValid(len, unscaledValue, positiveStorage)) {
+    		return setField(record, position, field, BigDecimal.valueOf(unscaledValue, field.getDecimal()));
+    	}
+
+    	Conversion.setBigEndianLong(record, position - 1, len, unscaledValue);
+    	return record;
+    }
 }
@@ -42,6 +42,8 @@
       
 package net.sf.JRecord.Types;
 
+import java.math.BigDecimal;
+
 import net.sf.JRecord.Common.Conversion;
 import net.sf.JRecord.Common.IFieldDetail;
 
@@ -52,7 +54,7 @@ import net.sf.JRecord.Common.IFieldDetail;
  *
  * @version 0.55
  */
-public class TypeBinLittleEndian extends TypeNum {
+public class TypeBinLittleEndian extends TypeNum implements IPrimitiveType {
 
 	private final boolean positiveStorage;
 
@@ -96,9 +98,15 @@ public class TypeBinLittleEndian extends TypeNum {
 		int min = java.lang.Math.min(end, record.length);
 
         String s;
-
-        if (positiveStorage) {
-            s = Conversion.getPostiveBinary(record, pos, min);
+        int len = min - pos;
+
+        if (len > 0 && (len < 8 || (len == 8 && ! (positiveStorage && record[min - 1] < 0)))) {
+        	s = Long.toString(Conversion.getLittleEndianLong(record, pos, len, positiveStorage));
+        	if (field.getDecimal() == 0) {
+        		return s;
+        	}
+        } else if (positiveStorage) {
+            s = Conversion.getPositiveLittleEndianBigInt(record, pos, min).toString();
         } else {
             s = Conversion.getBinaryInt(record, pos, min);
         }
@@ -117,6 +125,10 @@ public class TypeBinLittleEndian extends TypeNum {
 			  final IFieldDetail field,
 			  final Object value) {
 
+    	if (isIntegerValue(field, value)) {
+    		return setUnscaledValue(record, position, field, toUnscaledLong(field, value));
+    	}
+
 //		int pos = position - 1;
 //		int len = field.getLen();
 //		BigInteger v;
@@ -138,4 +150,49 @@ public class TypeBinLittleEndian extends TypeNum {
 
         return record;
     }
+
+
+    /**
+     * Binary fields of 1 to 8 bytes can be accessed as a long
+     *
+     * @see net.sf.JRecord.Types.IPrimitiveType#isPrimitiveSupported(IFieldDetail)
+     */
+    @Override
+    public boolean isPrimitiveSupported(IFieldDetail field) {
+    	return field.getLen() > 0 && field.getLen() <= 8;
+    }
+
+    /**
+     * @see net.sf.JRecord.Types.IPrimitiveType#getUnscaledValue(byte[], int, IFieldDetail)
+     */
+    @Override
+    public long getUnscaledValue(byte[] record, int position, IFieldDetail field) {
+    	int pos = position - 1;
+    	int len = field.getLen();
+    	int last = pos + len - 1;
+
+    	if (len <= 0 || len > 8 || last >= record.length) {
+    		throw new NumberFormatException("Field can not be retrieved as a long");
+    	}
+    	if (positiveStorage && len == 8 && record[last] < 0) {
+    		throw new NumberFormatException("Value to big for a long");
+    	}
+
+    	return Conversion.getLittleEndianLong(record, pos, len, positiveStorage);
+    }
+
+    /**
+     * @see net.sf.JRecord.Types.IPrimitiveType#setUnscaledValue(byte[], int, IFieldDetail, long)
+     */
+    @Override
+    public byte[] setUnscaledValue(byte[] record, int position, IFieldDetail field, long unscaledValue) {
+    	int len = field.getLen();
+
+    	if (! isBinaryValueValid(len, unscaledValue, positiveStorage)) {
+    		return setField(record, position, field, BigDecimal.valueOf(unscaledValue, field.getDecimal()));
+    	}
+
+    	Conversion.setLittleEndianLong(record, position - 1, len, unscaledValue);
+    	return record;
+    }
 }
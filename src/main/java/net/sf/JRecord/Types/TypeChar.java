@@ -159,20 +159,9 @@ public class TypeChar implements Type {
 		if (record == null || isHexZero(record, position, currField.getLen())) {
 			return "";
 		}
-		String s = Conversion.getString(record, position - 1,
+		return Conversion.getString(record, position - 1,
 		        getFieldEnd(position, currField, record),
-		        currField.getFontName());
-		String pad = " ";
-		
-		if (trim && s.endsWith(pad)) {
-			int idx = s.length() - 1;
-			char ch = pad.charAt(0); 
-			while(idx >= 0 && s.charAt(idx) == ch) {
-				idx -= 1;
-			}
-			s = s.substring(0, idx+1);
-		}
-		return s;
+		        currField.getFontName(), trim);
 	}
 
 	public static boolean isHexZero(byte[] record, int position, int len) {
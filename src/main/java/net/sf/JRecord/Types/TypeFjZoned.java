@@ -37,8 +37,12 @@
       
 package net.sf.JRecord.Types;
 
+import java.math.BigDecimal;
+
 import net.sf.JRecord.Common.Conversion;
 import net.sf.JRecord.Common.IFieldDetail;
+import net.sf.JRecord.Common.RecordException;
+import net.sf.JRecord.Common.ZonedDecimal;
 
 /**
  * Fujitsu Type Zoned Decimal type.
@@ -46,7 +50,7 @@ import net.sf.JRecord.Common.IFieldDetail;
  * @author Jean-Francois Gagnon
  *
  */
-public class TypeFjZoned extends TypeNum {
+public class TypeFjZoned extends TypeNum implements IPrimitiveType {
 
 	private static int positiveFjDiff = '@' - '0';
 	private static int negativeFjDiff = 'P' - '0';
@@ -71,6 +75,17 @@ public class TypeFjZoned extends TypeNum {
     public Object getField(byte[] record,
             final int position,
 			final IFieldDetail field) {
+    	int dialect = ZonedDecimal.getDialect(field.getFontName(), true);
+    	if (dialect != ZonedDecimal.UNSUPPORTED) {
+    		long value = ZonedDecimal.getLong(record, position - 1, field.getLen(), dialect);
+    		if (value != ZonedDecimal.NOT_A_LONG) {
+    			if (field.getDecimal() == 0) {
+    				return Long.toString(value);
+    			}
+    			return addDecimalPoint(Long.toString(value), field.getDecimal());
+    		}
+    	}
+
         return addDecimalPoint(
                 	fromFjZoned(super.getFieldText(record, position, field)),
                 	field.getDecimal());
@@ -85,6 +100,12 @@ public class TypeFjZoned extends TypeNum {
 			final IFieldDetail field,
 			Object value) {
 
+    	if (isIntegerValue(field, value) && field.isFixedFormat()
+    	&& ZonedDecimal.setLong(record, position - 1, field.getLen(), toUnscaledLong(field, value),
+    			ZonedDecimal.getDialect(field.getFontName(), true), overtypePositive)) {
+    		return record;
+    	}
+
 	    copyRightJust(record, formatValueForRecord(field, toNumberString(value)),
 	            position - 1, field.getLen(),
 	            "0", field.getFontName());
@@ -147,6 +168,52 @@ public class TypeFjZoned extends TypeNum {
 	}
 
 
+	/**
+	 * Fujitsu zoned decimal fields of up to 19 digits can be accessed as a long
+	 * (for Ascii based character-sets)
+	 *
+	 * @see net.sf.JRecord.Types.IPrimitiveType#isPrimitiveSupported(IFieldDetail)
+	 */
+	@Override
+	public boolean isPrimitiveSupported(IFieldDetail field) {
+		return field.getLen() > 0 && field.getLen() <= 19
+			&& ZonedDecimal.getDialect(field.getFontName(), true) != ZonedDecimal.UNSUPPORTED;
+	}
+
+	/**
+	 * @see net.sf.JRecord.Types.IPrimitiveType#getUnscaledValue(byte[], int, IFieldDetail)
+	 */
+	@Override
+	public long getUnscaledValue(byte[] record, int position, IFieldDetail field) {
+		long value = ZonedDecimal.getLong(
+				record, position - 1, field.getLen(),
+				ZonedDecimal.getDialect(field.getFontName(), true));
+
+		if (value == ZonedDecimal.NOT_A_LONG) {
+			throw new NumberFormatException("Invalid zoned decimal or value to big for a long");
+		}
+		return value;
+	}
+
+	/**
+	 * @see net.sf.JRecord.Types.IPrimitiveType#setUnscaledValue(byte[], int, IFieldDetail, long)
+	 */
+	@Override
+	public byte[] setUnscaledValue(byte[] record, int position, IFieldDetail field, long unscaledValue) {
+		int dialect = ZonedDecimal.getDialect(field.getFontName(), true);
+
+		if (dialect == ZonedDecimal.UNSUPPORTED) {
+			return setField(record, position, field, BigDecimal.valueOf(unscaledValue, field.getDecimal()));
+		}
+		if (! ZonedDecimal.setLong(record, position - 1, field.getLen(), unscaledValue, dialect, overtypePositive)) {
+			throw new RecordException(
+					"Value {0} is to big for field {1} (length {2})",
+					new Object[] {unscaledValue, field.getName(), field.getLen()});
+		}
+		return record;
+	}
+
+
     /**
      * Convert a Fujitsu Zoned Number String to a number string
      *
@@ -71,6 +71,13 @@ public class TypeNum extends TypeChar {
 
 //    private static final String STRING_NULL_VALUE = (String) CommonBits.NULL_VALUE;
 //	private static final int BASE_10 = 10;
+	private static final long[] LONG_SCALE = {
+		1L, 10L, 100L, 1000L, 10000L, 100000L, 1000000L, 10000000L, 100000000L,
+		1000000000L, 10000000000L, 100000000000L, 1000000000000L, 10000000000000L,
+		100000000000000L, 1000000000000000L, 10000000000000000L, 100000000000000000L,
+		1000000000000000000L,
+	};
+
 	private final boolean couldBeHexZero;
     private final boolean adjustTheDecimal;
     protected final boolean couldBeEmpty;
@@ -628,6 +635,52 @@ public class TypeNum extends TypeChar {
         return v;
     }
 
+	/**
+	 * Check if a value is a java integer (Long, Integer, Short, Byte) that can be converted
+	 * to an unscaled long (i.e. with the decimal places added) without overflowing
+	 *
+	 * @param field field definition
+	 * @param value value to be checked
+	 *
+	 * @return wether the value can be converted by toUnscaledLong
+	 */
+	protected static boolean isIntegerValue(IFieldDetail field, Object value) {
+		int decimal = field.getDecimal();
+		if ((value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte)
+		&&  decimal >= 0 && decimal < LONG_SCALE.length) {
+			long v = ((Number) value).longValue();
+			return v <= Long.MAX_VALUE / LONG_SCALE[decimal] && v >= Long.MIN_VALUE / LONG_SCALE[decimal];
+		}
+		return false;
+	}
+
+	/**
+	 * Convert a java integer to an unscaled long. The value must be checked with isIntegerValue first.
+	 *
+	 * @param field field definition
+	 * @param value value to be converted
+	 *
+	 * @return value with the decimal places added
+	 */
+	protected static long toUnscaledLong(IFieldDetail field, Object value) {
+		return ((Number) value).longValue() * LONG_SCALE[field.getDecimal()];
+	}
+
+	/**
+	 * Check if an unscaled value can be stored directly in a binary field
+	 * (i.e. it is allowed for this type and fits in the field).
+	 *
+	 * @param len field length
+	 * @param value unscaled value
+	 * @param positiveStorage wether the field is stored as an unsigned integer
+	 *
+	 * @return wether the value can be stored directly
+	 */
+	protected final boolean isBinaryValueValid(int len, long value, boolean positiveStorage) {
+		return (value >= 0 || ! (positive || positiveStorage))
+			&& Conversion.isBinaryValueValid(value, len, positiveStorage);
+	}
+
 	private BigInteger checkPositive(BigInteger v) throws RecordException {
 		if (isPositive() && v.compareTo(BigInteger.ZERO) < 0) {
 			throw new RecordException("Only positive numbers are allowed");
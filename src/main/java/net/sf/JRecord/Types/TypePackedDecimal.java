@@ -42,10 +42,13 @@
       
 package net.sf.JRecord.Types;
 
+import java.math.BigDecimal;
 import java.math.BigInteger;
 
 import net.sf.JRecord.Common.Conversion;
 import net.sf.JRecord.Common.IFieldDetail;
+import net.sf.JRecord.Common.RecordException;
+import net.sf.cb2xml.util.PackedDecimal;
 
 /**
  * Mainframe Packed Decimal Type.
@@ -54,7 +57,7 @@ import net.sf.JRecord.Common.IFieldDetail;
  *
  * @version 0.55
  */
-public class TypePackedDecimal extends TypeNum {
+public class TypePackedDecimal extends TypeNum implements IPrimitiveType {
 
 
     /**
@@ -83,9 +86,17 @@ public class TypePackedDecimal extends TypeNum {
 	    int min = java.lang.Math.min(end, record.length);
 	    int fldLength = min - pos;
 
-        String s = Conversion.getMainframePackedDecimal(record,
-                								 pos,
-                								 fldLength);
+	    long value = PackedDecimal.getLong(record, pos, fldLength);
+	    if (value != PackedDecimal.NOT_A_LONG && field.getDecimal() == 0) {
+	    	return Long.toString(value);
+	    }
+
+        String s;
+        if (value == PackedDecimal.NOT_A_LONG) {
+        	s = Conversion.getMainframePackedDecimal(record, pos, fldLength);
+        } else {
+        	s = Long.toString(value);
+        }
 
         return addDecimalPoint(s, field.getDecimal());
     }
@@ -100,30 +111,64 @@ public class TypePackedDecimal extends TypeNum {
 			final IFieldDetail field,
 			Object value) {
 
-		int pos = position - 1;
-		int len = field.getLen();
+    	if (isIntegerValue(field, value)) {
+    		return setUnscaledValue(record, position, field, toUnscaledLong(field, value));
+    	}
 
-        String val = checkValue(field, toNumberString(value));
-	    if (val.startsWith("-")) {
-	        val = val.substring(1) + "D";
-	    } else if (isPositive()) {
-	    	val += "F";
-	    } else {
-	        val += "C";
-	    }
+    	if (isPositive() && value instanceof BigDecimal && ((BigDecimal) value).signum() < 0) {
+    			/* check the sign before the value is scaled, -0.5 would be rounded to 0 */
+    		throw new RecordException("Only positive numbers are allowed");
+    	}
 
-	    //if (val.length() < 17) {
-	    Conversion.setBigInt(record, pos, len, new BigInteger(val, BASE_16), true);
-//	    } else {
-//	    	int split = val.length() - 16;
-//
-//	    	Conversion.setLong(record, pos, len, Long.parseLong(val.substring(split), BASE_16), true);
-//	    	Conversion.setLong(record, pos, len-8, Long.parseLong(val.substring(0, split), BASE_16), true);
-////	    	System.out.println("Comp3 Error: " + split + " " + val + "  >" + val.substring(0, split) + " " + val.substring(split)
-////	    			+ " ~~>> " +  Conversion.getMainframePackedDecimal(record,
-////							 pos,
-////							 len));
-//	    }
+    	BigInteger v = formatAsBigInt(field, value);
+    	if (! PackedDecimal.setBigInteger(record, position - 1, field.getLen(), v, isPositive())) {
+    		throw toBig(field, v);
+    	}
 	    return record;
     }
+
+
+    /**
+     * Packed decimal fields of up to 10 bytes (19 digits) can be accessed as a long
+     *
+     * @see net.sf.JRecord.Types.IPrimitiveType#isPrimitiveSupported(IFieldDetail)
+     */
+    @Override
+    public boolean isPrimitiveSupported(IFieldDetail field) {
+    	return field.getLen() > 0 && field.getLen() <= 10;
+    }
+
+    /**
+     * @see net.sf.JRecord.Types.IPrimitiveType#getUnscaledValue(byte[], int, IFieldDetail)
+     */
+    @Override
+    public long getUnscaledValue(byte[] record, int position, IFieldDetail field) {
+    	long value = PackedDecimal.getLong(record, position - 1, field.getLen());
+
+    	if (value == PackedDecimal.NOT_A_LONG) {
+    		throw new NumberFormatException("Invalid packed decimal or value to big for a long");
+    	}
+    	return value;
+    }
+
+    /**
+     * @see net.sf.JRecord.Types.IPrimitiveType#setUnscaledValue(byte[], int, IFieldDetail, long)
+     */
+    @Override
+    public byte[] setUnscaledValue(byte[] record, int position, IFieldDetail field, long unscaledValue) {
+
+    	if (unscaledValue < 0 && isPositive()) {
+    		throw new RecordException("Only positive numbers are allowed");
+    	}
+    	if (! PackedDecimal.setLong(record, position - 1, field.getLen(), unscaledValue, isPositive())) {
+    		throw toBig(field, unscaledValue);
+    	}
+    	return record;
+    }
+
+    private RecordException toBig(IFieldDetail field, Object value) {
+    	return new RecordException(
+    			"Value {0} is to big for field {1} (length {2})",
+    			new Object[] {value, field.getName(), field.getLen()});
+    }
 }
@@ -38,8 +38,11 @@
       
 package net.sf.JRecord.Types;
 
+import java.math.BigDecimal;
+
 import net.sf.JRecord.Common.IFieldDetail;
 import net.sf.JRecord.Common.RecordException;
+import net.sf.JRecord.Common.ZonedDecimal;
 
 /**
  * Sign Seperate numeric (ie editted numeric in Cobol)
@@ -47,7 +50,7 @@ import net.sf.JRecord.Common.RecordException;
  * @author Jean-Francois Gagnon
  *
  */
-public class TypeSignSeparate extends TypeNum {
+public class TypeSignSeparate extends TypeNum implements IPrimitiveType {
 
     private final boolean isLeadingSign;
     private final boolean isActualDecimal;
@@ -76,6 +79,20 @@ public class TypeSignSeparate extends TypeNum {
     public Object getField(byte[] record,
             final int position,
 			final IFieldDetail field) {
+    	int dialect = ZonedDecimal.getDialect(field.getFontName(), false);
+    	if (dialect != ZonedDecimal.UNSUPPORTED) {
+    		long value = ZonedDecimal.getSignSeparateLong(record, position - 1, field.getLen(), dialect, isLeadingSign);
+    		if (value != ZonedDecimal.NOT_A_LONG) {
+    			int scale = ZonedDecimal.getSignSeparateScale(record, position - 1, field.getLen(), dialect, isLeadingSign);
+    			if (scale > 0) {
+    				return BigDecimal.valueOf(value, scale).toPlainString();
+    			} else if (field.getDecimal() == 0) {
+    				return Long.toString(value);
+    			}
+    			return addDecimalPoint(Long.toString(value), field.getDecimal());
+    		}
+    	}
+
         return addDecimalPoint(
                 	fromSignSeparate(super.getFieldText(record, position, field)),
                 	field.getDecimal());
@@ -90,6 +107,12 @@ public class TypeSignSeparate extends TypeNum {
 			final IFieldDetail field,
 			Object value) {
 
+    	if (isIntegerValue(field, value) && field.isFixedFormat() && ! hasDecimalPoint(field)
+    	&& ZonedDecimal.setSignSeparateLong(record, position - 1, field.getLen(), toUnscaledLong(field, value),
+    			ZonedDecimal.getDialect(field.getFontName(), false), isLeadingSign)) {
+    		return record;
+    	}
+
         String val = checkValue(field, toNumberString(value));
         copyRightJust(record, toSignSeparate(val, field),
 	            position - 1, field.getLen(),
@@ -103,6 +126,59 @@ public class TypeSignSeparate extends TypeNum {
 	}
 
 
+	/**
+	 * Sign separate fields without an actual decimal point can be accessed as a long
+	 * (for Ebcdic and Ascii based character-sets)
+	 *
+	 * @see net.sf.JRecord.Types.IPrimitiveType#isPrimitiveSupported(IFieldDetail)
+	 */
+	@Override
+	public boolean isPrimitiveSupported(IFieldDetail field) {
+		return field.getLen() > 0 && field.getLen() <= 19 && ! hasDecimalPoint(field)
+			&& ZonedDecimal.getDialect(field.getFontName(), false) != ZonedDecimal.UNSUPPORTED;
+	}
+
+	/**
+	 * @see net.sf.JRecord.Types.IPrimitiveType#getUnscaledValue(byte[], int, IFieldDetail)
+	 */
+	@Override
+	public long getUnscaledValue(byte[] record, int position, IFieldDetail field) {
+		int dialect = ZonedDecimal.getDialect(field.getFontName(), false);
+		long value = ZonedDecimal.getSignSeparateLong(record, position - 1, field.getLen(), dialect, isLeadingSign);
+
+		if (value == ZonedDecimal.NOT_A_LONG
+		|| ZonedDecimal.getSignSeparateScale(record, position - 1, field.getLen(), dialect, isLeadingSign) != 0) {
+			throw new NumberFormatException("Invalid sign separate number or value to big for a long");
+		}
+		return value;
+	}
+
+	/**
+	 * @see net.sf.JRecord.Types.IPrimitiveType#setUnscaledValue(byte[], int, IFieldDetail, long)
+	 */
+	@Override
+	public byte[] setUnscaledValue(byte[] record, int position, IFieldDetail field, long unscaledValue) {
+		int dialect = ZonedDecimal.getDialect(field.getFontName(), false);
+
+		if (dialect == ZonedDecimal.UNSUPPORTED || hasDecimalPoint(field)) {
+			return setField(record, position, field, BigDecimal.valueOf(unscaledValue, field.getDecimal()));
+		}
+		if (! ZonedDecimal.setSignSeparateLong(record, position - 1, field.getLen(), unscaledValue, dialect, isLeadingSign)) {
+			throw new RecordException(
+					"Value {0} is to big for field {1} (length {2})",
+					new Object[] {unscaledValue, field.getName(), field.getLen()});
+		}
+		return record;
+	}
+
+	/**
+	 * Wether the field is written with an actual decimal point
+	 */
+	private boolean hasDecimalPoint(IFieldDetail field) {
+		return isActualDecimal && field.getDecimal() > 0 && field.getLen() > 3;
+	}
+
+
 	/**
 	 * Convert a num to a Sign Separate String
 	 *
@@ -51,9 +51,12 @@
       
 package net.sf.JRecord.Types;
 
+import java.math.BigDecimal;
+
 import net.sf.JRecord.Common.Conversion;
 import net.sf.JRecord.Common.IFieldDetail;
 import net.sf.JRecord.Common.RecordException;
+import net.sf.JRecord.Common.ZonedDecimal;
 
 /**
  * Define mainframe Zoned Decimal Type
@@ -62,7 +65,7 @@ import net.sf.JRecord.Common.RecordException;
  *
  * @version 0.55
  */
-public class TypeZoned extends TypeNum {
+public class TypeZoned extends TypeNum implements IPrimitiveType {
 
 
     private static final byte HIGH_NYBLE = (byte) 0xf0;
@@ -92,6 +95,17 @@ public class TypeZoned extends TypeNum {
     public Object getField(byte[] record,
             final int position,
 			final IFieldDetail field) {
+    	int dialect = ZonedDecimal.getDialect(field.getFontName(), false);
+    	if (dialect != ZonedDecimal.UNSUPPORTED) {
+    		long value = ZonedDecimal.getLong(record, position - 1, field.getLen(), dialect);
+    		if (value != ZonedDecimal.NOT_A_LONG) {
+    			if (field.getDecimal() == 0) {
+    				return Long.toString(value);
+    			}
+    			return addDecimalPoint(Long.toString(value), field.getDecimal());
+    		}
+    	}
+
         String val = super.getFieldText(record, position, field);
         String zoned = val; 
         char ch;
@@ -139,6 +153,15 @@ public class TypeZoned extends TypeNum {
     	if (field.getLen() == 0) {
     		return record;
     	}
+
+    	if (isIntegerValue(field, value) && field.isFixedFormat()) {
+    		long v = toUnscaledLong(field, value);
+    		int dialect = ZonedDecimal.getDialect(field.getFontName(), false);
+    		if ((v >= 0 || ! isPositive())
+    		&& ZonedDecimal.setLong(record, position - 1, field.getLen(), v, dialect, isSignPositive(dialect))) {
+    			return record;
+    		}
+    	}
     	
         String val = checkValue(field, toNumberString(value));
 	    String charset = field.getFontName();
@@ -227,4 +250,61 @@ public class TypeZoned extends TypeNum {
 			record[endPos] = (byte) (record[endPos] & andByte);
 		}
     }
+
+
+	/**
+	 * Zoned decimal fields of up to 19 digits can be accessed as a long
+	 * (for Ebcdic and Ascii based character-sets)
+	 *
+	 * @see net.sf.JRecord.Types.IPrimitiveType#isPrimitiveSupported(IFieldDetail)
+	 */
+	@Override
+	public boolean isPrimitiveSupported(IFieldDetail field) {
+		return field.getLen() > 0 && field.getLen() <= 19
+			&& ZonedDecimal.getDialect(field.getFontName(), false) != ZonedDecimal.UNSUPPORTED;
+	}
+
+	/**
+	 * @see net.sf.JRecord.Types.IPrimitiveType#getUnscaledValue(byte[], int, IFieldDetail)
+	 */
+	@Override
+	public long getUnscaledValue(byte[] record, int position, IFieldDetail field) {
+		long value = ZonedDecimal.getLong(
+				record, position - 1, field.getLen(),
+				ZonedDecimal.getDialect(field.getFontName(), false));
+
+		if (value == ZonedDecimal.NOT_A_LONG) {
+			throw new NumberFormatException("Invalid zoned decimal or value to big for a long");
+		}
+		return value;
+	}
+
+	/**
+	 * @see net.sf.JRecord.Types.IPrimitiveType#setUnscaledValue(byte[], int, IFieldDetail, long)
+	 */
+	@Override
+	public byte[] setUnscaledValue(byte[] record, int position, IFieldDetail field, long unscaledValue) {
+		int dialect = ZonedDecimal.getDialect(field.getFontName(), false);
+
+		if (dialect == ZonedDecimal.UNSUPPORTED) {
+			return setField(record, position, field, BigDecimal.valueOf(unscaledValue, field.getDecimal()));
+		}
+		if (unscaledValue < 0 && isPositive()) {
+			throw new RecordException("Only positive numbers are allowed");
+		}
+		if (! ZonedDecimal.setLong(record, position - 1, field.getLen(), unscaledValue, dialect, isSignPositive(dialect))) {
+			throw new RecordException(
+					"Value {0} is to big for field {1} (length {2})",
+					new Object[] {unscaledValue, field.getName(), field.getLen()});
+		}
+		return record;
+	}
+
+	/**
+	 * Ebcdic zoned decimals use a x'C' sign for positive values (x'F' for positive only fields),
+	 * Ascii zoned decimals always over-punch the sign
+	 */
+	private boolean isSignPositive(int dialect) {
+		return dialect != ZonedDecimal.EBCDIC || ! isPositive();
+	}
 }
@@ -0,0 +1,76 @@
+/*  -------------------------------------------------------------------------
+ *
+ *                Project: JRecord
+ *    
+ *    Sub-Project purpose: Provide support for reading Cobol-Data files 
+ *                        using a Cobol Copybook in Java.
+ *                         Support for reading Fixed Width / Binary / Csv files
+ *                        using a Xml schema.
+ *                         General Fixed Width / Csv file processing in Java.
+ *    
+ *                 Author: Bruce Martin
+ *    
+ *                License: LGPL 2.1 or latter
+ *                
+ *    Copyright (c) 2016, Bruce Martin, All Rights Reserved.
+ *   
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation; either
+ *    version 2.1 of the License, or (at your option) any later version.
+ *   
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU Lesser General Public License for more details.
+ *
+ * ------------------------------------------------------------------------ */
+      
+package net.sf.JRecord.hadoop;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.compress.CompressionCodec;
+import org.apache.hadoop.io.compress.GzipCodec;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
+import org.apache.hadoop.util.ReflectionUtils;
+
+/**
+ * Common code for the OutputFormats that write Cobol record files (Fixed Length,
+ * VB, Text etc; see {@link JRecordConfiguration#setFileOrganization(Configuration, int)}).
+ * Each reducer writes its own part file; the part files are compressed
+ * when output compression is switched on for the job.
+ *
+ * @author Bruce Martin
+ *
+ * @param <K> key type (the key is not written)
+ * @param <V> value type
+ */
+public abstract class AbstractCobolOutputFormat<K, V> extends FileOutputFormat<K, V> {
+
+	/**
+	 * Create the output file for this task
+	 *
+	 * @param context task details
+	 * @return stream to write the records to
+	 * @throws IOException any IO error
+	 */
+	protected OutputStream createOutput(TaskAttemptContext context) throws IOException {
+		Configuration conf = context.getConfiguration();
+		CompressionCodec codec = null;
+		String extension = "";
+
+		if (getCompressOutput(context)) {
+			Class<? extends CompressionCodec> codecClass = getOutputCompressorClass(context, GzipCodec.class);
+			codec = ReflectionUtils.newInstance(codecClass, conf);
+			extension = codec.getDefaultExtension();
+		}
+
+		Path file = getDefaultWorkFile(context, extension);
+		return HadoopFiles.compress(codec, HadoopFiles.create(file, conf));
+	}
+}
@@ -0,0 +1,107 @@
+/*  -------------------------------------------------------------------------
+ *
+ *                Project: JRecord
+ *    
+ *    Sub-Project purpose: Provide support for reading Cobol-Data files 
+ *                        using a Cobol Copybook in Java.
+ *                         Support for reading Fixed Width / Binary / Csv files
+ *                        using a Xml schema.
+ *                         General Fixed Width / Csv file processing in Java.
+ *    
+ *                 Author: Bruce Martin
+ *    
+ *                License: LGPL 2.1 or latter
+ *                
+ *    Copyright (c) 2016, Bruce Martin, All Rights Reserved.
+ *   
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation; either
+ *    version 2.1 of the License, or (at your option) any later version.
+ *   
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU Lesser General Public License for more details.
+ *
+ * ------------------------------------------------------------------------ */
+      
+package net.sf.JRecord.hadoop;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.BlockLocation;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.JobContext;
+import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
+
+import net.sf.JRecord.ByteIO.RecordIndex;
+
+/**
+ * Common code for the InputFormats that split Variable Length files
+ * (VB, GNU-Cobol VB, VBS, Micro Focus) using a sidecar {@link RecordIndex}
+ * (created with {@link RecordIndex#createIndex(Path, Configuration, int, int)}).
+ * Splits start and end exactly on indexed record boundaries so no resynchronisation
+ * is needed. Files without an index (or compressed files) are processed as a single split,
+ * as are files whose length no longer matches the length recorded in the index
+ * (i.e. the file has been changed since it was indexed).
+ *
+ * @author Bruce Martin
+ *
+ * @param <V> value type
+ */
+public abstract class AbstractIndexedInputFormat<V> extends FileInputFormat<LongWritable, V> {
+
+	@Override
+	public List<InputSplit> getSplits(JobContext job) throws IOException {
+		Configuration conf = job.getConfiguration();
+		long minSize = Math.max(getFormatMinSplitSize(), getMinSplitSize(job));
+		long maxSize = getMaxSplitSize(job);
+		List<InputSplit> splits = new ArrayList<InputSplit>();
+
+		for (FileStatus file : listStatus(job)) {
+			Path path = file.getPath();
+			long length = file.getLen();
+			FileSystem fs = path.getFileSystem(conf);
+			BlockLocation[] blocks = fs.getFileBlockLocations(file, 0, length);
+			Path indexPath = RecordIndex.getIndexPath(path);
+
+			if (length == 0 || HadoopFiles.getCodec(path, conf) != null || ! fs.exists(indexPath)) {
+				splits.add(makeSplit(path, 0, length, getHosts(blocks, 0)));
+				continue;
+			}
+
+			RecordIndex index = RecordIndex.read(indexPath, conf);
+			if (index.getEntryCount() == 0 || index.getFileLength() != length) {
+				splits.add(makeSplit(path, 0, length, getHosts(blocks, 0)));
+				continue;
+			}
+
+			long splitSize = computeSplitSize(file.getBlockSize(), minSize, maxSize);
+			long splitStart = index.getOffset(0);
+			for (int i = 1; i < index.getEntryCount(); i++) {
+				long offset = index.getOffset(i);
+				if (offset - splitStart >= splitSize) {
+					splits.add(makeSplit(path, splitStart, offset - splitStart, getHosts(blocks, splitStart)));
+					splitStart = offset;
+				}
+			}
+			splits.add(makeSplit(path, splitStart, length - splitStart, getHosts(blocks, splitStart)));
+		}
+		return splits;
+	}
+
+	private String[] getHosts(BlockLocation[] blocks, long offset) throws IOException {
+		if (blocks == null || blocks.length == 0) {
+			return new String[0];
+		}
+		return blocks[getBlockIndex(blocks, offset)].getHosts();
+	}
+}
@@ -0,0 +1,93 @@
+/*  -------------------------------------------------------------------------
+ *
+ *                Project: JRecord
+ *    
+ *    Sub-Project purpose: Provide support for reading Cobol-Data files 
+ *                        using a Cobol Copybook in Java.
+ *                         Support for reading Fixed Width / Binary / Csv files
+ *                        using a Xml schema.
+ *                         General Fixed Width / Csv file processing in Java.
+ *    
+ *                 Author: Bruce Martin
+ *    
+ *                License: LGPL 2.1 or latter
+ *                
+ *    Copyright (c) 2016, Bruce Martin, All Rights Reserved.
+ *   
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation; either
+ *    version 2.1 of the License, or (at your option) any later version.
+ *   
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU Lesser General Public License for more details.
+ *
+ * ------------------------------------------------------------------------ */
+      
+package net.sf.JRecord.hadoop;
+
+import java.io.IOException;
+
+import org.apache.hadoop.mapreduce.RecordWriter;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+
+import net.sf.JRecord.Details.AbstractLine;
+import net.sf.JRecord.Details.LayoutDetail;
+import net.sf.JRecord.IO.AbstractLineWriter;
+import net.sf.JRecord.IO.LineIOProvider;
+import net.sf.JRecord.IO.LineWriterWrapper;
+
+/**
+ * Hadoop OutputFormat that writes JRecord Lines using the Record-Layout
+ * (Copybook, file organization, font etc) defined in the job Configuration.
+ *
+ * <pre>
+ * <b>Usage:</b>
+ *
+ *      JRecordConfiguration.setCopybook(conf, new Path("/copybooks/DTAR020.cbl"));
+ *      JRecordConfiguration.setFileOrganization(conf, Constants.IO_VB);
+ *      JRecordConfiguration.setFont(conf, "cp037");
+ *
+ *      job.setOutputFormatClass(CobolLineOutputFormat.class);
+ * </pre>
+ *
+ * @author Bruce Martin
+ *
+ * @param <K> key type (the key is not written)
+ */
+public class CobolLineOutputFormat<K> extends AbstractCobolOutputFormat<K, AbstractLine> {
+
+	@Override
+	public RecordWriter<K, AbstractLine> getRecordWriter(TaskAttemptContext context) throws IOException {
+		LayoutDetail layout = JRecordConfiguration.getLayout(context.getConfiguration());
+		AbstractLineWriter writer = LineIOProvider.getInstance().getLineWriter(layout);
+
+		writer.setLayout(layout);
+		if (writer instanceof LineWriterWrapper) {
+			((LineWriterWrapper) writer).getWriter()
+					.setBatchSize(JRecordConfiguration.getOutputBatchSize(context.getConfiguration()));
+		}
+		writer.open(createOutput(context));
+		return new LineRecordWriter<K>(writer);
+	}
+
+	private static class LineRecordWriter<K> extends RecordWriter<K, AbstractLine> {
+		private final AbstractLineWriter writer;
+
+		public LineRecordWriter(AbstractLineWriter writer) {
+			this.writer = writer;
+		}
+
+		@Override
+		public void write(K key, AbstractLine value) throws IOException {
+			writer.write(value);
+		}
+
+		@Override
+		public void close(TaskAttemptContext context) throws IOException {
+			writer.close();
+		}
+	}
+}
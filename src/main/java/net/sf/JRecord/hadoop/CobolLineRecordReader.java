@@ -0,0 +1,119 @@
+/*  -------------------------------------------------------------------------
+ *
+ *                Project: JRecord
+ *    
+ *    Sub-Project purpose: Provide support for reading Cobol-Data files 
+ *                        using a Cobol Copybook in Java.
+ *                         Support for reading Fixed Width / Binary / Csv files
+ *                        using a Xml schema.
+ *                         General Fixed Width / Csv file processing in Java.
+ *    
+ *                 Author: Bruce Martin
+ *    
+ *                License: LGPL 2.1 or latter
+ *                
+ *    Copyright (c) 2016, Bruce Martin, All Rights Reserved.
+ *   
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation; either
+ *    version 2.1 of the License, or (at your option) any later version.
+ *   
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU Lesser General Public License for more details.
+ *
+ * ------------------------------------------------------------------------ */
+      
+package net.sf.JRecord.hadoop;
+
+import java.io.IOException;
+
+import org.apache.hadoop.io.BytesWritable;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.RecordReader;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+
+import net.sf.JRecord.Details.AbstractLine;
+import net.sf.JRecord.Details.LayoutDetail;
+import net.sf.JRecord.Details.LineProvider;
+import net.sf.JRecord.IO.LineIOProvider;
+
+/**
+ * Converts the raw records returned by a <i>byte</i> RecordReader
+ * into JRecord Lines using the Record-Layout defined in the
+ * Job Configuration (see {@link JRecordConfiguration}).
+ *
+ * @author Bruce Martin
+ *
+ */
+public class CobolLineRecordReader extends RecordReader<LongWritable, AbstractLine> {
+
+	private final RecordReader<LongWritable, BytesWritable> byteReader;
+	private LayoutDetail layout;
+	private LineProvider lineProvider;
+	private AbstractLine line = null;
+	private ReaderCounters counters;
+
+	/**
+	 * Create a Line reader from a byte reader
+	 * @param byteReader reader that supplies the raw records
+	 */
+	public CobolLineRecordReader(RecordReader<LongWritable, BytesWritable> byteReader) {
+		super();
+		this.byteReader = byteReader;
+	}
+
+	@Override
+	public void initialize(InputSplit split, TaskAttemptContext context)
+			throws IOException, InterruptedException {
+		layout = JRecordConfiguration.getLayout(context.getConfiguration());
+		lineProvider = LineIOProvider.getInstance().getLineProvider(layout);
+		counters = JRecordConfiguration.getCounters(context, layout);
+		byteReader.initialize(split, context);
+	}
+
+	@Override
+	public boolean nextKeyValue() throws IOException, InterruptedException {
+		if (! byteReader.nextKeyValue()) {
+			line = null;
+			return false;
+		}
+
+		line = lineProvider.getLine(layout, byteReader.getCurrentValue().copyBytes());
+		if (counters != null) {
+				/* records / bytes are counted by the byte reader */
+			counters.countRecordType(line.getPreferredLayoutIdx());
+		}
+		return true;
+	}
+
+	@Override
+	public LongWritable getCurrentKey() throws IOException, InterruptedException {
+		return byteReader.getCurrentKey();
+	}
+
+	@Override
+	public AbstractLine getCurrentValue() {
+		return line;
+	}
+
+	@Override
+	public float getProgress() throws IOException, InterruptedException {
+		return byteReader.getProgress();
+	}
+
+	@Override
+	public void close() throws IOException {
+		byteReader.close();
+	}
+
+	/**
+	 * @return the Record-Layout used to create the lines
+	 */
+	public final LayoutDetail getLayout() {
+		return layout;
+	}
+}
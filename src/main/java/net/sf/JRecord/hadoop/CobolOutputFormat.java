@@ -0,0 +1,103 @@
+/*  -------------------------------------------------------------------------
+ *
+ *                Project: JRecord
+ *    
+ *    Sub-Project purpose: Provide support for reading Cobol-Data files 
+ *                        using a Cobol Copybook in Java.
+ *                         Support for reading Fixed Width / Binary / Csv files
+ *                        using a Xml schema.
+ *                         General Fixed Width / Csv file processing in Java.
+ *    
+ *                 Author: Bruce Martin
+ *    
+ *                License: LGPL 2.1 or latter
+ *                
+ *    Copyright (c) 2016, Bruce Martin, All Rights Reserved.
+ *   
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation; either
+ *    version 2.1 of the License, or (at your option) any later version.
+ *   
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU Lesser General Public License for more details.
+ *
+ * ------------------------------------------------------------------------ */
+      
+package net.sf.JRecord.hadoop;
+
+import java.io.IOException;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.BytesWritable;
+import org.apache.hadoop.mapreduce.RecordWriter;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+
+import net.sf.JRecord.ByteIO.AbstractByteWriter;
+import net.sf.JRecord.ByteIO.ByteIOProvider;
+import net.sf.JRecord.ByteIO.FixedLengthByteWriter;
+import net.sf.JRecord.Common.Constants;
+
+/**
+ * Hadoop OutputFormat that writes raw records (BytesWritable) as a Fixed Length,
+ * VB (Mainframe, GNU-Cobol, Fujitsu), VB-Dump or Text file. The file organization
+ * and font come from the job Configuration (see {@link JRecordConfiguration}); Fixed Length
+ * records are padded / truncated to the record length.
+ *
+ * @author Bruce Martin
+ *
+ * @param <K> key type (the key is not written)
+ */
+public class CobolOutputFormat<K> extends AbstractCobolOutputFormat<K, BytesWritable> {
+
+	@Override
+	public RecordWriter<K, BytesWritable> getRecordWriter(TaskAttemptContext context) throws IOException {
+		AbstractByteWriter writer = getByteWriter(context.getConfiguration());
+
+		writer.setBatchSize(JRecordConfiguration.getOutputBatchSize(context.getConfiguration()));
+		writer.open(createOutput(context));
+		return new ByteRecordWriter<K>(writer);
+	}
+
+	/**
+	 * Get the byte writer for the file organization in the configuration
+	 *
+	 * @param conf job configuration
+	 * @return byte writer
+	 * @throws IOException any error
+	 */
+	public static AbstractByteWriter getByteWriter(Configuration conf) throws IOException {
+		int fileStructure = JRecordConfiguration.getFileOrganization(conf);
+		AbstractByteWriter writer;
+
+		if (fileStructure == Constants.IO_FIXED_LENGTH) {
+			return new FixedLengthByteWriter(JRecordConfiguration.getRecordLength(conf));
+		}
+
+		writer = ByteIOProvider.getInstance().getByteWriter(fileStructure, conf.get(JRecordConfiguration.FONT, ""));
+		if (writer == null) {
+			throw new IOException("Writing File Organization " + fileStructure + " is not supported");
+		}
+		return writer;
+	}
+
+	private static class ByteRecordWriter<K> extends RecordWriter<K, BytesWritable> {
+		private final AbstractByteWriter writer;
+
+		public ByteRecordWriter(AbstractByteWriter writer) {
+			this.writer = writer;
+		}
+
+		@Override
+		public void write(K key, BytesWritable value) throws IOException {
+			writer.write(value.copyBytes());
+		}
+
+		@Override
+		public void close(TaskAttemptContext context) throws IOException {
+			writer.close();
+		}
+	}
+}
@@ -0,0 +1,159 @@
+/*  -------------------------------------------------------------------------
+ *
+ *                Project: JRecord
+ *    
+ *    Sub-Project purpose: Provide support for reading Cobol-Data files 
+ *                        using a Cobol Copybook in Java.
+ *                         Support for reading Fixed Width / Binary / Csv files
+ *                        using a Xml schema.
+ *                         General Fixed Width / Csv file processing in Java.
+ *    
+ *                 Author: Bruce Martin
+ *    
+ *                License: LGPL 2.1 or latter
+ *                
+ *    Copyright (c) 2016, Bruce Martin, All Rights Reserved.
+ *   
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation; either
+ *    version 2.1 of the License, or (at your option) any later version.
+ *   
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU Lesser General Public License for more details.
+ *
+ * ------------------------------------------------------------------------ */
+      
+package net.sf.JRecord.hadoop;
+
+import java.io.IOException;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.BytesWritable;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.compress.CompressionCodec;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.RecordReader;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.lib.input.FileSplit;
+
+import net.sf.JRecord.ByteIO.FixedLengthByteReader;
+
+/**
+ * Hadoop RecordReader for Fixed Length files. The start / end of each FileSplit
+ * is moved to a record boundary; a record belongs to the split
+ * that holds its first byte. The record is returned as raw bytes, the key
+ * is the byte offset of the record in the file.
+ * Compressed files (which can not be split) are decompressed
+ * with the codec matching the file extension.
+ *
+ * @author Bruce Martin
+ *
+ */
+public class FixedLengthRecordReader extends RecordReader<LongWritable, BytesWritable> {
+
+	private FixedLengthByteReader reader = null;
+	private int recordLength;
+	private long start, end, pos;
+	private long compressedEnd = -1;
+	private FSDataInputStream fileIn;
+	private ReaderCounters counters;
+
+	private final LongWritable key = new LongWritable();
+	private final BytesWritable value = new BytesWritable();
+
+
+	@Override
+	public void initialize(InputSplit genericSplit, TaskAttemptContext context) throws IOException {
+		FileSplit split = (FileSplit) genericSplit;
+		Configuration conf = context.getConfiguration();
+		counters = JRecordConfiguration.getCounters(context, null);
+
+		recordLength = JRecordConfiguration.getRecordLength(conf);
+		start = alignToRecord(split.getStart(), recordLength);
+		end   = alignToRecord(split.getStart() + split.getLength(), recordLength);
+		pos   = start;
+
+		Path file = split.getPath();
+		CompressionCodec codec = HadoopFiles.getCodec(file, conf);
+		fileIn = file.getFileSystem(conf).open(file);
+		reader = new FixedLengthByteReader(recordLength);
+		reader.setListener(counters);
+		reader.setReadAhead(JRecordConfiguration.getReadAhead(conf));
+
+		if (codec == null) {
+			fileIn.seek(start);
+			reader.open(fileIn);
+		} else {
+			compressedEnd = split.getLength();
+			end = Long.MAX_VALUE;
+			reader.open(HadoopFiles.decompress(codec, fileIn));
+		}
+	}
+
+	/**
+	 * Get the position of the first record starting at or after a byte position
+	 *
+	 * @param position byte position in the file
+	 * @param recordLength length of each record
+	 *
+	 * @return start of the next record
+	 */
+	public static long alignToRecord(long position, int recordLength) {
+		return ((position + recordLength - 1) / recordLength) * recordLength;
+	}
+
+	@Override
+	public boolean nextKeyValue() throws IOException {
+		if (pos >= end) {
+			return false;
+		}
+
+		byte[] rec = reader.read();
+		if (rec == null) {
+			pos = end;
+			return false;
+		}
+
+		key.set(pos);
+		value.set(rec, 0, rec.length);
+		pos += recordLength;
+		return true;
+	}
+
+	@Override
+	public LongWritable getCurrentKey() {
+		return key;
+	}
+
+	@Override
+	public BytesWritable getCurrentValue() {
+		return value;
+	}
+
+	@Override
+	public float getProgress() throws IOException {
+		if (compressedEnd > 0) {
+			return Math.min(1.0f, fileIn.getPos() / (float) compressedEnd);
+		}
+		if (end == start) {
+			return 0.0f;
+		}
+		return Math.min(1.0f, (pos - start) / (float) (end - start));
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (reader != null) {
+			reader.close();
+			reader = null;
+		}
+		if (counters != null) {
+			counters.close();
+		}
+	}
+}
@@ -0,0 +1,226 @@
+/*  -------------------------------------------------------------------------
+ *
+ *                Project: JRecord
+ *    
+ *    Sub-Project purpose: Provide support for reading Cobol-Data files 
+ *                        using a Cobol Copybook in Java.
+ *                         Support for reading Fixed Width / Binary / Csv files
+ *                        using a Xml schema.
+ *                         General Fixed Width / Csv file processing in Java.
+ *    
+ *                 Author: Bruce Martin
+ *    
+ *                License: LGPL 2.1 or latter
+ *                
+ *    Copyright (c) 2016, Bruce Martin, All Rights Reserved.
+ *   
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation; either
+ *    version 2.1 of the License, or (at your option) any later version.
+ *   
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU Lesser General Public License for more details.
+ *
+ * ------------------------------------------------------------------------ */
+      
+package net.sf.JRecord.hadoop;
+
+import java.io.File;
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.LocalFileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.compress.CodecPool;
+import org.apache.hadoop.io.compress.CompressionCodec;
+import org.apache.hadoop.io.compress.CompressionCodecFactory;
+import org.apache.hadoop.io.compress.CompressionOutputStream;
+import org.apache.hadoop.io.compress.Compressor;
+import org.apache.hadoop.io.compress.Decompressor;
+import org.apache.hadoop.io.compress.SplittableCompressionCodec;
+
+/**
+ * Open Hadoop files for reading / writing. The compression codec
+ * (gzip, bzip2, Snappy etc) is chosen from the file extension using the
+ * {@link CompressionCodecFactory}; Compressors / Decompressors are taken from
+ * (and returned to) the {@link CodecPool} when the stream is closed.
+ * Files with no known extension are read / written unchanged.
+ *
+ * @author Bruce Martin
+ *
+ */
+public class HadoopFiles {
+
+	private static final String IO_BUFFER_SIZE = "io.file.buffer.size";
+	private static final int DEFAULT_BUFFER_SIZE = 4096;
+
+	/**
+	 * Get the compression codec for a file
+	 *
+	 * @param fileName file name
+	 * @param conf Hadoop configuration
+	 * @return the codec or null if the file is not compressed
+	 */
+	public static CompressionCodec getCodec(Path fileName, Configuration conf) {
+		return new CompressionCodecFactory(conf).getCodec(fileName);
+	}
+
+	/**
+	 * Check if a file can be split; i.e. it is not compressed or
+	 * is compressed with a splittable codec (e.g. bzip2).
+	 *
+	 * @param fileName file name
+	 * @param conf Hadoop configuration
+	 * @return wether the file can be split
+	 */
+	public static boolean isSplittable(Path fileName, Configuration conf) {
+		CompressionCodec codec = getCodec(fileName, conf);
+
+		return codec == null || codec instanceof SplittableCompressionCodec;
+	}
+
+	/**
+	 * Open a file for reading, decompressing it if necessary.
+	 *
+	 * @param fileName file to open
+	 * @param conf Hadoop configuration
+	 * @return stream holding the (uncompressed) file contents
+	 * @throws IOException any IO error
+	 */
+	public static InputStream openInput(Path fileName, Configuration conf) throws IOException {
+		FileSystem fs = fileName.getFileSystem(conf);
+		CompressionCodec codec = getCodec(fileName, conf);
+
+		if (codec == null) {
+			return fs.open(fileName);
+		}
+		return decompress(codec, fs.open(fileName));
+	}
+
+	/**
+	 * Get the local file for a (uncompressed) file on the local file system
+	 * (e.g. so it can be memory mapped).
+	 *
+	 * @param fileName file name
+	 * @param conf Hadoop configuration
+	 * @return the local file or null if the file is not an uncompressed local file
+	 * @throws IOException any IO error
+	 */
+	public static File getLocalFile(Path fileName, Configuration conf) throws IOException {
+		FileSystem fs = fileName.getFileSystem(conf);
+
+		if (fs instanceof LocalFileSystem && getCodec(fileName, conf) == null) {
+			return ((LocalFileSystem) fs).pathToFile(fileName);
+		}
+		return null;
+	}
+
+	/**
+	 * Wrap a stream in a decompressor from the CodecPool
+	 *
+	 * @param codec compression codec
+	 * @param in compressed stream
+	 * @return uncompressed stream; closing it returns the Decompressor to the pool
+	 * @throws IOException any IO error
+	 */
+	public static InputStream decompress(CompressionCodec codec, InputStream in) throws IOException {
+		final Decompressor decompressor = CodecPool.getDecompressor(codec);
+
+		return new FilterInputStream(codec.createInputStream(in, decompressor)) {
+			private boolean closed = false;
+
+			@Override
+			public void close() throws IOException {
+				if (! closed) {
+					closed = true;
+					try {
+						super.close();
+					} finally {
+						CodecPool.returnDecompressor(decompressor);
+					}
+				}
+			}
+		};
+	}
+
+	/**
+	 * Create a file for writing, compressing it if the file extension
+	 * belongs to a compression codec.
+	 *
+	 * @param fileName file to create
+	 * @param conf Hadoop configuration
+	 * @return stream to write the (uncompressed) data to
+	 * @throws IOException any IO error
+	 */
+	public static OutputStream createOutput(Path fileName, Configuration conf) throws IOException {
+		return compress(getCodec(fileName, conf), create(fileName, conf));
+	}
+
+	/**
+	 * Create a file using the block size, replication and buffer size
+	 * from the Configuration (see {@link JRecordConfiguration#setOutputBlockSize(Configuration, long)} etc).
+	 * Settings that are not defined use the file system defaults.
+	 *
+	 * @param fileName file to create
+	 * @param conf Hadoop configuration
+	 * @return stream to write the (raw) file
+	 * @throws IOException any IO error
+	 */
+	public static FSDataOutputStream create(Path fileName, Configuration conf) throws IOException {
+		FileSystem fs = fileName.getFileSystem(conf);
+
+		return fs.create(
+				fileName, true,
+				conf.getInt(JRecordConfiguration.OUTPUT_BUFFER_SIZE, conf.getInt(IO_BUFFER_SIZE, DEFAULT_BUFFER_SIZE)),
+				(short) conf.getInt(JRecordConfiguration.OUTPUT_REPLICATION, fs.getDefaultReplication(fileName)),
+				conf.getLong(JRecordConfiguration.OUTPUT_BLOCK_SIZE, fs.getDefaultBlockSize(fileName)));
+	}
+
+	/**
+	 * Wrap a stream in a compressor from the CodecPool
+	 *
+	 * @param codec compression codec (null for no compression)
+	 * @param out stream to write compressed data to
+	 * @return stream to write uncompressed data to; closing it returns the Compressor to the pool
+	 * @throws IOException any IO error
+	 */
+	public static OutputStream compress(CompressionCodec codec, OutputStream out) throws IOException {
+		if (codec == null) {
+			return out;
+		}
+
+		final Compressor compressor = CodecPool.getCompressor(codec);
+		final CompressionOutputStream cout = codec.createOutputStream(out, compressor);
+
+		return new FilterOutputStream(cout) {
+			private boolean closed = false;
+
+			@Override
+			public void write(byte[] b, int off, int len) throws IOException {
+				cout.write(b, off, len);
+			}
+
+			@Override
+			public void close() throws IOException {
+				if (! closed) {
+					closed = true;
+					try {
+						cout.finish();
+						super.close();
+					} finally {
+						CodecPool.returnCompressor(compressor);
+					}
+				}
+			}
+		};
+	}
+}
@@ -0,0 +1,55 @@
+/*  -------------------------------------------------------------------------
+ *
+ *                Project: JRecord
+ *    
+ *    Sub-Project purpose: Provide support for reading Cobol-Data files 
+ *                        using a Cobol Copybook in Java.
+ *                         Support for reading Fixed Width / Binary / Csv files
+ *                        using a Xml schema.
+ *                         General Fixed Width / Csv file processing in Java.
+ *    
+ *                 Author: Bruce Martin
+ *    
+ *                License: LGPL 2.1 or latter
+ *                
+ *    Copyright (c) 2016, Bruce Martin, All Rights Reserved.
+ *   
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation; either
+ *    version 2.1 of the License, or (at your option) any later version.
+ *   
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU Lesser General Public License for more details.
+ *
+ * ------------------------------------------------------------------------ */
+      
+package net.sf.JRecord.hadoop;
+
+import java.io.IOException;
+
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.RecordReader;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+
+import net.sf.JRecord.Details.AbstractLine;
+
+/**
+ * Hadoop InputFormat for Variable Length files (VB, GNU-Cobol VB, VBS, Micro Focus)
+ * with a sidecar {@link net.sf.JRecord.ByteIO.RecordIndex}, returning JRecord Lines
+ * (built from the Copybook in the job Configuration).
+ *
+ * @author Bruce Martin
+ *
+ */
+public class IndexedLineInputFormat extends AbstractIndexedInputFormat<AbstractLine> {
+
+	@Override
+	public RecordReader<LongWritable, AbstractLine> createRecordReader(
+			InputSplit split, TaskAttemptContext context) throws IOException {
+		return new CobolLineRecordReader(new IndexedRecordReader());
+	}
+}
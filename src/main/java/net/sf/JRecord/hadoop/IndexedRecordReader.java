@@ -0,0 +1,187 @@
+/*  -------------------------------------------------------------------------
+ *
+ *                Project: JRecord
+ *    
+ *    Sub-Project purpose: Provide support for reading Cobol-Data files 
+ *                        using a Cobol Copybook in Java.
+ *                         Support for reading Fixed Width / Binary / Csv files
+ *                        using a Xml schema.
+ *                         General Fixed Width / Csv file processing in Java.
+ *    
+ *                 Author: Bruce Martin
+ *    
+ *                License: LGPL 2.1 or latter
+ *                
+ *    Copyright (c) 2016, Bruce Martin, All Rights Reserved.
+ *   
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation; either
+ *    version 2.1 of the License, or (at your option) any later version.
+ *   
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU Lesser General Public License for more details.
+ *
+ * ------------------------------------------------------------------------ */
+      
+package net.sf.JRecord.hadoop;
+
+import java.io.IOException;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.BytesWritable;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.compress.CompressionCodec;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.RecordReader;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.lib.input.FileSplit;
+
+import net.sf.JRecord.ByteIO.AbstractByteReader;
+import net.sf.JRecord.ByteIO.ByteIOProvider;
+import net.sf.JRecord.ByteIO.ReadAheadInputStream;
+import net.sf.JRecord.ByteIO.RecordIndex;
+import net.sf.JRecord.Common.Constants;
+
+/**
+ * Hadoop RecordReader for Variable Length files split using a {@link RecordIndex}.
+ * Each split starts on an indexed record, and the reader stops at the first
+ * record starting at or after the end of the split. The key is the record number.
+ * When there is no index, the index is out of date (its file length does not match the file)
+ * or the file is compressed, the whole file is read using the file organization
+ * in the job Configuration.
+ *
+ * @author Bruce Martin
+ *
+ */
+public class IndexedRecordReader extends RecordReader<LongWritable, BytesWritable> {
+
+	private AbstractByteReader reader = null;
+	private long start, end, base;
+	private long recordNumber;
+	private long pos;
+	private long compressedEnd = -1;
+	private FSDataInputStream fileIn;
+	private ReaderCounters counters;
+
+	private final LongWritable key = new LongWritable();
+	private final BytesWritable value = new BytesWritable();
+
+
+	@SuppressWarnings("deprecation")
+	@Override
+	public void initialize(InputSplit genericSplit, TaskAttemptContext context) throws IOException {
+		FileSplit split = (FileSplit) genericSplit;
+		Configuration conf = context.getConfiguration();
+		counters = JRecordConfiguration.getCounters(context, null);
+		Path file = split.getPath();
+		FileSystem fs = file.getFileSystem(conf);
+		Path indexPath = RecordIndex.getIndexPath(file);
+		FSDataInputStream in = fs.open(file);
+		int readAhead = JRecordConfiguration.getReadAhead(conf);
+
+		start = split.getStart();
+		end = start + split.getLength();
+		pos = start;
+
+		CompressionCodec codec = HadoopFiles.getCodec(file, conf);
+		RecordIndex index = null;
+		if (codec == null && fs.exists(indexPath)) {
+			index = RecordIndex.read(indexPath, conf);
+			if (index.getFileLength() != fs.getFileStatus(file).getLen()) {
+				if (start != 0) {
+					in.close();
+					throw new IOException("The index " + indexPath + " does not match " + file
+							+ " (the file has changed since it was indexed)");
+				}
+				index = null;
+			}
+		}
+
+		if (index != null) {
+			recordNumber = index.getRecordNumberAt(start);
+			if (recordNumber < 0) {
+				in.close();
+				throw new IOException("Split start " + start + " is not an indexed record in " + file);
+			}
+			in.seek(start);
+			base = start - index.getHeaderLength();
+			if (readAhead > 0) {
+				reader = index.newReader(new ReadAheadInputStream(in, readAhead));
+			} else {
+				reader = index.newReader(in);
+			}
+		} else {
+			recordNumber = 0;
+			base = 0;
+			reader = ByteIOProvider.getInstance().getByteReader(
+					conf.getInt(JRecordConfiguration.FILE_ORGANIZATION, Constants.IO_VB));
+			reader.setReadAhead(readAhead);
+			if (codec == null) {
+				reader.open(in);
+			} else {
+				fileIn = in;
+				compressedEnd = split.getLength();
+				end = Long.MAX_VALUE;
+				reader.open(HadoopFiles.decompress(codec, in));
+			}
+		}
+		reader.setListener(counters);
+	}
+
+	@Override
+	public boolean nextKeyValue() throws IOException {
+		if (base + reader.getNextRecordPosition() >= end) {
+			pos = end;
+			return false;
+		}
+
+		byte[] rec = reader.read();
+		if (rec == null) {
+			pos = end;
+			return false;
+		}
+
+		key.set(recordNumber++);
+		value.set(rec, 0, rec.length);
+		pos = base + reader.getNextRecordPosition();
+		return true;
+	}
+
+	@Override
+	public LongWritable getCurrentKey() {
+		return key;
+	}
+
+	@Override
+	public BytesWritable getCurrentValue() {
+		return value;
+	}
+
+	@Override
+	public float getProgress() throws IOException {
+		if (compressedEnd > 0) {
+			return Math.min(1.0f, fileIn.getPos() / (float) compressedEnd);
+		}
+		if (end <= start) {
+			return 0.0f;
+		}
+		return Math.min(1.0f, (pos - start) / (float) (end - start));
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (reader != null) {
+			reader.close();
+			reader = null;
+		}
+		if (counters != null) {
+			counters.close();
+		}
+	}
+}
@@ -0,0 +1,413 @@
+/*  -------------------------------------------------------------------------
+ *
+ *                Project: JRecord
+ *    
+ *    Sub-Project purpose: Provide support for reading Cobol-Data files 
+ *                        using a Cobol Copybook in Java.
+ *                         Support for reading Fixed Width / Binary / Csv files
+ *                        using a Xml schema.
+ *                         General Fixed Width / Csv file processing in Java.
+ *    
+ *                 Author: Bruce Martin
+ *    
+ *                License: LGPL 2.1 or latter
+ *                
+ *    Copyright (c) 2016, Bruce Martin, All Rights Reserved.
+ *   
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation; either
+ *    version 2.1 of the License, or (at your option) any later version.
+ *   
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU Lesser General Public License for more details.
+ *
+ * ------------------------------------------------------------------------ */
+      
+package net.sf.JRecord.hadoop;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import org.apache.commons.codec.binary.Base64;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+
+import net.sf.JRecord.JRecordInterface1;
+import net.sf.JRecord.Common.Constants;
+import net.sf.JRecord.Common.RecordException;
+import net.sf.JRecord.Details.LayoutDetail;
+import net.sf.JRecord.Details.LayoutSerializer;
+import net.sf.JRecord.Numeric.ICopybookDialects;
+import net.sf.JRecord.Option.ICobolSplitOptions;
+
+/**
+ * Holds the JRecord settings (Copybook, file organization, dialect etc) used by
+ * the Hadoop Input / Output formats. The settings are stored in the Job
+ * <b>Configuration</b> so every task can rebuild the same Record-Layout.
+ *
+ * <pre>
+ * <b>Usage:</b>
+ *
+ *      Configuration conf = job.getConfiguration();
+ *      JRecordConfiguration.setCopybook(conf, new Path("/copybooks/DTAR020.cbl"));
+ *      JRecordConfiguration.setFileOrganization(conf, Constants.IO_FIXED_LENGTH);
+ *      JRecordConfiguration.setFont(conf, "cp037");
+ *
+ *      job.setInputFormatClass(FixedLengthLineInputFormat.class);
+ * </pre>
+ *
+ * Instead of a Copybook, a serialized layout (see LayoutSerializer) can be stored
+ * in the Configuration (<b>setLayout</b>) or in a file (<b>setLayoutFile</b>).
+ * The tasks then rebuild the layout without running the Cobol parser.
+ *
+ * @author Bruce Martin
+ *
+ */
+public class JRecordConfiguration {
+
+	public static final String COPYBOOK          = "jrecord.copybook";
+	public static final String FILE_ORGANIZATION = "jrecord.file.organization";
+	public static final String DIALECT           = "jrecord.dialect";
+	public static final String SPLIT             = "jrecord.split";
+	public static final String FONT              = "jrecord.font";
+	public static final String RECORD_LENGTH     = "jrecord.record.length";
+	public static final String OUTPUT_BLOCK_SIZE  = "jrecord.output.block.size";
+	public static final String OUTPUT_REPLICATION = "jrecord.output.replication";
+	public static final String OUTPUT_BUFFER_SIZE = "jrecord.output.buffer.size";
+	public static final String OUTPUT_BATCH_SIZE  = "jrecord.output.batch.size";
+	public static final String KEY_RECORD     = "jrecord.key.record";
+	public static final String KEY_FIELDS     = "jrecord.key.fields";
+	public static final String KEY_DESCENDING = "jrecord.key.descending";
+	public static final String LAYOUT      = "jrecord.layout";
+	public static final String LAYOUT_FILE = "jrecord.layout.file";
+	public static final String COUNTERS    = "jrecord.counters";
+	public static final String READ_AHEAD  = "jrecord.read.ahead.mb";
+
+	/**
+	 * Set the Cobol Copybook (held in any Hadoop file system)
+	 * @param conf job configuration
+	 * @param copybook copybook to use
+	 */
+	public static void setCopybook(Configuration conf, Path copybook) {
+		conf.set(COPYBOOK, copybook.toString());
+	}
+
+	/**
+	 * Set the file organization (Constants.IO_*)
+	 * @param conf job configuration
+	 * @param fileOrganization file organization
+	 */
+	public static void setFileOrganization(Configuration conf, int fileOrganization) {
+		conf.setInt(FILE_ORGANIZATION, fileOrganization);
+	}
+
+	/**
+	 * Set the Cobol dialect (ICopybookDialects.FMT_*)
+	 * @param conf job configuration
+	 * @param dialect Cobol dialect
+	 */
+	public static void setDialect(Configuration conf, int dialect) {
+		conf.setInt(DIALECT, dialect);
+	}
+
+	/**
+	 * Set how the copybook is split into records (ICobolSplitOptions.SPLIT_*)
+	 * @param conf job configuration
+	 * @param splitOption split option
+	 */
+	public static void setSplitCopybook(Configuration conf, int splitOption) {
+		conf.setInt(SPLIT, splitOption);
+	}
+
+	/**
+	 * Set the font (character set) of the data file
+	 * @param conf job configuration
+	 * @param font character set
+	 */
+	public static void setFont(Configuration conf, String font) {
+		conf.set(FONT, font);
+	}
+
+	/**
+	 * Set the record length explicitly. For Fixed Length files this means
+	 * the Copybook does not need to be loaded to work out the split points.
+	 *
+	 * @param conf job configuration
+	 * @param recordLength record length
+	 */
+	public static void setRecordLength(Configuration conf, int recordLength) {
+		conf.setInt(RECORD_LENGTH, recordLength);
+	}
+
+	/**
+	 * Set the HDFS block size used when writing files
+	 * (default is the file system default).
+	 * @param conf job configuration
+	 * @param blockSize block size in bytes
+	 */
+	public static void setOutputBlockSize(Configuration conf, long blockSize) {
+		conf.setLong(OUTPUT_BLOCK_SIZE, blockSize);
+	}
+
+	/**
+	 * Set the replication used when writing files
+	 * (default is the file system default).
+	 * @param conf job configuration
+	 * @param replication number of replicas
+	 */
+	public static void setOutputReplication(Configuration conf, short replication) {
+		conf.setInt(OUTPUT_REPLICATION, replication);
+	}
+
+	/**
+	 * Set the buffer size used when writing files
+	 * (default is io.file.buffer.size).
+	 * @param conf job configuration
+	 * @param bufferSize buffer size in bytes
+	 */
+	public static void setOutputBufferSize(Configuration conf, int bufferSize) {
+		conf.setInt(OUTPUT_BUFFER_SIZE, bufferSize);
+	}
+
+	/**
+	 * Set the key fields used to sort / group LineWritable's
+	 * (see LineKeyComparator). The parameters are the same as LineCompare's.
+	 *
+	 * @param conf job configuration
+	 * @param recordIdx record index
+	 * @param fields fields to be compared
+	 * @param descending is it descending sequence (one entry per field)
+	 */
+	public static void setKeyFields(Configuration conf, int recordIdx, int[] fields, boolean[] descending) {
+		StringBuilder f = new StringBuilder();
+		StringBuilder d = new StringBuilder();
+		String sep = "";
+		int num = Math.min(fields.length, descending.length);
+
+		for (int i = 0; i < num; i++) {
+			f.append(sep).append(fields[i]);
+			d.append(sep).append(descending[i]);
+			sep = ",";
+		}
+
+		conf.setInt(KEY_RECORD, recordIdx);
+		conf.set(KEY_FIELDS, f.toString());
+		conf.set(KEY_DESCENDING, d.toString());
+	}
+
+	/**
+	 * Store a serialized copy of the layout in the Configuration. The tasks will use
+	 * it instead of parsing the Copybook; this suits small to medium size layouts,
+	 * use <b>setLayoutFile</b> for very large ones.
+	 *
+	 * @param conf job configuration
+	 * @param layout record layout
+	 * @throws RecordException if the layout can not be serialized
+	 */
+	public static void setLayout(Configuration conf, LayoutDetail layout) {
+		try {
+			conf.set(LAYOUT, new String(Base64.encodeBase64(LayoutSerializer.toBytes(layout)), "US-ASCII"));
+		} catch (IOException e) {
+			throw layoutError(e);
+		} catch (RecordException e) {
+			throw layoutError(e);
+		}
+	}
+
+	private static RecordException layoutError(Exception e) {
+		return new RecordException("Could not store the layout in {0}: {1}",
+				new Object[] {LAYOUT, e.getMessage()}, e);
+	}
+
+	/**
+	 * Use a serialized layout (written by <b>writeLayout</b>) held in a file.
+	 * The file can be shipped through the distributed cache
+	 * (<i>job.addCacheFile(new URI(path + "#layout"))</i>) and referenced as
+	 * <i>new Path("layout")</i>.
+	 *
+	 * @param conf job configuration
+	 * @param layoutFile file holding the serialized layout
+	 */
+	public static void setLayoutFile(Configuration conf, Path layoutFile) {
+		conf.set(LAYOUT_FILE, layoutFile.toString());
+	}
+
+	/**
+	 * Write a serialized layout to a file and tell the tasks to use it.
+	 *
+	 * @param conf job configuration
+	 * @param layout record layout
+	 * @param layoutFile file to write the layout to
+	 * @throws IOException any IO error
+	 */
+	public static void writeLayout(Configuration conf, LayoutDetail layout, Path layoutFile) throws IOException {
+		OutputStream out = layoutFile.getFileSystem(conf).create(layoutFile, true);
+		try {
+			LayoutSerializer.write(layout, out);
+		} finally {
+			out.close();
+		}
+		setLayoutFile(conf, layoutFile);
+	}
+
+	/**
+	 * Set whether the RecordReaders maintain Hadoop counters
+	 * (see ReaderCounters). The default is true.
+	 * @param conf job configuration
+	 * @param counters whether to maintain the counters
+	 */
+	public static void setCounters(Configuration conf, boolean counters) {
+		conf.setBoolean(COUNTERS, counters);
+	}
+
+	/**
+	 * Create the counters for a RecordReader (if counters are required)
+	 * @param context task context
+	 * @param layout record layout (null for byte readers)
+	 * @return counters or null if counters are not required
+	 */
+	public static ReaderCounters getCounters(TaskAttemptContext context, LayoutDetail layout) {
+		if (context.getConfiguration().getBoolean(COUNTERS, true)) {
+			return new ReaderCounters(context, layout);
+		}
+		return null;
+	}
+
+	/**
+	 * Set the batch size for the Cobol OutputFormats. Records are packed into a buffer
+	 * of this size which is written to HDFS in one write (see net.sf.JRecord.ByteIO.BatchOutputStream).
+	 * The default is 0 (no batching).
+	 * @param conf job configuration
+	 * @param bytes batch buffer size in bytes
+	 */
+	public static void setOutputBatchSize(Configuration conf, int bytes) {
+		conf.setInt(OUTPUT_BATCH_SIZE, bytes);
+	}
+
+	/**
+	 * @param conf job configuration
+	 * @return batch buffer size in bytes (0 = no batching)
+	 */
+	public static int getOutputBatchSize(Configuration conf) {
+		return conf.getInt(OUTPUT_BATCH_SIZE, 0);
+	}
+
+	/**
+	 * Set the number of megabytes the RecordReaders read ahead of the current
+	 * record on a background thread (see net.sf.JRecord.ByteIO.ReadAheadInputStream).
+	 * The default is 0 (no read ahead).
+	 * @param conf job configuration
+	 * @param megabytes number of megabytes to read ahead
+	 */
+	public static void setReadAhead(Configuration conf, int megabytes) {
+		conf.setInt(READ_AHEAD, megabytes);
+	}
+
+	/**
+	 * @param conf job configuration
+	 * @return number of megabytes to read ahead (0 = no read ahead)
+	 */
+	public static int getReadAhead(Configuration conf) {
+		return conf.getInt(READ_AHEAD, 0);
+	}
+
+	public static int getFileOrganization(Configuration conf) {
+		return conf.getInt(FILE_ORGANIZATION, Constants.IO_FIXED_LENGTH);
+	}
+
+	/**
+	 * Get the record length for a fixed length file, either the
+	 * length that was set explicitly or the maximum length of the layout.
+	 *
+	 * @param conf job configuration
+	 * @return record length
+	 * @throws IOException any error loading the copybook
+	 */
+	public static int getRecordLength(Configuration conf) throws IOException {
+		int len = conf.getInt(RECORD_LENGTH, -1);
+
+		if (len <= 0) {
+			len = getLayout(conf).getMaximumRecordLength();
+		}
+		if (len <= 0) {
+			throw new IOException("Invalid record length: " + len);
+		}
+		return len;
+	}
+
+	/**
+	 * Get the maximum record length, either the length that was set explicitly,
+	 * the maximum length from the Copybook (if one is defined) or the supplied default.
+	 *
+	 * @param conf job configuration
+	 * @param defaultLength length to use when neither a record length or Copybook is defined
+	 * @return maximum record length
+	 * @throws IOException any error loading the copybook
+	 */
+	public static int getMaximumRecordLength(Configuration conf, int defaultLength) throws IOException {
+		int len = conf.getInt(RECORD_LENGTH, -1);
+
+		if (len <= 0) {
+			len = defaultLength;
+			if (isDefined(conf, COPYBOOK) || isDefined(conf, LAYOUT) || isDefined(conf, LAYOUT_FILE)) {
+				len = getLayout(conf).getMaximumRecordLength();
+			}
+		}
+		return len;
+	}
+
+	/**
+	 * Build the Record-Layout from the settings in the Configuration. A serialized
+	 * layout (<b>setLayout</b> / <b>setLayoutFile</b>) is used in preference to the Copybook.
+	 *
+	 * @param conf job configuration
+	 * @return Record Layout
+	 * @throws IOException any error reading the copybook
+	 */
+	public static LayoutDetail getLayout(Configuration conf) throws IOException {
+		String copybook = conf.get(COPYBOOK);
+
+		if (isDefined(conf, LAYOUT)) {
+			return LayoutSerializer.fromBytes(Base64.decodeBase64(conf.get(LAYOUT)));
+		}
+		if (isDefined(conf, LAYOUT_FILE)) {
+			Path layoutPath = new Path(conf.get(LAYOUT_FILE));
+			InputStream in = layoutPath.getFileSystem(conf).open(layoutPath);
+			try {
+				return LayoutSerializer.read(in);
+			} finally {
+				in.close();
+			}
+		}
+		if (copybook == null || copybook.length() == 0) {
+			throw new IOException("No Copybook has been defined; set " + COPYBOOK);
+		}
+
+		Path copybookPath = new Path(copybook);
+		FileSystem fs = copybookPath.getFileSystem(conf);
+		InputStream in = fs.open(copybookPath);
+		try {
+			return JRecordInterface1.COBOL
+					.newIOBuilder(in, copybookPath.getName())
+						.setFileOrganization(getFileOrganization(conf))
+						.setDialect(conf.getInt(DIALECT, ICopybookDialects.FMT_MAINFRAME))
+						.setSplitCopybook(conf.getInt(SPLIT, ICobolSplitOptions.SPLIT_NONE))
+						.setFont(conf.get(FONT, ""))
+					.getLayout();
+		} finally {
+			in.close();
+		}
+	}
+
+	private static boolean isDefined(Configuration conf, String name) {
+		String value = conf.get(name);
+		return value != null && value.length() > 0;
+	}
+}
@@ -0,0 +1,381 @@
+/*  -------------------------------------------------------------------------
+ *
+ *                Project: JRecord
+ *    
+ *    Sub-Project purpose: Provide support for reading Cobol-Data files 
+ *                        using a Cobol Copybook in Java.
+ *                         Support for reading Fixed Width / Binary / Csv files
+ *                        using a Xml schema.
+ *                         General Fixed Width / Csv file processing in Java.
+ *    
+ *                 Author: Bruce Martin
+ *    
+ *                License: LGPL 2.1 or latter
+ *                
+ *    Copyright (c) 2016, Bruce Martin, All Rights Reserved.
+ *   
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation; either
+ *    version 2.1 of the License, or (at your option) any later version.
+ *   
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU Lesser General Public License for more details.
+ *
+ * ------------------------------------------------------------------------ */
+      
+package net.sf.JRecord.hadoop;
+
+import java.io.IOException;
+
+import org.apache.hadoop.conf.Configurable;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.RawComparator;
+
+import net.sf.JRecord.Common.Conversion;
+import net.sf.JRecord.Common.IFieldDetail;
+import net.sf.JRecord.Common.RecordException;
+import net.sf.JRecord.Common.ZonedDecimal;
+import net.sf.JRecord.Details.LayoutDetail;
+import net.sf.JRecord.Details.RecordDetail;
+import net.sf.JRecord.Types.Type;
+
+/**
+ * Hadoop RawComparator that compares {@link LineWritable}'s on Copybook key fields
+ * directly on the serialised bytes (the records are never converted to Lines or Strings).
+ * The key fields are defined like {@link net.sf.JRecord.Details.LineCompare}: a record index,
+ * field indexes and descending flags, see
+ * {@link JRecordConfiguration#setKeyFields(Configuration, int, int[], boolean[])}.
+ *
+ * <ul compact>
+ *   <li>Text fields are compared byte by byte, i.e. in the collating sequence of the
+ *   file's character set (EBCDIC order for Mainframe files).
+ *   <li>Binary (comp / comp-5, Big and Little-Endian), packed decimal (comp-3), zoned decimal
+ *   and sign separate fields are decoded in place and compared numerically without creating any objects.
+ *   Values that can not be decoded (e.g. spaces in a zoned decimal field or a record too short to hold
+ *   the field) sort after all the numbers and are compared byte by byte among themselves.
+ *   <li>Other fields (including very long numeric fields) are compared byte by byte.
+ * </ul>
+ *
+ * <pre>
+ * <b>Usage:</b>
+ *
+ *      JRecordConfiguration.setKeyFields(conf, 0, new int[] {2, 0}, new boolean[] {false, true});
+ *      job.setMapOutputKeyClass(LineWritable.class);
+ *      job.setSortComparatorClass(LineKeyComparator.class);
+ *      job.setPartitionerClass(LineKeyPartitioner.class);
+ * </pre>
+ *
+ * @author Bruce Martin
+ *
+ */
+public class LineKeyComparator implements RawComparator<LineWritable>, Configurable {
+
+	private static final int KIND_TEXT = 0;
+	private static final int KIND_BINARY = 1;
+	private static final int KIND_POSITIVE_BINARY = 2;
+	private static final int KIND_PACKED = 3;
+	private static final int KIND_LITTLE_ENDIAN = 4;
+	private static final int KIND_POSITIVE_LITTLE_ENDIAN = 5;
+	private static final int KIND_ZONED = 6;
+	private static final int KIND_SIGN_SEPARATE = 7;
+
+	/** value of a numeric key that can not be decoded */
+	private static final long INVALID = ZonedDecimal.NOT_A_LONG;
+
+	private Configuration conf = null;
+	private KeyField[] keys = null;
+
+
+	/**
+	 * Create a comparator (the key fields are set from the Configuration)
+	 */
+	public LineKeyComparator() {
+		super();
+	}
+
+	/**
+	 * Create a comparator on specified key fields
+	 *
+	 * @param layout record layout
+	 * @param recordIdx record index
+	 * @param fields fields to be compared
+	 * @param descending is it descending sequence (one entry per field)
+	 */
+	public LineKeyComparator(LayoutDetail layout, int recordIdx, int[] fields, boolean[] descending) {
+		super();
+		setKeyFields(layout, recordIdx, fields, descending);
+	}
+
+	private void setKeyFields(LayoutDetail layout, int recordIdx, int[] fields, boolean[] descending) {
+		int num = Math.min(fields.length, descending.length);
+		RecordDetail rec = layout.getRecord(recordIdx);
+
+		keys = new KeyField[num];
+		for (int i = 0; i < num; i++) {
+			keys[i] = new KeyField(rec.getField(fields[i]), descending[i]);
+		}
+	}
+
+	@Override
+	public int compare(LineWritable o1, LineWritable o2) {
+		return compareRecords(o1.getBytes(), 0, o1.getLength(), o2.getBytes(), 0, o2.getLength());
+	}
+
+	@Override
+	public int compare(byte[] b1, int s1, int l1, byte[] b2, int s2, int l2) {
+		return compareRecords(
+				b1, s1 + LineWritable.HEADER_LENGTH, readInt(b1, s1 + 4),
+				b2, s2 + LineWritable.HEADER_LENGTH, readInt(b2, s2 + 4));
+	}
+
+	/**
+	 * Compare 2 records on the key fields
+	 *
+	 * @param b1 array holding the first record
+	 * @param s1 start of the first record
+	 * @param l1 length of the first record
+	 * @param b2 array holding the second record
+	 * @param s2 start of the second record
+	 * @param l2 length of the second record
+	 *
+	 * @return comparison result
+	 */
+	public int compareRecords(byte[] b1, int s1, int l1, byte[] b2, int s2, int l2) {
+		if (keys == null || keys.length == 0) {
+			return compareBytes(b1, s1, l1, b2, s2, l2);
+		}
+
+		int ret = 0;
+		for (int i = 0; ret == 0 && i < keys.length; i++) {
+			ret = keys[i].compare(b1, s1, l1, b2, s2, l2);
+		}
+		return ret;
+	}
+
+	/**
+	 * Hash code of the key fields of a record (used by {@link LineKeyPartitioner}).
+	 * Numeric keys are hashed on their value so keys that compare as equal
+	 * (e.g. x'123C' and x'123F' packed decimals) have the same hash code.
+	 *
+	 * @param b array holding the record
+	 * @param s start of the record
+	 * @param l record length
+	 * @return hash code
+	 */
+	public int hashKey(byte[] b, int s, int l) {
+		if (keys == null || keys.length == 0) {
+			return hashBytes(b, s, l);
+		}
+
+		int hash = 1;
+		for (KeyField k : keys) {
+			hash = 31 * hash + k.hash(b, s, l);
+		}
+		return hash;
+	}
+
+	/**
+	 * Compare bytes as unsigned values
+	 */
+	public static int compareBytes(byte[] b1, int s1, int l1, byte[] b2, int s2, int l2) {
+		int len = Math.min(l1, l2);
+
+		for (int i = 0; i < len; i++) {
+			int ret = (b1[s1 + i] & 0xFF) - (b2[s2 + i] & 0xFF);
+			if (ret != 0) {
+				return ret;
+			}
+		}
+		return l1 - l2;
+	}
+
+	private static int hashBytes(byte[] b, int s, int l) {
+		int hash = 1;
+		for (int i = 0; i < l; i++) {
+			hash = 31 * hash + b[s + i];
+		}
+		return hash;
+	}
+
+	private static int readInt(byte[] b, int s) {
+		return ((b[s] & 0xFF) << 24) | ((b[s + 1] & 0xFF) << 16) | ((b[s + 2] & 0xFF) << 8) | (b[s + 3] & 0xFF);
+	}
+
+	@Override
+	public void setConf(Configuration conf) {
+		this.conf = conf;
+
+		String fields = conf.get(JRecordConfiguration.KEY_FIELDS);
+		if (fields != null && fields.length() > 0) {
+			String[] f = fields.split(",");
+			String[] d = conf.get(JRecordConfiguration.KEY_DESCENDING, "").split(",");
+			int[] fieldIdxs = new int[f.length];
+			boolean[] descending = new boolean[f.length];
+
+			for (int i = 0; i < f.length; i++) {
+				fieldIdxs[i] = Integer.parseInt(f[i].trim());
+				descending[i] = i < d.length && Boolean.parseBoolean(d[i].trim());
+			}
+
+			try {
+				setKeyFields(JRecordConfiguration.getLayout(conf),
+						conf.getInt(JRecordConfiguration.KEY_RECORD, 0), fieldIdxs, descending);
+			} catch (IOException e) {
+				throw new RecordException("Error loading the Record Layout: {0}", e.getMessage());
+			}
+		}
+	}
+
+	@Override
+	public Configuration getConf() {
+		return conf;
+	}
+
+
+	/**
+	 * Details of one key field
+	 */
+	private static class KeyField {
+		final int pos, len, kind;
+		final boolean descending;
+		int dialect = ZonedDecimal.UNSUPPORTED;
+		boolean leadingSign = false;
+
+		KeyField(IFieldDetail field, boolean descending) {
+			this.descending = descending;
+			this.pos = field.getPos() - 1;
+			this.len = field.getLen();
+
+			int k = KIND_TEXT;
+			switch (field.getType()) {
+			case Type.ftBinaryBigEndian:
+			case Type.ftBinaryBigEndianPositive:
+				k = len <= 8 ? KIND_BINARY : KIND_TEXT;
+				break;
+			case Type.ftPositiveBinaryBigEndian:
+				k = len <= 7 ? KIND_POSITIVE_BINARY : KIND_TEXT;
+				break;
+			case Type.ftBinaryInt:
+			case Type.ftBinaryIntPositive:
+				k = len <= 8 ? KIND_LITTLE_ENDIAN : KIND_TEXT;
+				break;
+			case Type.ftPostiveBinaryInt:
+				k = len <= 7 ? KIND_POSITIVE_LITTLE_ENDIAN : KIND_TEXT;
+				break;
+			case Type.ftPackedDecimal:
+			case Type.ftPackedDecimalPostive:
+				k = len <= 9 ? KIND_PACKED : KIND_TEXT;
+				break;
+			case Type.ftZonedNumeric:
+				dialect = ZonedDecimal.getDialect(field.getFontName(), false);
+				k = len <= 18 ? KIND_ZONED : KIND_TEXT;
+				break;
+			case Type.ftFjZonedNumeric:
+			case Type.ftGnuCblZonedNumeric:
+				dialect = ZonedDecimal.getDialect(field.getFontName(), true);
+				k = len <= 18 ? KIND_ZONED : KIND_TEXT;
+				break;
+			case Type.ftSignSeparateLead:
+			case Type.ftSignSeparateTrail:
+				dialect = ZonedDecimal.getDialect(field.getFontName(), false);
+				leadingSign = field.getType() == Type.ftSignSeparateLead;
+				k = len <= 19 ? KIND_SIGN_SEPARATE : KIND_TEXT;
+				break;
+			}
+			if ((k == KIND_ZONED || k == KIND_SIGN_SEPARATE) && dialect == ZonedDecimal.UNSUPPORTED) {
+				k = KIND_TEXT;
+			}
+			kind = k;
+		}
+
+		int available(int recordLength) {
+			return Math.max(0, Math.min(len, recordLength - pos));
+		}
+
+		int compare(byte[] b1, int s1, int l1, byte[] b2, int s2, int l2) {
+			int a1 = available(l1);
+			int a2 = available(l2);
+			int ret;
+
+			if (kind == KIND_TEXT) {
+				ret = compareBytes(b1, s1 + pos, a1, b2, s2 + pos, a2);
+			} else {
+				long v1 = getValue(b1, s1 + pos, a1);
+				long v2 = getValue(b2, s2 + pos, a2);
+
+				if (v1 != INVALID && v2 != INVALID) {
+					ret = v1 < v2 ? -1 : (v1 == v2 ? 0 : 1);
+				} else if (v1 != INVALID) {
+					ret = -1;
+				} else if (v2 != INVALID) {
+					ret = 1;
+				} else {
+					ret = compareBytes(b1, s1 + pos, a1, b2, s2 + pos, a2);
+				}
+			}
+
+			return descending ? -ret : ret;
+		}
+
+		/**
+		 * Hash code of the key field, consistent with compare
+		 */
+		int hash(byte[] b, int s, int l) {
+			int a = available(l);
+
+			if (kind != KIND_TEXT) {
+				long v = getValue(b, s + pos, a);
+				if (v != INVALID) {
+					return (int) (v ^ (v >>> 32));
+				}
+			}
+			return hashBytes(b, s + pos, a);
+		}
+
+		/**
+		 * Decode the (unscaled) field value from the record bytes
+		 *
+		 * @param b array holding the record
+		 * @param start start of the field
+		 * @param available number of bytes of the field in the record
+		 *
+		 * @return the field value or INVALID if it can not be decoded
+		 */
+		private long getValue(byte[] b, int start, int available) {
+			if (available < len) {
+				return INVALID;
+			}
+
+			switch (kind) {
+			case KIND_BINARY:				return Conversion.getBigEndianLong(b, start, len, false);
+			case KIND_POSITIVE_BINARY:		return Conversion.getBigEndianLong(b, start, len, true);
+			case KIND_LITTLE_ENDIAN:		return Conversion.getLittleEndianLong(b, start, len, false);
+			case KIND_POSITIVE_LITTLE_ENDIAN: return Conversion.getLittleEndianLong(b, start, len, true);
+			case KIND_PACKED:				return getPacked(b, start);
+			case KIND_ZONED:				return ZonedDecimal.getLong(b, start, len, dialect);
+			case KIND_SIGN_SEPARATE:
+				if (ZonedDecimal.getSignSeparateScale(b, start, len, dialect, leadingSign) != 0) {
+					return INVALID;
+				}
+				return ZonedDecimal.getSignSeparateLong(b, start, len, dialect, leadingSign);
+			}
+			return INVALID;
+		}
+
+		private long getPacked(byte[] b, int s) {
+			long v = 0;
+			int end = s + len - 1;
+
+			for (int i = s; i < end; i++) {
+				v = v * 100 + ((b[i] >> 4) & 0x0F) * 10 + (b[i] & 0x0F);
+			}
+			v = v * 10 + ((b[end] >> 4) & 0x0F);
+
+			int sign = b[end] & 0x0F;
+			return sign == 0x0D || sign == 0x0B ? -v : v;
+		}
+	}
+}
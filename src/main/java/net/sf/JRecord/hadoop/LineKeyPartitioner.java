@@ -0,0 +1,64 @@
+/*  -------------------------------------------------------------------------
+ *
+ *                Project: JRecord
+ *    
+ *    Sub-Project purpose: Provide support for reading Cobol-Data files 
+ *                        using a Cobol Copybook in Java.
+ *                         Support for reading Fixed Width / Binary / Csv files
+ *                        using a Xml schema.
+ *                         General Fixed Width / Csv file processing in Java.
+ *    
+ *                 Author: Bruce Martin
+ *    
+ *                License: LGPL 2.1 or latter
+ *                
+ *    Copyright (c) 2016, Bruce Martin, All Rights Reserved.
+ *   
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation; either
+ *    version 2.1 of the License, or (at your option) any later version.
+ *   
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU Lesser General Public License for more details.
+ *
+ * ------------------------------------------------------------------------ */
+      
+package net.sf.JRecord.hadoop;
+
+import org.apache.hadoop.conf.Configurable;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.mapreduce.Partitioner;
+
+/**
+ * Hadoop Partitioner that sends {@link LineWritable}'s with the same Copybook key fields
+ * (see {@link LineKeyComparator}) to the same reducer. Only the bytes of the key fields
+ * are hashed.
+ *
+ * @author Bruce Martin
+ *
+ * @param <V> value type
+ */
+public class LineKeyPartitioner<V> extends Partitioner<LineWritable, V> implements Configurable {
+
+	private final LineKeyComparator comparator = new LineKeyComparator();
+
+	@Override
+	public int getPartition(LineWritable key, V value, int numPartitions) {
+		int hash = comparator.hashKey(key.getBytes(), 0, key.getLength());
+
+		return (hash & Integer.MAX_VALUE) % numPartitions;
+	}
+
+	@Override
+	public void setConf(Configuration conf) {
+		comparator.setConf(conf);
+	}
+
+	@Override
+	public Configuration getConf() {
+		return comparator.getConf();
+	}
+}
@@ -0,0 +1,209 @@
+/*  -------------------------------------------------------------------------
+ *
+ *                Project: JRecord
+ *    
+ *    Sub-Project purpose: Provide support for reading Cobol-Data files 
+ *                        using a Cobol Copybook in Java.
+ *                         Support for reading Fixed Width / Binary / Csv files
+ *                        using a Xml schema.
+ *                         General Fixed Width / Csv file processing in Java.
+ *    
+ *                 Author: Bruce Martin
+ *    
+ *                License: LGPL 2.1 or latter
+ *                
+ *    Copyright (c) 2016, Bruce Martin, All Rights Reserved.
+ *   
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation; either
+ *    version 2.1 of the License, or (at your option) any later version.
+ *   
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU Lesser General Public License for more details.
+ *
+ * ------------------------------------------------------------------------ */
+      
+package net.sf.JRecord.hadoop;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.apache.hadoop.conf.Configurable;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.WritableComparable;
+
+import net.sf.JRecord.Details.AbstractLine;
+import net.sf.JRecord.Details.LayoutDetail;
+import net.sf.JRecord.IO.LineIOProvider;
+
+/**
+ * Hadoop Writable (and WritableComparable) holding a JRecord Line. Only the
+ * record index (layout reference) and the raw record bytes are serialised; the Line is
+ * rebuilt from the Record-Layout in the job Configuration (see {@link JRecordConfiguration})
+ * when it is requested.
+ *
+ * <p>The natural order is the unsigned byte order of the records; use
+ * {@link LineKeyComparator} (and {@link LineKeyPartitioner}) to sort / group on
+ * Copybook key fields.
+ *
+ * <p>Serialised format: {record-index (int)}{record-length (int)}{record bytes}
+ *
+ * @author Bruce Martin
+ *
+ */
+public class LineWritable implements WritableComparable<LineWritable>, Configurable {
+
+	/** Length of the serialised data before the record bytes */
+	public static final int HEADER_LENGTH = 8;
+
+	private byte[] data = new byte[0];
+	private int length = 0;
+	private int recordIdx = -1;
+	private boolean shared = false;
+
+	private Configuration conf = null;
+	private LayoutDetail layout = null;
+	private AbstractLine line = null;
+
+
+	public LineWritable() {
+		super();
+	}
+
+	public LineWritable(AbstractLine line) {
+		super();
+		set(line);
+	}
+
+	/**
+	 * Set the line
+	 * @param line line to be stored
+	 */
+	public void set(AbstractLine line) {
+		this.line = line;
+		this.layout = line.getLayout();
+		this.recordIdx = line.getPreferredLayoutIdx();
+		this.data = line.getData();
+		this.length = data.length;
+		this.shared = true;
+	}
+
+	/**
+	 * Set the raw record
+	 *
+	 * @param recordIdx record index (layout reference) or -1 if not known
+	 * @param record record bytes
+	 * @param start start of the record in the array
+	 * @param len record length
+	 */
+	public void set(int recordIdx, byte[] record, int start, int len) {
+		ensureCapacity(len);
+		System.arraycopy(record, start, data, 0, len);
+		this.length = len;
+		this.recordIdx = recordIdx;
+		this.line = null;
+	}
+
+	/**
+	 * Get the Line (built using the layout of the line that was stored or
+	 * the layout in the Configuration). When the record index is known, it is
+	 * used as the Line's record layout.
+	 *
+	 * @return line
+	 * @throws IOException any error loading the Copybook
+	 */
+	public AbstractLine getLine() throws IOException {
+		if (line == null) {
+			if (layout == null) {
+				if (conf == null) {
+					throw new IOException("No Record Layout or Configuration available to create the Line");
+				}
+				layout = JRecordConfiguration.getLayout(conf);
+			}
+			line = LineIOProvider.getInstance().getLineProvider(layout)
+						.getLine(layout, Arrays.copyOf(data, length));
+			if (recordIdx >= 0 && recordIdx < layout.getRecordCount()) {
+				line.setWriteLayout(recordIdx);
+			}
+		}
+		return line;
+	}
+
+	@Override
+	public void write(DataOutput out) throws IOException {
+		out.writeInt(recordIdx);
+		out.writeInt(length);
+		out.write(data, 0, length);
+	}
+
+	@Override
+	public void readFields(DataInput in) throws IOException {
+		recordIdx = in.readInt();
+		length = in.readInt();
+		ensureCapacity(length);
+		in.readFully(data, 0, length);
+		line = null;
+	}
+
+	private void ensureCapacity(int len) {
+		if (shared || data.length < len) {
+			data = new byte[len];
+			shared = false;
+		}
+	}
+
+	@Override
+	public int compareTo(LineWritable o) {
+		return LineKeyComparator.compareBytes(data, 0, length, o.data, 0, o.length);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (! (obj instanceof LineWritable)) {
+			return false;
+		}
+		return compareTo((LineWritable) obj) == 0;
+	}
+
+	@Override
+	public int hashCode() {
+		int hash = 1;
+		for (int i = 0; i < length; i++) {
+			hash = 31 * hash + data[i];
+		}
+		return hash;
+	}
+
+	/**
+	 * @return the raw record bytes (only the first getLength() bytes are used)
+	 */
+	public final byte[] getBytes() {
+		return data;
+	}
+
+	public final int getLength() {
+		return length;
+	}
+
+	/**
+	 * @return the record index (layout reference)
+	 */
+	public final int getRecordIdx() {
+		return recordIdx;
+	}
+
+	@Override
+	public void setConf(Configuration conf) {
+		this.conf = conf;
+	}
+
+	@Override
+	public Configuration getConf() {
+		return conf;
+	}
+}
@@ -0,0 +1,158 @@
+/*  -------------------------------------------------------------------------
+ *
+ *                Project: JRecord
+ *    
+ *    Sub-Project purpose: Provide support for reading Cobol-Data files 
+ *                        using a Cobol Copybook in Java.
+ *                         Support for reading Fixed Width / Binary / Csv files
+ *                        using a Xml schema.
+ *                         General Fixed Width / Csv file processing in Java.
+ *    
+ *                 Author: Bruce Martin
+ *    
+ *                License: LGPL 2.1 or latter
+ *                
+ *    Copyright (c) 2016, Bruce Martin, All Rights Reserved.
+ *   
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation; either
+ *    version 2.1 of the License, or (at your option) any later version.
+ *   
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU Lesser General Public License for more details.
+ *
+ * ------------------------------------------------------------------------ */
+      
+package net.sf.JRecord.hadoop;
+
+import org.apache.hadoop.mapreduce.Counter;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+
+import net.sf.JRecord.Common.IReaderListener;
+import net.sf.JRecord.Details.LayoutDetail;
+
+/**
+ * Hadoop <b>Counters</b> adapter for the Line / Byte reader listener
+ * ({@link IReaderListener}). It maintains the {@link JRecordCounter} counters
+ * (records, bytes, invalid RDW's, read time) and one counter per record type in the
+ * {@link #RECORD_TYPE_GROUP} group, so skewed record types and slow splits can be seen in
+ * the job counters. The JRecord RecordReaders create one automatically unless
+ * <b>JRecordConfiguration.setCounters(conf, false)</b> is used.
+ *
+ * <p>Records / second for a split is <i>RECORDS / (READ_MILLIS / 1000)</i>.
+ * Note: Hadoop limits the number of counters in a job (120 by default) so
+ * layouts with a lot of record types may need
+ * <i>mapreduce.job.counters.max</i> increased.
+ *
+ * @author Bruce Martin
+ *
+ */
+public class ReaderCounters implements IReaderListener {
+
+	public static final String RECORD_TYPE_GROUP = "JRecord Record Types";
+	public static final String UNKNOWN_RECORD_NAME = "Unknown";
+
+	/**
+	 * Standard JRecord counters
+	 */
+	public static enum JRecordCounter {
+		RECORDS,
+		BYTES,
+		INVALID_RDW,
+		READ_MILLIS
+	}
+
+	private final TaskAttemptContext context;
+	private final LayoutDetail layout;
+	private final Counter records, bytes, invalidRdw, readMillis;
+	private Counter[] recordTypes = new Counter[0];
+	private Counter unknownType = null;
+	private long startTime = -1;
+
+	/**
+	 * Create counters that do not count record types (Byte readers)
+	 * @param context task context
+	 */
+	public ReaderCounters(TaskAttemptContext context) {
+		this(context, null);
+	}
+
+	/**
+	 * Create counters
+	 * @param context task context
+	 * @param layout layout used to name the record type counters (may be null)
+	 */
+	public ReaderCounters(TaskAttemptContext context, LayoutDetail layout) {
+		super();
+		this.context = context;
+		this.layout = layout;
+		this.records = context.getCounter(JRecordCounter.RECORDS);
+		this.bytes = context.getCounter(JRecordCounter.BYTES);
+		this.invalidRdw = context.getCounter(JRecordCounter.INVALID_RDW);
+		this.readMillis = context.getCounter(JRecordCounter.READ_MILLIS);
+	}
+
+	/* (non-Javadoc)
+	 * @see net.sf.JRecord.Common.IReaderListener#recordRead(int, int)
+	 */
+	@Override
+	public void recordRead(int recordIdx, int length) {
+		if (startTime < 0) {
+			startTime = System.currentTimeMillis();
+		}
+		records.increment(1);
+		bytes.increment(length);
+
+		if (layout != null) {
+			countRecordType(recordIdx);
+		}
+	}
+
+	/**
+	 * Count a record type without counting the record itself;
+	 * used when the record has already been counted by a Byte reader.
+	 *
+	 * @param recordIdx record index (in the layout)
+	 */
+	public void countRecordType(int recordIdx) {
+		if (recordIdx >= 0 && layout != null && recordIdx < layout.getRecordCount()) {
+			if (recordIdx >= recordTypes.length) {
+				Counter[] t = new Counter[layout.getRecordCount()];
+				System.arraycopy(recordTypes, 0, t, 0, recordTypes.length);
+				recordTypes = t;
+			}
+			if (recordTypes[recordIdx] == null) {
+				recordTypes[recordIdx] = context.getCounter(
+						RECORD_TYPE_GROUP, layout.getRecord(recordIdx).getRecordName());
+			}
+			recordTypes[recordIdx].increment(1);
+		} else {
+			if (unknownType == null) {
+				unknownType = context.getCounter(RECORD_TYPE_GROUP, UNKNOWN_RECORD_NAME);
+			}
+			unknownType.increment(1);
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see net.sf.JRecord.Common.IReaderListener#invalidRecordDescriptor(long)
+	 */
+	@Override
+	public void invalidRecordDescriptor(long position) {
+		invalidRdw.increment(1);
+	}
+
+	/**
+	 * Add the time spent reading (from the first record till now)
+	 * to the READ_MILLIS counter. Called when the RecordReader is closed.
+	 */
+	public void close() {
+		if (startTime >= 0) {
+			readMillis.increment(System.currentTimeMillis() - startTime);
+			startTime = -1;
+		}
+	}
+}
@@ -0,0 +1,102 @@
+/*  -------------------------------------------------------------------------
+ *
+ *                Project: JRecord
+ *    
+ *    Sub-Project purpose: Provide support for reading Cobol-Data files 
+ *                        using a Cobol Copybook in Java.
+ *                         Support for reading Fixed Width / Binary / Csv files
+ *                        using a Xml schema.
+ *                         General Fixed Width / Csv file processing in Java.
+ *    
+ *                 Author: Bruce Martin
+ *    
+ *                License: LGPL 2.1 or latter
+ *                
+ *    Copyright (c) 2016, Bruce Martin, All Rights Reserved.
+ *   
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation; either
+ *    version 2.1 of the License, or (at your option) any later version.
+ *   
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU Lesser General Public License for more details.
+ *
+ * ------------------------------------------------------------------------ */
+      
+package net.sf.JRecord.hadoop;
+
+import java.io.IOException;
+
+import org.apache.hadoop.io.BytesWritable;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.RecordReader;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.lib.input.LineRecordReader;
+
+import net.sf.JRecord.Common.IReaderListener;
+
+/**
+ * Hadoop RecordReader for Text (Constants.IO_TEXT_LINE etc) files. The lines are
+ * read by the Hadoop LineRecordReader which handles split boundaries and
+ * compressed files, including splitting bzip2 files (SplittableCompressionCodec).
+ * Each line is returned as raw bytes (in the file's character set);
+ * the key is the byte offset of the line.
+ *
+ * @author Bruce Martin
+ *
+ */
+public class TextRecordReader extends RecordReader<LongWritable, BytesWritable> {
+
+	private final LineRecordReader lineReader = new LineRecordReader();
+	private final BytesWritable value = new BytesWritable();
+	private ReaderCounters counters;
+
+
+	@Override
+	public void initialize(InputSplit split, TaskAttemptContext context) throws IOException {
+		lineReader.initialize(split, context);
+		counters = JRecordConfiguration.getCounters(context, null);
+	}
+
+	@Override
+	public boolean nextKeyValue() throws IOException {
+		if (! lineReader.nextKeyValue()) {
+			return false;
+		}
+
+		Text line = lineReader.getCurrentValue();
+		value.set(line.getBytes(), 0, line.getLength());
+		if (counters != null) {
+			counters.recordRead(IReaderListener.UNKNOWN_RECORD_TYPE, line.getLength());
+		}
+		return true;
+	}
+
+	@Override
+	public LongWritable getCurrentKey() {
+		return lineReader.getCurrentKey();
+	}
+
+	@Override
+	public BytesWritable getCurrentValue() {
+		return value;
+	}
+
+	@Override
+	public float getProgress() throws IOException {
+		return lineReader.getProgress();
+	}
+
+	@Override
+	public void close() throws IOException {
+		lineReader.close();
+		if (counters != null) {
+			counters.close();
+		}
+	}
+}
@@ -0,0 +1,66 @@
+/*  -------------------------------------------------------------------------
+ *
+ *                Project: JRecord
+ *    
+ *    Sub-Project purpose: Provide support for reading Cobol-Data files 
+ *                        using a Cobol Copybook in Java.
+ *                         Support for reading Fixed Width / Binary / Csv files
+ *                        using a Xml schema.
+ *                         General Fixed Width / Csv file processing in Java.
+ *    
+ *                 Author: Bruce Martin
+ *    
+ *                License: LGPL 2.1 or latter
+ *                
+ *    Copyright (c) 2016, Bruce Martin, All Rights Reserved.
+ *   
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation; either
+ *    version 2.1 of the License, or (at your option) any later version.
+ *   
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU Lesser General Public License for more details.
+ *
+ * ------------------------------------------------------------------------ */
+      
+package net.sf.JRecord.hadoop;
+
+import java.io.IOException;
+
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.JobContext;
+import org.apache.hadoop.mapreduce.RecordReader;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
+
+import net.sf.JRecord.Details.AbstractLine;
+
+/**
+ * Hadoop InputFormat for Mainframe VB, VB-Dump and GNU-Cobol VB files
+ * returning JRecord Lines (built from the Copybook in the job Configuration).
+ *
+ * @author Bruce Martin
+ *
+ */
+public class VbLineInputFormat extends FileInputFormat<LongWritable, AbstractLine> {
+
+	/**
+	 * Compressed files can not be split on record boundaries
+	 * (even with a splittable codec like bzip2) so they are read by one mapper.
+	 */
+	@Override
+	protected boolean isSplitable(JobContext context, Path file) {
+		return HadoopFiles.getCodec(file, context.getConfiguration()) == null;
+	}
+
+	@Override
+	public RecordReader<LongWritable, AbstractLine> createRecordReader(
+			InputSplit split, TaskAttemptContext context) throws IOException {
+		return new CobolLineRecordReader(new VbRecordReader());
+	}
+}
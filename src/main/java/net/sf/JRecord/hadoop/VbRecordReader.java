@@ -0,0 +1,214 @@
+/*  -------------------------------------------------------------------------
+ *
+ *                Project: JRecord
+ *    
+ *    Sub-Project purpose: Provide support for reading Cobol-Data files 
+ *                        using a Cobol Copybook in Java.
+ *                         Support for reading Fixed Width / Binary / Csv files
+ *                        using a Xml schema.
+ *                         General Fixed Width / Csv file processing in Java.
+ *    
+ *                 Author: Bruce Martin
+ *    
+ *                License: LGPL 2.1 or latter
+ *                
+ *    Copyright (c) 2016, Bruce Martin, All Rights Reserved.
+ *   
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation; either
+ *    version 2.1 of the License, or (at your option) any later version.
+ *   
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU Lesser General Public License for more details.
+ *
+ * ------------------------------------------------------------------------ */
+      
+package net.sf.JRecord.hadoop;
+
+import java.io.IOException;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.BytesWritable;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.compress.CompressionCodec;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.RecordReader;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.lib.input.FileSplit;
+
+import net.sf.JRecord.ByteIO.VbByteReader;
+import net.sf.JRecord.Common.Constants;
+
+/**
+ * Hadoop RecordReader for Mainframe VB (Constants.IO_VB), VB-Dump (Constants.IO_VB_DUMP)
+ * and GNU-Cobol VB (Constants.IO_VB_GNU_COBOL) files.
+ *
+ * <p>At the start of a split the reader scans forward to the next valid
+ * RDW (or BDW for VB-Dump files) boundary (see {@link VbRecordSync}). A record
+ * (or block for VB-Dump files) belongs to the split holding its first byte, so the reader
+ * owning the previous split reads past the end of its split to finish its last record.
+ * The key is the byte offset of the record in the file.
+ * Compressed files (which can not be split) are decompressed
+ * with the codec matching the file extension.
+ *
+ * @author Bruce Martin
+ *
+ */
+public class VbRecordReader extends RecordReader<LongWritable, BytesWritable> {
+
+	private static final int SCAN_SIZE = 0x10000;
+
+	private VbByteReader reader = null;
+	private boolean blocked;
+	private long start, end, fileLength;
+	private long pos;
+	private long compressedEnd = -1;
+	private FSDataInputStream fileIn;
+	private ReaderCounters counters;
+
+	private final LongWritable key = new LongWritable();
+	private final BytesWritable value = new BytesWritable();
+
+
+	@Override
+	public void initialize(InputSplit genericSplit, TaskAttemptContext context) throws IOException {
+		FileSplit split = (FileSplit) genericSplit;
+		Configuration conf = context.getConfiguration();
+		counters = JRecordConfiguration.getCounters(context, null);
+		int fileStructure = conf.getInt(JRecordConfiguration.FILE_ORGANIZATION, Constants.IO_VB);
+		int rdwAdjust = fileStructure == Constants.IO_VB_GNU_COBOL ? 0 : 4;
+
+		blocked = fileStructure == Constants.IO_VB_DUMP;
+
+		Path file = split.getPath();
+		FileSystem fs = file.getFileSystem(conf);
+		FSDataInputStream in = fs.open(file);
+
+		fileLength = fs.getFileStatus(file).getLen();
+		start = split.getStart();
+		end = Math.min(fileLength, start + split.getLength());
+		reader = new VbByteReader(blocked, rdwAdjust == 4);
+		reader.setListener(counters);
+		reader.setReadAhead(JRecordConfiguration.getReadAhead(conf));
+
+		CompressionCodec codec = HadoopFiles.getCodec(file, conf);
+		if (codec != null) {
+			fileIn = in;
+			compressedEnd = split.getLength();
+			start = 0;
+			end = Long.MAX_VALUE;
+			pos = 0;
+			reader.open(HadoopFiles.decompress(codec, in));
+			return;
+		}
+
+		if (start > 0) {
+			VbRecordSync sync = new VbRecordSync(
+					blocked, rdwAdjust,
+					JRecordConfiguration.getMaximumRecordLength(conf, VbRecordSync.MAX_RDW_LENGTH));
+			start = findRecordStart(in, start, fileLength, sync);
+		}
+		pos = start;
+		in.seek(start);
+		reader.open(in);
+	}
+
+	/**
+	 * Find the first record (block) boundary at or after a position
+	 *
+	 * @param in file to be searched
+	 * @param from position to start searching at
+	 * @param fileLength length of the file
+	 * @param sync class that recognises a valid record / block start
+	 *
+	 * @return start of the first record / block (or the file length if there is none)
+	 * @throws IOException any IO error
+	 */
+	public static long findRecordStart(FSDataInputStream in, long from, long fileLength, VbRecordSync sync)
+	throws IOException {
+		int lookAhead = sync.getLookAhead();
+		byte[] buf = new byte[SCAN_SIZE + lookAhead];
+		long bufStart = from;
+
+		while (bufStart < fileLength) {
+			int len = (int) Math.min(buf.length, fileLength - bufStart);
+			boolean eof = bufStart + len >= fileLength;
+			int scanEnd = eof ? len : len - lookAhead;
+
+			in.readFully(bufStart, buf, 0, len);
+
+			int idx = sync.findBoundary(buf, 0, scanEnd, len, eof);
+			if (idx >= 0) {
+				return bufStart + idx;
+			}
+			bufStart += scanEnd;
+		}
+		return fileLength;
+	}
+
+	@Override
+	public boolean nextKeyValue() throws IOException {
+		if (start >= end) {
+			return false;
+		}
+
+		long recordStart = start + reader.getBytesRead();
+		if (reader.isAtBlockBoundary()) {
+			if (recordStart >= end) {
+				return false;
+			}
+			if (blocked) {
+				recordStart += 4;
+			}
+		}
+
+		byte[] rec = reader.read();
+		if (rec == null) {
+			pos = end;
+			return false;
+		}
+
+		key.set(recordStart);
+		value.set(rec, 0, rec.length);
+		pos = start + reader.getBytesRead();
+		return true;
+	}
+
+	@Override
+	public LongWritable getCurrentKey() {
+		return key;
+	}
+
+	@Override
+	public BytesWritable getCurrentValue() {
+		return value;
+	}
+
+	@Override
+	public float getProgress() throws IOException {
+		if (compressedEnd > 0) {
+			return Math.min(1.0f, fileIn.getPos() / (float) compressedEnd);
+		}
+		if (end <= start) {
+			return 0.0f;
+		}
+		return Math.min(1.0f, (pos - start) / (float) (end - start));
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (reader != null) {
+			reader.close();
+			reader = null;
+		}
+		if (counters != null) {
+			counters.close();
+		}
+	}
+}
@@ -0,0 +1,169 @@
+/*  -------------------------------------------------------------------------
+ *
+ *                Project: JRecord
+ *    
+ *    Sub-Project purpose: Provide support for reading Cobol-Data files 
+ *                        using a Cobol Copybook in Java.
+ *                         Support for reading Fixed Width / Binary / Csv files
+ *                        using a Xml schema.
+ *                         General Fixed Width / Csv file processing in Java.
+ *    
+ *                 Author: Bruce Martin
+ *    
+ *                License: LGPL 2.1 or latter
+ *                
+ *    Copyright (c) 2016, Bruce Martin, All Rights Reserved.
+ *   
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation; either
+ *    version 2.1 of the License, or (at your option) any later version.
+ *   
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU Lesser General Public License for more details.
+ *
+ * ------------------------------------------------------------------------ */
+      
+package net.sf.JRecord.hadoop;
+
+import net.sf.JRecord.ByteIO.VbByteReader;
+
+/**
+ * Finds the first record (or block) boundary at or after a position in a
+ * Mainframe VB / VB-Dump file. A position is accepted as a boundary when a
+ * chain of valid Record-Descriptor-Words (as checked by {@link VbByteReader})
+ * starts there. For VB-Dump files the Block-Descriptor-Word must be followed
+ * by RDW's that exactly fill the block.
+ *
+ * <p>This is used to start reading a VB file in the middle (i.e. at the start of a Hadoop split).
+ *
+ * @author Bruce Martin
+ *
+ */
+public class VbRecordSync {
+
+	public static final int DEFAULT_CHECK_COUNT = 4;
+	public static final int MAX_RDW_LENGTH = 0xFFFF;
+	private static final int MAX_SHORT_BLOCK = 0x7FFF;
+
+	private final boolean blocked;
+	private final int rdwAdjust, maxRecordLength, checkCount;
+
+
+	/**
+	 * Create a VB Resync class
+	 *
+	 * @param includesBlockLength wether the file holds Block-Descriptor-Words (VB Dump)
+	 * @param rdwAdjust 4 if the RDW length includes the RDW, 0 otherwise (GNU Cobol)
+	 * @param maxRecordLength maximum record length
+	 */
+	public VbRecordSync(boolean includesBlockLength, int rdwAdjust, int maxRecordLength) {
+		this(includesBlockLength, rdwAdjust, maxRecordLength, DEFAULT_CHECK_COUNT);
+	}
+
+	public VbRecordSync(boolean includesBlockLength, int rdwAdjust, int maxRecordLength, int checkCount) {
+		super();
+		this.blocked = includesBlockLength;
+		this.rdwAdjust = rdwAdjust;
+		this.maxRecordLength = Math.min(MAX_RDW_LENGTH, Math.max(1, maxRecordLength));
+		this.checkCount = Math.max(1, checkCount);
+	}
+
+	/**
+	 * Get the number of bytes that must be available after a possible
+	 * boundary so it can be checked
+	 *
+	 * @return bytes required to check a boundary
+	 */
+	public int getLookAhead() {
+		int len = checkCount * (maxRecordLength + 4);
+		if (blocked) {
+			len = Math.max(len, MAX_SHORT_BLOCK) + 4;
+		}
+		return len;
+	}
+
+	/**
+	 * Find the first record / block boundary in a buffer
+	 *
+	 * @param buf buffer holding part of the file
+	 * @param from first position to check
+	 * @param scanEnd positions before this one are checked
+	 * @param len number of bytes in the buffer
+	 * @param eof wether the buffer ends at the end of the file
+	 *
+	 * @return position of the boundary or -1 if there is not one
+	 */
+	public int findBoundary(byte[] buf, int from, int scanEnd, int len, boolean eof) {
+
+		for (int pos = from; pos < scanEnd && pos + 4 <= len; pos++) {
+			if (blocked ? isBlockStart(buf, pos, len, eof) : isRecordChain(buf, pos, len, eof)) {
+				return pos;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Check for a chain of valid RDW's
+	 */
+	private boolean isRecordChain(byte[] buf, int pos, int len, boolean eof) {
+		int count = 0;
+		int recLength;
+
+		while (count < checkCount) {
+			if (pos == len) {
+				return eof;
+			}
+			if (pos + 4 > len) {
+				return (! eof) && count > 0;
+			}
+			recLength = VbByteReader.getRdwLength(buf, pos, rdwAdjust);
+			if ((! VbByteReader.isValidRdw(buf, pos))
+			|| recLength < 0 || recLength > maxRecordLength
+			|| (count == 0 && recLength == 0)) {
+				return false;
+			}
+
+			pos += recLength + 4;
+			count += 1;
+		}
+		return pos <= len || ! eof;
+	}
+
+	/**
+	 * Check for a BDW followed by RDW's that fill the block
+	 */
+	private boolean isBlockStart(byte[] buf, int pos, int len, boolean eof) {
+		if (buf[pos] >= 0 && ! VbByteReader.isValidRdw(buf, pos)) {
+			return false;
+		}
+		int blockLength = VbByteReader.getBdwLength(buf, pos);
+		if (blockLength < 8) {
+			return false;
+		}
+
+		int blockEnd = pos + blockLength;
+		int recLength;
+		int count = 0;
+
+		pos += 4;
+		while (pos < blockEnd) {
+			if (pos + 4 > len) {
+				return (! eof) && count > 0;
+			}
+			recLength = VbByteReader.getRdwLength(buf, pos, 4);
+			if ((! VbByteReader.isValidRdw(buf, pos))
+			|| recLength < 0 || recLength > maxRecordLength) {
+				return false;
+			}
+
+			pos += recLength + 4;
+			count += 1;
+		}
+
+		return pos == blockEnd && (pos <= len || ! eof);
+	}
+}
@@ -0,0 +1,156 @@
+/*  -------------------------------------------------------------------------
+ *
+ *                Project: JRecord
+ *    
+ *    Sub-Project purpose: Provide support for reading Cobol-Data files 
+ *                        using a Cobol Copybook in Java.
+ *                         Support for reading Fixed Width / Binary / Csv files
+ *                        using a Xml schema.
+ *                         General Fixed Width / Csv file processing in Java.
+ *    
+ *                 Author: Bruce Martin
+ *    
+ *                License: LGPL 2.1 or latter
+ *                
+ *    Copyright (c) 2016, Bruce Martin, All Rights Reserved.
+ *   
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation; either
+ *    version 2.1 of the License, or (at your option) any later version.
+ *   
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU Lesser General Public License for more details.
+ *
+ * ------------------------------------------------------------------------ */
+
+package net.sf.JRecord.zTest.ByteIO;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+import net.sf.JRecord.ByteIO.AbstractByteWriter;
+import net.sf.JRecord.ByteIO.BatchOutputStream;
+import net.sf.JRecord.ByteIO.ByteTextWriter;
+import net.sf.JRecord.ByteIO.FixedLengthByteWriter;
+import net.sf.JRecord.ByteIO.VbByteReader;
+import net.sf.JRecord.ByteIO.VbByteWriter;
+import net.sf.JRecord.zTest.Common.TstConstants;
+
+/**
+ * Check the Byte-Writers write the same file in batch mode
+ * (to a local file through the FileChannel and to other streams).
+ *
+ * @author Bruce Martin
+ *
+ */
+public class TstBatchByteWriter extends TestCase {
+
+	private static final int[] BATCH_SIZES = {0, 7, 100, 1024 * 1024};
+
+	public void testVb() throws IOException {
+		for (int batchSize : BATCH_SIZES) {
+			tstWriter(new VbByteWriter(), batchSize);
+		}
+	}
+
+	public void testText() throws IOException {
+		for (int batchSize : BATCH_SIZES) {
+			tstWriter(new ByteTextWriter("\n"), batchSize);
+		}
+	}
+
+	public void testFixed() throws IOException {
+		for (int batchSize : BATCH_SIZES) {
+			tstWriter(new FixedLengthByteWriter(50), batchSize);
+		}
+	}
+
+	public void testLongRdw() throws IOException {
+		ByteArrayOutputStream os = new ByteArrayOutputStream();
+		VbByteWriter w = new VbByteWriter();
+		byte[] rec = new byte[40000];
+
+		Arrays.fill(rec, (byte) 'x');
+		w.setBatchSize(4096);
+		w.open(os);
+		w.write(rec);
+		w.close();
+
+		VbByteReader r = new VbByteReader();
+		r.open(new ByteArrayInputStream(os.toByteArray()));
+		assertTrue(Arrays.equals(rec, r.read()));
+		assertNull(r.read());
+		r.close();
+	}
+
+	public void testBatchStream() throws IOException {
+		ByteArrayOutputStream os = new ByteArrayOutputStream();
+		BatchOutputStream b = new BatchOutputStream(os, 10);
+
+		b.write("12345".getBytes());
+		b.fill('-', 23);
+		b.write('x');
+		assertEquals(9, b.getBufferedCount());
+		b.write("abcdefghijklmnop".getBytes());
+		b.close();
+
+		assertEquals("12345-----------------------xabcdefghijklmnop", os.toString());
+	}
+
+	private void tstWriter(AbstractByteWriter writer, int batchSize) throws IOException {
+		String fileName = TstConstants.TEMP_DIRECTORY + "BatchWriter.bin";
+		List<byte[]> lines = bldLines();
+		ByteArrayOutputStream expected = new ByteArrayOutputStream();
+		ByteArrayOutputStream os = new ByteArrayOutputStream();
+
+		writer.open(expected);
+		for (byte[] line : lines) {
+			writer.write(line);
+		}
+		writer.close();
+
+		writer.setBatchSize(batchSize);
+		writer.open(fileName);
+		writer.writeBatch(lines);
+		writer.close();
+		assertTrue("Batch Size: " + batchSize, Arrays.equals(expected.toByteArray(), readFile(fileName)));
+
+		writer.open(os);
+		writer.writeBatch(lines);
+		writer.close();
+		assertTrue("Batch Size: " + batchSize, Arrays.equals(expected.toByteArray(), os.toByteArray()));
+		writer.setBatchSize(0);
+	}
+
+	private List<byte[]> bldLines() {
+		ArrayList<byte[]> lines = new ArrayList<byte[]>();
+
+		for (int i = 0; i < 2000; i++) {
+			lines.add(("Line " + i + "             ".substring(i % 13) + " " + (i * 31)).getBytes());
+		}
+		return lines;
+	}
+
+	private byte[] readFile(String fileName) throws IOException {
+		ByteArrayOutputStream os = new ByteArrayOutputStream();
+		InputStream in = new FileInputStream(fileName);
+		byte[] buf = new byte[4096];
+		int n;
+
+		while ((n = in.read(buf)) > 0) {
+			os.write(buf, 0, n);
+		}
+		in.close();
+		return os.toByteArray();
+	}
+}
@@ -0,0 +1,93 @@
+package net.sf.JRecord.zTest.ByteIO;
+
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Random;
+
+import junit.framework.TestCase;
+import net.sf.JRecord.ByteIO.ByteBufferInputStream;
+import net.sf.JRecord.ByteIO.VbByteReader;
+import net.sf.JRecord.ByteIO.VbByteWriter;
+import net.sf.JRecord.zTest.Common.TstConstants;
+import net.sf.JRecord.zTest.Common.TstData;
+
+/**
+ * Check reading files through ByteBuffers returns the same data as
+ * a normal stream.
+ *
+ * @author Bruce Martin
+ *
+ */
+public class TstByteBufferInputStream extends TestCase {
+
+	private static final int[] READ_SIZES = {1, 7, 100, 4096, 300000};
+
+	public void testRead() throws IOException {
+		String fileName = TstConstants.TEMP_DIRECTORY + "ByteBuffer.bin";
+		byte[] data = writeFile(fileName, ByteBufferInputStream.DEFAULT_BUFFER_SIZE * 2 + 1234);
+
+		for (int size : READ_SIZES) {
+			InputStream in = ByteBufferInputStream.newStream(new FileInputStream(fileName));
+			byte[] buf = new byte[size];
+			int pos = 0, num;
+
+			assertNotNull(in);
+			while ((num = in.read(buf, 0, size)) >= 0) {
+				for (int i = 0; i < num; i++) {
+					assertEquals("Size " + size + " Pos " + pos, data[pos++], buf[i]);
+				}
+			}
+			assertEquals(data.length, pos);
+			assertEquals(-1, in.read());
+			in.close();
+		}
+	}
+
+	public void testSkip() throws IOException {
+		String fileName = TstConstants.TEMP_DIRECTORY + "ByteBuffer.bin";
+		byte[] data = writeFile(fileName, ByteBufferInputStream.DEFAULT_BUFFER_SIZE + 17);
+		InputStream in = ByteBufferInputStream.newStream(new FileInputStream(fileName));
+
+		assertEquals(data[0] & 0xFF, in.read());
+		assertEquals(ByteBufferInputStream.DEFAULT_BUFFER_SIZE, in.skip(ByteBufferInputStream.DEFAULT_BUFFER_SIZE));
+		assertEquals(data[ByteBufferInputStream.DEFAULT_BUFFER_SIZE + 1] & 0xFF, in.read());
+		assertEquals(15, in.skip(100));
+		assertEquals(-1, in.read());
+		in.close();
+	}
+
+	public void testVbReader() throws IOException {
+		String fileName = TstConstants.TEMP_DIRECTORY + "ByteBufferVb.bin";
+		VbByteWriter w = new VbByteWriter();
+		VbByteReader r = new VbByteReader();
+		int count = 0;
+		byte[] line;
+
+		w.open(new FileOutputStream(fileName));
+		for (int i = 0; i < 2000; i++) {
+			w.write(TstData.DTAR020_LINES[i % TstData.DTAR020_LINES.length]);
+		}
+		w.close();
+
+		r.open(new FileInputStream(fileName));
+		while ((line = r.read()) != null) {
+			assertTrue("Line " + count, Arrays.equals(TstData.DTAR020_LINES[count % TstData.DTAR020_LINES.length], line));
+			count += 1;
+		}
+		r.close();
+		assertEquals(2000, count);
+	}
+
+	private byte[] writeFile(String fileName, int size) throws IOException {
+		byte[] data = new byte[size];
+		FileOutputStream os = new FileOutputStream(fileName);
+
+		new Random(123).nextBytes(data);
+		os.write(data);
+		os.close();
+		return data;
+	}
+}
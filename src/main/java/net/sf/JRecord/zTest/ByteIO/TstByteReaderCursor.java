@@ -0,0 +1,207 @@
+/*  -------------------------------------------------------------------------
+ *
+ *                Project: JRecord
+ *    
+ *    Sub-Project purpose: Provide support for reading Cobol-Data files 
+ *                        using a Cobol Copybook in Java.
+ *                         Support for reading Fixed Width / Binary / Csv files
+ *                        using a Xml schema.
+ *                         General Fixed Width / Csv file processing in Java.
+ *    
+ *                 Author: Bruce Martin
+ *    
+ *                License: LGPL 2.1 or latter
+ *                
+ *    Copyright (c) 2016, Bruce Martin, All Rights Reserved.
+ *   
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation; either
+ *    version 2.1 of the License, or (at your option) any later version.
+ *   
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU Lesser General Public License for more details.
+ *
+ * ------------------------------------------------------------------------ */
+
+package net.sf.JRecord.zTest.ByteIO;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+import net.sf.JRecord.JRecordInterface1;
+import net.sf.JRecord.ByteIO.AbstractByteReader;
+import net.sf.JRecord.ByteIO.ByteTextReader;
+import net.sf.JRecord.ByteIO.FixedLengthByteReader;
+import net.sf.JRecord.ByteIO.VbByteReader;
+import net.sf.JRecord.Common.Constants;
+import net.sf.JRecord.Common.ReaderStatistics;
+import net.sf.JRecord.Details.AbstractLine;
+import net.sf.JRecord.Details.LayoutDetail;
+import net.sf.JRecord.Details.Line;
+import net.sf.JRecord.IO.LineReaderWrapper;
+
+/**
+ * Check the cursor (next / buffer / offset / length) and readInto
+ * methods of the Byte-Readers return the same records as read()
+ *
+ * @author Bruce Martin
+ *
+ */
+public class TstByteReaderCursor extends TestCase {
+
+	private static final String[] RECORDS = {
+		"Record 1", "Second Record", "", "4", "The Fifth and longest record", "Six",
+	};
+
+	private static final String COPYBOOK =
+			  "       01 Fixed-Record.\n"
+			+ "          05 Rec-Key            Pic X(4).\n"
+			+ "          05 Amount             Pic 9(6).\n";
+
+	public void testFixedLength() throws IOException {
+		byte[] file = "0001000101000200020200030003030004000404".getBytes();
+
+		check(new FixedLengthByteReader(10), new FixedLengthByteReader(10), file, 4);
+
+		FixedLengthByteReader r = new FixedLengthByteReader(10);
+		r.open(new ByteArrayInputStream(file));
+		assertTrue(r.next());
+		byte[] buf = r.buffer();
+		assertTrue(r.next());
+		assertSame(buf, r.buffer());
+		assertEquals("0002000202", new String(buf, r.offset(), r.length()));
+		r.close();
+	}
+
+	public void testVb() throws IOException {
+		ByteArrayOutputStream os = new ByteArrayOutputStream();
+
+		for (String s : RECORDS) {
+			int len = s.length() + 4;
+			os.write(len >> 8);
+			os.write(len);
+			os.write(0);
+			os.write(0);
+			os.write(s.getBytes());
+		}
+
+		check(new VbByteReader(), new VbByteReader(), os.toByteArray(), RECORDS.length);
+	}
+
+	/**
+	 * A VB record truncated by the end of the file is zero filled
+	 * (the reused buffer must not keep bytes from the previous record)
+	 */
+	public void testVbTruncated() throws IOException {
+		ByteArrayOutputStream os = new ByteArrayOutputStream();
+
+		for (String s : new String[] {RECORDS[4], "Short"}) {
+			int len = 20 + 4;
+			os.write(len >> 8);
+			os.write(len);
+			os.write(0);
+			os.write(0);
+			os.write(s.getBytes(), 0, Math.min(20, s.length()));
+		}
+		byte[] expected = Arrays.copyOf("Short".getBytes(), 20);
+
+		VbByteReader r = new VbByteReader();
+		r.open(new ByteArrayInputStream(os.toByteArray()));
+		assertTrue(r.next());
+		assertTrue(r.next());
+		assertTrue(Arrays.equals(expected, Arrays.copyOfRange(r.buffer(), r.offset(), r.offset() + r.length())));
+		assertFalse(r.next());
+		r.close();
+
+		check(new VbByteReader(), new VbByteReader(), os.toByteArray(), 2);
+	}
+
+	public void testText() throws IOException {
+		StringBuilder b = new StringBuilder();
+		for (String s : RECORDS) {
+			b.append(s).append("\r\n");
+		}
+
+		check(new ByteTextReader(), new ByteTextReader(), b.toString().getBytes(), RECORDS.length);
+	}
+
+	public void testReadInto() throws IOException {
+		StringBuilder b = new StringBuilder();
+		for (String s : RECORDS) {
+			b.append(s).append('\n');
+		}
+		ByteTextReader r = new ByteTextReader();
+		byte[] buf = new byte[10];
+		int len;
+
+		r.open(new ByteArrayInputStream(b.toString().getBytes()));
+
+		for (String s : RECORDS) {
+			len = r.readInto(buf, 2);
+			assertEquals(s.length(), len);
+			assertEquals(s.substring(0, Math.min(len, 8)), new String(buf, 2, Math.min(len, 8)));
+		}
+		assertEquals(-1, r.readInto(buf, 0));
+		r.close();
+	}
+
+	public void testReuseLine() throws IOException {
+		LayoutDetail layout = JRecordInterface1.COBOL
+				.newIOBuilder(new ByteArrayInputStream(COPYBOOK.getBytes()), "Fixed")
+					.setFileOrganization(Constants.IO_FIXED_LENGTH)
+				.getLayout();
+		byte[] file = "0001000101000200020200030003030004000404".getBytes();
+		ReaderStatistics stats = new ReaderStatistics();
+		LineReaderWrapper r = new LineReaderWrapper(new FixedLengthByteReader(10));
+		Line line = new Line(layout);
+		AbstractLine l;
+		int i = 0;
+
+		r.setListener(stats);
+		r.open(new ByteArrayInputStream(file), layout);
+		while ((l = r.read(line)) != null) {
+			i += 1;
+			assertSame(line, l);
+			assertEquals("000" + i, l.getFieldValue("Rec-Key").asString());
+			assertEquals(i * 100 + i, l.getFieldValue("Amount").asInt());
+		}
+		r.close();
+
+		assertEquals(4, i);
+		assertEquals(4, stats.getRecordCount());
+		assertEquals(40, stats.getBytes());
+	}
+
+	private void check(AbstractByteReader r1, AbstractByteReader r2, byte[] file, int count) throws IOException {
+		ReaderStatistics stats1 = new ReaderStatistics();
+		ReaderStatistics stats2 = new ReaderStatistics();
+		byte[] rec;
+		int i = 0;
+
+		r1.setListener(stats1);
+		r2.setListener(stats2);
+		r1.open(new ByteArrayInputStream(file));
+		r2.open(new ByteArrayInputStream(file));
+
+		while ((rec = r1.read()) != null) {
+			assertTrue("Record " + i, r2.next());
+			assertTrue("Record " + i, Arrays.equals(rec,
+					Arrays.copyOfRange(r2.buffer(), r2.offset(), r2.offset() + r2.length())));
+			i += 1;
+		}
+		assertFalse(r2.next());
+		r1.close();
+		r2.close();
+
+		assertEquals(count, i);
+		assertEquals(r1.getBytesRead(), r2.getBytesRead());
+		assertEquals(stats1.getRecordCount(), stats2.getRecordCount());
+		assertEquals(stats1.getBytes(), stats2.getBytes());
+	}
+}
@@ -0,0 +1,110 @@
+/*  -------------------------------------------------------------------------
+ *
+ *                Project: JRecord
+ *    
+ *    Sub-Project purpose: Provide support for reading Cobol-Data files 
+ *                        using a Cobol Copybook in Java.
+ *                         Support for reading Fixed Width / Binary / Csv files
+ *                        using a Xml schema.
+ *                         General Fixed Width / Csv file processing in Java.
+ *    
+ *                 Author: Bruce Martin
+ *    
+ *                License: LGPL 2.1 or latter
+ *                
+ *    Copyright (c) 2016, Bruce Martin, All Rights Reserved.
+ *   
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation; either
+ *    version 2.1 of the License, or (at your option) any later version.
+ *   
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU Lesser General Public License for more details.
+ *
+ * ------------------------------------------------------------------------ */
+
+package net.sf.JRecord.zTest.ByteIO;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+import net.sf.JRecord.ByteIO.ByteTextReader;
+
+/**
+ * Check ByteTextReader with very long lines (longer than the initial buffer),
+ * a large number of short lines and the various end-of-line markers.
+ *
+ * @author Bruce Martin
+ *
+ */
+public class TstByteTextReaderBuffer extends TestCase {
+
+	private static final int[] LINE_LENGTHS = {
+		0, 1, 7, 8, 9, 15, 16, 17, 3, 2, 1, 0, 0, 300000, 5, 70000, 131071, 131072, 131073, 12, 600000, 4
+	};
+
+	public void testLongLinesLF() throws IOException {
+		tst(getLines(LINE_LENGTHS), "\n");
+	}
+
+	public void testLongLinesCRLF() throws IOException {
+		tst(getLines(LINE_LENGTHS), "\r\n");
+	}
+
+	public void testLongLinesCR() throws IOException {
+		tst(getLines(LINE_LENGTHS), "\r");
+	}
+
+	public void testShortLines() throws IOException {
+		int[] lengths = new int[50000];
+		for (int i = 0; i < lengths.length; i++) {
+			lengths[i] = i % 13;
+		}
+		byte[][] lines = getLines(lengths);
+
+		tst(lines, "\n");
+		tst(lines, "\r\n");
+	}
+
+	private void tst(byte[][] lines, String eol) throws IOException {
+		ByteArrayOutputStream os = new ByteArrayOutputStream();
+
+		for (byte[] l : lines) {
+			os.write(l);
+			os.write(eol.getBytes());
+		}
+
+		ByteTextReader r = new ByteTextReader();
+		byte[] line;
+		int i = 0;
+
+		r.open(new ByteArrayInputStream(os.toByteArray()));
+		while ((line = r.read()) != null) {
+			assertTrue("Line " + i + " length " + lines[i].length + " " + line.length,
+					Arrays.equals(lines[i], line));
+			i += 1;
+		}
+		r.close();
+
+		assertEquals(lines.length, i);
+		assertEquals(os.size(), r.getBytesRead());
+	}
+
+	private static byte[][] getLines(int[] lengths) {
+		byte[][] lines = new byte[lengths.length][];
+
+		for (int i = 0; i < lengths.length; i++) {
+			lines[i] = new byte[lengths[i]];
+			for (int j = 0; j < lengths[i]; j++) {
+				lines[i][j] = (byte) ('A' + (i + j) % 26);
+			}
+		}
+		return lines;
+	}
+}
@@ -0,0 +1,199 @@
+/*  -------------------------------------------------------------------------
+ *
+ *                Project: JRecord
+ *    
+ *    Sub-Project purpose: Provide support for reading Cobol-Data files 
+ *                        using a Cobol Copybook in Java.
+ *                         Support for reading Fixed Width / Binary / Csv files
+ *                        using a Xml schema.
+ *                         General Fixed Width / Csv file processing in Java.
+ *    
+ *                 Author: Bruce Martin
+ *    
+ *                License: LGPL 2.1 or latter
+ *                
+ *    Copyright (c) 2016, Bruce Martin, All Rights Reserved.
+ *   
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation; either
+ *    version 2.1 of the License, or (at your option) any later version.
+ *   
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU Lesser General Public License for more details.
+ *
+ * ------------------------------------------------------------------------ */
+
+package net.sf.JRecord.zTest.ByteIO;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+import net.sf.JRecord.ByteIO.AbstractByteReader;
+import net.sf.JRecord.ByteIO.ByteIOProvider;
+import net.sf.JRecord.ByteIO.FixedLengthByteReader;
+import net.sf.JRecord.ByteIO.MappedByteReader;
+import net.sf.JRecord.ByteIO.MappedFixedLengthByteReader;
+import net.sf.JRecord.ByteIO.MappedVbByteReader;
+import net.sf.JRecord.ByteIO.VbByteReader;
+import net.sf.JRecord.ByteIO.VbDumpByteReader;
+import net.sf.JRecord.Common.Constants;
+
+/**
+ * Check the memory mapped readers return the same records as the
+ * standard Fixed Length / VB readers. A small window is used so
+ * the file is remapped many times.
+ *
+ * @author Bruce Martin
+ *
+ */
+public class TstMappedByteReader extends TestCase {
+
+	private static final int WINDOW = 100;
+
+	public void testFixedLength() throws IOException {
+		byte[] data = new byte[17 * 41 + 5];
+		for (int i = 0; i < data.length; i++) {
+			data[i] = (byte) i;
+		}
+		File f = writeFile(data);
+
+		try {
+			MappedFixedLengthByteReader r = new MappedFixedLengthByteReader(17, WINDOW);
+			r.open(f.getPath());
+			check(new FixedLengthByteReader(17), r, data, 42);
+
+			r = new MappedFixedLengthByteReader(17, WINDOW);
+			r.open(new FileInputStream(f));
+			check(new FixedLengthByteReader(17), r, data, 42);
+
+			r = new MappedFixedLengthByteReader(17, WINDOW);
+			r.open(new ByteArrayInputStream(data));
+			check(new FixedLengthByteReader(17), r, data, 42);
+		} finally {
+			f.delete();
+		}
+	}
+
+	public void testVb() throws IOException {
+		ByteArrayOutputStream os = new ByteArrayOutputStream();
+		int count = 60;
+
+		for (int i = 0; i < count; i++) {
+			int len = i % 37 + 4;
+			os.write(len >> 8);
+			os.write(len);
+			os.write(0);
+			os.write(0);
+			for (int j = 4; j < len; j++) {
+				os.write(i + j);
+			}
+		}
+		byte[] data = os.toByteArray();
+		File f = writeFile(data);
+
+		try {
+			MappedVbByteReader r = new MappedVbByteReader(true, WINDOW);
+			r.open(f.getPath());
+			check(new VbByteReader(), r, data, count);
+
+			r = new MappedVbByteReader(true, WINDOW);
+			r.open(new ByteArrayInputStream(data));
+			check(new VbByteReader(), r, data, count);
+		} finally {
+			f.delete();
+		}
+	}
+
+	public void testInvalidRdw() throws IOException {
+		MappedVbByteReader r = new MappedVbByteReader();
+
+		r.open(new ByteArrayInputStream(new byte[] {0, 6, 0, 0, 1, 2, 0, 6, 1, 1, 1, 1}));
+		assertEquals(2, r.read().length);
+		try {
+			r.read();
+			fail("Expected an invalid RDW error");
+		} catch (IOException e) {
+		}
+		r.close();
+	}
+
+	public void testSlice() throws IOException {
+		byte[] data = "1234567890abcdefghij".getBytes();
+		MappedFixedLengthByteReader r = new MappedFixedLengthByteReader(10);
+		ByteBuffer b;
+
+		r.open(new ByteArrayInputStream(data));
+		b = r.nextSlice();
+		assertEquals(10, b.remaining());
+		assertEquals('1', b.get(0));
+		b = r.nextSlice();
+		assertEquals('a', b.get(0));
+		assertNull(r.nextSlice());
+		assertEquals(20, r.getBytesRead());
+		r.close();
+	}
+
+	@SuppressWarnings("deprecation")
+	public void testProvider() {
+		ByteIOProvider p = new ByteIOProvider();
+
+		assertEquals(FixedLengthByteReader.class, p.getByteReader(Constants.IO_FIXED_LENGTH).getClass());
+		assertEquals(MappedFixedLengthByteReader.class, p.getByteReader(Constants.IO_FIXED_LENGTH, 80, true).getClass());
+		assertEquals(MappedVbByteReader.class, p.getByteReader(Constants.IO_VB, 80, true).getClass());
+		assertEquals(MappedVbByteReader.class, p.getByteReader(Constants.IO_VB_GNU_COBOL, 80, true).getClass());
+		assertEquals(VbDumpByteReader.class, p.getByteReader(Constants.IO_VB_DUMP, 80, true).getClass());
+
+		assertEquals(FixedLengthByteReader.class, p.getByteReader(Constants.IO_FIXED_LENGTH, 80, false).getClass());
+		assertEquals(VbByteReader.class, p.getByteReader(Constants.IO_VB).getClass());
+	}
+
+	private void check(AbstractByteReader std, MappedByteReader mapped, byte[] data, int count) throws IOException {
+		byte[] rec;
+		int i = 0;
+
+		std.open(new ByteArrayInputStream(data));
+		while ((rec = std.read()) != null) {
+			byte[] m;
+			switch (i % 3) {
+			case 0:
+				m = mapped.read();
+				break;
+			case 1:
+				assertTrue(mapped.next());
+				m = Arrays.copyOfRange(mapped.buffer(), mapped.offset(), mapped.offset() + mapped.length());
+				break;
+			default:
+				ByteBuffer b = mapped.nextSlice();
+				m = new byte[rec.length];
+				b.get(m, 0, b.remaining());
+			}
+			assertTrue("Record " + i, Arrays.equals(rec, m));
+			i += 1;
+		}
+		assertNull(mapped.read());
+		assertEquals(count, i);
+		assertEquals(data.length, mapped.getBytesRead());
+
+		std.close();
+		mapped.close();
+	}
+
+	private File writeFile(byte[] data) throws IOException {
+		File f = File.createTempFile("MappedReader", ".bin");
+		FileOutputStream os = new FileOutputStream(f);
+
+		os.write(data);
+		os.close();
+		return f;
+	}
+}
@@ -0,0 +1,193 @@
+/*  -------------------------------------------------------------------------
+ *
+ *                Project: JRecord
+ *    
+ *    Sub-Project purpose: Provide support for reading Cobol-Data files 
+ *                        using a Cobol Copybook in Java.
+ *                         Support for reading Fixed Width / Binary / Csv files
+ *                        using a Xml schema.
+ *                         General Fixed Width / Csv file processing in Java.
+ *    
+ *                 Author: Bruce Martin
+ *    
+ *                License: LGPL 2.1 or latter
+ *                
+ *    Copyright (c) 2016, Bruce Martin, All Rights Reserved.
+ *   
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation; either
+ *    version 2.1 of the License, or (at your option) any later version.
+ *   
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU Lesser General Public License for more details.
+ *
+ * ------------------------------------------------------------------------ */
+
+package net.sf.JRecord.zTest.ByteIO;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+import net.sf.JRecord.ByteIO.MicroFocusByteReader;
+import net.sf.JRecord.ByteIO.MicroFocusByteWriter;
+import net.sf.JRecord.ByteIO.MicroFocusFileHeader;
+import net.sf.JRecord.ByteIO.MicroFocusKeyIndex;
+import net.sf.JRecord.zTest.Common.TstConstants;
+
+/**
+ * Test reading Micro Focus files: compressed records, long records
+ * and the key index.
+ *
+ * @author Bruce Martin
+ *
+ */
+public class TstMicroFocusByteReader extends TestCase {
+
+	public void testCompressed() throws IOException {
+		MicroFocusFileHeader header = new MicroFocusFileHeader(MicroFocusFileHeader.FORMAT_SEQUENTIAL, 10, 300);
+		ArrayList<byte[]> lines = new ArrayList<byte[]>();
+		ByteArrayOutputStream os = new ByteArrayOutputStream();
+
+		header.getHeaderRec()[41] = MicroFocusFileHeader.COMPRESSION_CBLDC001;
+		os.write(header.getHeaderRec());
+		for (int i = 0; i < 200; i++) {
+			byte[] line = new byte[10 + i];
+			Arrays.fill(line, (byte) ' ');
+			System.arraycopy(("Key " + i).getBytes(), 0, line, 0, ("Key " + i).length());
+			if (line.length > 40) {
+				Arrays.fill(line, 20, 30, (byte) 0);
+				Arrays.fill(line, 30, 38, (byte) '*');
+			}
+			lines.add(line);
+			writeRecord(os, compress(line));
+		}
+
+		MicroFocusByteReader r = new MicroFocusByteReader();
+		r.open(new ByteArrayInputStream(os.toByteArray()));
+		for (int i = 0; i < lines.size(); i++) {
+			assertTrue("Line " + i, Arrays.equals(lines.get(i), r.read()));
+		}
+		assertNull(r.read());
+		r.close();
+	}
+
+	public void testUnknownCompression() throws IOException {
+		MicroFocusFileHeader header = new MicroFocusFileHeader(MicroFocusFileHeader.FORMAT_SEQUENTIAL, 10, 300);
+		header.getHeaderRec()[41] = 5;
+
+		try {
+			new MicroFocusByteReader().open(new ByteArrayInputStream(header.getHeaderRec()));
+			fail("Compression routine 5 should not be supported");
+		} catch (IOException e) {
+		}
+	}
+
+	public void testLongRecord() throws IOException {
+		ByteArrayOutputStream os = new ByteArrayOutputStream();
+		MicroFocusByteWriter w = new MicroFocusByteWriter();
+		byte[] line = new byte[1500001];
+
+		for (int i = 0; i < line.length; i++) {
+			line[i] = (byte) i;
+		}
+		w.open(os);
+		w.writeHeader(new MicroFocusFileHeader(MicroFocusFileHeader.FORMAT_SEQUENTIAL, 10, 2000000));
+		w.write(line);
+		w.write(new byte[] {1, 2, 3});
+		w.close();
+
+		MicroFocusByteReader r = new MicroFocusByteReader();
+		r.open(new ByteArrayInputStream(os.toByteArray()));
+		assertTrue(Arrays.equals(line, r.read()));
+		assertTrue(Arrays.equals(new byte[] {1, 2, 3}, r.read()));
+		assertNull(r.read());
+		r.close();
+	}
+
+	public void testKeyIndex() throws IOException {
+		String fileName = TstConstants.TEMP_DIRECTORY + "MfKeyIndex.dat";
+		MicroFocusByteWriter w = new MicroFocusByteWriter();
+		int count = 500;
+
+		w.open(new java.io.FileOutputStream(fileName));
+		w.writeHeader(new MicroFocusFileHeader(MicroFocusFileHeader.FORMAT_INDEXED, 10, 100));
+		for (int i = 0; i < count; i++) {
+			w.write(record((i * 37) % count));
+		}
+		w.close();
+
+		MicroFocusKeyIndex.createIndex(fileName, 2, 6);
+		MicroFocusKeyIndex index = MicroFocusKeyIndex.read(MicroFocusKeyIndex.getIndexFileName(fileName));
+		assertEquals(count, index.getEntryCount());
+
+		for (int i = 0; i < count; i += 7) {
+			assertTrue("Key " + i, Arrays.equals(record(i), index.readRecord(fileName, key(i))));
+		}
+		assertNull(index.readRecord(fileName, "K99999".getBytes()));
+		assertEquals(-1, index.getPosition("K1".getBytes()));
+		assertEquals(index.getPosition(0), index.getPosition("K".getBytes()));
+
+		ByteArrayOutputStream os = new ByteArrayOutputStream();
+		index.write(os);
+		MicroFocusKeyIndex index1 = MicroFocusKeyIndex.read(new ByteArrayInputStream(os.toByteArray()));
+		assertEquals(index.getKeyStart(), index1.getKeyStart());
+		assertEquals(index.getKeyLength(), index1.getKeyLength());
+		for (int i = 0; i < count; i++) {
+			assertTrue(Arrays.equals(index.getKey(i), index1.getKey(i)));
+			assertEquals(index.getPosition(i), index1.getPosition(i));
+		}
+	}
+
+	private static byte[] key(int i) {
+		return String.format("K%05d", i).getBytes();
+	}
+
+	private static byte[] record(int i) {
+		return ("R " + new String(key(i)) + " data " + i).getBytes();
+	}
+
+	private static void writeRecord(ByteArrayOutputStream os, byte[] rec) {
+		os.write(0x40 | (rec.length >> 8));
+		os.write(rec.length);
+		os.write(rec, 0, rec.length);
+		for (int i = rec.length % 4; i > 0 && i < 4; i++) {
+			os.write(0);
+		}
+	}
+
+	/**
+	 * Compress a record: runs of spaces, nulls and repeated bytes; everything else as literals
+	 */
+	private static byte[] compress(byte[] line) {
+		ByteArrayOutputStream os = new ByteArrayOutputStream();
+		int i = 0;
+
+		while (i < line.length) {
+			int j = i + 1;
+			while (j < line.length && line[j] == line[i] && j - i < 31) {
+				j++;
+			}
+			int run = j - i;
+			if (line[i] == ' ' && run > 1) {
+				os.write(0x80 + run);
+			} else if (line[i] == 0 && run > 1) {
+				os.write(0xC0 + run);
+			} else if (run > 2) {
+				os.write(0xE0 + run);
+				os.write(line[i]);
+			} else {
+				os.write(run);
+				os.write(line, i, run);
+			}
+			i = j;
+		}
+		return os.toByteArray();
+	}
+}
@@ -0,0 +1,188 @@
+/*  -------------------------------------------------------------------------
+ *
+ *                Project: JRecord
+ *    
+ *    Sub-Project purpose: Provide support for reading Cobol-Data files 
+ *                        using a Cobol Copybook in Java.
+ *                         Support for reading Fixed Width / Binary / Csv files
+ *                        using a Xml schema.
+ *                         General Fixed Width / Csv file processing in Java.
+ *    
+ *                 Author: Bruce Martin
+ *    
+ *                License: LGPL 2.1 or latter
+ *                
+ *    Copyright (c) 2016, Bruce Martin, All Rights Reserved.
+ *   
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation; either
+ *    version 2.1 of the License, or (at your option) any later version.
+ *   
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU Lesser General Public License for more details.
+ *
+ * ------------------------------------------------------------------------ */
+
+package net.sf.JRecord.zTest.ByteIO;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+import net.sf.JRecord.ByteIO.FixedLengthByteReader;
+import net.sf.JRecord.ByteIO.ReadAheadInputStream;
+import net.sf.JRecord.ByteIO.VbByteReader;
+
+/**
+ * Check reading through a ReadAheadInputStream (and Byte-Readers with
+ * read-ahead on) returns the same data as reading the stream directly
+ * and that IO errors are passed on to the reader.
+ *
+ * @author Bruce Martin
+ *
+ */
+public class TstReadAheadInputStream extends TestCase {
+
+	public void testRead() throws IOException {
+		byte[] data = getData(100000);
+		ReadAheadInputStream in = new ReadAheadInputStream(new ByteArrayInputStream(data), 1000, 3);
+		ByteArrayOutputStream os = new ByteArrayOutputStream();
+		byte[] buf = new byte[777];
+		int num;
+
+		os.write(in.read());
+		while ((num = in.read(buf, 0, buf.length)) >= 0) {
+			os.write(buf, 0, num);
+		}
+		assertEquals(-1, in.read());
+		in.close();
+
+		assertTrue(Arrays.equals(data, os.toByteArray()));
+	}
+
+	public void testError() throws IOException {
+		final byte[] data = getData(5000);
+		InputStream failing = new InputStream() {
+			int pos = 0;
+			@Override public int read() throws IOException {
+				if (pos >= 2500) {
+					throw new IOException("Disk Error");
+				}
+				return data[pos++] & 0xFF;
+			}
+		};
+		ReadAheadInputStream in = new ReadAheadInputStream(failing, 1000, 2);
+		byte[] buf = new byte[1000];
+
+		assertEquals(1000, in.read(buf, 0, 1000));
+		assertEquals(1000, in.read(buf, 0, 1000));
+		try {
+			in.read(buf, 0, 1000);
+			fail("Expected an IO Exception");
+		} catch (IOException e) {
+			assertEquals("Disk Error", e.getCause().getMessage());
+		}
+		in.close();
+	}
+
+	/**
+	 * RuntimeExceptions and Errors in the background thread must reach
+	 * the reader (not leave it waiting for a block that never arrives)
+	 */
+	public void testThrowable() throws IOException {
+		Throwable[] errors = {new IllegalStateException("Bad State"), new OutOfMemoryError("No Memory")};
+
+		for (final Throwable error : errors) {
+			InputStream failing = new InputStream() {
+				@Override public int read() {
+					if (error instanceof Error) {
+						throw (Error) error;
+					}
+					throw (RuntimeException) error;
+				}
+			};
+			ReadAheadInputStream in = new ReadAheadInputStream(failing, 1000, 2);
+
+			for (int i = 0; i < 2; i++) {
+				try {
+					in.read();
+					fail("Expected " + error);
+				} catch (Throwable e) {
+					assertSame(error, e);
+				}
+			}
+			in.close();
+		}
+	}
+
+	public void testClose() throws IOException, InterruptedException {
+		final boolean[] closed = {false};
+		InputStream endless = new InputStream() {
+			@Override public int read() {
+				return 1;
+			}
+			@Override public void close() {
+				closed[0] = true;
+			}
+		};
+		ReadAheadInputStream in = new ReadAheadInputStream(endless, 100, 2);
+
+		assertEquals(1, in.read());
+		in.close();
+		assertTrue(closed[0]);
+		try {
+			in.read(new byte[200], 0, 200);
+			fail("Expected an IO Exception");
+		} catch (IOException e) {
+		}
+	}
+
+	public void testByteReaders() throws IOException {
+		byte[] data = getData(10 * 12345);
+		FixedLengthByteReader r1 = new FixedLengthByteReader(10);
+		FixedLengthByteReader r2 = new FixedLengthByteReader(10);
+		byte[] rec;
+
+		r2.setReadAhead(2);
+		r1.open(new ByteArrayInputStream(data));
+		r2.open(new ByteArrayInputStream(data));
+		while ((rec = r1.read()) != null) {
+			assertTrue(Arrays.equals(rec, r2.read()));
+		}
+		assertNull(r2.read());
+		r1.close();
+		r2.close();
+
+		ByteArrayOutputStream os = new ByteArrayOutputStream();
+		for (int i = 0; i < 5000; i++) {
+			int len = i % 50 + 4;
+			os.write(new byte[] {0, (byte) len, 0, 0});
+			os.write(data, i, len - 4);
+		}
+		VbByteReader vb = new VbByteReader();
+		int count = 0;
+		vb.setReadAhead(3);
+		vb.open(new ByteArrayInputStream(os.toByteArray()));
+		while ((rec = vb.read()) != null) {
+			assertEquals(count % 50, rec.length);
+			count += 1;
+		}
+		vb.close();
+		assertEquals(5000, count);
+	}
+
+	private static byte[] getData(int size) {
+		byte[] data = new byte[size];
+
+		for (int i = 0; i < size; i++) {
+			data[i] = (byte) (i * 31 + i / 256);
+		}
+		return data;
+	}
+}
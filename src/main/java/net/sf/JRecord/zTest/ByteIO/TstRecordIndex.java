@@ -0,0 +1,141 @@
+package net.sf.JRecord.zTest.ByteIO;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+import net.sf.JRecord.ByteIO.AbstractByteReader;
+import net.sf.JRecord.ByteIO.AbstractByteWriter;
+import net.sf.JRecord.ByteIO.MicroFocusByteWriter;
+import net.sf.JRecord.ByteIO.MicroFocusFileHeader;
+import net.sf.JRecord.ByteIO.RecordIndex;
+import net.sf.JRecord.ByteIO.VbByteWriter;
+import net.sf.JRecord.Common.Constants;
+import net.sf.JRecord.zTest.Common.TstConstants;
+import net.sf.JRecord.zTest.Common.TstData;
+
+/**
+ * Check a RecordIndex can be used to read any record in
+ * VB, VBS and Micro Focus files
+ *
+ * @author Bruce Martin
+ *
+ */
+public class TstRecordIndex extends TestCase {
+
+	private static final int[] INTERVALS = {1, 7, 50, 100000};
+
+	public void testVb() throws IOException {
+		String fileName = TstConstants.TEMP_DIRECTORY + "RecordIndexVb.bin";
+		ArrayList<byte[]> lines = writeFile(fileName, new VbByteWriter(), null);
+
+		tstIndex(fileName, Constants.IO_VB, lines);
+	}
+
+	@SuppressWarnings("deprecation")
+	public void testVbs() throws IOException {
+		String fileName = TstConstants.TEMP_DIRECTORY + "RecordIndexVbs.bin";
+		ArrayList<byte[]> lines = new ArrayList<byte[]>();
+		FileOutputStream os = new FileOutputStream(fileName);
+
+		for (int i = 0; i < 40; i++) {
+			for (byte[] line : TstData.DTAR020_LINES) {
+				lines.add(line);
+				if (lines.size() % 3 == 0) {
+					int half = line.length / 2;
+					writeVbsSegment(os, line, 0, half, 1);
+					writeVbsSegment(os, line, half, line.length - half, 2);
+				} else {
+					writeVbsSegment(os, line, 0, line.length, 0);
+				}
+			}
+		}
+		os.close();
+
+		tstIndex(fileName, Constants.IO_VBS, lines);
+	}
+
+	public void testMicroFocus() throws IOException {
+		String fileName = TstConstants.TEMP_DIRECTORY + "RecordIndexMf.bin";
+		ArrayList<byte[]> lines = writeFile(
+				fileName, new MicroFocusByteWriter(),
+				new MicroFocusFileHeader(MicroFocusFileHeader.FORMAT_SEQUENTIAL, 10, 500));
+
+		tstIndex(fileName, Constants.IO_MICROFOCUS, lines);
+	}
+
+	public void testSerialise() throws IOException {
+		String fileName = TstConstants.TEMP_DIRECTORY + "RecordIndexMf.bin";
+		writeFile(fileName, new MicroFocusByteWriter(),
+				new MicroFocusFileHeader(MicroFocusFileHeader.FORMAT_SEQUENTIAL, 10, 500));
+
+		RecordIndex index = RecordIndex.createIndex(fileName, Constants.IO_MICROFOCUS, 3);
+		ByteArrayOutputStream os = new ByteArrayOutputStream();
+		index.write(os);
+		RecordIndex index1 = RecordIndex.read(new ByteArrayInputStream(os.toByteArray()));
+
+		assertEquals(index.getFileStructure(), index1.getFileStructure());
+		assertEquals(index.getInterval(), index1.getInterval());
+		assertEquals(index.getRecordCount(), index1.getRecordCount());
+		assertEquals(index.getFileLength(), index1.getFileLength());
+		assertEquals(128, index1.getHeaderLength());
+		assertEquals(index.getEntryCount(), index1.getEntryCount());
+		for (int i = 0; i < index.getEntryCount(); i++) {
+			assertEquals(index.getOffset(i), index1.getOffset(i));
+			assertEquals(i, index1.getRecordNumberAt(index1.getOffset(i)) / 3);
+		}
+		assertEquals(-1, index1.getRecordNumberAt(index1.getOffset(1) + 1));
+	}
+
+	private void tstIndex(String fileName, int fileStructure, ArrayList<byte[]> lines) throws IOException {
+		for (int interval : INTERVALS) {
+			RecordIndex.createIndex(fileName, fileStructure, interval);
+			RecordIndex index = RecordIndex.read(RecordIndex.getIndexFileName(fileName));
+
+			assertEquals(lines.size(), index.getRecordCount());
+			assertEquals((lines.size() + interval - 1) / interval, index.getEntryCount());
+
+			for (int i = 0; i < lines.size(); i += 3) {
+				AbstractByteReader reader = index.newReader(fileName, i);
+				for (int j = i; j < Math.min(lines.size(), i + 4); j++) {
+					assertTrue("Interval " + interval + " Record " + j,
+							Arrays.equals(lines.get(j), reader.read()));
+				}
+				reader.close();
+			}
+		}
+	}
+
+	private ArrayList<byte[]> writeFile(String fileName, AbstractByteWriter writer, MicroFocusFileHeader header)
+	throws IOException {
+		ArrayList<byte[]> lines = new ArrayList<byte[]>();
+
+		writer.open(new FileOutputStream(fileName));
+		if (header != null) {
+			((MicroFocusByteWriter) writer).writeHeader(header);
+		}
+		for (int i = 0; i < 40; i++) {
+			for (byte[] line : TstData.DTAR020_LINES) {
+				lines.add(line);
+				writer.write(line);
+			}
+			for (byte[] line : TstData.DTAR107_LINES) {
+				lines.add(line);
+				writer.write(line);
+			}
+		}
+		writer.close();
+
+		return lines;
+	}
+
+	private void writeVbsSegment(OutputStream os, byte[] line, int pos, int len, int segment) throws IOException {
+		os.write(new byte[] {(byte) ((len + 4) >> 8), (byte) (len + 4), (byte) segment, 0});
+		os.write(line, pos, len);
+	}
+}
@@ -0,0 +1,241 @@
+/*  -------------------------------------------------------------------------
+ *
+ *                Project: JRecord
+ *    
+ *    Sub-Project purpose: Provide support for reading Cobol-Data files 
+ *                        using a Cobol Copybook in Java.
+ *                         Support for reading Fixed Width / Binary / Csv files
+ *                        using a Xml schema.
+ *                         General Fixed Width / Csv file processing in Java.
+ *    
+ *                 Author: Bruce Martin
+ *    
+ *                License: LGPL 2.1 or latter
+ *                
+ *    Copyright (c) 2016, Bruce Martin, All Rights Reserved.
+ *   
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation; either
+ *    version 2.1 of the License, or (at your option) any later version.
+ *   
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU Lesser General Public License for more details.
+ *
+ * ------------------------------------------------------------------------ */
+
+package net.sf.JRecord.zTest.ByteIO;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+import net.sf.JRecord.ByteIO.AbstractByteReader;
+import net.sf.JRecord.ByteIO.VbByteReader;
+import net.sf.JRecord.ByteIO.VbDumpByteReader;
+import net.sf.JRecord.ByteIO.VbDumpByteWriter;
+import net.sf.JRecord.ByteIO.VbsByteReader;
+
+/**
+ * Check whole-block reading of VB dump files and VBS files with
+ * Block-Descriptor-Words
+ *
+ * @author Bruce Martin
+ *
+ */
+public class TstVbBlockReader extends TestCase {
+
+	private static final int RECORD_COUNT = 500;
+
+	public void testVbDump() throws IOException {
+		byte[][] records = getRecords();
+		ByteArrayOutputStream os = new ByteArrayOutputStream();
+		VbDumpByteWriter w = new VbDumpByteWriter(1000);
+
+		w.open(os);
+		for (byte[] r : records) {
+			w.write(r);
+		}
+		w.close();
+		byte[] file = os.toByteArray();
+
+		VbDumpByteReader r = new VbDumpByteReader();
+		r.open(new ByteArrayInputStream(file));
+		assertTrue(r.isAtBlockBoundary());
+		for (int i = 0; i < records.length; i++) {
+			long pos = r.getBytesRead();
+			int bdwLength = r.isAtBlockBoundary() ? 4 : 0;
+			if (i % 2 == 0) {
+				assertTrue("Record " + i, Arrays.equals(records[i], r.read()));
+			} else {
+				assertTrue(r.next());
+				assertTrue("Record " + i, Arrays.equals(records[i],
+						Arrays.copyOfRange(r.buffer(), r.offset(), r.offset() + r.length())));
+			}
+			assertEquals(pos + bdwLength + records[i].length + 4, r.getBytesRead());
+		}
+		assertNull(r.read());
+		assertTrue(r.isAtBlockBoundary());
+		assertEquals(file.length, r.getBytesRead());
+		r.close();
+	}
+
+	public void testVbs() throws IOException {
+		byte[][] records = getRecords();
+		ByteArrayOutputStream plain = new ByteArrayOutputStream();
+		ByteArrayOutputStream blocked = new ByteArrayOutputStream();
+		ByteArrayOutputStream block = new ByteArrayOutputStream();
+
+		for (byte[] r : records) {
+			int pos = 0;
+			int seg = r.length > 50 ? 1 : 0;
+
+			do {
+				int len = Math.min(50, r.length - pos);
+				if (seg > 0 && pos + len >= r.length) {
+					seg = 2;
+				}
+				byte[] rdw = {(byte) ((len + 4) >> 8), (byte) (len + 4), (byte) seg, 0};
+				plain.write(rdw);
+				plain.write(r, pos, len);
+				if (block.size() + len + 4 > 200) {
+					writeBlock(blocked, block);
+				}
+				block.write(rdw);
+				block.write(r, pos, len);
+				pos += len;
+				if (seg == 1) {
+					seg = 3;
+				}
+			} while (pos < r.length);
+		}
+		writeBlock(blocked, block);
+
+		VbsByteReader r1 = new VbsByteReader(false, true);
+		VbsByteReader r2 = new VbsByteReader(true, true);
+		r1.open(new ByteArrayInputStream(plain.toByteArray()));
+		r2.open(new ByteArrayInputStream(blocked.toByteArray()));
+		for (int i = 0; i < records.length; i++) {
+			assertTrue("Record " + i, Arrays.equals(records[i], r1.read()));
+			assertTrue("Record " + i, Arrays.equals(records[i], r2.read()));
+		}
+		assertNull(r1.read());
+		assertNull(r2.read());
+		assertEquals(blocked.size(), r2.getBytesRead());
+		r1.close();
+		r2.close();
+	}
+
+	/**
+	 * A corrupt BDW must be rejected before the block is allocated
+	 */
+	public void testInvalidBdw() throws IOException {
+		byte[][] bdws = {
+				{(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF},	// extended BDW, 2gb
+				{(byte) 0x81, 0, 0, 1},									// extended BDW, 16mb + 1
+				{0x7F, (byte) 0xFF, 0, 0},								// 32767 > 32760
+				{0x00, 0x40, 0x01, 0},									// bytes 3-4 not hex zero
+				{0x00, 0x02, 0, 0},										// shorter than the BDW
+		};
+
+		for (byte[] bdw : bdws) {
+			byte[] file = new byte[30];
+			System.arraycopy(bdw, 0, file, 0, 4);
+
+			tstInvalidBdw(new VbDumpByteReader(), file);
+			tstInvalidBdw(new VbsByteReader(true, true), file);
+		}
+	}
+
+	/**
+	 * A record truncated by the end of the file is returned
+	 * with the missing bytes set to hex zero (by all the VB / VBS readers)
+	 */
+	public void testTruncatedRecord() throws IOException {
+		byte[] first = new byte[100];
+		byte[] last = new byte[30];
+		Arrays.fill(first, (byte) 0x55);
+		for (int i = 0; i < 10; i++) {
+			last[i] = (byte) (i + 1);
+		}
+
+		ByteArrayOutputStream vb = new ByteArrayOutputStream();
+		writeSegment(vb, first, 0, first.length, 0);
+		writeSegment(vb, last, 0, last.length, 0);
+		byte[] file = Arrays.copyOf(vb.toByteArray(), vb.size() - 20);
+
+		tstTruncated(new VbByteReader(false), file, first, last);
+		tstTruncated(new VbsByteReader(false, true), file, first, last);
+		tstTruncated(new VbDumpByteReader(), addBdw(file, vb.size()), first, last);
+		tstTruncated(new VbsByteReader(true, true), addBdw(file, vb.size()), first, last);
+
+		ByteArrayOutputStream vbs = new ByteArrayOutputStream();
+		writeSegment(vbs, first, 0, 60, 1);
+		writeSegment(vbs, first, 60, 40, 2);
+		writeSegment(vbs, last, 0, 5, 1);
+		writeSegment(vbs, last, 5, 25, 2);
+		file = Arrays.copyOf(vbs.toByteArray(), vbs.size() - 20);
+
+		tstTruncated(new VbsByteReader(false, true), file, first, last);
+		tstTruncated(new VbsByteReader(true, true), addBdw(file, vbs.size()), first, last);
+	}
+
+	private void tstTruncated(AbstractByteReader r, byte[] file, byte[] first, byte[] last) throws IOException {
+		r.open(new ByteArrayInputStream(file));
+		assertTrue(Arrays.equals(first, r.read()));
+		assertTrue(Arrays.equals(last, r.read()));
+		assertNull(r.read());
+		r.close();
+	}
+
+	private static void writeSegment(ByteArrayOutputStream out, byte[] rec, int pos, int len, int seg) {
+		out.write((len + 4) >> 8);
+		out.write(len + 4);
+		out.write(seg);
+		out.write(0);
+		out.write(rec, pos, len);
+	}
+
+	private static byte[] addBdw(byte[] file, int blockLength) {
+		byte[] ret = new byte[file.length + 4];
+		ret[0] = (byte) ((blockLength + 4) >> 8);
+		ret[1] = (byte) (blockLength + 4);
+		System.arraycopy(file, 0, ret, 4, file.length);
+		return ret;
+	}
+
+	private void tstInvalidBdw(AbstractByteReader r, byte[] file) throws IOException {
+		r.open(new ByteArrayInputStream(file));
+		try {
+			r.read();
+			fail("Invalid BDW " + file[0] + ", " + file[1] + ", " + file[2] + ", " + file[3]);
+		} catch (IOException e) {
+			assertTrue(e.getMessage(), e.getMessage().startsWith("Invalid Block Descriptor"));
+		}
+		r.close();
+	}
+
+	private static void writeBlock(ByteArrayOutputStream out, ByteArrayOutputStream block) throws IOException {
+		int len = block.size() + 4;
+
+		out.write(new byte[] {(byte) (len >> 8), (byte) len, 0, 0});
+		block.writeTo(out);
+		block.reset();
+	}
+
+	private static byte[][] getRecords() {
+		byte[][] records = new byte[RECORD_COUNT][];
+
+		for (int i = 0; i < RECORD_COUNT; i++) {
+			records[i] = new byte[(i * 7) % 180];
+			for (int j = 0; j < records[i].length; j++) {
+				records[i][j] = (byte) (i + j);
+			}
+		}
+		return records;
+	}
+}
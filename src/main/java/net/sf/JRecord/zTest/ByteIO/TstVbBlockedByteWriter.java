@@ -0,0 +1,184 @@
+/*  -------------------------------------------------------------------------
+ *
+ *                Project: JRecord
+ *    
+ *    Sub-Project purpose: Provide support for reading Cobol-Data files 
+ *                        using a Cobol Copybook in Java.
+ *                         Support for reading Fixed Width / Binary / Csv files
+ *                        using a Xml schema.
+ *                         General Fixed Width / Csv file processing in Java.
+ *    
+ *                 Author: Bruce Martin
+ *    
+ *                License: LGPL 2.1 or latter
+ *                
+ *    Copyright (c) 2016, Bruce Martin, All Rights Reserved.
+ *   
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation; either
+ *    version 2.1 of the License, or (at your option) any later version.
+ *   
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU Lesser General Public License for more details.
+ *
+ * ------------------------------------------------------------------------ */
+
+package net.sf.JRecord.zTest.ByteIO;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+import net.sf.JRecord.ByteIO.AbstractByteReader;
+import net.sf.JRecord.ByteIO.AbstractByteWriter;
+import net.sf.JRecord.ByteIO.ByteIOProvider;
+import net.sf.JRecord.ByteIO.VbBlockedByteWriter;
+import net.sf.JRecord.ByteIO.VbByteReader;
+import net.sf.JRecord.ByteIO.VbDumpByteReader;
+import net.sf.JRecord.ByteIO.VbDumpByteWriter;
+import net.sf.JRecord.ByteIO.VbsByteReader;
+import net.sf.JRecord.Common.Constants;
+
+/**
+ * Test writing VB / VBS files packed into blocks
+ *
+ * @author Bruce Martin
+ *
+ */
+public class TstVbBlockedByteWriter extends TestCase {
+
+	public void testVbDump() throws IOException {
+		ArrayList<byte[]> lines = bldLines(2000, 500);
+		byte[] file = write(new VbDumpByteWriter(), lines);
+
+		checkRead(new VbDumpByteReader(), file, lines);
+		checkBlocks(file, 27998, false);
+	}
+
+	public void testVbSmallBlocks() throws IOException {
+		ArrayList<byte[]> lines = bldLines(500, 200);
+		byte[] file = write(new VbBlockedByteWriter(1000, false, true), lines);
+
+		checkRead(new VbByteReader(true), file, lines);
+		checkBlocks(file, 1000, false);
+	}
+
+	public void testVbsBdw() throws IOException {
+		ArrayList<byte[]> lines = bldLines(500, 3000);
+		byte[] file = write(new VbBlockedByteWriter(1000, true, true), lines);
+
+		checkRead(new VbsByteReader(true, true), file, lines);
+		checkBlocks(file, 1000, true);
+	}
+
+	@SuppressWarnings("deprecation")
+	public void testVbsNoBdw() throws IOException {
+		ArrayList<byte[]> lines = bldLines(500, 70000);
+		AbstractByteWriter w = ByteIOProvider.getInstance().getByteWriter(Constants.IO_VBS);
+		byte[] file = write(w, lines);
+
+		assertTrue(w instanceof VbBlockedByteWriter);
+		checkRead(ByteIOProvider.getInstance().getByteReader(Constants.IO_VBS), file, lines);
+	}
+
+	/**
+	 * Records longer than the block size are written in a block of their own
+	 */
+	public void testVbLargeRecords() throws IOException {
+		ArrayList<byte[]> lines = bldLines(20, 500);
+		lines.add(5, bldLine(5, 32000));
+		lines.add(12, bldLine(12, 32752));
+		byte[] file = write(new VbDumpByteWriter(), lines);
+
+		checkRead(new VbDumpByteReader(), file, lines);
+
+		lines = bldLines(20, 90);
+		lines.add(3, bldLine(3, 93));
+		lines.add(8, bldLine(8, 500));
+		file = write(new VbBlockedByteWriter(100, false, true), lines);
+		checkRead(new VbByteReader(true), file, lines);
+
+		file = write(new VbBlockedByteWriter(100, false, false), lines);
+		checkRead(new VbByteReader(), file, lines);
+	}
+
+	public void testVbRecordToLong() throws IOException {
+		VbBlockedByteWriter w = new VbBlockedByteWriter(100, false, true);
+
+		w.open(new ByteArrayOutputStream());
+		w.write(new byte[32752]);
+		try {
+			w.write(new byte[32753]);
+			fail("Record is longer than the maximum block size");
+		} catch (IOException e) {
+		}
+	}
+
+	private ArrayList<byte[]> bldLines(int count, int maxLength) {
+		ArrayList<byte[]> lines = new ArrayList<byte[]>();
+
+		for (int i = 0; i < count; i++) {
+			lines.add(bldLine(i, (i * 7919) % maxLength + 1));
+		}
+		return lines;
+	}
+
+	private byte[] bldLine(int lineNo, int length) {
+		byte[] line = new byte[length];
+
+		for (int j = 0; j < line.length; j++) {
+			line[j] = (byte) (lineNo + j);
+		}
+		return line;
+	}
+
+	private byte[] write(AbstractByteWriter w, ArrayList<byte[]> lines) throws IOException {
+		ByteArrayOutputStream os = new ByteArrayOutputStream();
+
+		w.open(os);
+		w.writeBatch(lines);
+		w.close();
+		return os.toByteArray();
+	}
+
+	private void checkRead(AbstractByteReader r, byte[] file, ArrayList<byte[]> lines) throws IOException {
+		r.open(new ByteArrayInputStream(file));
+		for (int i = 0; i < lines.size(); i++) {
+			assertTrue("Line " + i, Arrays.equals(lines.get(i), r.read()));
+		}
+		assertNull(r.read());
+		r.close();
+	}
+
+	/**
+	 * Check the blocks are full: for spanned files every block except the last is filled
+	 * (to within a RDW + 1 byte),
+	 * for VB files the first record of the next block would not have fitted.
+	 */
+	private void checkBlocks(byte[] file, int blockSize, boolean spanned) {
+		int pos = 0;
+
+		while (pos < file.length) {
+			int len = ((file[pos] & 0xFF) << 8) + (file[pos + 1] & 0xFF);
+			int next = pos + len;
+
+			assertTrue(len <= blockSize);
+			if (next < file.length) {
+				int nextRecordLength = ((file[next + 4] & 0xFF) << 8) + (file[next + 5] & 0xFF);
+				if (spanned) {
+					assertTrue(len > blockSize - 5);
+				} else {
+					assertTrue(len + nextRecordLength > blockSize);
+				}
+			}
+			pos = next;
+		}
+		assertEquals(file.length, pos);
+	}
+}
@@ -0,0 +1,143 @@
+/*  -------------------------------------------------------------------------
+ *
+ *                Project: JRecord
+ *    
+ *    Sub-Project purpose: Provide support for reading Cobol-Data files 
+ *                        using a Cobol Copybook in Java.
+ *                         Support for reading Fixed Width / Binary / Csv files
+ *                        using a Xml schema.
+ *                         General Fixed Width / Csv file processing in Java.
+ *    
+ *                 Author: Bruce Martin
+ *    
+ *                License: LGPL 2.1 or latter
+ *                
+ *    Copyright (c) 2016, Bruce Martin, All Rights Reserved.
+ *   
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation; either
+ *    version 2.1 of the License, or (at your option) any later version.
+ *   
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU Lesser General Public License for more details.
+ *
+ * ------------------------------------------------------------------------ */
+
+package net.sf.JRecord.zTest.Common;
+
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Random;
+
+import junit.framework.TestCase;
+import net.sf.JRecord.Common.Conversion;
+import net.sf.JRecord.Common.SingleByteCharset;
+
+/**
+ * Check the single byte character-set translation tables give
+ * the same results as the standard java conversion
+ *
+ * @author Bruce Martin
+ *
+ */
+public class TstSingleByteCharset extends TestCase {
+
+	private static final String[] CHARSETS = {
+		"cp037", "cp273", "cp1047", "IBM01140", "cp500", "ISO-8859-1", "ISO-8859-15",
+		"windows-1252", "cp850", "US-ASCII", "KOI8-R",
+	};
+
+	private Random random = new Random(5678);
+
+	public void testDecode() {
+		byte[] allBytes = new byte[256];
+		for (int i = 0; i < 256; i++) {
+			allBytes[i] = (byte) i;
+		}
+
+		for (String charset : CHARSETS) {
+			SingleByteCharset tbl = SingleByteCharset.getInstance(charset);
+			assertNotNull(charset, tbl);
+			assertEquals(charset, new String(allBytes, Charset.forName(charset)),
+					tbl.getString(allBytes, 0, 256, false));
+			assertEquals(charset, Conversion.toString(allBytes, charset),
+					tbl.getString(allBytes, 0, 256, false));
+
+			for (int i = 0; i < 100; i++) {
+				byte[] b = new byte[random.nextInt(300)];
+				random.nextBytes(b);
+				int start = b.length == 0 ? 0 : random.nextInt(b.length);
+				checkDecode(charset, b, start, b.length);
+			}
+		}
+	}
+
+	public void testTrim() {
+		for (String charset : CHARSETS) {
+			byte[] b = Conversion.getBytes("  ab c  \t   ", charset);
+			assertEquals(charset, "  ab c  \t", Conversion.getString(b, 0, b.length, charset, true));
+			assertEquals(charset, "  ab c", Conversion.getString(b, 0, 8, charset, true));
+			assertEquals(charset, "", Conversion.getString(b, 0, 2, charset, true));
+			assertEquals(charset, "  ", Conversion.getString(b, 0, 2, charset, false));
+		}
+		byte[] b = Conversion.getBytes("ab  ", "UTF-16BE");
+		assertEquals("ab", Conversion.getString(b, 0, b.length, "UTF-16BE", true));
+	}
+
+	public void testEncode() {
+		String[] special = {
+			"", "abc", "\u20ac 100", "\u00e4\u00f6\u00fc\u00df", "\u4e2d\u6587", "\ud83d\ude00",
+			"x\ud800y",
+		};
+
+		for (String charset : CHARSETS) {
+			SingleByteCharset tbl = SingleByteCharset.getInstance(charset);
+
+			for (String s : special) {
+				checkEncode(charset, tbl, s);
+			}
+
+			char[] c = new char[40];
+			for (int i = 0; i < 200; i++) {
+				for (int j = 0; j < c.length; j++) {
+					c[j] = (char) (i < 100 ? random.nextInt(256) : random.nextInt(0x2200));
+				}
+				checkEncode(charset, tbl, new String(c));
+			}
+		}
+	}
+
+	public void testNotSingleByte() {
+		assertNull(SingleByteCharset.getInstance("UTF-16BE"));
+		assertNull(SingleByteCharset.getInstance("UTF-8"));
+		assertNull(SingleByteCharset.getInstance("cp935"));
+		assertNull(SingleByteCharset.getInstance("NotACharset"));
+		assertNull(SingleByteCharset.getInstance("Not A Charset"));
+
+		byte[] b = "abc".getBytes();
+		assertEquals("abc", Conversion.getString(b, 0, 3, "Not A Charset"));
+		assertTrue(Arrays.equals(b, Conversion.getBytes("abc", "Not A Charset")));
+	}
+
+	private void checkDecode(String charset, byte[] b, int start, int fin) {
+		String expected = new String(b, start, fin - start, Charset.forName(charset));
+		int idx = expected.length() - 1;
+		while (idx >= 0 && expected.charAt(idx) == ' ') {
+			idx -= 1;
+		}
+		String trimmed = expected.substring(0, idx + 1);
+
+		assertEquals(charset, expected, Conversion.getString(b, start, fin, charset));
+		assertEquals(charset, trimmed, Conversion.getString(b, start, fin, charset, true));
+	}
+
+	private void checkEncode(String charset, SingleByteCharset tbl, String s) {
+		byte[] expected = s.getBytes(Charset.forName(charset));
+
+		assertTrue(charset + " " + s, Arrays.equals(expected, tbl.getBytes(s)));
+		assertTrue(charset + " " + s, Arrays.equals(expected, Conversion.getBytes(s, charset)));
+	}
+}
@@ -0,0 +1,225 @@
+/*  -------------------------------------------------------------------------
+ *
+ *                Project: JRecord
+ *    
+ *    Sub-Project purpose: Provide support for reading Cobol-Data files 
+ *                        using a Cobol Copybook in Java.
+ *                         Support for reading Fixed Width / Binary / Csv files
+ *                        using a Xml schema.
+ *                         General Fixed Width / Csv file processing in Java.
+ *    
+ *                 Author: Bruce Martin
+ *    
+ *                License: LGPL 2.1 or latter
+ *                
+ *    Copyright (c) 2016, Bruce Martin, All Rights Reserved.
+ *   
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation; either
+ *    version 2.1 of the License, or (at your option) any later version.
+ *   
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU Lesser General Public License for more details.
+ *
+ * ------------------------------------------------------------------------ */
+
+package net.sf.JRecord.zTest.Details;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+import net.sf.JRecord.JRecordInterface1;
+import net.sf.JRecord.Common.Constants;
+import net.sf.JRecord.Common.FieldDetail;
+import net.sf.JRecord.Details.AbstractLine;
+import net.sf.JRecord.Details.LayoutDetail;
+import net.sf.JRecord.Details.LayoutSerializer;
+import net.sf.JRecord.Details.Line;
+import net.sf.JRecord.Details.RecordDetail;
+import net.sf.JRecord.External.RecordEditorXmlLoader;
+import net.sf.JRecord.External.Def.DependingOnDtls;
+import net.sf.JRecord.zTest.Cobol.occursDependingOn.WriteSampleFile;
+import junit.framework.TestCase;
+
+/**
+ * Check a layout is the same after it has been serialized and read back in
+ *
+ * @author Bruce Martin
+ *
+ */
+public class TstLayoutSerializer extends TestCase {
+
+	private static final String[] XML_LAYOUT = {
+		"<RECORD RECORDNAME=\"Multi\" COPYBOOK=\"\" DELIMITER=\"&lt;Tab&gt;\" FILESTRUCTURE=\"Default\" STYLE=\"0\" RECORDTYPE=\"GroupOfRecords\" LIST=\"Y\" QUOTE=\"\" RecSep=\"default\">",
+		"	<RECORDS>",
+		"		<RECORD RECORDNAME=\"H\" COPYBOOK=\"\" DELIMITER=\"&lt;Tab&gt;\" FILESTRUCTURE=\"Default\" STYLE=\"0\" RECORDTYPE=\"RecordLayout\" LIST=\"N\" QUOTE=\"\" RecSep=\"default\" TESTFIELD=\"Record_Type\" TESTVALUE=\"H\">",
+		"			<FIELDS>",
+		"				<FIELD NAME=\"Record_Type\" POSITION=\"1\" LENGTH=\"1\" TYPE=\"Char\"/>",
+		"				<FIELD NAME=\"H1\" POSITION=\"2\" LENGTH=\"8\" TYPE=\"Num (Right Justified space padded)\"/>",
+		"			</FIELDS>",
+		"		</RECORD>",
+		"		<RECORD RECORDNAME=\"D1\" COPYBOOK=\"\" DELIMITER=\"&lt;Tab&gt;\" FILESTRUCTURE=\"Default\" STYLE=\"0\" RECORDTYPE=\"RecordLayout\" LIST=\"N\" QUOTE=\"\" RecSep=\"default\">",
+		"			<TSTFIELDS>",
+		"				<TSTFIELD NAME=\"Record_Type\" VALUE=\"D\"/>",
+		"				<TSTFIELD NAME=\"Sub_Type\" VALUE=\"1\"/>",
+		"			</TSTFIELDS>",
+		"			<FIELDS>",
+		"				<FIELD NAME=\"Record_Type\" POSITION=\"1\" LENGTH=\"1\" TYPE=\"Char\"/>",
+		"				<FIELD NAME=\"Sub_Type\" POSITION=\"2\" LENGTH=\"1\" TYPE=\"Char\"/>",
+		"				<FIELD NAME=\"Amount\" POSITION=\"3\" LENGTH=\"7\" DECIMAL=\"2\" TYPE=\"Num (Right Justified space padded)\"/>",
+		"			</FIELDS>",
+		"		</RECORD>",
+		"		<RECORD RECORDNAME=\"D2\" COPYBOOK=\"\" DELIMITER=\"&lt;Tab&gt;\" FILESTRUCTURE=\"Default\" STYLE=\"0\" RECORDTYPE=\"RecordLayout\" LIST=\"N\" QUOTE=\"\" RecSep=\"default\">",
+		"			<TSTFIELDS>",
+		"				<TSTFIELD NAME=\"Record_Type\" VALUE=\"D\"/>",
+		"				<TSTFIELD NAME=\"Sub_Type\" VALUE=\"2\"/>",
+		"			</TSTFIELDS>",
+		"			<FIELDS>",
+		"				<FIELD NAME=\"Record_Type\" POSITION=\"1\" LENGTH=\"1\" TYPE=\"Char\"/>",
+		"				<FIELD NAME=\"Sub_Type\" POSITION=\"2\" LENGTH=\"1\" TYPE=\"Char\"/>",
+		"				<FIELD NAME=\"Name\" POSITION=\"3\" LENGTH=\"10\" TYPE=\"Char\"/>",
+		"			</FIELDS>",
+		"		</RECORD>",
+		"	</RECORDS>",
+		"</RECORD>",
+	};
+
+	private static final String[] LINES = {
+		"H00000012", "D1  12.34", "D2Fred", "D3xx", "H00000013", "D2Jane",
+	};
+
+	public void testSelections() throws Exception {
+		StringBuilder b = new StringBuilder();
+		for (String s : XML_LAYOUT) {
+			b.append(s);
+		}
+		LayoutDetail layout = RecordEditorXmlLoader.getExternalRecord(b.toString(), "Multi").asLayoutDetail();
+		LayoutDetail copy = roundTrip(layout);
+
+		checkLayout(layout, copy);
+		for (int i = 0; i < layout.getRecordCount(); i++) {
+			assertEquals(
+					layout.getRecord(i).getRecordSelection().getElementCount(),
+					copy.getRecord(i).getRecordSelection().getElementCount());
+		}
+
+		for (String s : LINES) {
+			assertEquals(s,
+					new Line(layout, s.getBytes()).getPreferredLayoutIdx(),
+					new Line(copy, s.getBytes()).getPreferredLayoutIdx());
+		}
+	}
+
+	public void testOccursDepending() throws Exception {
+		String copybookFileName = WriteSampleFile.class.getResource("OccursDependingOn26.cbl").getFile();
+		LayoutDetail layout = JRecordInterface1.COBOL
+				.newIOBuilder(copybookFileName)
+					.setFileOrganization(Constants.IO_STANDARD_TEXT_FILE)
+				.getLayout();
+		LayoutDetail copy = roundTrip(layout);
+
+		checkLayout(layout, copy);
+
+		RecordDetail rec = layout.getRecord(0), recCopy = copy.getRecord(0);
+		assertEquals(rec.getDependingOnLevel(), recCopy.getDependingOnLevel());
+		assertEquals(rec.getMinumumPossibleLength(), recCopy.getMinumumPossibleLength());
+
+		for (int months = 1; months < 12; months += 5) {
+			for (int week = 1; week < 5; week += 2) {
+				AbstractLine line = new Line(layout);
+				AbstractLine lineCopy = new Line(copy);
+				setOdFields(line, months, week);
+				setOdFields(lineCopy, months, week);
+
+				for (int i = 0; i < rec.getFieldCount(); i++) {
+					assertEquals(
+							rec.getField(i).getName() + " " + months + " " + week,
+							rec.getField(i).calculateActualPosition(line),
+							recCopy.getField(i).calculateActualPosition(lineCopy));
+				}
+			}
+		}
+	}
+
+	public void testStream() throws Exception {
+		String copybookFileName = WriteSampleFile.class.getResource("OccursDependingOn26.cbl").getFile();
+		LayoutDetail layout = JRecordInterface1.COBOL.newIOBuilder(copybookFileName).getLayout();
+		ByteArrayOutputStream os = new ByteArrayOutputStream();
+
+		LayoutSerializer.write(layout, os);
+		byte[] data = os.toByteArray();
+
+		assertTrue(java.util.Arrays.equals(data, LayoutSerializer.toBytes(layout)));
+		checkLayout(layout, LayoutSerializer.read(new ByteArrayInputStream(data)));
+
+		data[0] = 0;
+		try {
+			LayoutSerializer.fromBytes(data);
+			fail("Invalid data should be rejected");
+		} catch (java.io.IOException e) {
+		}
+	}
+
+	private static void setOdFields(AbstractLine line, int months, int week) {
+		line.getFieldValue("months").set(months);
+		line.getFieldValue("week-of-month").set(week);
+		line.getFieldValue("days").set(3);
+		line.getFieldValue("week-no").set(months + 2);
+	}
+
+	private static LayoutDetail roundTrip(LayoutDetail layout) throws Exception {
+		LayoutDetail copy = LayoutSerializer.fromBytes(LayoutSerializer.toBytes(layout));
+
+			/* serializing the copy should give exactly the same bytes */
+		assertTrue(java.util.Arrays.equals(LayoutSerializer.toBytes(layout), LayoutSerializer.toBytes(copy)));
+		return copy;
+	}
+
+	private static void checkLayout(LayoutDetail layout, LayoutDetail copy) {
+		assertEquals(layout.getLayoutName(), copy.getLayoutName());
+		assertEquals(layout.getFileStructure(), copy.getFileStructure());
+		assertEquals(layout.getFontName(), copy.getFontName());
+		assertEquals(layout.getMaximumRecordLength(), copy.getMaximumRecordLength());
+		assertEquals(layout.getMinimumRecordLength(), copy.getMinimumRecordLength());
+		assertEquals(layout.getEolString(), copy.getEolString());
+		assertEquals(layout.isBinary(), copy.isBinary());
+		assertEquals(layout.getRecordCount(), copy.getRecordCount());
+
+		for (int i = 0; i < layout.getRecordCount(); i++) {
+			RecordDetail rec = layout.getRecord(i), recCopy = copy.getRecord(i);
+			assertEquals(rec.getRecordName(), recCopy.getRecordName());
+			assertEquals(rec.getFieldCount(), recCopy.getFieldCount());
+			assertEquals(rec.getLength(), recCopy.getLength());
+			assertEquals(rec.hasDependingOn(), recCopy.hasDependingOn());
+
+			for (int j = 0; j < rec.getFieldCount(); j++) {
+				FieldDetail f = rec.getField(j), fc = recCopy.getField(j);
+				String id = rec.getRecordName() + "." + f.getName();
+				assertEquals(id, f.getName(), fc.getName());
+				assertEquals(id, f.getPos(), fc.getPos());
+				assertEquals(id, f.getLen(), fc.getLen());
+				assertEquals(id, f.getType(), fc.getType());
+				assertEquals(id, f.getDecimal(), fc.getDecimal());
+				assertEquals(id, f.getGroupName(), fc.getGroupName());
+				assertEquals(id, f.isOccursDependingOnValue(), fc.isOccursDependingOnValue());
+				checkDtls(id, f.getDependingOnDtls(), fc.getDependingOnDtls());
+			}
+		}
+	}
+
+	private static void checkDtls(String id, DependingOnDtls dtls, DependingOnDtls dtlsCopy) {
+		if (dtls == null) {
+			assertNull(id, dtlsCopy);
+		} else {
+			assertNotNull(id, dtlsCopy);
+			assertEquals(id, dtls.index, dtlsCopy.index);
+			assertEquals(id, dtls.dependingOn.getVariableName(), dtlsCopy.dependingOn.getVariableName());
+			assertEquals(id, dtls.dependingOn.getPosition(), dtlsCopy.dependingOn.getPosition());
+			assertEquals(id, dtls.dependingOn.getOccursMax(), dtlsCopy.dependingOn.getOccursMax());
+			checkDtls(id, dtls.parent, dtlsCopy.parent);
+		}
+	}
+}
@@ -0,0 +1,161 @@
+/*  -------------------------------------------------------------------------
+ *
+ *                Project: JRecord
+ *    
+ *    Sub-Project purpose: Provide support for reading Cobol-Data files 
+ *                        using a Cobol Copybook in Java.
+ *                         Support for reading Fixed Width / Binary / Csv files
+ *                        using a Xml schema.
+ *                         General Fixed Width / Csv file processing in Java.
+ *    
+ *                 Author: Bruce Martin
+ *    
+ *                License: LGPL 2.1 or latter
+ *                
+ *    Copyright (c) 2016, Bruce Martin, All Rights Reserved.
+ *   
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation; either
+ *    version 2.1 of the License, or (at your option) any later version.
+ *   
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU Lesser General Public License for more details.
+ *
+ * ------------------------------------------------------------------------ */
+
+package net.sf.JRecord.zTest.Types;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import junit.framework.TestCase;
+import net.sf.JRecord.Common.FieldDetail;
+import net.sf.JRecord.Common.RecordException;
+import net.sf.JRecord.Types.Type;
+import net.sf.JRecord.Types.TypeManager;
+
+/**
+ * Check the long based binary field conversion against
+ * BigInteger calculated values
+ *
+ * @author Bruce Martin
+ *
+ */
+public class TstBinaryLong extends TestCase {
+
+	private static final int[] SIGNED_TYPES = {Type.ftBinaryBigEndian, Type.ftBinaryInt};
+	private static final int[] UNSIGNED_TYPES = {Type.ftPositiveBinaryBigEndian, Type.ftPostiveBinaryInt};
+
+	private TypeManager typeManager = TypeManager.getInstance();
+	private Random random = new Random(1234);
+
+	public void testSigned() {
+		for (int typeId : SIGNED_TYPES) {
+			for (int len = 1; len <= 12; len++) {
+				BigInteger max = BigInteger.ONE.shiftLeft(len * 8 - 1);
+				check(typeId, len, BigInteger.ZERO);
+				check(typeId, len, max.subtract(BigInteger.ONE));
+				check(typeId, len, max.negate());
+				for (int i = 0; i < 200; i++) {
+					check(typeId, len, new BigInteger(len * 8 - 1, random));
+					check(typeId, len, new BigInteger(len * 8 - 1, random).negate());
+				}
+				checkToBig(typeId, len, max);
+				checkToBig(typeId, len, max.negate().subtract(BigInteger.ONE));
+			}
+		}
+	}
+
+	public void testUnsigned() {
+		for (int typeId : UNSIGNED_TYPES) {
+			for (int len = 1; len <= 12; len++) {
+				BigInteger max = BigInteger.ONE.shiftLeft(len * 8);
+				check(typeId, len, BigInteger.ZERO);
+				check(typeId, len, max.subtract(BigInteger.ONE));
+				for (int i = 0; i < 200; i++) {
+					check(typeId, len, new BigInteger(len * 8, random));
+				}
+				checkToBig(typeId, len, max);
+			}
+		}
+	}
+
+	public void testDecimal() {
+		FieldDetail fld = getField(Type.ftBinaryBigEndian, 4, 2);
+		Type type = typeManager.getType(Type.ftBinaryBigEndian);
+		byte[] rec = new byte[6];
+
+		type.setField(rec, 2, fld, Long.valueOf(-123));
+		assertEquals("-123.00", type.getField(rec, 2, fld).toString());
+		assertEquals(BigInteger.valueOf(-12300), getValue(rec, 1, 4, true, false));
+
+		type.setField(rec, 2, fld, Integer.valueOf(5));
+		assertEquals("5.00", type.getField(rec, 2, fld).toString());
+	}
+
+	private void check(int typeId, int len, BigInteger value) {
+		FieldDetail fld = getField(typeId, len, 0);
+		Type type = typeManager.getType(typeId);
+		boolean bigEndian = typeId == Type.ftBinaryBigEndian || typeId == Type.ftPositiveBinaryBigEndian;
+		boolean unsigned = typeId == Type.ftPositiveBinaryBigEndian || typeId == Type.ftPostiveBinaryInt;
+		byte[] rec = new byte[len + 2];
+		String id = typeId + " " + len + " " + value;
+
+		rec[0] = 11;
+		rec[len + 1] = 12;
+
+		if (value.bitLength() < 64) {
+			type.setField(rec, 2, fld, Long.valueOf(value.longValue()));
+			assertEquals(id, value, getValue(rec, 1, len, bigEndian, unsigned));
+			assertEquals(id, value.toString(), type.getField(rec, 2, fld).toString());
+		}
+
+		type.setField(rec, 2, fld, value);
+		assertEquals(id, value, getValue(rec, 1, len, bigEndian, unsigned));
+		assertEquals(id, value.toString(), type.getField(rec, 2, fld).toString());
+
+		type.setField(rec, 2, fld, value.toString());
+		assertEquals(id, value, getValue(rec, 1, len, bigEndian, unsigned));
+		assertEquals(id, 11, rec[0]);
+		assertEquals(id, 12, rec[len + 1]);
+	}
+
+	private void checkToBig(int typeId, int len, BigInteger value) {
+		FieldDetail fld = getField(typeId, len, 0);
+		Type type = typeManager.getType(typeId);
+		byte[] rec = new byte[len + 2];
+
+		try {
+			type.setField(rec, 2, fld, value);
+			fail(typeId + " " + len + " " + value + " should be to big");
+		} catch (RecordException e) {
+		}
+		if (value.bitLength() < 64) {
+			try {
+				type.setField(rec, 2, fld, Long.valueOf(value.longValue()));
+				fail(typeId + " " + len + " " + value + " should be to big");
+			} catch (RecordException e) {
+			}
+		}
+	}
+
+	private BigInteger getValue(byte[] rec, int start, int len, boolean bigEndian, boolean unsigned) {
+		byte[] bytes = new byte[len];
+		for (int i = 0; i < len; i++) {
+			bytes[i] = bigEndian ? rec[start + i] : rec[start + len - i - 1];
+		}
+		return unsigned ? new BigInteger(1, bytes) : new BigInteger(bytes);
+	}
+
+	private FieldDetail getField(int type, int len, int decimal) {
+
+		FieldDetail field = new FieldDetail("", "", type, decimal, "", -1, "");
+
+		field.setPosLen(2, len);
+
+		return field;
+	}
+}
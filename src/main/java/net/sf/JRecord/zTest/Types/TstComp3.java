@@ -28,6 +28,9 @@
 
 package net.sf.JRecord.zTest.Types;
 
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
 import net.sf.JRecord.Common.FieldDetail;
 import net.sf.JRecord.Common.RecordException;
 import net.sf.JRecord.Types.Type;
@@ -83,6 +86,30 @@ public class TstComp3 extends TestCase {
 		assertEquals(toHex(expected), toHex(t.setField(record, 1, f, val)));
 	}
 	
+	/**
+	 * Positive packed fields must reject negative values, including values
+	 * that round to zero (e.g. -0.5)
+	 */
+	public void testPositiveOnly() throws RecordException {
+		Object[] values = {"-1", "-0.5", Integer.valueOf(-1), Double.valueOf(-0.5),
+				new BigDecimal("-0.5"), new BigDecimal("-0.001"), new BigInteger("-1")};
+
+		for (int decimal = 0; decimal < 3; decimal += 2) {
+			TypeNum t = (TypeNum) TypeManager.getInstance().getType(Type.ftPackedDecimalPostive);
+			FieldDetail f = new FieldDetail("", "", Type.ftPackedDecimalPostive, decimal, "", 0, "");
+			f.setPosLen(1, 3);
+
+			for (Object v : values) {
+				try {
+					t.setField(new byte[3], 1, f, v);
+					fail("Negative value " + v + " accepted, decimal=" + decimal);
+				} catch (RecordException e) {
+				}
+			}
+			assertEquals("00000f", toHex(t.setField(new byte[3], 1, f, new BigDecimal("0.001"))));
+		}
+	}
+
 	public void testSetGet() throws RecordException {
 		tstSetGet(Type.ftPackedDecimal, 1, "c");
 		tstSetGet(Type.ftPackedDecimal, -1, "d");
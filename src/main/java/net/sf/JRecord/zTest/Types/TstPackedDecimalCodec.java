@@ -0,0 +1,198 @@
+/*  -------------------------------------------------------------------------
+ *
+ *                Project: JRecord
+ *    
+ *    Sub-Project purpose: Provide support for reading Cobol-Data files 
+ *                        using a Cobol Copybook in Java.
+ *                         Support for reading Fixed Width / Binary / Csv files
+ *                        using a Xml schema.
+ *                         General Fixed Width / Csv file processing in Java.
+ *    
+ *                 Author: Bruce Martin
+ *    
+ *                License: LGPL 2.1 or latter
+ *                
+ *    Copyright (c) 2016, Bruce Martin, All Rights Reserved.
+ *   
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation; either
+ *    version 2.1 of the License, or (at your option) any later version.
+ *   
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU Lesser General Public License for more details.
+ *
+ * ------------------------------------------------------------------------ */
+
+package net.sf.JRecord.zTest.Types;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Hashtable;
+
+import junit.framework.TestCase;
+import net.sf.JRecord.Common.Conversion;
+import net.sf.cb2xml.Cb2Xml;
+import net.sf.cb2xml.convert.HashtableToMainframe;
+import net.sf.cb2xml.convert.MainframeToXml;
+import net.sf.cb2xml.util.PackedDecimal;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+/**
+ * Check the Packed Decimal codec against the old
+ * hex-string based conversion
+ *
+ * @author Bruce Martin
+ *
+ */
+public class TstPackedDecimalCodec extends TestCase {
+
+	private static final long[] VALUES = {
+		0, 1, 9, 10, 99, 100, 12345, 999999, 1234567890123L,
+		999999999999999999L, Long.MAX_VALUE,
+	};
+
+	public void testLong() {
+		for (int len = 1; len <= 12; len++) {
+			for (long v : VALUES) {
+				check(len, v);
+				check(len, -v);
+			}
+		}
+		check(10, Long.MIN_VALUE);
+	}
+
+	public void testBigInteger() {
+		BigInteger v = new BigInteger("1234567890123456789012345678901234567");
+
+		for (int len = 19; len <= 24; len++) {
+			byte[] rec = new byte[len + 2];
+			assertTrue(PackedDecimal.setBigInteger(rec, 1, len, v, false));
+			assertEquals(v, PackedDecimal.getBigInteger(rec, 1, len));
+			assertEquals(PackedDecimal.NOT_A_LONG, PackedDecimal.getLong(rec, 1, len));
+			assertEquals(hexValue(rec, 1, len, v.signum() < 0, false), v.toString());
+
+			assertTrue(PackedDecimal.setBigInteger(rec, 1, len, v.negate(), false));
+			assertEquals(v.negate(), PackedDecimal.getBigInteger(rec, 1, len));
+			assertEquals(new BigDecimal(v.negate(), 3), PackedDecimal.getBigDecimal(rec, 1, len, 3));
+		}
+
+		assertFalse(PackedDecimal.setBigInteger(new byte[18], 0, 18, v, false));
+	}
+
+	public void testSigns() {
+		byte[] rec = {0x12, 0x3C, 0x12, 0x3D, 0x12, 0x3F, 0x12, 0x3B, 0x12, 0x3A, 0x12, 0x3E,};
+
+		assertEquals(123, PackedDecimal.getLong(rec, 0, 2));
+		assertEquals(-123, PackedDecimal.getLong(rec, 2, 2));
+		assertEquals(123, PackedDecimal.getLong(rec, 4, 2));
+		assertEquals(-123, PackedDecimal.getLong(rec, 6, 2));
+		assertEquals(123, PackedDecimal.getLong(rec, 8, 2));
+		assertEquals(123, PackedDecimal.getLong(rec, 10, 2));
+	}
+
+	public void testInvalid() {
+		byte[][] invalid = {
+				{0x12, 0x34},
+				{0x00, 0x00},
+				{0x40, 0x40},
+				{0x1A, 0x3C},
+				{(byte) 0xA1, 0x3C},
+				{0x12, (byte) 0xAC},
+		};
+
+		for (byte[] rec : invalid) {
+			assertFalse(PackedDecimal.isValid(rec, 0, rec.length));
+			assertEquals(PackedDecimal.NOT_A_LONG, PackedDecimal.getLong(rec, 0, rec.length));
+			assertNull(PackedDecimal.getBigInteger(rec, 0, rec.length));
+		}
+
+		assertEquals("1234", Conversion.getMainframePackedDecimal(invalid[0], 0, 2));
+	}
+
+	public void testToBig() {
+		byte[] rec = {1, 2, 3, 4};
+		byte[] expected = rec.clone();
+
+		assertFalse(PackedDecimal.setLong(rec, 1, 2, 1000, false));
+		assertFalse(PackedDecimal.setLong(rec, 1, 2, -1000, false));
+		assertTrue(Arrays.equals(expected, rec));
+
+		assertTrue(PackedDecimal.setLong(rec, 1, 2, -999, false));
+		assertEquals(-999, PackedDecimal.getLong(rec, 1, 2));
+		assertEquals(1, rec[0]);
+		assertEquals(4, rec[3]);
+	}
+
+	public void testCb2xmlConvert() {
+		String copybook
+				= "       01 rec.\n"
+				+ "          05 fld1   pic s9(5)v99 comp-3.\n"
+				+ "          05 fld2   pic 9(3) comp-3.\n";
+		Document copybookXml = Cb2Xml.convertToXMLDOM(
+				new ByteArrayInputStream(copybook.getBytes()), "Copybook", false, 6, 72);
+		Hashtable<String, String> values = new Hashtable<String, String>();
+		values.put("/copybook/rec/fld1", "-123.45");
+		values.put("/copybook/rec/fld2", "12");
+
+		String mainframe = new HashtableToMainframe().convert(values, copybookXml);
+		assertEquals(6, mainframe.length());
+		assertEquals(0x12, mainframe.charAt(1));
+		assertEquals(0x5D, mainframe.charAt(3));
+		assertEquals(0x2F, mainframe.charAt(5));
+
+		Document result = new MainframeToXml().convert(mainframe, copybookXml);
+		Element rec = (Element) result.getDocumentElement().getElementsByTagName("rec").item(0);
+		assertEquals("-123.45", rec.getElementsByTagName("fld1").item(0).getTextContent());
+		assertEquals("12", rec.getElementsByTagName("fld2").item(0).getTextContent());
+	}
+
+	private void check(int len, long v) {
+		byte[] rec = new byte[len + 2];
+		int digits = PackedDecimal.getDigits(len);
+		String id = len + " " + v;
+
+		Arrays.fill(rec, (byte) 0x55);
+		boolean fits = digits >= 19 || BigInteger.valueOf(v).abs().compareTo(BigInteger.TEN.pow(digits)) < 0;
+
+		assertEquals(id, fits, PackedDecimal.setLong(rec, 1, len, v, false));
+		if (! fits) {
+			return;
+		}
+		assertEquals(id, 0x55, rec[0]);
+		assertEquals(id, 0x55, rec[len + 1]);
+		assertTrue(id, PackedDecimal.isValid(rec, 1, len));
+
+		if (v == Long.MIN_VALUE) {
+			assertEquals(id, PackedDecimal.NOT_A_LONG, PackedDecimal.getLong(rec, 1, len));
+		} else {
+			assertEquals(id, v, PackedDecimal.getLong(rec, 1, len));
+		}
+		assertEquals(id, BigInteger.valueOf(v), PackedDecimal.getBigInteger(rec, 1, len));
+		assertEquals(id, Long.toString(v), hexValue(rec, 1, len, v < 0, false));
+
+		if (v >= 0) {
+			assertTrue(PackedDecimal.setLong(rec, 1, len, v, true));
+			assertEquals(id, 0x0F, rec[len] & 0x0F);
+			assertEquals(id, Long.toString(v), hexValue(rec, 1, len, false, true));
+		}
+	}
+
+	/**
+	 * Convert via the hex string (as the old code did)
+	 */
+	private String hexValue(byte[] rec, int start, int len, boolean negative, boolean unsigned) {
+		String hex = Conversion.getDecimal(rec, start, start + len);
+		char sign = negative ? 'd' : (unsigned ? 'f' : 'c');
+
+		assertEquals(sign, hex.charAt(hex.length() - 1));
+		String s = new BigInteger(hex.substring(0, hex.length() - 1)).toString();
+		return negative ? "-" + s : s;
+	}
+}
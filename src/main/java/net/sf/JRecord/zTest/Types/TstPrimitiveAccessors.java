@@ -0,0 +1,176 @@
+/*  -------------------------------------------------------------------------
+ *
+ *                Project: JRecord
+ *    
+ *    Sub-Project purpose: Provide support for reading Cobol-Data files 
+ *                        using a Cobol Copybook in Java.
+ *                         Support for reading Fixed Width / Binary / Csv files
+ *                        using a Xml schema.
+ *                         General Fixed Width / Csv file processing in Java.
+ *    
+ *                 Author: Bruce Martin
+ *    
+ *                License: LGPL 2.1 or latter
+ *                
+ *    Copyright (c) 2016, Bruce Martin, All Rights Reserved.
+ *   
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation; either
+ *    version 2.1 of the License, or (at your option) any later version.
+ *   
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU Lesser General Public License for more details.
+ *
+ * ------------------------------------------------------------------------ */
+
+package net.sf.JRecord.zTest.Types;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+import net.sf.JRecord.JRecordInterface1;
+import net.sf.JRecord.Common.IFieldDetail;
+import net.sf.JRecord.Common.RecordException;
+import net.sf.JRecord.Details.AbstractLine;
+import net.sf.JRecord.Details.LayoutDetail;
+import net.sf.JRecord.Details.Line;
+import net.sf.JRecord.Numeric.ICopybookDialects;
+import net.sf.JRecord.Types.IPrimitiveType;
+import net.sf.JRecord.Types.TypeManager;
+
+/**
+ * Check the primitive (long / double / BigDecimal) field accessors
+ * return the same values as the standard (String based) conversion
+ *
+ * @author Bruce Martin
+ *
+ */
+public class TstPrimitiveAccessors extends TestCase {
+
+	private static final String CPYBOOK
+				= "         01 rec.\n"
+				+ "            05 pd1                pic s9(7)v99 comp-3.\n"
+				+ "            05 pd2                pic 9(5) comp-3.\n"
+				+ "            05 pd3                pic s9(18) comp-3.\n"
+				+ "            05 bin1               pic s9(4) comp.\n"
+				+ "            05 bin2               pic 9(8)v99 comp.\n"
+				+ "            05 bin3               pic s9(17)v9 comp.\n"
+				+ "            05 zoned              pic s9(5)v99.\n";
+
+	private static final String[] NAMES = {"pd1", "pd2", "pd3", "bin1", "bin2", "bin3", "zoned"};
+	private static final boolean[] PRIMITIVE = {true, true, true, true, true, true, true};
+	private static final long[] VALUES = {
+		0, 1, 7, 9, 10, 99, 1234, 9999, 12345, 99999,
+		-1, -9, -10, -1234, -9999, -12345,
+	};
+
+	public void testMainframe() throws IOException {
+		check(ICopybookDialects.FMT_MAINFRAME);
+	}
+
+	public void testIntel() throws IOException {
+		check(ICopybookDialects.FMT_INTEL);
+	}
+
+	private void check(int dialect) throws IOException {
+		LayoutDetail schema = getLayout(dialect);
+		Line line = new Line(schema);
+		Line stdLine = new Line(schema);
+
+		for (int i = 0; i < NAMES.length; i++) {
+			IFieldDetail fld = schema.getFieldFromName(NAMES[i]);
+			assertEquals(NAMES[i], PRIMITIVE[i],
+					TypeManager.getSystemTypeManager().getType(fld.getType()) instanceof IPrimitiveType);
+
+			for (long v : VALUES) {
+				if (v < 0 && (NAMES[i].equals("pd2") || NAMES[i].equals("bin2"))) {
+					checkError(line, stdLine, fld, v);
+				} else if (Math.abs(v) < 10000 || ! NAMES[i].equals("bin1")) {
+					checkValue(line, stdLine, fld, v);
+				}
+			}
+		}
+		checkValue(line, stdLine, schema.getFieldFromName("pd3"), 999999999999999999L);
+		checkValue(line, stdLine, schema.getFieldFromName("pd3"), -999999999999999999L);
+		checkValue(line, stdLine, schema.getFieldFromName("bin3"), 99999999999999999L);
+		checkValue(line, stdLine, schema.getFieldFromName("bin3"), -99999999999999999L);
+		checkValue(line, stdLine, schema.getFieldFromName("bin1"), -32768);
+
+		checkError(line, stdLine, schema.getFieldFromName("pd2"), 100000);
+		checkError(line, stdLine, schema.getFieldFromName("bin1"), 32768);
+	}
+
+	/**
+	 * Set the field using both the primitive and the standard
+	 * methods, the record and retrieved values should be the same
+	 */
+	@SuppressWarnings("deprecation")
+	private void checkValue(Line line, Line stdLine, IFieldDetail fld, long v) {
+		String id = fld.getName() + " " + v;
+
+		stdLine.setData(line.getData().clone());
+		line.getFieldValue(fld).set(v);
+		stdLine.setField(fld, Long.valueOf(v));
+		assertTrue(id, Arrays.equals(stdLine.getData(), line.getData()));
+
+		String s = stdLine.getField(fld).toString();
+		BigDecimal expected = new BigDecimal(s);
+
+		assertEquals(id, v, line.getFieldValue(fld).asLong());
+		assertEquals(id, (int) v, line.getFieldValue(fld).asInt());
+		assertEquals(id, Double.parseDouble(s), line.getFieldValue(fld).asDouble());
+		assertEquals(id, expected, line.getFieldValue(fld).asBigDecimal());
+		assertEquals(id, expected, line.getFieldBigDecimal(fld));
+		assertEquals(id, v, line.getFieldLong(fld));
+
+		if (fld.getDecimal() > 0) {
+			checkFraction(line, fld, v, BigDecimal.valueOf(v).movePointRight(fld.getDecimal()).longValue() + (v < 0 ? -7 : 7));
+		}
+	}
+
+	/**
+	 * Check a value with decimal places, asLong should truncate the value
+	 */
+	@SuppressWarnings("deprecation")
+	private void checkFraction(AbstractLine line, IFieldDetail fld, long v, long unscaled) {
+		String id = fld.getName() + " " + unscaled;
+
+		line.setField(fld, BigDecimal.valueOf(unscaled, fld.getDecimal()));
+		String s = line.getField(fld).toString();
+
+		assertEquals(id, BigDecimal.valueOf(unscaled, fld.getDecimal()), line.getFieldValue(fld).asBigDecimal());
+		assertEquals(id, new BigDecimal(s), line.getFieldBigDecimal(fld));
+		assertEquals(id, Double.parseDouble(s), line.getFieldValue(fld).asDouble());
+		assertEquals(id, new BigDecimal(s).longValue(), line.getFieldValue(fld).asLong());
+		assertEquals(id, v, line.getFieldLong(fld));
+	}
+
+	@SuppressWarnings("deprecation")
+	private void checkError(Line line, Line stdLine, IFieldDetail fld, long v) {
+		byte[] before = line.getData().clone();
+		try {
+			line.getFieldValue(fld).set(v);
+			fail(fld.getName() + " " + v + " should fail");
+		} catch (RecordException e) {
+		}
+		try {
+			stdLine.setField(fld, Long.valueOf(v));
+			fail(fld.getName() + " " + v + " should fail");
+		} catch (RecordException e) {
+		}
+		assertTrue(Arrays.equals(before, line.getData()));
+	}
+
+	private LayoutDetail getLayout(int dialect) throws IOException {
+		return JRecordInterface1.COBOL
+				.newIOBuilder(new ByteArrayInputStream(CPYBOOK.getBytes()), "Copybook")
+					.setDialect(dialect)
+				.getLayout();
+	}
+}
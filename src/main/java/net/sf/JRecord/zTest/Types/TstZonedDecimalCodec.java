@@ -0,0 +1,251 @@
+/*  -------------------------------------------------------------------------
+ *
+ *                Project: JRecord
+ *    
+ *    Sub-Project purpose: Provide support for reading Cobol-Data files 
+ *                        using a Cobol Copybook in Java.
+ *                         Support for reading Fixed Width / Binary / Csv files
+ *                        using a Xml schema.
+ *                         General Fixed Width / Csv file processing in Java.
+ *    
+ *                 Author: Bruce Martin
+ *    
+ *                License: LGPL 2.1 or latter
+ *                
+ *    Copyright (c) 2016, Bruce Martin, All Rights Reserved.
+ *   
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation; either
+ *    version 2.1 of the License, or (at your option) any later version.
+ *   
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU Lesser General Public License for more details.
+ *
+ * ------------------------------------------------------------------------ */
+
+package net.sf.JRecord.zTest.Types;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Random;
+
+import junit.framework.TestCase;
+import net.sf.JRecord.Common.Conversion;
+import net.sf.JRecord.Common.FieldDetail;
+import net.sf.JRecord.Common.ZonedDecimal;
+import net.sf.JRecord.Types.IPrimitiveType;
+import net.sf.JRecord.Types.Type;
+import net.sf.JRecord.Types.TypeManager;
+
+/**
+ * Check the byte level Zoned Decimal / Sign Separate conversion
+ * against the String based conversion
+ *
+ * @author Bruce Martin
+ *
+ */
+public class TstZonedDecimalCodec extends TestCase {
+
+	private static final int[] TYPES = {
+		Type.ftZonedNumeric, Type.ftFjZonedNumeric, Type.ftGnuCblZonedNumeric,
+		Type.ftSignSeparateLead, Type.ftSignSeparateTrail,
+		Type.ftSignSepLeadActualDecimal, Type.ftSignSepTrailActualDecimal,
+	};
+	private static final String[] FONTS = {"", "cp037", "cp1252"};
+
+	private static final long[] VALUES = {
+		0, 1, 9, 10, 99, 100, 12345, 999999, 1234567890123L,
+		999999999999999999L, Long.MAX_VALUE,
+	};
+
+	private TypeManager typeManager = TypeManager.getInstance();
+	private Random random = new Random(4321);
+
+	/**
+	 * Values written as a Long (byte level) and as a BigDecimal (String conversion)
+	 * must give the same bytes and read back as the same value
+	 */
+	public void testSetGet() {
+		for (String font : FONTS) {
+			for (int typeId : TYPES) {
+				for (int len = 2; len <= 21; len++) {
+					for (int decimal = 0; decimal < 3; decimal++) {
+						for (long v : VALUES) {
+							check(typeId, font, len, decimal, v);
+							check(typeId, font, len, decimal, -v);
+						}
+						for (int i = 0; i < 20; i++) {
+							check(typeId, font, len, decimal, random.nextLong() % 1000000000L);
+						}
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Check the sign over-punch characters of each of the dialects
+	 */
+	public void testSigns() {
+		assertEquals(ZonedDecimal.EBCDIC, ZonedDecimal.getDialect("cp037", false));
+		assertEquals(ZonedDecimal.UNSUPPORTED, ZonedDecimal.getDialect("cp037", true));
+		assertEquals(ZonedDecimal.ASCII, ZonedDecimal.getDialect("ISO-8859-1", false));
+		assertEquals(ZonedDecimal.ASCII_FUJITSU, ZonedDecimal.getDialect("UTF-8", true));
+		assertEquals(ZonedDecimal.UNSUPPORTED, ZonedDecimal.getDialect("UTF-16BE", false));
+
+		checkBytes(ZonedDecimal.EBCDIC, new byte[] {(byte) 0xF1, (byte) 0xF2, (byte) 0xC3}, 123);
+		checkBytes(ZonedDecimal.EBCDIC, new byte[] {(byte) 0xF1, (byte) 0xF2, (byte) 0xF3}, 123);
+		checkBytes(ZonedDecimal.EBCDIC, new byte[] {(byte) 0xF1, (byte) 0xF2, (byte) 0xD3}, -123);
+		checkBytes(ZonedDecimal.EBCDIC, new byte[] {(byte) 0xF1, (byte) 0xF2, (byte) 0xB3}, -123);
+		checkBytes(ZonedDecimal.EBCDIC, new byte[] {(byte) 0xF1, (byte) 0x40, (byte) 0xC3}, ZonedDecimal.NOT_A_LONG);
+		checkBytes(ZonedDecimal.EBCDIC, new byte[] {(byte) 0xF1, (byte) 0xF2, (byte) 0x43}, ZonedDecimal.NOT_A_LONG);
+
+		checkAscii(ZonedDecimal.ASCII, "12{", 120);
+		checkAscii(ZonedDecimal.ASCII, "12C", 123);
+		checkAscii(ZonedDecimal.ASCII, "12c", 123);
+		checkAscii(ZonedDecimal.ASCII, "12}", -120);
+		checkAscii(ZonedDecimal.ASCII, "12L", -123);
+		checkAscii(ZonedDecimal.ASCII, "123", 123);
+		checkAscii(ZonedDecimal.ASCII, " 23", ZonedDecimal.NOT_A_LONG);
+
+		checkAscii(ZonedDecimal.ASCII_FUJITSU, "12@", 120);
+		checkAscii(ZonedDecimal.ASCII_FUJITSU, "12C", 123);
+		checkAscii(ZonedDecimal.ASCII_FUJITSU, "12P", -120);
+		checkAscii(ZonedDecimal.ASCII_FUJITSU, "12S", -123);
+		checkAscii(ZonedDecimal.ASCII_FUJITSU, "12s", -123);
+		checkAscii(ZonedDecimal.ASCII_FUJITSU, "12}", ZonedDecimal.NOT_A_LONG);
+
+		for (long v : VALUES) {
+			String s = Long.toString(v);
+			checkAscii(ZonedDecimal.ASCII, Conversion.toZoned(s), v);
+			checkAscii(ZonedDecimal.ASCII, Conversion.toZoned("-" + s), -v);
+			assertEquals(0, new BigDecimal(Conversion.fromZoned(Conversion.toZoned("-" + s))).compareTo(
+					ZonedDecimal.getBigDecimal(Conversion.getBytes(Conversion.toZoned("-" + s), ""),
+							0, s.length(), ZonedDecimal.ASCII, 0)));
+		}
+	}
+
+	/**
+	 * Fields that are too long for a long are returned as a BigDecimal
+	 */
+	public void testBigDecimal() {
+		String digits = "1234567890123456789012345678901234567";
+		byte[] rec = Conversion.getBytes(Conversion.toZoned("-" + digits), "cp037");
+
+		assertEquals(ZonedDecimal.NOT_A_LONG, ZonedDecimal.getLong(rec, 0, rec.length, ZonedDecimal.EBCDIC));
+		assertEquals(new BigDecimal("-12345678901234567890123456789012345.67"),
+				ZonedDecimal.getBigDecimal(rec, 0, rec.length, ZonedDecimal.EBCDIC, 2));
+
+		rec = Conversion.getBytes("-" + digits.substring(0, 30) + "." + digits.substring(30), "");
+		assertEquals(new BigDecimal("-" + digits.substring(0, 30) + "." + digits.substring(30)),
+				ZonedDecimal.getSignSeparateBigDecimal(rec, 0, rec.length, ZonedDecimal.ASCII, true, 0));
+		assertNull(ZonedDecimal.getSignSeparateBigDecimal(rec, 0, rec.length, ZonedDecimal.ASCII, false, 0));
+	}
+
+	/**
+	 * Actual decimal points and invalid data in Sign Separate fields
+	 */
+	public void testSignSeparate() {
+		checkText(Type.ftSignSepLeadActualDecimal, "-012.30", 2, "-12.30");
+		checkText(Type.ftSignSepLeadActualDecimal, "+000.05", 2, "0.05");
+		checkText(Type.ftSignSepTrailActualDecimal, "012.30-", 2, "-12.30");
+		checkText(Type.ftSignSepTrailActualDecimal, "0001230", 2, "12.30");
+		checkText(Type.ftSignSeparateLead, "-001234", 2, "-12.34");
+		checkText(Type.ftSignSeparateTrail, "001234+", 0, "1234");
+		checkText(Type.ftSignSeparateTrail, "  1234+", 0, "1234");
+		checkText(Type.ftSignSeparateLead, "+1.2.34", 0, "1.2.34");
+
+		byte[] rec = Conversion.getBytes("-12.", "");
+		assertEquals(ZonedDecimal.NOT_A_LONG, ZonedDecimal.getSignSeparateLong(rec, 0, 4, ZonedDecimal.ASCII, true));
+	}
+
+	private void check(int typeId, String font, int len, int decimal, long value) {
+		FieldDetail fld = getField(typeId, font, len, decimal);
+		Type type = typeManager.getType(typeId);
+		BigDecimal bigValue = BigDecimal.valueOf(value);
+		String id = typeId + " " + font + " " + len + " " + decimal + " " + value;
+		byte[] rec1 = new byte[len + 2];
+		byte[] rec2 = new byte[len + 2];
+		boolean ok1 = true, ok2 = true;
+
+		Arrays.fill(rec1, (byte) 11);
+		Arrays.fill(rec2, (byte) 11);
+
+		try {
+			type.setField(rec1, 2, fld, Long.valueOf(value));
+		} catch (Exception e) {
+			ok1 = false;
+		}
+		try {
+			type.setField(rec2, 2, fld, bigValue);
+		} catch (Exception e) {
+			ok2 = false;
+		}
+
+		assertEquals(id, ok2, ok1);
+		if (ok1) {
+			assertEquals(id, Arrays.toString(rec2), Arrays.toString(rec1));
+			assertEquals(id, 11, rec1[0]);
+			assertEquals(id, 11, rec1[len + 1]);
+
+			String s = type.getField(rec1, 2, fld).toString();
+			assertEquals(id + " " + s, 0, bigValue.compareTo(new BigDecimal(s)));
+		}
+
+		if (type instanceof IPrimitiveType && ((IPrimitiveType) type).isPrimitiveSupported(fld)) {
+			IPrimitiveType pType = (IPrimitiveType) type;
+			byte[] rec3 = new byte[len + 2];
+			Arrays.fill(rec3, (byte) 11);
+			try {
+				pType.setUnscaledValue(rec3, 2, fld, value);
+			} catch (Exception e) {
+				return;
+			}
+			String s = type.getField(rec3, 2, fld).toString();
+			assertEquals(id + " " + s, 0, BigDecimal.valueOf(value, decimal).compareTo(new BigDecimal(s)));
+			try {
+				assertEquals(id, value, pType.getUnscaledValue(rec3, 2, fld));
+			} catch (NumberFormatException e) {
+				assertTrue(id, Math.abs(value) > 999999999999999999L);
+			}
+		}
+	}
+
+	private void checkAscii(int dialect, String s, long expected) {
+		checkBytes(dialect, Conversion.getBytes(s, ""), expected);
+	}
+
+	private void checkBytes(int dialect, byte[] b, long expected) {
+		byte[] rec = new byte[b.length + 2];
+		System.arraycopy(b, 0, rec, 1, b.length);
+
+		assertEquals(dialect + " " + Arrays.toString(b), expected, ZonedDecimal.getLong(rec, 1, b.length, dialect));
+
+		if (expected != ZonedDecimal.NOT_A_LONG) {
+			byte[] rec1 = new byte[b.length + 2];
+			assertTrue(ZonedDecimal.setLong(rec1, 1, b.length, expected, dialect, true));
+			assertEquals(expected, ZonedDecimal.getLong(rec1, 1, b.length, dialect));
+			assertEquals(0, rec1[0]);
+			assertEquals(0, rec1[b.length + 1]);
+		}
+	}
+
+	private void checkText(int typeId, String text, int decimal, String expected) {
+		FieldDetail fld = getField(typeId, "", text.length(), decimal);
+		byte[] rec = Conversion.getBytes(" " + text, "");
+
+		assertEquals(text, expected, typeManager.getType(typeId).getField(rec, 2, fld).toString());
+	}
+
+	private FieldDetail getField(int type, String font, int len, int decimal) {
+
+		FieldDetail field = new FieldDetail("", "", type, decimal, font, -1, "");
+
+		field.setPosLen(2, len);
+
+		return field;
+	}
+}
@@ -0,0 +1,250 @@
+package net.sf.JRecord.zTest.hadoop;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+import net.sf.JRecord.JRecordInterface1;
+import net.sf.JRecord.ByteIO.AbstractByteReader;
+import net.sf.JRecord.ByteIO.AbstractByteWriter;
+import net.sf.JRecord.ByteIO.ByteIOProvider;
+import net.sf.JRecord.ByteIO.FixedLengthByteReader;
+import net.sf.JRecord.Common.Constants;
+import net.sf.JRecord.Details.AbstractLine;
+import net.sf.JRecord.Details.LayoutDetail;
+import net.sf.JRecord.Details.Line;
+import net.sf.JRecord.IO.AbstractLineReader;
+import net.sf.JRecord.IO.AbstractLineWriter;
+import net.sf.JRecord.IO.LineIOProvider;
+import net.sf.JRecord.hadoop.AbstractCobolOutputFormat;
+import net.sf.JRecord.hadoop.CobolLineOutputFormat;
+import net.sf.JRecord.hadoop.CobolOutputFormat;
+import net.sf.JRecord.hadoop.JRecordConfiguration;
+import net.sf.JRecord.zTest.Common.TstConstants;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.BytesWritable;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.io.compress.BZip2Codec;
+import org.apache.hadoop.io.compress.CompressionCodec;
+import org.apache.hadoop.io.compress.GzipCodec;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.RecordWriter;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.TaskAttemptID;
+import org.apache.hadoop.mapreduce.TaskType;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
+import org.apache.hadoop.mapreduce.task.TaskAttemptContextImpl;
+
+/**
+ * Write files with CobolOutputFormat / CobolLineOutputFormat (with and without
+ * output compression) and the writers open(Path, Configuration); then read them
+ * back and check the records are unchanged
+ *
+ * @author Bruce Martin
+ *
+ */
+public class TstCobolOutputFormat extends TestCase {
+
+	private static final String OUTPUT_DIRECTORY = TstConstants.TEMP_DIRECTORY + "CobolOutputFormat";
+
+	private static final String COPYBOOK =
+			  "          01  Rec.\n"
+			+ "              03  Rec-Key      pic x(8).\n"
+			+ "              03  Amount       pic s9(7)v99 comp-3.\n"
+			+ "              03  Qty          pic s9(4) comp.\n"
+			+ "              03  Description  pic x(20).\n";
+
+	private static final int RECORD_LENGTH = 35;
+	private static final int RECORD_COUNT = 500;
+
+	@SuppressWarnings("unchecked")
+	private static final Class<? extends CompressionCodec>[] CODECS = new Class[] {
+		null, GzipCodec.class, BZip2Codec.class
+	};
+
+	public void testCobolOutputFormat() throws IOException, InterruptedException {
+		int[] fileOrganizations = {Constants.IO_FIXED_LENGTH, Constants.IO_VB, Constants.IO_VB_DUMP};
+		List<byte[]> records = getRecords();
+
+		for (int fileOrganization : fileOrganizations) {
+			for (Class<? extends CompressionCodec> codec : CODECS) {
+				TaskAttemptContext context = getContext(fileOrganization, codec);
+				CobolOutputFormat<NullWritable> format = new CobolOutputFormat<NullWritable>();
+				RecordWriter<NullWritable, BytesWritable> writer = format.getRecordWriter(context);
+
+				for (byte[] rec : records) {
+					writer.write(NullWritable.get(), new BytesWritable(rec));
+				}
+				writer.close(context);
+
+				Path file = getOutputFile(format, context, codec);
+				tstRead(getByteReader(fileOrganization), file, context.getConfiguration(), records);
+			}
+		}
+	}
+
+	public void testCobolLineOutputFormat() throws IOException, InterruptedException {
+		int[] fileOrganizations = {Constants.IO_FIXED_LENGTH, Constants.IO_VB};
+
+		for (int fileOrganization : fileOrganizations) {
+			LayoutDetail layout = getLayout(fileOrganization);
+			List<AbstractLine> lines = getLines(layout);
+
+			for (Class<? extends CompressionCodec> codec : CODECS) {
+				TaskAttemptContext context = getContext(fileOrganization, codec);
+				JRecordConfiguration.setLayout(context.getConfiguration(), layout);
+				CobolLineOutputFormat<NullWritable> format = new CobolLineOutputFormat<NullWritable>();
+				RecordWriter<NullWritable, AbstractLine> writer = format.getRecordWriter(context);
+
+				for (AbstractLine line : lines) {
+					writer.write(NullWritable.get(), line);
+				}
+				writer.close(context);
+
+				Path file = getOutputFile(format, context, codec);
+				tstRead(LineIOProvider.getInstance().getLineReader(layout), layout, file,
+						context.getConfiguration(), lines);
+			}
+		}
+	}
+
+	/**
+	 * The writers open(Path, Configuration) compress the file
+	 * when the extension belongs to a compression codec
+	 */
+	public void testWriterOpen() throws IOException {
+		String[] extensions = {".bin", ".gz", ".bz2"};
+		Configuration conf = new Configuration();
+		List<byte[]> records = getRecords();
+		LayoutDetail layout = getLayout(Constants.IO_VB);
+		List<AbstractLine> lines = getLines(layout);
+
+		for (String ext : extensions) {
+			Path file = new Path(OUTPUT_DIRECTORY, "ByteWriter" + ext);
+			AbstractByteWriter byteWriter = ByteIOProvider.getInstance().getByteWriter(Constants.IO_VB);
+			byteWriter.open(file, conf);
+			for (byte[] rec : records) {
+				byteWriter.write(rec);
+			}
+			byteWriter.close();
+			tstRead(getByteReader(Constants.IO_VB), file, conf, records);
+
+			file = new Path(OUTPUT_DIRECTORY, "LineWriter" + ext);
+			AbstractLineWriter lineWriter = LineIOProvider.getInstance().getLineWriter(layout);
+			lineWriter.setLayout(layout);
+			lineWriter.open(file, conf);
+			for (AbstractLine line : lines) {
+				lineWriter.write(line);
+			}
+			lineWriter.close();
+			tstRead(LineIOProvider.getInstance().getLineReader(layout), layout, file, conf, lines);
+		}
+	}
+
+	private void tstRead(AbstractByteReader reader, Path file, Configuration conf, List<byte[]> records)
+	throws IOException {
+		byte[] rec;
+		int i = 0;
+
+		reader.open(file, conf);
+		while ((rec = reader.read()) != null) {
+			assertTrue(file + " Record " + i, Arrays.equals(records.get(i), rec));
+			i += 1;
+		}
+		reader.close();
+		assertEquals(file.toString(), records.size(), i);
+	}
+
+	private void tstRead(AbstractLineReader reader, LayoutDetail layout, Path file, Configuration conf,
+			List<AbstractLine> lines)
+	throws IOException {
+		AbstractLine line;
+		int i = 0;
+
+		reader.open(file, layout, conf);
+		while ((line = reader.read()) != null) {
+			assertTrue(file + " Line " + i, Arrays.equals(lines.get(i).getData(), line.getData()));
+			i += 1;
+		}
+		reader.close();
+		assertEquals(file.toString(), lines.size(), i);
+	}
+
+	private TaskAttemptContext getContext(int fileOrganization, Class<? extends CompressionCodec> codec)
+	throws IOException {
+		Job job = Job.getInstance(new Configuration());
+
+		FileOutputFormat.setOutputPath(job, new Path(OUTPUT_DIRECTORY));
+		if (codec != null) {
+			FileOutputFormat.setCompressOutput(job, true);
+			FileOutputFormat.setOutputCompressorClass(job, codec);
+		}
+		JRecordConfiguration.setFileOrganization(job.getConfiguration(), fileOrganization);
+		JRecordConfiguration.setRecordLength(job.getConfiguration(), RECORD_LENGTH);
+
+		return new TaskAttemptContextImpl(
+				job.getConfiguration(), new TaskAttemptID("jrecord", 1, TaskType.REDUCE, 0, 0));
+	}
+
+	private Path getOutputFile(AbstractCobolOutputFormat<?, ?> format, TaskAttemptContext context,
+			Class<? extends CompressionCodec> codec)
+	throws IOException {
+		String extension = "";
+
+		if (codec == GzipCodec.class) {
+			extension = ".gz";
+		} else if (codec == BZip2Codec.class) {
+			extension = ".bz2";
+		}
+		Path file = format.getDefaultWorkFile(context, extension);
+
+		assertTrue(file.toString(), file.getFileSystem(context.getConfiguration()).exists(file));
+		return file;
+	}
+
+	private AbstractByteReader getByteReader(int fileOrganization) {
+		if (fileOrganization == Constants.IO_FIXED_LENGTH) {
+			return new FixedLengthByteReader(RECORD_LENGTH);
+		}
+		return ByteIOProvider.getInstance().getByteReader(fileOrganization);
+	}
+
+	private LayoutDetail getLayout(int fileOrganization) throws IOException {
+		return JRecordInterface1.COBOL
+				.newIOBuilder(new ByteArrayInputStream(COPYBOOK.getBytes()), "Rec")
+					.setFileOrganization(fileOrganization)
+				.getLayout();
+	}
+
+	private List<AbstractLine> getLines(LayoutDetail layout) {
+		List<AbstractLine> lines = new ArrayList<AbstractLine>();
+
+		for (int i = 0; i < RECORD_COUNT; i++) {
+			Line line = new Line(layout);
+			line.getFieldValue(0, 0).set("Key" + i);
+			line.getFieldValue(0, 1).set((i * 1237 - 250000) / 100.0);
+			line.getFieldValue(0, 2).set(i % 200 - 100);
+			line.getFieldValue(0, 3).set("Description " + (i % 17));
+			lines.add(line);
+		}
+		return lines;
+	}
+
+	private List<byte[]> getRecords() {
+		List<byte[]> records = new ArrayList<byte[]>();
+
+		for (int i = 0; i < RECORD_COUNT; i++) {
+			byte[] rec = new byte[RECORD_LENGTH];
+			for (int j = 0; j < RECORD_LENGTH; j++) {
+				rec[j] = (byte) (i * 31 + j);
+			}
+			records.add(rec);
+		}
+		return records;
+	}
+}
@@ -0,0 +1,101 @@
+package net.sf.JRecord.zTest.hadoop;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+import net.sf.JRecord.hadoop.FixedLengthRecordReader;
+import net.sf.JRecord.hadoop.JRecordConfiguration;
+import net.sf.JRecord.zTest.Common.TstConstants;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.mapreduce.TaskAttemptID;
+import org.apache.hadoop.mapreduce.lib.input.FileSplit;
+import org.apache.hadoop.mapreduce.task.TaskAttemptContextImpl;
+
+/**
+ * Check Fixed-Length splits are aligned so that every record
+ * is read by exactly one split
+ *
+ * @author Bruce Martin
+ *
+ */
+public class TstFixedLengthSplit extends TestCase {
+
+	public void testAlign() {
+		assertEquals(0,   FixedLengthRecordReader.alignToRecord(0, 27));
+		assertEquals(27,  FixedLengthRecordReader.alignToRecord(1, 27));
+		assertEquals(27,  FixedLengthRecordReader.alignToRecord(27, 27));
+		assertEquals(54,  FixedLengthRecordReader.alignToRecord(28, 27));
+		assertEquals(4096L * 27, FixedLengthRecordReader.alignToRecord(4096L * 27 - 26, 27));
+	}
+
+	public void testEveryRecordReadOnce() throws IOException {
+		int[] recordLengths = {1, 7, 27, 80, 333};
+		long[] splitSizes = {13, 100, 1024, 4096};
+		String fileName = TstConstants.TEMP_DIRECTORY + "FixedLengthSplit.bin";
+		Path path = new Path(fileName);
+
+		for (int recLen : recordLengths) {
+			int recordCount = 997;
+			long fileLength = writeFile(fileName, recLen, recordCount);
+			Configuration conf = new Configuration();
+			JRecordConfiguration.setRecordLength(conf, recLen);
+			JRecordConfiguration.setCounters(conf, false);
+			TaskAttemptContextImpl context = new TaskAttemptContextImpl(conf, new TaskAttemptID());
+
+			for (long splitSize : splitSizes) {
+				int[] count = new int[recordCount];
+
+				for (long splitStart = 0; splitStart < fileLength; splitStart += splitSize) {
+					long splitLength = Math.min(fileLength, splitStart + splitSize) - splitStart;
+					FixedLengthRecordReader reader = new FixedLengthRecordReader();
+
+					reader.initialize(new FileSplit(path, splitStart, splitLength, new String[0]), context);
+					while (reader.nextKeyValue()) {
+						long pos = reader.getCurrentKey().get();
+						int recordNo = (int) (pos / recLen);
+						byte[] rec = reader.getCurrentValue().copyBytes();
+
+						assertEquals(0, pos % recLen);
+						assertEquals(recLen, rec.length);
+						assertTrue(recLen + ", " + splitSize + ", record " + recordNo,
+								Arrays.equals(record(recordNo, recLen), rec));
+						count[recordNo] += 1;
+					}
+					reader.close();
+				}
+
+				for (int i = 0; i < count.length; i++) {
+					assertEquals(recLen + ", " + splitSize + ", record " + i, 1, count[i]);
+				}
+			}
+		}
+	}
+
+	private long writeFile(String fileName, int recordLength, int recordCount) throws IOException {
+		FileOutputStream os = new FileOutputStream(fileName);
+
+		for (int i = 0; i < recordCount; i++) {
+			os.write(record(i, recordLength));
+		}
+		os.close();
+
+		return (long) recordLength * recordCount;
+	}
+
+	/**
+	 * Each record is filled with bytes derived from the record number
+	 * so a record read from the wrong position is detected
+	 */
+	private byte[] record(int recordNo, int recordLength) {
+		byte[] rec = new byte[recordLength];
+
+		for (int i = 0; i < recordLength; i++) {
+			rec[i] = (byte) (recordNo * 31 + i);
+		}
+		return rec;
+	}
+}
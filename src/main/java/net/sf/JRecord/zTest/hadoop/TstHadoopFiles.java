@@ -0,0 +1,254 @@
+package net.sf.JRecord.zTest.hadoop;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+import net.sf.JRecord.ByteIO.AbstractByteReader;
+import net.sf.JRecord.ByteIO.FixedLengthByteReader;
+import net.sf.JRecord.ByteIO.VbByteReader;
+import net.sf.JRecord.ByteIO.VbByteWriter;
+import net.sf.JRecord.Common.Constants;
+import net.sf.JRecord.hadoop.FixedLengthInputFormat;
+import net.sf.JRecord.hadoop.FixedLengthRecordReader;
+import net.sf.JRecord.hadoop.HadoopFiles;
+import net.sf.JRecord.hadoop.IndexedInputFormat;
+import net.sf.JRecord.hadoop.IndexedRecordReader;
+import net.sf.JRecord.hadoop.JRecordConfiguration;
+import net.sf.JRecord.hadoop.TextLineInputFormat;
+import net.sf.JRecord.hadoop.TextRecordReader;
+import net.sf.JRecord.hadoop.VbInputFormat;
+import net.sf.JRecord.hadoop.VbRecordReader;
+import net.sf.JRecord.zTest.Common.TstConstants;
+import net.sf.JRecord.zTest.Common.TstData;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.BytesWritable;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.compress.BZip2Codec;
+import org.apache.hadoop.io.compress.CodecPool;
+import org.apache.hadoop.io.compress.CompressionCodec;
+import org.apache.hadoop.io.compress.DoNotPool;
+import org.apache.hadoop.io.compress.GzipCodec;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.RecordReader;
+import org.apache.hadoop.mapreduce.TaskAttemptID;
+import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
+import org.apache.hadoop.mapreduce.task.TaskAttemptContextImpl;
+
+/**
+ * Check gzip / bzip2 compressed files written with HadoopFiles are read back
+ * by the record readers (in a single split) and by the byte readers
+ * open(Path, Configuration); and that the Decompressors are returned to the CodecPool
+ *
+ * @author Bruce Martin
+ *
+ */
+public class TstHadoopFiles extends TestCase {
+
+	private static final String[] EXTENSIONS = {".gz", ".bz2"};
+	private static final int RECORD_LENGTH = 27;
+	private static final int RECORD_COUNT = 2000;
+
+	public void testCodec() {
+		Configuration conf = new Configuration();
+
+		assertTrue(HadoopFiles.getCodec(new Path("File.gz"), conf) instanceof GzipCodec);
+		assertTrue(HadoopFiles.getCodec(new Path("File.bz2"), conf) instanceof BZip2Codec);
+		assertNull(HadoopFiles.getCodec(new Path("File.bin"), conf));
+
+		assertFalse(HadoopFiles.isSplittable(new Path("File.gz"), conf));
+		assertTrue(HadoopFiles.isSplittable(new Path("File.bz2"), conf));
+		assertTrue(HadoopFiles.isSplittable(new Path("File.bin"), conf));
+	}
+
+	public void testFixedLength() throws IOException, InterruptedException {
+		Configuration conf = getConfiguration(Constants.IO_FIXED_LENGTH);
+		JRecordConfiguration.setRecordLength(conf, RECORD_LENGTH);
+		List<byte[]> records = new ArrayList<byte[]>();
+
+		for (int i = 0; i < RECORD_COUNT; i++) {
+			records.add(record(i, RECORD_LENGTH));
+		}
+
+		for (String ext : EXTENSIONS) {
+			Path path = new Path(TstConstants.TEMP_DIRECTORY + "HadoopFiles" + ext);
+			writeFile(path, conf, records, false);
+
+			List<InputSplit> splits = getSplits(new FixedLengthInputFormat(), path, conf);
+			assertEquals(ext, 1, splits.size());
+			tstRead(new FixedLengthRecordReader(), splits.get(0), path, conf, records);
+
+			tstOpen(new FixedLengthByteReader(RECORD_LENGTH), path, conf, records);
+		}
+	}
+
+	public void testVb() throws IOException, InterruptedException {
+		Configuration conf = getConfiguration(Constants.IO_VB);
+		List<byte[]> records = getVbRecords();
+
+		for (String ext : EXTENSIONS) {
+			Path path = new Path(TstConstants.TEMP_DIRECTORY + "HadoopFilesVb" + ext);
+			writeFile(path, conf, records, true);
+
+			List<InputSplit> splits = getSplits(new VbInputFormat(), path, conf);
+			assertEquals(ext, 1, splits.size());
+			tstRead(new VbRecordReader(), splits.get(0), path, conf, records);
+
+			splits = getSplits(new IndexedInputFormat(), path, conf);
+			assertEquals(ext, 1, splits.size());
+			tstRead(new IndexedRecordReader(), splits.get(0), path, conf, records);
+
+			tstOpen(new VbByteReader(), path, conf, records);
+		}
+	}
+
+	/**
+	 * gzip files are read by one mapper, bzip2 files may be split;
+	 * either way every line must be read exactly once
+	 */
+	public void testTextLine() throws IOException, InterruptedException {
+		Configuration conf = getConfiguration(Constants.IO_TEXT_LINE);
+		List<byte[]> records = new ArrayList<byte[]>();
+
+		for (int i = 0; i < RECORD_COUNT; i++) {
+			records.add(("Line " + i + " " + "abcdefghijklmnopqrstuvwxyz".substring(i % 26)).getBytes());
+		}
+
+		for (String ext : EXTENSIONS) {
+			Path path = new Path(TstConstants.TEMP_DIRECTORY + "HadoopFilesText" + ext);
+			CompressionCodec codec = HadoopFiles.getCodec(path, conf);
+			OutputStream out = HadoopFiles.createOutput(path, conf);
+			for (byte[] rec : records) {
+				out.write(rec);
+				out.write('\n');
+			}
+			out.close();
+
+			List<InputSplit> splits = getSplits(new TextLineInputFormat(), path, conf);
+			if (codec instanceof GzipCodec) {
+				assertEquals(1, splits.size());
+			}
+
+			TaskAttemptContextImpl context = new TaskAttemptContextImpl(conf, new TaskAttemptID());
+			int leased = CodecPool.getLeasedDecompressorsCount(codec);
+			int lineNo = 0;
+			for (InputSplit split : splits) {
+				TextRecordReader reader = new TextRecordReader();
+				reader.initialize(split, context);
+				while (reader.nextKeyValue()) {
+					assertTrue(ext + " Line " + lineNo,
+							Arrays.equals(records.get(lineNo), reader.getCurrentValue().copyBytes()));
+					lineNo += 1;
+				}
+				reader.close();
+			}
+			assertEquals(ext, records.size(), lineNo);
+			assertReturned(ext, codec, leased);
+		}
+	}
+
+	private void tstRead(RecordReader<LongWritable, BytesWritable> reader, InputSplit split,
+			Path path, Configuration conf, List<byte[]> records)
+	throws IOException, InterruptedException {
+		CompressionCodec codec = HadoopFiles.getCodec(path, conf);
+		int leased = CodecPool.getLeasedDecompressorsCount(codec);
+		int i = 0;
+
+		reader.initialize(split, new TaskAttemptContextImpl(conf, new TaskAttemptID()));
+		while (reader.nextKeyValue()) {
+			assertTrue(path + " Record " + i, Arrays.equals(records.get(i), reader.getCurrentValue().copyBytes()));
+			i += 1;
+		}
+		assertEquals(1.0f, reader.getProgress());
+		reader.close();
+
+		assertEquals(path.toString(), records.size(), i);
+		assertReturned(path.toString(), codec, leased);
+	}
+
+	private void tstOpen(AbstractByteReader reader, Path path, Configuration conf, List<byte[]> records)
+	throws IOException {
+		CompressionCodec codec = HadoopFiles.getCodec(path, conf);
+		int leased = CodecPool.getLeasedDecompressorsCount(codec);
+		byte[] rec;
+		int i = 0;
+
+		reader.open(path, conf);
+		while ((rec = reader.read()) != null) {
+			assertTrue(path + " Record " + i, Arrays.equals(records.get(i), rec));
+			i += 1;
+		}
+		reader.close();
+
+		assertEquals(path.toString(), records.size(), i);
+		assertReturned(path.toString(), codec, leased);
+	}
+
+	/**
+	 * Check the Decompressor has been returned to the CodecPool. Decompressors marked
+	 * DoNotPool (e.g. the pure java gzip one) are never returned, so they are not checked.
+	 */
+	private void assertReturned(String msg, CompressionCodec codec, int leased) {
+		if (! codec.getDecompressorType().isAnnotationPresent(DoNotPool.class)) {
+			assertEquals(msg, leased, CodecPool.getLeasedDecompressorsCount(codec));
+		}
+	}
+
+	private List<InputSplit> getSplits(FileInputFormat<?, ?> format, Path path, Configuration conf)
+	throws IOException {
+		Job job = Job.getInstance(conf);
+		FileInputFormat.addInputPath(job, path);
+		FileInputFormat.setMaxInputSplitSize(job, 500);
+
+		return format.getSplits(job);
+	}
+
+	private void writeFile(Path path, Configuration conf, List<byte[]> records, boolean vb) throws IOException {
+		if (vb) {
+			VbByteWriter writer = new VbByteWriter();
+			writer.open(path, conf);
+			for (byte[] rec : records) {
+				writer.write(rec);
+			}
+			writer.close();
+		} else {
+			OutputStream out = HadoopFiles.createOutput(path, conf);
+			for (byte[] rec : records) {
+				out.write(rec);
+			}
+			out.close();
+		}
+	}
+
+	private List<byte[]> getVbRecords() {
+		List<byte[]> records = new ArrayList<byte[]>();
+
+		for (int i = 0; i < 100; i++) {
+			records.addAll(Arrays.asList(TstData.DTAR020_LINES));
+			records.addAll(Arrays.asList(TstData.DTAR107_LINES));
+		}
+		return records;
+	}
+
+	private Configuration getConfiguration(int fileOrganization) {
+		Configuration conf = new Configuration();
+		JRecordConfiguration.setFileOrganization(conf, fileOrganization);
+		JRecordConfiguration.setCounters(conf, false);
+		return conf;
+	}
+
+	private byte[] record(int recordNo, int recordLength) {
+		byte[] rec = new byte[recordLength];
+
+		for (int i = 0; i < recordLength; i++) {
+			rec[i] = (byte) (recordNo * 31 + i);
+		}
+		return rec;
+	}
+}
@@ -0,0 +1,116 @@
+package net.sf.JRecord.zTest.hadoop;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+import net.sf.JRecord.ByteIO.RecordIndex;
+import net.sf.JRecord.ByteIO.VbByteWriter;
+import net.sf.JRecord.Common.Constants;
+import net.sf.JRecord.hadoop.IndexedInputFormat;
+import net.sf.JRecord.hadoop.IndexedRecordReader;
+import net.sf.JRecord.hadoop.JRecordConfiguration;
+import net.sf.JRecord.zTest.Common.TstConstants;
+import net.sf.JRecord.zTest.Common.TstData;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.TaskAttemptID;
+import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
+import org.apache.hadoop.mapreduce.lib.input.FileSplit;
+import org.apache.hadoop.mapreduce.task.TaskAttemptContextImpl;
+
+/**
+ * Check VB files are split on the RecordIndex, and that an index
+ * which no longer matches the file is ignored
+ *
+ * @author Bruce Martin
+ *
+ */
+public class TstIndexedSplit extends TestCase {
+
+	private static final String FILE_NAME = TstConstants.TEMP_DIRECTORY + "IndexedSplit.bin";
+
+	public void testIndexedSplits() throws IOException {
+		ArrayList<byte[]> lines = writeFile(40, false);
+		RecordIndex.createIndex(FILE_NAME, Constants.IO_VB, 7);
+
+		List<InputSplit> splits = getSplits();
+		assertTrue(splits.size() > 1);
+		tstRead(splits, lines);
+	}
+
+	public void testStaleIndex() throws IOException {
+		writeFile(40, false);
+		RecordIndex.createIndex(FILE_NAME, Constants.IO_VB, 7);
+		List<InputSplit> oldSplits = getSplits();
+
+		ArrayList<byte[]> lines = writeFile(45, true);
+		List<InputSplit> splits = getSplits();
+
+		assertEquals(1, splits.size());
+		assertEquals(0, ((FileSplit) splits.get(0)).getStart());
+		tstRead(splits, lines);
+
+		try {
+			tstRead(oldSplits.subList(1, 2), lines);
+			fail("A split from the old index should be rejected");
+		} catch (IOException e) {
+		}
+	}
+
+	private List<InputSplit> getSplits() throws IOException {
+		Job job = Job.getInstance(getConfiguration());
+		FileInputFormat.addInputPath(job, new Path(FILE_NAME));
+		FileInputFormat.setMaxInputSplitSize(job, 1000);
+
+		return new IndexedInputFormat().getSplits(job);
+	}
+
+	private void tstRead(List<InputSplit> splits, ArrayList<byte[]> lines) throws IOException {
+		TaskAttemptContextImpl context = new TaskAttemptContextImpl(getConfiguration(), new TaskAttemptID());
+		int lineNo = 0;
+
+		for (InputSplit split : splits) {
+			IndexedRecordReader reader = new IndexedRecordReader();
+			reader.initialize(split, context);
+			while (reader.nextKeyValue()) {
+				assertEquals(lineNo, reader.getCurrentKey().get());
+				assertTrue("Record " + lineNo,
+						Arrays.equals(lines.get(lineNo), reader.getCurrentValue().copyBytes()));
+				lineNo += 1;
+			}
+			reader.close();
+		}
+		assertEquals(lines.size(), lineNo);
+	}
+
+	private Configuration getConfiguration() {
+		Configuration conf = new Configuration();
+		JRecordConfiguration.setFileOrganization(conf, Constants.IO_VB);
+		JRecordConfiguration.setCounters(conf, false);
+		return conf;
+	}
+
+	private ArrayList<byte[]> writeFile(int count, boolean reverse) throws IOException {
+		ArrayList<byte[]> lines = new ArrayList<byte[]>();
+		VbByteWriter writer = new VbByteWriter();
+
+		writer.open(new FileOutputStream(FILE_NAME));
+		for (int i = 0; i < count; i++) {
+			byte[][] data = (i % 2 == 0) == reverse ? TstData.DTAR107_LINES : TstData.DTAR020_LINES;
+			for (byte[] line : data) {
+				lines.add(line);
+				writer.write(line);
+			}
+		}
+		writer.close();
+
+		return lines;
+	}
+}
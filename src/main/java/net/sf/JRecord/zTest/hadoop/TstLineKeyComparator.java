@@ -0,0 +1,291 @@
+package net.sf.JRecord.zTest.hadoop;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+
+import junit.framework.TestCase;
+import net.sf.JRecord.JRecordInterface1;
+import net.sf.JRecord.Common.Constants;
+import net.sf.JRecord.Common.IFieldDetail;
+import net.sf.JRecord.External.CopybookLoader;
+import net.sf.JRecord.Details.AbstractLine;
+import net.sf.JRecord.Details.LayoutDetail;
+import net.sf.JRecord.Details.Line;
+import net.sf.JRecord.Details.LineCompare;
+import net.sf.JRecord.hadoop.LineKeyComparator;
+import net.sf.JRecord.Numeric.ICopybookDialects;
+import net.sf.JRecord.hadoop.LineWritable;
+
+/**
+ * Check LineKeyComparator (raw byte comparison) gives the same
+ * order as LineCompare
+ *
+ * @author Bruce Martin
+ *
+ */
+public class TstLineKeyComparator extends TestCase {
+
+	private static final String COPYBOOK =
+			  "          01  Rec.\n"
+			+ "              03  Txt          pic x(4).\n"
+			+ "              03  Bin          pic s9(4) comp.\n"
+			+ "              03  UBin         pic 9(6) comp.\n"
+			+ "              03  Packed       pic s9(5)v99 comp-3.\n"
+			+ "              03  Zoned        pic s9(3).\n";
+
+	private static final String TWO_RECORDS =
+			  "          01  Rec-A.\n"
+			+ "              03  A-Txt        pic x(4).\n"
+			+ "              03  A-Num        pic 9(4).\n"
+			+ "          01  Rec-B.\n"
+			+ "              03  B-Txt        pic x(4).\n"
+			+ "              03  B-Num        pic s9(7) comp-3.\n";
+
+	private static final String DISPLAY_KEYS =
+			  "          01  Keys.\n"
+			+ "              03  Txt          pic x(2).\n"
+			+ "              03  Zoned        pic s9(5).\n"
+			+ "              03  Lead         pic s9(4) sign leading separate.\n"
+			+ "              03  Trail        pic s9(3)v9 sign trailing separate.\n"
+			+ "              03  Comp5        pic s9(6) comp-5.\n"
+			+ "              03  UComp5       pic 9(4) comp-5.\n";
+
+	private static final String[] TEXT = {"aa", "ab", "b", "ba", "zz"};
+
+	public void testCompare() throws IOException {
+		LayoutDetail layout = JRecordInterface1.COBOL
+				.newIOBuilder(new ByteArrayInputStream(COPYBOOK.getBytes()), "Rec")
+					.setFileOrganization(Constants.IO_FIXED_LENGTH)
+				.getLayout();
+		ArrayList<AbstractLine> lines = buildLines(layout);
+		ArrayList<byte[]> serialised = new ArrayList<byte[]>();
+
+		for (AbstractLine l : lines) {
+			serialised.add(serialise(new LineWritable(l)));
+		}
+
+		for (int f = 0; f < 5; f++) {
+			tstCompare(layout, lines, serialised, new int[] {f}, new boolean[] {false});
+			tstCompare(layout, lines, serialised, new int[] {f}, new boolean[] {true});
+		}
+		tstCompare(layout, lines, serialised, new int[] {0, 3, 1}, new boolean[] {true, false, false});
+		tstCompare(layout, lines, serialised, new int[] {4, 2}, new boolean[] {false, true});
+	}
+
+	/**
+	 * Zoned, sign separate and little-endian binary keys are decoded from the bytes;
+	 * values that can not be decoded must still give a consistent (total) order
+	 */
+	public void testDecodedKeys() throws IOException {
+		LayoutDetail layout = JRecordInterface1.COBOL
+				.newIOBuilder(new ByteArrayInputStream(DISPLAY_KEYS.getBytes()), "Keys")
+					.setFileOrganization(Constants.IO_FIXED_LENGTH)
+					.setDialect(ICopybookDialects.FMT_INTEL)
+				.getLayout();
+		ArrayList<AbstractLine> lines = new ArrayList<AbstractLine>();
+		ArrayList<byte[]> serialised = new ArrayList<byte[]>();
+		Random r = new Random(13);
+
+		for (int i = 0; i < 60; i++) {
+			Line l = new Line(layout);
+			l.getFieldValue(0, 0).set(TEXT[r.nextInt(TEXT.length)]);
+			l.getFieldValue(0, 1).set(r.nextInt(2001) - 1000);
+			l.getFieldValue(0, 2).set(r.nextInt(2001) - 1000);
+			l.getFieldValue(0, 3).set((r.nextInt(2001) - 1000) / 10.0);
+			l.getFieldValue(0, 4).set(r.nextInt(2000001) - 1000000);
+			l.getFieldValue(0, 5).set(r.nextInt(9999));
+			lines.add(l);
+			serialised.add(serialise(new LineWritable(l)));
+		}
+
+		for (int f = 1; f < 6; f++) {
+			tstCompare(layout, lines, serialised, new int[] {f}, new boolean[] {false});
+			tstCompare(layout, lines, serialised, new int[] {f}, new boolean[] {true});
+		}
+
+		ArrayList<byte[]> records = new ArrayList<byte[]>();
+		for (int i = 0; i < 20; i++) {
+			records.add(lines.get(i).getData());
+		}
+		for (int f = 1; f < 4; f++) {
+			IFieldDetail fld = layout.getRecord(0).getField(f);
+			for (int i = 0; i < 5; i++) {
+				byte[] rec = lines.get(i).getData().clone();
+				rec[fld.getPos() - 1 + i % fld.getLen()] = (byte) (i % 2 == 0 ? ' ' : 'x');
+				records.add(rec);
+			}
+			records.add(Arrays.copyOf(lines.get(0).getData(), fld.getPos()));
+		}
+
+		for (int f = 1; f < 4; f++) {
+			LineKeyComparator kc = new LineKeyComparator(layout, 0, new int[] {f}, new boolean[] {false});
+			for (byte[] b1 : records) {
+				for (byte[] b2 : records) {
+					int c12 = Integer.signum(kc.compareRecords(b1, 0, b1.length, b2, 0, b2.length));
+					assertEquals(-c12, Integer.signum(kc.compareRecords(b2, 0, b2.length, b1, 0, b1.length)));
+					if (c12 == 0) {
+						assertEquals(kc.hashKey(b1, 0, b1.length), kc.hashKey(b2, 0, b2.length));
+					}
+					for (byte[] b3 : records) {
+						if (c12 <= 0 && kc.compareRecords(b2, 0, b2.length, b3, 0, b3.length) <= 0) {
+							assertTrue("Field " + f, kc.compareRecords(b1, 0, b1.length, b3, 0, b3.length) <= 0);
+						}
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Keys that compare as equal must be sent to the same reducer
+	 */
+	public void testEqualKeysSamePartition() throws IOException {
+		LayoutDetail layout = JRecordInterface1.COBOL
+				.newIOBuilder(new ByteArrayInputStream(COPYBOOK.getBytes()), "Rec")
+					.setFileOrganization(Constants.IO_FIXED_LENGTH)
+				.getLayout();
+		IFieldDetail packed = layout.getRecord(0).getField(3);
+		IFieldDetail zoned = layout.getRecord(0).getField(4);
+		ArrayList<AbstractLine> lines = buildLines(layout);
+		ArrayList<byte[]> records = new ArrayList<byte[]>();
+
+		for (AbstractLine l : lines) {
+			records.add(l.getData());
+		}
+		for (int i = 0; i < 10; i++) {
+			byte[] rec = lines.get(i).getData().clone();
+			int signIdx = packed.getPos() + packed.getLen() - 2;
+
+			if ((rec[signIdx] & 0x0F) == 0x0C) {
+				rec[signIdx] |= 0x0F;                       // x'C' --> x'F' (unsigned)
+			}
+			records.add(rec);
+
+			rec = lines.get(i).getData().clone();
+			Arrays.fill(rec, packed.getPos() - 1, signIdx, (byte) 0);
+			rec[signIdx] = 0x0D;                            // negative zero
+			records.add(rec);
+			rec = rec.clone();
+			rec[signIdx] = 0x0C;                            // positive zero
+			records.add(rec);
+		}
+		Line l = new Line(layout);
+		l.getFieldValue(zoned).set(120);
+		records.add(l.getData());
+		byte[] rec = l.getData().clone();
+		rec[zoned.getPos() + zoned.getLen() - 2] = '0';     // 12{ --> 120 (unsigned)
+		records.add(rec);
+
+		int[][] keyFields = {{3}, {4}, {0, 3}, {3, 4}, {1, 2}};
+		for (int[] fields : keyFields) {
+			boolean[] descending = new boolean[fields.length];
+			LineKeyComparator kc = new LineKeyComparator(layout, 0, fields, descending);
+			int equalCount = 0;
+
+			for (byte[] b1 : records) {
+				for (byte[] b2 : records) {
+					if (kc.compareRecords(b1, 0, b1.length, b2, 0, b2.length) == 0) {
+						equalCount += 1;
+						for (int numPartitions = 2; numPartitions < 12; numPartitions++) {
+							assertEquals(Arrays.toString(fields),
+									getPartition(kc, b1, numPartitions), getPartition(kc, b2, numPartitions));
+						}
+					}
+				}
+			}
+			assertTrue(equalCount > records.size());
+		}
+	}
+
+	public void testReadWrite() throws IOException {
+		byte[] rec = "0123456789".getBytes();
+		LineWritable w = new LineWritable();
+		LineWritable w1 = new LineWritable();
+
+		w.set(3, rec, 2, 5);
+		w1.readFields(new DataInputStream(new ByteArrayInputStream(serialise(w))));
+
+		assertEquals(3, w1.getRecordIdx());
+		assertEquals(5, w1.getLength());
+		assertEquals("23456", new String(w1.getBytes(), 0, w1.getLength()));
+		assertEquals(w, w1);
+		assertEquals(w.hashCode(), w1.hashCode());
+	}
+
+	/**
+	 * The record index must be restored when the Line is rebuilt
+	 */
+	public void testLineRecordIdx() throws IOException {
+		LayoutDetail layout = JRecordInterface1.COBOL
+				.newIOBuilder(new ByteArrayInputStream(TWO_RECORDS.getBytes()), "Recs")
+					.setFileOrganization(Constants.IO_FIXED_LENGTH)
+					.setSplitCopybook(CopybookLoader.SPLIT_01_LEVEL)
+				.getLayout();
+		Line line0 = new Line(layout);
+		Line line1 = new Line(layout);
+
+		line0.setWriteLayout(0);
+		line1.setWriteLayout(1);
+		line1.getFieldValue(1, 0).set("abcd");
+
+		LineWritable w = new LineWritable(line0);
+		assertEquals(0, w.getLine().getPreferredLayoutIdx());
+
+		w.readFields(new DataInputStream(new ByteArrayInputStream(serialise(new LineWritable(line1)))));
+		assertEquals(1, w.getRecordIdx());
+		assertEquals(1, w.getLine().getPreferredLayoutIdx());
+		assertEquals("abcd", w.getLine().getFieldValue(1, 0).asString());
+	}
+
+	private void tstCompare(LayoutDetail layout, ArrayList<AbstractLine> lines, ArrayList<byte[]> serialised,
+			int[] fields, boolean[] descending) {
+		LineCompare lc = new LineCompare(layout, 0, fields, descending);
+		LineKeyComparator kc = new LineKeyComparator(layout, 0, fields, descending);
+
+		for (int i = 0; i < lines.size(); i++) {
+			byte[] b1 = serialised.get(i);
+			for (int j = 0; j < lines.size(); j++) {
+				byte[] b2 = serialised.get(j);
+				int expected = Integer.signum(lc.compare(lines.get(i), lines.get(j)));
+				String id = Arrays.toString(fields) + " " + i + ", " + j;
+
+				assertEquals(id, expected, Integer.signum(kc.compare(b1, 0, b1.length, b2, 0, b2.length)));
+			}
+		}
+	}
+
+	private ArrayList<AbstractLine> buildLines(LayoutDetail layout) {
+		ArrayList<AbstractLine> lines = new ArrayList<AbstractLine>();
+		Random r = new Random(11);
+
+		for (int i = 0; i < 60; i++) {
+			Line l = new Line(layout);
+			l.getFieldValue(0, 0).set(TEXT[r.nextInt(TEXT.length)]);
+			l.getFieldValue(0, 1).set(r.nextInt(2001) - 1000);
+			l.getFieldValue(0, 2).set(r.nextInt(999999));
+			l.getFieldValue(0, 3).set((r.nextInt(2000001) - 1000000) / 100.0);
+			l.getFieldValue(0, 4).set(r.nextInt(1999) - 999);
+			lines.add(l);
+		}
+		return lines;
+	}
+
+	private int getPartition(LineKeyComparator kc, byte[] rec, int numPartitions) {
+		return (kc.hashKey(rec, 0, rec.length) & Integer.MAX_VALUE) % numPartitions;
+	}
+
+	private byte[] serialise(LineWritable w) throws IOException {
+		ByteArrayOutputStream os = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(os);
+
+		w.write(out);
+		out.close();
+		return os.toByteArray();
+	}
+}
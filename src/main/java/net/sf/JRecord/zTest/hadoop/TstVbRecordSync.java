@@ -0,0 +1,89 @@
+package net.sf.JRecord.zTest.hadoop;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+
+import junit.framework.TestCase;
+import net.sf.JRecord.ByteIO.AbstractByteWriter;
+import net.sf.JRecord.ByteIO.VbByteWriter;
+import net.sf.JRecord.ByteIO.VbDumpByteWriter;
+import net.sf.JRecord.hadoop.VbRecordSync;
+import net.sf.JRecord.zTest.Common.TstData;
+
+/**
+ * Check that a VB / VB-Dump file can be resynchronised from any position
+ *
+ * @author Bruce Martin
+ *
+ */
+public class TstVbRecordSync extends TestCase {
+
+	public void testVb() throws IOException {
+		ArrayList<Integer> boundaries = new ArrayList<Integer>();
+		byte[] data = writeFile(new VbByteWriter(), boundaries, 4);
+
+		tstSync(new VbRecordSync(false, 4, 1000), data, boundaries);
+	}
+
+	public void testGnuVb() throws IOException {
+		ArrayList<Integer> boundaries = new ArrayList<Integer>();
+		byte[] data = writeFile(new VbByteWriter(false), boundaries, 4);
+
+		tstSync(new VbRecordSync(false, 0, 1000), data, boundaries);
+	}
+
+	public void testVbDump() throws IOException {
+		ArrayList<Integer> boundaries = new ArrayList<Integer>();
+		byte[] data = writeFile(new VbDumpByteWriter(300), null, 0);
+		int pos = 0;
+
+		while (pos < data.length) {
+			boundaries.add(pos);
+			pos += ((data[pos] & 0xFF) << 8) + (data[pos + 1] & 0xFF);
+		}
+		assertTrue(boundaries.size() > 10);
+
+		tstSync(new VbRecordSync(true, 4, 1000), data, boundaries);
+	}
+
+	private void tstSync(VbRecordSync sync, byte[] data, ArrayList<Integer> boundaries) {
+		int idx = 0;
+
+		for (int from = 0; from < data.length; from++) {
+			while (idx < boundaries.size() && boundaries.get(idx) < from) {
+				idx += 1;
+			}
+			int expected = idx < boundaries.size() ? boundaries.get(idx) : -1;
+
+			assertEquals("From: " + from, expected, sync.findBoundary(data, from, data.length, data.length, true));
+		}
+	}
+
+	private byte[] writeFile(AbstractByteWriter writer, ArrayList<Integer> boundaries, int rdwLength)
+	throws IOException {
+		ByteArrayOutputStream os = new ByteArrayOutputStream();
+		int pos = 0;
+
+		writer.open(os);
+		for (int i = 0; i < 40; i++) {
+			for (byte[] line : TstData.DTAR020_LINES) {
+				if (boundaries != null) {
+					boundaries.add(pos);
+				}
+				pos += line.length + rdwLength;
+				writer.write(line);
+			}
+			for (byte[] line : TstData.DTAR107_LINES) {
+				if (boundaries != null) {
+					boundaries.add(pos);
+				}
+				pos += line.length + rdwLength;
+				writer.write(line);
+			}
+		}
+		writer.close();
+
+		return os.toByteArray();
+	}
+}
@@ -113,6 +113,40 @@ public class TstContinuousIO01 extends TestCase {
 	}
 	
 	
+	/**
+	 * Check records that cross the reader's buffer boundary are read correctly
+	 */
+	public void testReadLargeFile() throws Exception {
+		List<Line> list = bldLines();
+		LayoutDetail l = list.get(0).getLayout();
+		StringBuilder b = new StringBuilder(list.get(0).getFullLine());
+		int count = 5000;
+		
+		for (int i = 1; i <= count; i++) {
+			Line line = new Line(l);
+			line.getFieldValue(RECORD_TYPE).set(DETAIL_ID);
+			line.getFieldValue("Field-1").set("F1_" + i);
+			line.getFieldValue("Field-2").set("Field_2_" + i);
+			line.getFieldValue("Field-3").set("F3");
+			b.append(line.getFullLine());
+		}
+		b.append(list.get(list.size() - 1).getFullLine());
+		
+		ContinuousLineReader r = new ContinuousLineReader();
+		r.open(new ByteArrayInputStream(b.toString().getBytes()), l);
+		
+		assertEquals(HEADER_ID, r.read().getFieldValue(RECORD_TYPE).asString());
+		for (int i = 1; i <= count; i++) {
+			AbstractLine line = r.read();
+			assertEquals(DETAIL_ID, line.getFieldValue(RECORD_TYPE).asString());
+			assertEquals("F1_" + i, line.getFieldValue("Field-1").asString());
+			assertEquals("Field_2_" + i, line.getFieldValue("Field-2").asString());
+		}
+		assertEquals(TRAILER_ID, r.read().getFieldValue(RECORD_TYPE).asString());
+		assertTrue(r.read() == null);
+		r.close();
+	}
+	
 	private void iAssertEquals(String expected, String actual) {
 		if (lowerCase) {
 			assertEquals(expected.toLowerCase(), actual);
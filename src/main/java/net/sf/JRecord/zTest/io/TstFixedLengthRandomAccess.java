@@ -0,0 +1,86 @@
+package net.sf.JRecord.zTest.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+import junit.framework.TestCase;
+import net.sf.JRecord.JRecordInterface1;
+import net.sf.JRecord.Common.Constants;
+import net.sf.JRecord.Details.AbstractLine;
+import net.sf.JRecord.Details.LayoutDetail;
+import net.sf.JRecord.IO.FixedLengthRandomAccessReader;
+import net.sf.JRecord.zTest.Common.TstConstants;
+
+/**
+ * Check records can be retrieved by record number from a Fixed Length file
+ *
+ * @author Bruce Martin
+ *
+ */
+public class TstFixedLengthRandomAccess extends TestCase {
+
+	private static final int RECORD_COUNT = 1000;
+	private static final String COPYBOOK =
+			  "          01  Rec.\n"
+			+ "              03  Num          pic 9(6).\n"
+			+ "              03  Txt          pic x(9).\n";
+
+	public void testGetRecord() throws IOException {
+		FixedLengthRandomAccessReader r = FixedLengthRandomAccessReader.open(writeFile(), getLayout());
+
+		assertEquals(15, r.getRecordLength());
+		assertEquals(RECORD_COUNT + 1, r.getRecordCount());
+
+		for (int i = RECORD_COUNT - 1; i >= 0; i -= 7) {
+			chkLine(i, r.getRecord(i));
+		}
+		assertEquals("999999", r.getRecord(RECORD_COUNT).getFieldValue(0, 0).asString());
+		assertNull(r.getRecord(RECORD_COUNT + 1));
+		assertNull(r.getRecord(-1));
+		r.close();
+	}
+
+	public void testReadRange() throws IOException {
+		FixedLengthRandomAccessReader r = FixedLengthRandomAccessReader.open(writeFile(), getLayout());
+		List<AbstractLine> lines = r.readRange(17, 250);
+
+		assertEquals(250 - 17, lines.size());
+		for (int i = 0; i < lines.size(); i++) {
+			chkLine(i + 17, lines.get(i));
+		}
+
+		lines = r.readRange(RECORD_COUNT - 3, RECORD_COUNT + 20);
+		assertEquals(4, lines.size());
+		chkLine(RECORD_COUNT - 1, lines.get(2));
+		assertEquals(0, r.readRange(5, 5).size());
+		r.close();
+	}
+
+	private void chkLine(int recordNumber, AbstractLine line) {
+		assertEquals(recordNumber, line.getFieldValue(0, 0).asInt());
+		assertEquals("Rec " + recordNumber, line.getFieldValue(0, 1).asString());
+	}
+
+	private String writeFile() throws IOException {
+		String fileName = TstConstants.TEMP_DIRECTORY + "RandomAccess.bin";
+		FileOutputStream os = new FileOutputStream(fileName);
+
+		for (int i = 0; i < RECORD_COUNT; i++) {
+			String rec = "00000" + i;
+			rec = rec.substring(rec.length() - 6) + "Rec " + i + "         ";
+			os.write(rec.substring(0, 15).getBytes());
+		}
+		os.write("999999Rec".getBytes());
+		os.close();
+
+		return fileName;
+	}
+
+	private LayoutDetail getLayout() throws IOException {
+		return JRecordInterface1.COBOL.newIOBuilder(new ByteArrayInputStream(COPYBOOK.getBytes()), "Rec")
+					.setFileOrganization(Constants.IO_FIXED_LENGTH)
+				.getLayout();
+	}
+}
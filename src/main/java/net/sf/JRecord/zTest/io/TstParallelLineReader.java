@@ -0,0 +1,213 @@
+/*  -------------------------------------------------------------------------
+ *
+ *                Project: JRecord
+ *    
+ *    Sub-Project purpose: Provide support for reading Cobol-Data files 
+ *                        using a Cobol Copybook in Java.
+ *                         Support for reading Fixed Width / Binary / Csv files
+ *                        using a Xml schema.
+ *                         General Fixed Width / Csv file processing in Java.
+ *    
+ *                 Author: Bruce Martin
+ *    
+ *                License: LGPL 2.1 or latter
+ *                
+ *    Copyright (c) 2016, Bruce Martin, All Rights Reserved.
+ *   
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation; either
+ *    version 2.1 of the License, or (at your option) any later version.
+ *   
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU Lesser General Public License for more details.
+ *
+ * ------------------------------------------------------------------------ */
+
+package net.sf.JRecord.zTest.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import junit.framework.TestCase;
+import net.sf.JRecord.JRecordInterface1;
+import net.sf.JRecord.ByteIO.RecordIndex;
+import net.sf.JRecord.ByteIO.VbByteWriter;
+import net.sf.JRecord.Common.Constants;
+import net.sf.JRecord.Details.AbstractLine;
+import net.sf.JRecord.Details.LayoutDetail;
+import net.sf.JRecord.IO.ParallelLineReader;
+import net.sf.JRecord.zTest.Common.TstConstants;
+
+/**
+ * Check the parallel reader returns every record (in order when requested)
+ * for Fixed Length, Text (ASCII, EBCDIC and UTF-16) and VB files.
+ *
+ * @author Bruce Martin
+ *
+ */
+public class TstParallelLineReader extends TestCase {
+
+	private static final int RECORD_COUNT = 20000;
+	private static final String COPYBOOK =
+			  "          01  Rec.\n"
+			+ "              03  Num          pic 9(6).\n"
+			+ "              03  Txt          pic x(9).\n";
+
+	public void testFixed() throws IOException {
+		String fileName = TstConstants.TEMP_DIRECTORY + "ParallelFixed.bin";
+		FileOutputStream os = new FileOutputStream(fileName);
+
+		for (int i = 0; i < RECORD_COUNT; i++) {
+			os.write((record(i) + "         ").substring(0, 15).getBytes());
+		}
+		os.close();
+
+		tstRead(fileName, Constants.IO_FIXED_LENGTH);
+	}
+
+	/**
+	 * Fixed length char files are only split for single byte fonts
+	 * (for multi-byte fonts the record length is not a byte length)
+	 */
+	public void testFixedChar() throws IOException {
+		String[] fonts = {"CP037", "UTF-8"};
+
+		for (String font : fonts) {
+			String fileName = TstConstants.TEMP_DIRECTORY + "ParallelFixedChar.txt";
+			FileOutputStream os = new FileOutputStream(fileName);
+
+			for (int i = 0; i < RECORD_COUNT; i++) {
+				os.write((record(i) + "         ").substring(0, 15).getBytes(font));
+			}
+			os.close();
+
+			tstRead(fileName, getLayout(Constants.IO_FIXED_LENGTH_CHAR, font), "CP037".equals(font));
+		}
+	}
+
+	public void testText() throws IOException {
+		String fileName = TstConstants.TEMP_DIRECTORY + "ParallelText.txt";
+		FileOutputStream os = new FileOutputStream(fileName);
+
+		for (int i = 0; i < RECORD_COUNT; i++) {
+			os.write((record(i) + "\n").getBytes());
+		}
+		os.close();
+
+		tstRead(fileName, Constants.IO_BIN_TEXT);
+	}
+
+	public void testEbcdicText() throws IOException {
+		String fileName = TstConstants.TEMP_DIRECTORY + "ParallelEbcdic.txt";
+		FileOutputStream os = new FileOutputStream(fileName);
+
+		for (int i = 0; i < RECORD_COUNT; i++) {
+			os.write((record(i) + "\n").getBytes("CP037"));
+		}
+		os.close();
+
+		tstRead(fileName, getLayout(Constants.IO_BIN_TEXT, "CP037"), true);
+	}
+
+	public void testUtf16Text() throws IOException {
+		String fileName = TstConstants.TEMP_DIRECTORY + "ParallelUtf16.txt";
+		FileOutputStream os = new FileOutputStream(fileName);
+
+		for (int i = 0; i < RECORD_COUNT; i++) {
+			os.write((record(i) + "\n").getBytes("UTF-16LE"));
+		}
+		os.close();
+
+		tstRead(fileName, getLayout(Constants.IO_TEXT_LINE, "UTF-16LE"), false);
+	}
+
+	public void testVb() throws IOException {
+		String fileName = TstConstants.TEMP_DIRECTORY + "ParallelVb.bin";
+		VbByteWriter w = new VbByteWriter();
+
+		w.open(fileName);
+		for (int i = 0; i < RECORD_COUNT; i++) {
+			w.write(record(i).getBytes());
+		}
+		w.close();
+
+		RecordIndex.createIndex(fileName, Constants.IO_VB, 100);
+		tstRead(fileName, Constants.IO_VB);
+	}
+
+	public void testStream() throws IOException {
+		String fileName = TstConstants.TEMP_DIRECTORY + "ParallelText.txt";
+		ParallelLineReader r = new ParallelLineReader(4, true);
+		FileOutputStream os = new FileOutputStream(fileName);
+
+		for (int i = 0; i < 100; i++) {
+			os.write((record(i) + "\n").getBytes());
+		}
+		os.close();
+
+		r.open(new FileInputStream(fileName), getLayout(Constants.IO_BIN_TEXT, ""));
+		for (int i = 0; i < 100; i++) {
+			chkLine(i, r.read());
+		}
+		assertNull(r.read());
+		r.close();
+	}
+
+	private void tstRead(String fileName, int fileStructure) throws IOException {
+		tstRead(fileName, getLayout(fileStructure, ""), true);
+	}
+
+	private void tstRead(String fileName, LayoutDetail layout, boolean split) throws IOException {
+		ParallelLineReader r = new ParallelLineReader(4, true);
+		boolean[] found = new boolean[RECORD_COUNT];
+		AbstractLine line;
+
+		r.setMinimumRangeSize(10000);
+		r.open(fileName, layout);
+		if (split) {
+			assertTrue(r.getRangeCount() > 4);
+		} else {
+			assertEquals(1, r.getRangeCount());
+		}
+		for (int i = 0; i < RECORD_COUNT; i++) {
+			chkLine(i, r.read());
+		}
+		assertNull(r.read());
+		r.close();
+
+		r = new ParallelLineReader(4, false);
+		r.setMinimumRangeSize(10000);
+		r.open(fileName, layout);
+		for (int i = 0; i < RECORD_COUNT; i++) {
+			line = r.read();
+			int num = line.getFieldValue(0, 0).asInt();
+			assertFalse(found[num]);
+			found[num] = true;
+			chkLine(num, line);
+		}
+		assertNull(r.read());
+		r.close();
+	}
+
+	private String record(int i) {
+		String rec = "00000" + i;
+		return rec.substring(rec.length() - 6) + "Rec " + i;
+	}
+
+	private void chkLine(int recordNumber, AbstractLine line) {
+		assertEquals(recordNumber, line.getFieldValue(0, 0).asInt());
+		assertEquals("Rec " + recordNumber, line.getFieldValue(0, 1).asString());
+	}
+
+	private LayoutDetail getLayout(int fileStructure, String font) throws IOException {
+		return JRecordInterface1.COBOL.newIOBuilder(new ByteArrayInputStream(COPYBOOK.getBytes()), "Rec")
+					.setFileOrganization(fileStructure)
+					.setFont(font)
+				.getLayout();
+	}
+}
@@ -0,0 +1,122 @@
+/*  -------------------------------------------------------------------------
+ *
+ *                Project: JRecord
+ *    
+ *    Sub-Project purpose: Provide support for reading Cobol-Data files 
+ *                        using a Cobol Copybook in Java.
+ *                         Support for reading Fixed Width / Binary / Csv files
+ *                        using a Xml schema.
+ *                         General Fixed Width / Csv file processing in Java.
+ *    
+ *                 Author: Bruce Martin
+ *    
+ *                License: LGPL 2.1 or latter
+ *                
+ *    Copyright (c) 2016, Bruce Martin, All Rights Reserved.
+ *   
+ *    This library is free software; you can redistribute it and/or
+ *    modify it under the terms of the GNU Lesser General Public
+ *    License as published by the Free Software Foundation; either
+ *    version 2.1 of the License, or (at your option) any later version.
+ *   
+ *    This library is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU Lesser General Public License for more details.
+ *
+ * ------------------------------------------------------------------------ */
+
+package net.sf.JRecord.zTest.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+import junit.framework.TestCase;
+import net.sf.JRecord.JRecordInterface1;
+import net.sf.JRecord.ByteIO.VbByteReader;
+import net.sf.JRecord.Common.Constants;
+import net.sf.JRecord.Common.IReaderListener;
+import net.sf.JRecord.Common.ReaderStatistics;
+import net.sf.JRecord.External.CopybookLoader;
+import net.sf.JRecord.ExternalRecordSelection.ExternalFieldSelection;
+import net.sf.JRecord.IO.AbstractLineReader;
+
+/**
+ * Check the record counts / bytes / invalid RDW's reported to a reader listener
+ *
+ * @author Bruce Martin
+ *
+ */
+public class TstReaderStatistics extends TestCase {
+
+	private static final String COPYBOOK =
+			  "       01 Header-Record.\n"
+			+ "          05 Record-Type        Pic X.\n"
+			+ "          05 Creation-Date      Pic 9(8).\n"
+			+ "       01 Detail-Record.\n"
+			+ "          05 Record-Type        Pic X.\n"
+			+ "          05 Field-1            Pic X(10).\n"
+			+ "       01 Trailer-Record.\n"
+			+ "          05 Record-Type        Pic X.\n"
+			+ "          05 Record-Count       Pic 9(9).\n";
+
+	private static final String FILE =
+			  "H20160101\n"
+			+ "D1111111111\n"
+			+ "D2222222222\n"
+			+ "X\n"
+			+ "D3333333333\n"
+			+ "T000000003\n";
+
+	public void testLineReader() throws IOException {
+		ReaderStatistics stats = new ReaderStatistics();
+		AbstractLineReader r = JRecordInterface1.COBOL
+				.newIOBuilder(new ByteArrayInputStream(COPYBOOK.getBytes()), "MultiRecord")
+					.setFileOrganization(Constants.IO_STANDARD_TEXT_FILE)
+					.setSplitCopybook(CopybookLoader.SPLIT_01_LEVEL)
+					.setRecordSelection("Header-Record", new ExternalFieldSelection("Record-Type", "H"))
+					.setRecordSelection("Detail-Record", new ExternalFieldSelection("Record-Type", "D"))
+					.setRecordSelection("Trailer-Record", new ExternalFieldSelection("Record-Type", "T"))
+				.newReader(new ByteArrayInputStream(FILE.getBytes()));
+
+		r.setListener(stats);
+		while (r.read() != null) { }
+		r.close();
+
+		assertEquals(6, stats.getRecordCount());
+		assertEquals(FILE.length() - 6, stats.getBytes());
+		assertEquals(1, stats.getRecordCount(0));
+		assertEquals(3, stats.getRecordCount(1));
+		assertEquals(1, stats.getRecordCount(2));
+		assertEquals(1, stats.getRecordCount(IReaderListener.UNKNOWN_RECORD_TYPE));
+		assertEquals(3, stats.getRecordTypeCount());
+		assertEquals(0, stats.getInvalidRecordDescriptorCount());
+	}
+
+	public void testInvalidRdw() throws IOException {
+		byte[] data = {
+				0, 7, 0, 0, 1, 2, 3,
+				0, 5, 0, 0, 4,
+				0, 6, 1, 0, 5, 6,
+		};
+		ReaderStatistics stats = new ReaderStatistics();
+		VbByteReader r = new VbByteReader();
+
+		r.setListener(stats);
+		r.open(new ByteArrayInputStream(data));
+
+		assertEquals(3, r.read().length);
+		assertEquals(1, r.read().length);
+		try {
+			r.read();
+			fail("Invalid RDW should cause an exception");
+		} catch (IOException e) {
+		}
+		r.close();
+
+		assertEquals(2, stats.getRecordCount());
+		assertEquals(4, stats.getBytes());
+		assertEquals(2, stats.getRecordCount(IReaderListener.UNKNOWN_RECORD_TYPE));
+		assertEquals(1, stats.getInvalidRecordDescriptorCount());
+	}
+}
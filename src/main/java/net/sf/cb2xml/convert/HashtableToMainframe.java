@@ -8,9 +8,13 @@
 
 package net.sf.cb2xml.convert;
 
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
 import java.util.Hashtable;
 
 import net.sf.cb2xml.def.Cb2xmlConstants;
+import net.sf.cb2xml.util.PackedDecimal;
 
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
@@ -32,7 +36,8 @@ import org.w3c.dom.NodeList;
 *    has data for more than one of the redefined instances (should be XOR)
 *    below, the code selects the first XOR instance, so attempts to ignore inconsistent inputs
 *
-* TODO : the special mainframe formats of COMP, packed-decimal etc are not supported yet
+* Packed decimal values are stored one byte per character.
+* TODO : the special mainframe formats of COMP etc are not supported yet
 * 
 *  * note that files within the "net.sf.cb2xml.convert" package are not stable
 *
@@ -126,7 +131,9 @@ public class HashtableToMainframe {
         
         Object obj = keyValuePairs.get(xpath);
         String s = obj==null ? "" : obj.toString();
-        if (s.length() < length) {
+        if (numeric && Utils.isPackedDecimal(element) && appendPacked(segment, element, s, length)) {
+        	// stored as packed decimal
+        } else if (s.length() < length) {
         	if (numeric) {
         		if (s.startsWith("-")) {
         			segment	.append('-')
@@ -166,4 +173,26 @@ public class HashtableToMainframe {
     return segment;
   }
 
-}
\ No newline at end of file
+
+  private boolean appendPacked(StringBuffer segment, Element element, String s, int length) {
+    BigInteger value;
+    try {
+      value = new BigDecimal(s.trim())
+      		.movePointRight(Utils.getScale(element))
+      		.setScale(0, RoundingMode.DOWN)
+      		.toBigInteger();
+    } catch (NumberFormatException e) {
+      return false;
+    }
+
+    byte[] bytes = new byte[length];
+    boolean signed = Cb2xmlConstants.TRUE.equals(element.getAttribute(Cb2xmlConstants.SIGNED));
+    if (! PackedDecimal.setBigInteger(bytes, 0, length, value, ! signed)) {
+      return false;
+    }
+    for (int i = 0; i < length; i++) {
+      segment.append((char) (bytes[i] & 0xFF));
+    }
+    return true;
+  }
+}
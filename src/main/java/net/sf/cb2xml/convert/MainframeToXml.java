@@ -11,8 +11,10 @@ package net.sf.cb2xml.convert;
 import java.io.BufferedReader;
 import java.io.Reader;
 import java.io.StringReader;
+import java.math.BigDecimal;
 
 import net.sf.cb2xml.def.Cb2xmlConstants;
+import net.sf.cb2xml.util.PackedDecimal;
 import net.sf.cb2xml.util.XmlUtils;
 
 import org.w3c.dom.Document;
@@ -23,7 +25,8 @@ import org.w3c.dom.Text;
 /**
 * routines to convert a copybook equivalent mainframe buffer into its XML form
 * given the XML form of the copybook
-* to-do: all the stuff related to COMP fields, packed decimal amd all other non-straightforward field types
+* Packed decimal fields are decoded from the raw buffer (one byte per character),
+* to-do: all the stuff related to COMP fields and all other non-straightforward field types
 * 
 *  * note that files within the "net.sf.cb2xml.convert" package are not stable
 * 
@@ -33,6 +36,7 @@ import org.w3c.dom.Text;
 public class MainframeToXml {
 
   private String mainframeBuffer = null;
+  private byte[] rawBytes = null;
   private Document resultDocument = null;
 
   private static String stripNullChars(String in) {
@@ -58,6 +62,10 @@ public class MainframeToXml {
 
   public Document convert(String mainframeTextBuffer, Document copyBookXml) {
     this.mainframeBuffer = stripNullChars(mainframeTextBuffer);
+    this.rawBytes = new byte[mainframeTextBuffer.length()];
+    for (int i = 0; i < rawBytes.length; i++) {
+    	rawBytes[i] = (byte) mainframeTextBuffer.charAt(i);
+    }
     this.resultDocument = XmlUtils.getNewXmlDocument();
     int bufferLength = mainframeTextBuffer.length();
     Element documentElement = copyBookXml.getDocumentElement();
@@ -119,6 +127,13 @@ public class MainframeToXml {
         text = mainframeBuffer.substring(position - 1, position + length - 1);
         if (numeric) {
         	text = text.trim();
+        	if (Utils.isPackedDecimal(element)) {
+        		BigDecimal value = PackedDecimal.getBigDecimal(
+        				rawBytes, position - 1, length, Utils.getScale(element));
+        		if (value != null) {
+        			text = value.toPlainString();
+        		}
+        	}
         }
       }
       catch (Exception e) {
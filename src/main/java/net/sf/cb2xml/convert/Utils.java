@@ -1,5 +1,7 @@
 package net.sf.cb2xml.convert;
 
+import net.sf.cb2xml.def.Cb2xmlConstants;
+
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
@@ -17,4 +19,27 @@ public class Utils {
 	    
 	    return (Element) elementNode;
 	}
+
+	/**
+	 * Wether the field is a packed decimal (comp-3) field
+	 * @param element field definition
+	 * @return wether it is packed decimal
+	 */
+	public static final boolean isPackedDecimal(Element element) {
+		String usage = element.getAttribute(Cb2xmlConstants.USAGE);
+		return Cb2xmlConstants.COMP_3.equals(usage) || Cb2xmlConstants.PACKED_DECIMAL.equals(usage);
+	}
+
+	/**
+	 * Get the number of assumed decimal places for a field
+	 * @param element field definition
+	 * @return scale of the field
+	 */
+	public static final int getScale(Element element) {
+		String scale = element.getAttribute(Cb2xmlConstants.SCALE);
+		if (scale == null || scale.length() == 0) {
+			return 0;
+		}
+		return Integer.parseInt(scale);
+	}
 }
@@ -0,0 +1,324 @@
+/*************************************************************
+ * This file is part of CB2XML.  
+ * See the file "LICENSE" for copyright information and the
+ * terms and conditions for copying, distribution and
+ * modification of CB2XML.
+ *************************************************************
+ */
+
+package net.sf.cb2xml.util;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Arrays;
+
+/**
+ * Packed Decimal (Comp-3) encoding / decoding.
+ *
+ * <p>A packed decimal field holds 2 decimal digits per byte with the sign in
+ * the last nybble (x'C' / x'A' / x'E' positive, x'F' unsigned, x'D' / x'B' negative)
+ * i.e. <b>123</b> is stored as x'123C' and <b>-123</b> as x'123D'.
+ *
+ * <p>Values are decoded directly from the nybbles into a long (no intermediate
+ * hex String), the digits and sign are checked in the same pass.
+ * Values that will not fit in a long are decoded into a BigInteger.
+ *
+ * @author Bruce Martin
+ */
+public class PackedDecimal {
+
+	/** Returned by getLong when the field is invalid or the value will not fit in a long */
+	public static final long NOT_A_LONG = Long.MIN_VALUE;
+
+	public static final int SIGN_POSITIVE = 0x0C;
+	public static final int SIGN_NEGATIVE = 0x0D;
+	public static final int SIGN_UNSIGNED = 0x0F;
+
+	private static final int LONG_CHUNK_DIGITS = 18;
+	private static final long[] POWERS_OF_TEN = new long[LONG_CHUNK_DIGITS + 1];
+	private static final BigInteger BIG_CHUNK;
+
+	static {
+		long p = 1;
+		for (int i = 0; i < POWERS_OF_TEN.length; i++) {
+			POWERS_OF_TEN[i] = p;
+			p = p * 10;
+		}
+		BIG_CHUNK = BigInteger.valueOf(POWERS_OF_TEN[LONG_CHUNK_DIGITS]);
+	}
+
+	/**
+	 * Get the number of digits a packed decimal field can hold
+	 * @param len field length (bytes)
+	 * @return number of digits
+	 */
+	public static int getDigits(int len) {
+		return len * 2 - 1;
+	}
+
+	/**
+	 * Get the length (bytes) of a packed decimal field
+	 * @param digits number of digits
+	 * @return field length
+	 */
+	public static int getLength(int digits) {
+		return digits / 2 + 1;
+	}
+
+	/**
+	 * Wether the sign nybble is one of the negative signs (x'D' or x'B')
+	 * @param signNybble sign nybble
+	 * @return wether it is negative
+	 */
+	public static boolean isNegativeSign(int signNybble) {
+		return signNybble == SIGN_NEGATIVE || signNybble == 0x0B;
+	}
+
+	/**
+	 * Check if a field is a valid packed decimal (digits 0-9 and a sign of A-F)
+	 *
+	 * @param record record holding the field
+	 * @param start start of the field (index in the array)
+	 * @param len field length
+	 *
+	 * @return wether it is a valid packed decimal
+	 */
+	public static boolean isValid(byte[] record, int start, int len) {
+		if (len <= 0 || start + len > record.length) {
+			return false;
+		}
+
+		int end = start + len - 1;
+		for (int i = start; i < end; i++) {
+			if ((record[i] & 0xF0) > 0x90 || (record[i] & 0x0F) > 9) {
+				return false;
+			}
+		}
+		return (record[end] & 0xF0) <= 0x90 && (record[end] & 0x0F) > 9;
+	}
+
+	/**
+	 * Decode a packed decimal field into a long.
+	 *
+	 * @param record record holding the field
+	 * @param start start of the field (index in the array)
+	 * @param len field length
+	 *
+	 * @return the field value or NOT_A_LONG if the field is not a valid packed decimal
+	 * or the value will not fit in a long (use getBigInteger for these fields).
+	 */
+	public static long getLong(byte[] record, int start, int len) {
+		if (len <= 0 || start + len > record.length) {
+			return NOT_A_LONG;
+		}
+
+		int end = start + len - 1;
+		int i = start;
+		int b, hi, lo;
+		long value = 0;
+
+		// a long holds at most 19 digits (10 bytes), any bytes before that must be zero
+		for (; i < end - 9; i++) {
+			if (record[i] != 0) {
+				return NOT_A_LONG;
+			}
+		}
+
+		for (; i < end; i++) {
+			b = record[i] & 0xFF;
+			hi = b >>> 4;
+			lo = b & 0x0F;
+			if (hi > 9 || lo > 9) {
+				return NOT_A_LONG;
+			}
+			value = value * 100 + hi * 10 + lo;
+		}
+
+		b = record[end] & 0xFF;
+		hi = b >>> 4;
+		lo = b & 0x0F;
+		if (hi > 9 || lo <= 9 || value > (Long.MAX_VALUE - hi) / 10) {
+			return NOT_A_LONG;
+		}
+		value = value * 10 + hi;
+
+		if (isNegativeSign(lo)) {
+			return -value;
+		}
+		return value;
+	}
+
+	/**
+	 * Decode a packed decimal field of any size into a BigInteger
+	 *
+	 * @param record record holding the field
+	 * @param start start of the field (index in the array)
+	 * @param len field length
+	 *
+	 * @return the field value or null if the field is not a valid packed decimal
+	 */
+	public static BigInteger getBigInteger(byte[] record, int start, int len) {
+		if (len <= 0 || start + len > record.length) {
+			return null;
+		}
+
+		int end = start + len - 1;
+		int b, hi, lo;
+		int chunkDigits = 0;
+		long chunk = 0;
+		BigInteger value = BigInteger.ZERO;
+
+		for (int i = start; i <= end; i++) {
+			b = record[i] & 0xFF;
+			hi = b >>> 4;
+			lo = b & 0x0F;
+			if (hi > 9 || (i < end && lo > 9) || (i == end && lo <= 9)) {
+				return null;
+			}
+
+			chunk = chunk * 10 + hi;
+			if (++chunkDigits == LONG_CHUNK_DIGITS) {
+				value = value.multiply(BIG_CHUNK).add(BigInteger.valueOf(chunk));
+				chunk = 0;
+				chunkDigits = 0;
+			}
+			if (i < end) {
+				chunk = chunk * 10 + lo;
+				if (++chunkDigits == LONG_CHUNK_DIGITS) {
+					value = value.multiply(BIG_CHUNK).add(BigInteger.valueOf(chunk));
+					chunk = 0;
+					chunkDigits = 0;
+				}
+			}
+		}
+		if (chunkDigits > 0) {
+			value = value.multiply(BigInteger.valueOf(POWERS_OF_TEN[chunkDigits])).add(BigInteger.valueOf(chunk));
+		}
+
+		if (isNegativeSign(record[end] & 0x0F)) {
+			return value.negate();
+		}
+		return value;
+	}
+
+	/**
+	 * Decode a packed decimal field into a BigDecimal
+	 *
+	 * @param record record holding the field
+	 * @param start start of the field (index in the array)
+	 * @param len field length
+	 * @param scale number of (assumed) decimal places
+	 *
+	 * @return the field value or null if the field is not a valid packed decimal
+	 */
+	public static BigDecimal getBigDecimal(byte[] record, int start, int len, int scale) {
+		long value = getLong(record, start, len);
+
+		if (value != NOT_A_LONG) {
+			return BigDecimal.valueOf(value, scale);
+		}
+
+		BigInteger bigValue = getBigInteger(record, start, len);
+		if (bigValue == null) {
+			return null;
+		}
+		return new BigDecimal(bigValue, scale);
+	}
+
+	/**
+	 * Store a long in a packed decimal field
+	 *
+	 * @param record record to be updated
+	 * @param start start of the field (index in the array)
+	 * @param len field length
+	 * @param value value to be stored
+	 * @param unsigned wether to use the unsigned sign (x'F') for positive values
+	 *
+	 * @return wether the value was stored. False is returned (and the record is
+	 * not changed) when the value is to big for the field
+	 */
+	public static boolean setLong(byte[] record, int start, int len, long value, boolean unsigned) {
+		int digits = getDigits(len);
+		// work with a negative value so Long.MIN_VALUE can be handled
+		long v = value < 0 ? value : -value;
+
+		if (len <= 0 || (digits < POWERS_OF_TEN.length && v <= -POWERS_OF_TEN[digits])) {
+			return false;
+		}
+
+		int sign = SIGN_POSITIVE;
+		if (value < 0) {
+			sign = SIGN_NEGATIVE;
+		} else if (unsigned) {
+			sign = SIGN_UNSIGNED;
+		}
+
+		int i = start + len - 1;
+		record[i] = (byte) ((-(v % 10) << 4) | sign);
+		v = v / 10;
+
+		while (--i >= start) {
+			if (v == 0) {
+				Arrays.fill(record, start, i + 1, (byte) 0);
+				break;
+			}
+			record[i] = (byte) ((-(v / 10 % 10) << 4) | -(v % 10));
+			v = v / 100;
+		}
+		return true;
+	}
+
+	/**
+	 * Store a BigInteger in a packed decimal field
+	 *
+	 * @param record record to be updated
+	 * @param start start of the field (index in the array)
+	 * @param len field length
+	 * @param value value to be stored
+	 * @param unsigned wether to use the unsigned sign (x'F') for positive values
+	 *
+	 * @return wether the value was stored. False is returned (and the record is
+	 * not changed) when the value is to big for the field
+	 */
+	public static boolean setBigInteger(byte[] record, int start, int len, BigInteger value, boolean unsigned) {
+		if (value.bitLength() < 64) {
+			return setLong(record, start, len, value.longValue(), unsigned);
+		}
+
+		int digits = getDigits(len);
+		BigInteger magnitude = value.abs();
+		if (len <= 0 || magnitude.compareTo(BigInteger.TEN.pow(digits)) >= 0) {
+			return false;
+		}
+
+		int sign = SIGN_POSITIVE;
+		if (value.signum() < 0) {
+			sign = SIGN_NEGATIVE;
+		} else if (unsigned) {
+			sign = SIGN_UNSIGNED;
+		}
+
+		Arrays.fill(record, start, start + len, (byte) 0);
+		int end = start + len - 1;
+		int nybble = 1;   // nybble 0 is the sign
+		record[end] = (byte) sign;
+
+		while (magnitude.signum() > 0) {
+			BigInteger[] qr = magnitude.divideAndRemainder(BIG_CHUNK);
+			long chunk = qr[1].longValue();
+			magnitude = qr[0];
+			for (int j = 0; j < LONG_CHUNK_DIGITS && nybble <= digits; j++) {
+				int idx = end - nybble / 2;
+				int digit = (int) (chunk % 10);
+				if ((nybble & 1) == 1) {
+					record[idx] |= (byte) (digit << 4);
+				} else {
+					record[idx] |= (byte) digit;
+				}
+				chunk = chunk / 10;
+				nybble += 1;
+			}
+		}
+		return true;
+	}
+}